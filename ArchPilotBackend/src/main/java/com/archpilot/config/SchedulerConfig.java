@@ -0,0 +1,81 @@
+package com.archpilot.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Executors for blocking work (LLM calls, file and database I/O, rendering)
+ *
+ * With spring.threads.virtual.enabled=true the same switch that moves Tomcat request handling to
+ * virtual threads also moves these executors to virtual threads. Concurrency limits are unchanged:
+ * they come from the pool sizes below and the analysis pipeline's concurrency and rate budget,
+ * not from the number of available threads.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulerConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchedulerConfig.class);
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    /**
+     * Bounded scheduler for the blocking parts of diagram generation (cache file reads, PlantUML rendering,
+     * artifact writes). Requests beyond max-threads queue here instead of occupying event-loop or common-pool threads,
+     * and tasks beyond max-queued-tasks are rejected, on platform and virtual threads alike.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler diagramScheduler(
+            @Value("${archpilot.diagram.scheduler.max-threads:4}") int maxThreads,
+            @Value("${archpilot.diagram.scheduler.max-queued-tasks:1000}") int maxQueuedTasks) {
+        if (virtualThreads) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(maxQueuedTasks), threadFactory("diagram-gen-"), new ThreadPoolExecutor.AbortPolicy());
+            return Schedulers.fromExecutorService(executor, "diagram-gen");
+        }
+        return Schedulers.newBoundedElastic(maxThreads, maxQueuedTasks, "diagram-gen");
+    }
+
+    /**
+     * Scheduler for short blocking calls inside reactive chains (blocking LLM client calls, blob store and
+     * analysis cache lookups). Callers bound their own concurrency.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler blockingIoScheduler() {
+        if (virtualThreads) {
+            logger.info("Running blocking I/O on virtual threads");
+            return Schedulers.fromExecutorService(Executors.newThreadPerTaskExecutor(threadFactory("blocking-io-")), "blocking-io");
+        }
+        return Schedulers.newBoundedElastic(Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE,
+                                            Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "blocking-io");
+    }
+
+    /**
+     * Executor of GeminiClassAnalyzerAgentService's parallel class analysis
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService classAnalyzerExecutor(@Value("${archpilot.analyzer.threads:2}") int threads) {
+        return Executors.newFixedThreadPool(threads, threadFactory("class-analyzer-"));
+    }
+
+    private ThreadFactory threadFactory(String prefix) {
+        return virtualThreads
+                ? Thread.ofVirtual().name(prefix, 0).factory()
+                : Thread.ofPlatform().name(prefix, 0).daemon(true).factory();
+    }
+}
@@ -1,25 +1,73 @@
 package com.archpilot.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+
+import com.archpilot.service.fetch.ConnectionPoolMetricsRegistry;
+
+import reactor.netty.http.HttpProtocol;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 import java.time.Duration;
 
 @Configuration
 public class WebClientConfig {
-    
+
     @Bean
     public WebClient.Builder webClientBuilder() {
         HttpClient httpClient = HttpClient.create()
                 .responseTimeout(Duration.ofSeconds(10))
                 .followRedirect(true);
-        
+
         return WebClient.builder()
                 .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .defaultHeader("User-Agent", "ArchPilot-Repository-Verifier/1.0")
                 .defaultHeader("Accept", "application/vnd.github.v3+json");
     }
-}
\ No newline at end of file
+
+    /**
+     * Bounded connection pool shared by all raw file fetches.
+     * Pools are kept per remote host, so max-connections-per-host is also the per-host concurrency limit.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider fileFetchConnectionProvider(
+            ConnectionPoolMetricsRegistry metricsRegistry,
+            @Value("${archpilot.http.fetch.max-connections-per-host:16}") int maxConnectionsPerHost,
+            @Value("${archpilot.http.fetch.max-pending-acquires:500}") int maxPendingAcquires,
+            @Value("${archpilot.http.fetch.max-idle-seconds:60}") int maxIdleSeconds,
+            @Value("${archpilot.http.fetch.max-life-minutes:10}") int maxLifeMinutes) {
+        return ConnectionProvider.builder("file-fetch")
+                .maxConnections(maxConnectionsPerHost)
+                .pendingAcquireMaxCount(maxPendingAcquires)
+                .pendingAcquireTimeout(Duration.ofSeconds(30))
+                .maxIdleTime(Duration.ofSeconds(maxIdleSeconds))
+                .maxLifeTime(Duration.ofMinutes(maxLifeMinutes))
+                .evictInBackground(Duration.ofSeconds(30))
+                .metrics(true, () -> metricsRegistry)
+                .build();
+    }
+
+    /**
+     * Keep-alive, HTTP/2 capable client for raw file content (falls back to HTTP/1.1 when not negotiated)
+     */
+    @Bean
+    public WebClient fileFetchWebClient(WebClient.Builder webClientBuilder, ConnectionProvider fileFetchConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(fileFetchConnectionProvider)
+                .protocol(HttpProtocol.H2, HttpProtocol.HTTP11)
+                .keepAlive(true)
+                .compress(true)
+                .responseTimeout(Duration.ofSeconds(15))
+                .followRedirect(true);
+
+        return webClientBuilder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .defaultHeader(HttpHeaders.ACCEPT, "*/*")
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(2 * 1024 * 1024)) // 2MB
+                .build();
+    }
+}
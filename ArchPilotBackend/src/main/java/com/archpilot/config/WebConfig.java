@@ -20,6 +20,6 @@ public class WebConfig implements WebMvcConfigurer {
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(tokenGuardrailInterceptor)
                 .addPathPatterns("/api/agent/**", "/api/chat/**", "/api/uml/**")
-                .excludePathPatterns("/api/agent/health"); // Exclude health check from rate limiting
+                .excludePathPatterns("/api/agent/health", "/api/agent/usage"); // Exclude health check and usage stats from rate limiting
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.archpilot.controller;
 
+import java.util.Map;
+
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -9,6 +11,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.archpilot.service.agent.GeminiChatAgentService;
+import com.archpilot.service.llm.LlmPriority;
+import com.archpilot.service.llm.LlmUsageTracker;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -20,18 +24,26 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 public class AgentController {
 
     private final GeminiChatAgentService geminiChatAgentService;
+    private final LlmUsageTracker llmUsageTracker;
 
-    public AgentController(GeminiChatAgentService geminiChatAgentService) {
+    public AgentController(GeminiChatAgentService geminiChatAgentService, LlmUsageTracker llmUsageTracker) {
         this.geminiChatAgentService = geminiChatAgentService;
+        this.llmUsageTracker = llmUsageTracker;
     }
 
     @PostMapping("/ask")
     @Operation(summary = "Ask a question to Gemini AI", description = "Submit a question and get an AI-generated answer")
     public ResponseEntity<String> askQuestion(@RequestBody String question) {
-        String answer = geminiChatAgentService.askQuestion(question);
+        String answer = geminiChatAgentService.askQuestion(question, LlmPriority.INTERACTIVE);
         return ResponseEntity.ok(answer);
     }
 
+    @GetMapping("/usage")
+    @Operation(summary = "LLM token usage", description = "Prompt and completion tokens reported by Gemini, in total, per endpoint and per user")
+    public ResponseEntity<Map<String, Object>> usage() {
+        return ResponseEntity.ok(llmUsageTracker.getStats());
+    }
+
     @GetMapping("/health")
     @Operation(summary = "Health check", description = "Check if the agent service is running")
     public ResponseEntity<String> health() {
@@ -1,5 +1,7 @@
 package com.archpilot.controller;
 
+import java.util.Map;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -16,6 +18,11 @@ import com.archpilot.facade.RepositoryFacade;
 import com.archpilot.model.RepositoryBranchesData;
 import com.archpilot.model.RepositoryInfo;
 import com.archpilot.model.RepositoryTreeData;
+import com.archpilot.service.cache.BlobContentStore;
+import com.archpilot.service.cache.RepositoryTreeCache;
+import com.archpilot.service.fetch.ConnectionPoolMetricsRegistry;
+import com.archpilot.service.mirror.GitMirrorManager;
+import com.archpilot.service.provider.PaginatedApiClient;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -33,6 +40,21 @@ public class RepositoryController {
     @Autowired
     private RepositoryFacade repositoryFacade;
     
+    @Autowired
+    private ConnectionPoolMetricsRegistry connectionPoolMetricsRegistry;
+    
+    @Autowired
+    private BlobContentStore blobContentStore;
+    
+    @Autowired
+    private RepositoryTreeCache repositoryTreeCache;
+    
+    @Autowired
+    private GitMirrorManager gitMirrorManager;
+    
+    @Autowired
+    private PaginatedApiClient paginatedApiClient;
+    
     @PostMapping("/verify")
     @Operation(summary = "Verify repository accessibility", description = "Verifies if a GitHub or GitLab repository URL is valid and accessible")
     @ApiResponses(value = {
@@ -76,7 +98,7 @@ public class RepositoryController {
     public Mono<ResponseEntity<com.archpilot.model.ApiResponse<RepositoryBranchesData>>> getRepositoryBranchesGet(
             @RequestParam("url") @Parameter(description = "Repository URL") String repositoryUrl,
             @RequestParam(value = "token", required = false) @Parameter(description = "Optional access token") String accessToken,
-            @RequestParam(value = "limit", defaultValue = "50") @Parameter(description = "Maximum branches (1-100)") Integer limit) {
+            @RequestParam(value = "limit", defaultValue = "50") @Parameter(description = "Maximum branches (1-1000)") Integer limit) {
         return repositoryFacade.getRepositoryBranches(repositoryUrl, accessToken, limit).map(ResponseEntity::ok);
     }
     
@@ -94,5 +116,16 @@ public class RepositoryController {
         return repositoryFacade.getRepositoryTree(repositoryUrl, accessToken, branch, recursive == 1).map(ResponseEntity::ok);
     }
     
+    @GetMapping("/fetch/metrics")
+    @Operation(summary = "File fetch metrics", description = "Returns connection pool usage, per-host request counters, blob cache, tree cache, local mirror and paginated API usage of the fetch path")
+    public ResponseEntity<com.archpilot.model.ApiResponse<Map<String, Object>>> getFetchMetrics() {
+        Map<String, Object> metrics = connectionPoolMetricsRegistry.snapshot();
+        metrics.put("blobCache", blobContentStore.getStats());
+        metrics.put("treeCache", repositoryTreeCache.getStats());
+        metrics.put("gitMirrors", gitMirrorManager.getStats());
+        metrics.put("apiPages", paginatedApiClient.getStats());
+        return ResponseEntity.ok(com.archpilot.model.ApiResponse.success("Fetch metrics retrieved successfully", metrics));
+    }
+    
 
 }
\ No newline at end of file
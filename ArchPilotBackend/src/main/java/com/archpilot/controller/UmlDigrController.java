@@ -1,19 +1,33 @@
 package com.archpilot.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.archpilot.facade.RepositoryFacade;
+import com.archpilot.service.cache.ClassAnalysisCache;
+import com.archpilot.service.job.DiagramJob;
+import com.archpilot.service.job.DiagramJobEvent;
+import com.archpilot.service.job.DiagramJobService;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @RestController
@@ -25,9 +39,15 @@ public class UmlDigrController {
     @Autowired
     private RepositoryFacade repositoryFacade;
     
+    @Autowired
+    private ClassAnalysisCache classAnalysisCache;
+    
+    @Autowired
+    private DiagramJobService diagramJobService;
+    
     @GetMapping("/classDigrGenerator")
     @Operation(summary = "Generate class diagram with PNG output and SHA-based caching", 
-               description = "Retrieves Java class files, generates PlantUML diagram, converts to PNG, and returns base64-encoded PNG data. Uses commit SHA-based caching to avoid regenerating unchanged projects - if an image already exists for the same commit SHA, returns the cached version instead of recreating it.")
+               description = "Retrieves Java class files, generates PlantUML diagram, converts to PNG, and returns base64-encoded PNG data. Uses commit SHA-based caching to avoid regenerating unchanged projects - if an image already exists for the same commit SHA, returns the cached version instead of recreating it. With incremental=true only the classes changed since a previously generated commit (GitHub compare API) are re-analyzed.")
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Class diagram generation completed with PNG output (new or cached)"),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Missing or invalid repository URL parameter")
@@ -36,8 +56,81 @@ public class UmlDigrController {
             @RequestParam("url") @Parameter(description = "Repository URL") String repositoryUrl,
             @RequestParam(value = "token", required = false) @Parameter(description = "Optional access token") String accessToken,
             @RequestParam(value = "branch", required = false) @Parameter(description = "Branch name (defaults to default branch)") String branch,
-            @RequestParam(value = "recursive", defaultValue = "0") @Parameter(description = "Fetch tree recursively (1 for recursive, 0 for non-recursive)") Integer recursive) {
-        return repositoryFacade.generateClassDiagram(repositoryUrl, accessToken, branch, recursive == 1).map(ResponseEntity::ok);
+            @RequestParam(value = "recursive", defaultValue = "0") @Parameter(description = "Fetch tree recursively (1 for recursive, 0 for non-recursive)") Integer recursive,
+            @RequestParam(value = "incremental", defaultValue = "false") @Parameter(description = "Re-analyze only classes changed since a previously generated commit") boolean incremental,
+            @RequestParam(value = "baseSha", required = false) @Parameter(description = "Previously generated commit SHA (defaults to the latest generated diagram)") String baseSha) {
+        return repositoryFacade.generateClassDiagram(repositoryUrl, accessToken, branch, recursive == 1, incremental, baseSha).map(ResponseEntity::ok);
+    }
+    
+    @PostMapping("/jobs")
+    @Operation(summary = "Submit class diagram generation job", 
+               description = "Starts class diagram generation in the background and returns a job id immediately. Poll /jobs/{jobId} for status or subscribe to /jobs/{jobId}/events for Server-Sent progress events (tree fetched, classes fetched/analyzed with partial results, rendered).")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "202", description = "Job accepted"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "503", description = "Too many jobs in progress")
+    })
+    public ResponseEntity<com.archpilot.model.ApiResponse<DiagramJob>> submitClassDiagramJob(
+            @RequestParam("url") @Parameter(description = "Repository URL") String repositoryUrl,
+            @RequestParam(value = "token", required = false) @Parameter(description = "Optional access token") String accessToken,
+            @RequestParam(value = "branch", required = false) @Parameter(description = "Branch name (defaults to default branch)") String branch,
+            @RequestParam(value = "recursive", defaultValue = "0") @Parameter(description = "Fetch tree recursively (1 for recursive, 0 for non-recursive)") Integer recursive,
+            @RequestParam(value = "incremental", defaultValue = "false") @Parameter(description = "Re-analyze only classes changed since a previously generated commit") boolean incremental,
+            @RequestParam(value = "baseSha", required = false) @Parameter(description = "Previously generated commit SHA (defaults to the latest generated diagram)") String baseSha) {
+        try {
+            DiagramJob job = diagramJobService.submit(repositoryUrl, branch, listener -> 
+                repositoryFacade.generateClassDiagram(repositoryUrl, accessToken, branch, recursive == 1, incremental, baseSha, listener));
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(com.archpilot.model.ApiResponse.success("Class diagram job submitted", job));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(com.archpilot.model.ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/jobs/{jobId}")
+    @Operation(summary = "Get class diagram job status", description = "Returns the stage, class counters and, once finished, the result of a class diagram job")
+    public ResponseEntity<com.archpilot.model.ApiResponse<DiagramJob>> getClassDiagramJob(
+            @PathVariable("jobId") @Parameter(description = "Job id returned on submission") String jobId) {
+        return diagramJobService.getJob(jobId)
+            .map(job -> ResponseEntity.ok(com.archpilot.model.ApiResponse.success("Job status retrieved successfully", job)))
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(com.archpilot.model.ApiResponse.error("Job not found: " + jobId)));
+    }
+    
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream class diagram job progress", description = "Server-Sent Events stream of job progress. Events already emitted are replayed first; the stream completes when the job finishes.")
+    public Flux<ServerSentEvent<DiagramJobEvent>> streamClassDiagramJobEvents(
+            @PathVariable("jobId") @Parameter(description = "Job id returned on submission") String jobId) {
+        return diagramJobService.getEvents(jobId)
+            .map(event -> ServerSentEvent.<DiagramJobEvent>builder(event)
+                .id(String.valueOf(event.getSequence()))
+                .event(event.getType())
+                .build());
+    }
+    
+    @GetMapping("/analysis-cache")
+    @Operation(summary = "Class analysis cache statistics", description = "Returns hit/miss counters and the model id of the per-class LLM analysis cache")
+    public ResponseEntity<com.archpilot.model.ApiResponse<Map<String, Object>>> getAnalysisCacheStats() {
+        return ResponseEntity.ok(com.archpilot.model.ApiResponse.success("Analysis cache statistics retrieved successfully", classAnalysisCache.getStats()));
+    }
+    
+    @DeleteMapping("/analysis-cache")
+    @Operation(summary = "Invalidate class analysis cache", 
+               description = "Removes cached per-class LLM analyses so they are recomputed on the next diagram generation. Pass blobSha to drop a single file version, model to drop everything produced by one model, or neither to clear the whole cache.")
+    public ResponseEntity<com.archpilot.model.ApiResponse<Map<String, Object>>> invalidateAnalysisCache(
+            @RequestParam(value = "blobSha", required = false) @Parameter(description = "Git blob SHA of the class file") String blobSha,
+            @RequestParam(value = "model", required = false) @Parameter(description = "Model id whose analyses should be removed") String model) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (blobSha != null && !blobSha.isBlank()) {
+            result.put("blobSha", blobSha);
+            result.put("removedEntries", classAnalysisCache.invalidateBlob(blobSha));
+        } else if (model != null && !model.isBlank()) {
+            result.put("model", model);
+            result.put("removedEntries", classAnalysisCache.invalidateModel(model));
+        } else {
+            result.put("removedEntries", classAnalysisCache.invalidateAll());
+        }
+        return ResponseEntity.ok(com.archpilot.model.ApiResponse.success("Analysis cache invalidated", result));
     }
     
     @GetMapping("/health")
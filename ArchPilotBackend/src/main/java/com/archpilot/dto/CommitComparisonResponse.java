@@ -0,0 +1,63 @@
+package com.archpilot.dto;
+
+import java.util.List;
+
+public class CommitComparisonResponse {
+    private String status;
+    private String message;
+    private String repositoryUrl;
+    private String baseSha;
+    private String headSha;
+    private List<String> changedPaths;   // Added, modified and renamed (new path) files
+    private List<String> removedPaths;   // Removed files and old paths of renamed files
+    private boolean complete;            // False when GitHub truncated the file list
+    
+    public CommitComparisonResponse() {}
+    
+    public CommitComparisonResponse(String status, String message) {
+        this.status = status;
+        this.message = message;
+    }
+    
+    public static CommitComparisonResponse success(String repositoryUrl, String baseSha, String headSha,
+                                                   List<String> changedPaths, List<String> removedPaths,
+                                                   boolean complete) {
+        CommitComparisonResponse response = new CommitComparisonResponse("Success", "Commits compared successfully");
+        response.repositoryUrl = repositoryUrl;
+        response.baseSha = baseSha;
+        response.headSha = headSha;
+        response.changedPaths = changedPaths;
+        response.removedPaths = removedPaths;
+        response.complete = complete;
+        return response;
+    }
+    
+    public static CommitComparisonResponse error(String message) {
+        return new CommitComparisonResponse("Error", message);
+    }
+    
+    // Getters and Setters
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+    
+    public String getRepositoryUrl() { return repositoryUrl; }
+    public void setRepositoryUrl(String repositoryUrl) { this.repositoryUrl = repositoryUrl; }
+    
+    public String getBaseSha() { return baseSha; }
+    public void setBaseSha(String baseSha) { this.baseSha = baseSha; }
+    
+    public String getHeadSha() { return headSha; }
+    public void setHeadSha(String headSha) { this.headSha = headSha; }
+    
+    public List<String> getChangedPaths() { return changedPaths; }
+    public void setChangedPaths(List<String> changedPaths) { this.changedPaths = changedPaths; }
+    
+    public List<String> getRemovedPaths() { return removedPaths; }
+    public void setRemovedPaths(List<String> removedPaths) { this.removedPaths = removedPaths; }
+    
+    public boolean isComplete() { return complete; }
+    public void setComplete(boolean complete) { this.complete = complete; }
+}
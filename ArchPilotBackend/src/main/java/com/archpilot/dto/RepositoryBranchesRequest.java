@@ -1,15 +1,11 @@
 package com.archpilot.dto;
 
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.Pattern;
 
 public class RepositoryBranchesRequest {
     
     @NotBlank(message = "Repository URL is required")
-    @Pattern(
-        regexp = "^https://github\\.com/[\\w.-]+/[\\w.-]+/?$|^https://gitlab\\.com/[\\w.-]+/[\\w.-]+/?$",
-        message = "Invalid repository URL. Only GitHub and GitLab URLs are supported"
-    )
+    @RepositoryUrl
     private String repositoryUrl;
     
     private String accessToken; // Optional for private repositories
@@ -47,7 +43,7 @@ public class RepositoryBranchesRequest {
     }
     
     public void setLimit(Integer limit) {
-        this.limit = limit != null && limit > 0 && limit <= 100 ? limit : 50;
+        this.limit = limit != null && limit > 0 && limit <= 1000 ? limit : 50;
     }
     
     @Override
@@ -1,15 +1,11 @@
 package com.archpilot.dto;
 
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.Pattern;
 
 public class RepositoryTreeRequest {
     
     @NotBlank(message = "Repository URL is required")
-    @Pattern(
-        regexp = "^https://github\\.com/[\\w.-]+/[\\w.-]+/?$|^https://gitlab\\.com/[\\w.-]+/[\\w.-]+/?$",
-        message = "Invalid repository URL. Only GitHub and GitLab URLs are supported"
-    )
+    @RepositoryUrl
     private String repositoryUrl;
     
     private String accessToken; // Optional for private repositories
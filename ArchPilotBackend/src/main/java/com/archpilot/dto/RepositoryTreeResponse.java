@@ -2,6 +2,9 @@ package com.archpilot.dto;
 
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import com.archpilot.model.CompactRepositoryTree;
 import com.archpilot.model.TreeNode;
 
 public class RepositoryTreeResponse {
@@ -11,7 +14,7 @@ public class RepositoryTreeResponse {
     private String branch;
     private String platform;
     private String commitSha;  // Add commit SHA field
-    private List<TreeNode> tree;
+    private CompactRepositoryTree tree;
     
     public RepositoryTreeResponse() {}
     
@@ -25,6 +28,17 @@ public class RepositoryTreeResponse {
         RepositoryTreeResponse response = new RepositoryTreeResponse("Success", "Tree structure retrieved successfully");
         response.repositoryUrl = repositoryUrl;
         response.branch = branch;
+        response.tree = tree != null ? CompactRepositoryTree.of(tree) : null;
+        response.platform = platform;
+        response.commitSha = commitSha;
+        return response;
+    }
+    
+    public static RepositoryTreeResponse success(String repositoryUrl, String branch, 
+                                               CompactRepositoryTree tree, String platform, String commitSha) {
+        RepositoryTreeResponse response = new RepositoryTreeResponse("Success", "Tree structure retrieved successfully");
+        response.repositoryUrl = repositoryUrl;
+        response.branch = branch;
         response.tree = tree;
         response.platform = platform;
         response.commitSha = commitSha;
@@ -54,6 +68,11 @@ public class RepositoryTreeResponse {
     public String getCommitSha() { return commitSha; }
     public void setCommitSha(String commitSha) { this.commitSha = commitSha; }
     
-    public List<TreeNode> getTree() { return tree; }
-    public void setTree(List<TreeNode> tree) { this.tree = tree; }
+    // Materialized on every call; prefer getCompactTree()
+    public List<TreeNode> getTree() { return tree != null ? tree.toTreeNodes() : null; }
+    public void setTree(List<TreeNode> tree) { this.tree = tree != null ? CompactRepositoryTree.of(tree) : null; }
+    
+    @JsonIgnore
+    public CompactRepositoryTree getCompactTree() { return tree; }
+    public void setCompactTree(CompactRepositoryTree tree) { this.tree = tree; }
 }
\ No newline at end of file
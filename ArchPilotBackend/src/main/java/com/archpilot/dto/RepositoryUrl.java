@@ -0,0 +1,28 @@
+package com.archpilot.dto;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+/**
+ * Repository URL that one of the repository providers serves
+ *
+ * GitHub and GitLab URLs are always accepted; file: URLs only below archpilot.provider.local.roots.
+ */
+@Documented
+@Constraint(validatedBy = RepositoryUrlValidator.class)
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RepositoryUrl {
+
+    String message() default "Invalid repository URL. Only GitHub, GitLab and configured local repository URLs are supported";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
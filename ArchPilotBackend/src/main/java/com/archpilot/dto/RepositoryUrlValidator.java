@@ -0,0 +1,32 @@
+package com.archpilot.dto;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.archpilot.service.provider.RepositoryProviderRegistry;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+/**
+ * Validates {@link RepositoryUrl} against the registered repository providers
+ *
+ * Main Context:
+ * - A request is accepted exactly when a provider will serve it, so the URL rules live in the
+ *   providers only (e.g. the configured roots of LocalRepositoryProvider)
+ * - Created by Spring's validator factory, which injects the registry
+ */
+public class RepositoryUrlValidator implements ConstraintValidator<RepositoryUrl, String> {
+
+    private final RepositoryProviderRegistry providerRegistry;
+
+    @Autowired
+    public RepositoryUrlValidator(RepositoryProviderRegistry providerRegistry) {
+        this.providerRegistry = providerRegistry;
+    }
+
+    @Override
+    public boolean isValid(String repositoryUrl, ConstraintValidatorContext context) {
+        // Missing URLs are reported by @NotBlank
+        return repositoryUrl == null || repositoryUrl.isBlank() || providerRegistry.find(repositoryUrl.trim()).isPresent();
+    }
+}
@@ -0,0 +1,82 @@
+package com.archpilot.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Entity storing a cached LLM class analysis, keyed by (blob SHA, prompt template hash, model id)
+ */
+@Entity
+@Table(name = "class_analysis_cache",
+       indexes = {
+           @Index(name = "idx_class_analysis_cache_blob_sha", columnList = "blob_sha"),
+           @Index(name = "idx_class_analysis_cache_model_id", columnList = "model_id")
+       })
+public class ClassAnalysisCacheEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "cache_key", nullable = false, unique = true)
+    private String cacheKey;
+
+    @Column(name = "blob_sha", nullable = false, length = 40)
+    private String blobSha;
+
+    @Column(name = "prompt_hash", nullable = false)
+    private String promptHash;
+
+    @Column(name = "model_id", nullable = false)
+    private String modelId;
+
+    @Column(name = "class_name")
+    private String className;
+
+    @Column(name = "result_json", nullable = false, columnDefinition = "TEXT")
+    private String resultJson;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public ClassAnalysisCacheEntry() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public ClassAnalysisCacheEntry(String cacheKey, String blobSha, String promptHash, String modelId,
+                                   String className, String resultJson) {
+        this();
+        this.cacheKey = cacheKey;
+        this.blobSha = blobSha;
+        this.promptHash = promptHash;
+        this.modelId = modelId;
+        this.className = className;
+        this.resultJson = resultJson;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getCacheKey() { return cacheKey; }
+    public void setCacheKey(String cacheKey) { this.cacheKey = cacheKey; }
+
+    public String getBlobSha() { return blobSha; }
+    public void setBlobSha(String blobSha) { this.blobSha = blobSha; }
+
+    public String getPromptHash() { return promptHash; }
+    public void setPromptHash(String promptHash) { this.promptHash = promptHash; }
+
+    public String getModelId() { return modelId; }
+    public void setModelId(String modelId) { this.modelId = modelId; }
+
+    public String getClassName() { return className; }
+    public void setClassName(String className) { this.className = className; }
+
+    public String getResultJson() { return resultJson; }
+    public void setResultJson(String resultJson) { this.resultJson = resultJson; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
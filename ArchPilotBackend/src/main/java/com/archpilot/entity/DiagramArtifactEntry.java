@@ -0,0 +1,65 @@
+package com.archpilot.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Entity indexing the generated diagram artifacts of a repository at a commit SHA
+ */
+@Entity
+@Table(name = "diagram_artifacts",
+       uniqueConstraints = @UniqueConstraint(name = "uk_diagram_artifacts_repo_sha",
+                                             columnNames = {"repository_name", "project_sha"}))
+public class DiagramArtifactEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "repository_name", nullable = false)
+    private String repositoryName;
+
+    @Column(name = "project_sha", nullable = false)
+    private String projectSha;
+
+    @Column(name = "file_timestamp", nullable = false)
+    private String timestamp;
+
+    @Column(name = "class_count", nullable = false)
+    private Integer classCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public DiagramArtifactEntry() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public DiagramArtifactEntry(String repositoryName, String projectSha, String timestamp, Integer classCount) {
+        this();
+        this.repositoryName = repositoryName;
+        this.projectSha = projectSha;
+        this.timestamp = timestamp;
+        this.classCount = classCount;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getRepositoryName() { return repositoryName; }
+    public void setRepositoryName(String repositoryName) { this.repositoryName = repositoryName; }
+
+    public String getProjectSha() { return projectSha; }
+    public void setProjectSha(String projectSha) { this.projectSha = projectSha; }
+
+    public String getTimestamp() { return timestamp; }
+    public void setTimestamp(String timestamp) { this.timestamp = timestamp; }
+
+    public Integer getClassCount() { return classCount; }
+    public void setClassCount(Integer classCount) { this.classCount = classCount; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
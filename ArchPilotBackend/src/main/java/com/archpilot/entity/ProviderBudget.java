@@ -0,0 +1,80 @@
+package com.archpilot.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entity holding the LLM provider budget shared by every instance
+ *
+ * One row per provider: how far the provider's timeline has been leased out, the back-off after a
+ * throttled call, and the requests counted against the current provider day (reset in place).
+ */
+@Entity
+@Table(name = "provider_budgets")
+public class ProviderBudget {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "provider", nullable = false, unique = true)
+    private String provider;
+
+    @Column(name = "leased_until", nullable = false)
+    private Instant leasedUntil;
+
+    @Column(name = "paused_until", nullable = false)
+    private Instant pausedUntil;
+
+    @Column(name = "budget_day", nullable = false)
+    private LocalDate budgetDay;
+
+    @Column(name = "requests_today", nullable = false)
+    private Long requestsToday;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public ProviderBudget() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public ProviderBudget(String provider, LocalDate budgetDay) {
+        this();
+        this.provider = provider;
+        this.leasedUntil = Instant.EPOCH;
+        this.pausedUntil = Instant.EPOCH;
+        this.budgetDay = budgetDay;
+        this.requestsToday = 0L;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getProvider() { return provider; }
+    public void setProvider(String provider) { this.provider = provider; }
+
+    public Instant getLeasedUntil() { return leasedUntil; }
+    public void setLeasedUntil(Instant leasedUntil) { this.leasedUntil = leasedUntil; }
+
+    public Instant getPausedUntil() { return pausedUntil; }
+    public void setPausedUntil(Instant pausedUntil) { this.pausedUntil = pausedUntil; }
+
+    public LocalDate getBudgetDay() { return budgetDay; }
+    public void setBudgetDay(LocalDate budgetDay) { this.budgetDay = budgetDay; }
+
+    public Long getRequestsToday() { return requestsToday; }
+    public void setRequestsToday(Long requestsToday) { this.requestsToday = requestsToday; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    @PreUpdate
+    public void preUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+}
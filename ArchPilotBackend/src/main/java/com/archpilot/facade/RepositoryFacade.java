@@ -1,6 +1,7 @@
 package com.archpilot.facade;
 
 import java.util.Map;
+import java.util.function.Predicate;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,11 +11,15 @@ import org.springframework.stereotype.Component;
 import com.archpilot.dto.RepositoryBranchesRequest;
 import com.archpilot.dto.RepositoryVerificationRequest;
 import com.archpilot.model.ApiResponse;
+import com.archpilot.model.CompactRepositoryTree;
 import com.archpilot.model.RepositoryBranchesData;
 import com.archpilot.model.RepositoryInfo;
 import com.archpilot.model.RepositoryTreeData;
 import com.archpilot.service.ClassDiagramGeneratorService;
 import com.archpilot.service.RepositoryVerificationService;
+import com.archpilot.service.analysis.DiagramProgressListener;
+import com.archpilot.service.llm.LlmUsageTracker;
+import com.archpilot.service.support.SingleFlight;
 
 import reactor.core.publisher.Mono;
 
@@ -22,6 +27,8 @@ import reactor.core.publisher.Mono;
 public class RepositoryFacade {
     
     private static final Logger logger = LoggerFactory.getLogger(RepositoryFacade.class);
+    // Class diagrams only need Java sources, so the rest of the tree is dropped while it is parsed
+    private static final Predicate<String> JAVA_SOURCES = path -> path.endsWith(".java");
     
     @Autowired
     private RepositoryVerificationService repositoryVerificationService;
@@ -29,6 +36,8 @@ public class RepositoryFacade {
     @Autowired
     private ClassDiagramGeneratorService classDiagramGeneratorService;
     
+    private final SingleFlight<String, ApiResponse<Object>> classDiagramRequests = new SingleFlight<>();
+    
     public Mono<ApiResponse<RepositoryInfo>> verifyRepository(RepositoryVerificationRequest request) {
         logger.info("Processing repository verification request: {}", request.getRepositoryUrl());
         
@@ -99,27 +108,86 @@ public class RepositoryFacade {
     
     public Mono<ApiResponse<Object>> generateClassDiagram(String repositoryUrl, String accessToken, 
                                                          String branch, Boolean recursive) {
-        logger.info("Processing class diagram generation request: {}", repositoryUrl);
+        return generateClassDiagram(repositoryUrl, accessToken, branch, recursive, false, null);
+    }
+    
+    public Mono<ApiResponse<Object>> generateClassDiagram(String repositoryUrl, String accessToken, 
+                                                         String branch, Boolean recursive,
+                                                         boolean incremental, String baseSha) {
+        return generateClassDiagram(repositoryUrl, accessToken, branch, recursive, incremental, baseSha, DiagramProgressListener.NOOP);
+    }
+    
+    /**
+     * Generate a class diagram, optionally re-analyzing only the classes changed since a previous commit
+     * 
+     * @param incremental Reuse the analysis of a previously generated commit for unchanged classes
+     * @param baseSha Previously generated commit; defaults to the latest generated diagram of the repository
+     * @param listener Receives generation progress; requests with a listener are never merged with other requests
+     */
+    public Mono<ApiResponse<Object>> generateClassDiagram(String repositoryUrl, String accessToken, 
+                                                         String branch, Boolean recursive,
+                                                         boolean incremental, String baseSha,
+                                                         DiagramProgressListener listener) {
+        logger.info("Processing class diagram generation request: {} (incremental: {})", repositoryUrl, incremental);
         
-        return repositoryVerificationService
-                .getRepositoryTree(repositoryUrl, accessToken, branch, recursive)
-                .map(response -> {
-                    if ("Success".equals(response.getStatus())) {
-                        RepositoryTreeData treeData = mapToTreeData(response);
-                        RepositoryTreeData refinedTreeData = refineToJavaClasses(treeData);
-                        
-                        // Generate class diagram image using the new method
-                        com.archpilot.dto.ClassDiagramResponse diagramResult = 
-                            classDiagramGeneratorService.generateClassDiagramImage(refinedTreeData);
-                        
-                        return ApiResponse.<Object>success(diagramResult.getMessage(), diagramResult);
-                    } else {
-                        return ApiResponse.<Object>error(response.getMessage());
+        // Identical concurrent requests share one tree fetch and generation; the token is part of the key
+        // so callers never receive a result produced with someone else's credentials
+        String requestKey = String.join("|", String.valueOf(repositoryUrl), String.valueOf(branch), 
+                                        String.valueOf(recursive), String.valueOf(incremental), 
+                                        String.valueOf(baseSha), String.valueOf(accessToken));
+        
+        Mono<ApiResponse<Object>> generation = repositoryVerificationService
+                .getRepositoryTree(repositoryUrl, accessToken, branch, recursive, JAVA_SOURCES)
+                .flatMap(response -> {
+                    if (!"Success".equals(response.getStatus())) {
+                        return Mono.just(ApiResponse.<Object>error(response.getMessage()));
                     }
+                    
+                    RepositoryTreeData treeData = mapToTreeData(response);
+                    RepositoryTreeData refinedTreeData = refineToJavaClasses(treeData);
+                    listener.onStage("TREE_FETCHED", "Repository tree fetched at " + treeData.getCommitSha());
+                    
+                    Mono<com.archpilot.dto.ClassDiagramResponse> diagramResult = incremental
+                        ? generateClassDiagramIncremental(refinedTreeData, accessToken, baseSha, listener)
+                        : classDiagramGeneratorService.generateClassDiagramImage(refinedTreeData, listener);
+                    
+                    return diagramResult.map(result -> ApiResponse.<Object>success(result.getMessage(), result));
                 })
                 .onErrorResume(ex -> {
                     logger.error("Error in class diagram generation facade: {}", ex.getMessage());
                     return Mono.just(ApiResponse.<Object>error("Internal server error: " + ex.getMessage()));
+                })
+                // The analysis runs on pipeline threads; its LLM calls are still charged to this request's user
+                .contextWrite(LlmUsageTracker.requestUsageContext());
+        
+        // A joined request would miss the progress of the one it joins
+        return listener == DiagramProgressListener.NOOP 
+            ? classDiagramRequests.execute(requestKey, () -> generation) 
+            : generation;
+    }
+    
+    private Mono<com.archpilot.dto.ClassDiagramResponse> generateClassDiagramIncremental(RepositoryTreeData treeData, 
+                                                                                        String accessToken, String baseSha,
+                                                                                        DiagramProgressListener listener) {
+        String headSha = treeData.getCommitSha();
+        String base = baseSha != null && !baseSha.isBlank() 
+            ? baseSha.trim() 
+            : classDiagramGeneratorService.findLatestGeneratedSha(treeData.getRepositoryUrl());
+        
+        if (base == null || headSha == null || base.equals(headSha)) {
+            // Nothing to diff against (or nothing changed): the regular path handles first runs and exact cache hits
+            return classDiagramGeneratorService.generateClassDiagramImage(treeData, listener);
+        }
+        
+        return repositoryVerificationService
+                .compareCommits(treeData.getRepositoryUrl(), accessToken, base, headSha)
+                .flatMap(comparison -> {
+                    if ("Success".equals(comparison.getStatus()) && comparison.isComplete()) {
+                        return classDiagramGeneratorService.generateClassDiagramImageIncremental(
+                            treeData, base, comparison.getChangedPaths(), listener);
+                    }
+                    logger.info("Commit comparison unavailable ({}), running full generation", comparison.getMessage());
+                    return classDiagramGeneratorService.generateClassDiagramImage(treeData, listener);
                 });
     }
     
@@ -136,72 +204,22 @@ public class RepositoryFacade {
     }
     
     private RepositoryTreeData mapToTreeData(com.archpilot.dto.RepositoryTreeResponse response) {
-        if (response.getTree() == null) {
+        if (response.getCompactTree() == null) {
             return null;
         }
         
         return new RepositoryTreeData(response.getRepositoryUrl(), response.getBranch(), 
-                                    response.getTree(), response.getPlatform(), response.getCommitSha());
-    }
-    
-    private com.archpilot.model.TreeNode filterJavaClassesFromNode(com.archpilot.model.TreeNode node) {
-        if (node == null) {
-            return null;
-        }
-        
-        // If it's a file, check if it's a Java class file
-        if ("file".equals(node.getType())) {
-            if (node.getName() != null && node.getName().endsWith(".java")) {
-                // Return the Java file with all its properties including SHA
-                return new com.archpilot.model.TreeNode(
-                        node.getName(),
-                        node.getPath(),
-                        node.getType(),
-                        node.getSha(),
-                        node.getSize(),
-                        node.getUrl(),
-                        node.getDownloadUrl()
-                );
-            }
-            // Not a Java file, exclude it
-            return null;
-        }
-        
-        // If it's a directory, recursively filter its children
-        if ("dir".equals(node.getType()) && node.getChildren() != null) {
-            var filteredChildren = node.getChildren().stream()
-                    .map(this::filterJavaClassesFromNode)
-                    .filter(child -> child != null)
-                    .toList();
-            
-            // Only include the directory if it has Java files in it (directly or in subdirectories)
-            if (!filteredChildren.isEmpty()) {
-                com.archpilot.model.TreeNode dirNode = new com.archpilot.model.TreeNode(
-                        node.getName(),
-                        node.getPath(),
-                        node.getType(),
-                        node.getSha(),
-                        node.getSize(),
-                        node.getUrl(),
-                        node.getDownloadUrl()
-                );
-                dirNode.setChildren(filteredChildren);
-                return dirNode;
-            }
-        }
-        
-        return null;
+                                    response.getCompactTree(), response.getPlatform(), response.getCommitSha());
     }
     
     private RepositoryTreeData refineToJavaClasses(RepositoryTreeData originalTreeData) {
-        if (originalTreeData == null || originalTreeData.getTree() == null) {
+        if (originalTreeData == null || originalTreeData.getCompactTree() == null) {
             return originalTreeData;
         }
         
-        var refinedTree = originalTreeData.getTree().stream()
-                .map(this::filterJavaClassesFromNode)
-                .filter(node -> node != null)
-                .toList();
+        // Keep Java source files only; the Git Trees listing is flat, so directories add nothing
+        CompactRepositoryTree tree = originalTreeData.getCompactTree();
+        CompactRepositoryTree refinedTree = tree.filter(i -> tree.isFile(i) && tree.name(i).endsWith(".java"));
         
         return new RepositoryTreeData(
                 originalTreeData.getRepositoryUrl(),
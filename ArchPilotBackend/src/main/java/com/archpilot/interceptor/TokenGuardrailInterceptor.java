@@ -9,7 +9,9 @@ import org.springframework.web.servlet.HandlerInterceptor;
 
 import com.archpilot.service.agent.TokenGuardrailService;
 import com.archpilot.service.agent.TokenGuardrailService.TokenValidationResult;
+import com.archpilot.service.llm.LlmUsageTracker;
 
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
@@ -21,6 +23,8 @@ import jakarta.servlet.http.HttpServletResponse;
  * - Pre-validates requests against token bucket limits
  * - Returns 429 Too Many Requests with retry-after header when limits exceeded
  * - Extracts user identity from request for rate limiting
+ * - Settles the reservation once the request completes: against the tokens of its LLM calls, or the
+ *   estimate when no call was attributed to it yet (e.g. a submitted diagram job still running)
  */
 @Component
 public class TokenGuardrailInterceptor implements HandlerInterceptor {
@@ -37,6 +41,9 @@ public class TokenGuardrailInterceptor implements HandlerInterceptor {
         if (!isAIAgentEndpoint(requestURI)) {
             return true; // Allow non-AI requests to proceed
         }
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true; // Reactive results dispatch again; the request was validated on its first dispatch
+        }
 
         logger.info("Intercepting AI agent request: {}", requestURI);
 
@@ -85,14 +92,18 @@ public class TokenGuardrailInterceptor implements HandlerInterceptor {
 
     @Override
     public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) throws Exception {
-        // Update actual token consumption after AI response
+        // Settle the reservation against the tokens Gemini reported for this request's LLM calls
         String userId = (String) request.getAttribute("userId");
         if (userId != null && isAIAgentEndpoint(request.getRequestURI())) {
-            // TODO: Extract actual token usage from AI response
-            // For now, use estimated tokens
             Integer estimatedTokens = (Integer) request.getAttribute("estimatedTokens");
             if (estimatedTokens != null) {
-                tokenGuardrailService.updateConsumption(userId, estimatedTokens);
+                long actualTokens = LlmUsageTracker.requestTokens(request);
+                if (LlmUsageTracker.requestCalls(request) == 0 || LlmUsageTracker.hasUnreportedUsage(request)) {
+                    // Without usage metadata for every call, or before any call was made, keep at least the estimate
+                    actualTokens = Math.max(actualTokens, estimatedTokens);
+                }
+                tokenGuardrailService.updateConsumption(userId, estimatedTokens, (int) Math.min(Integer.MAX_VALUE, actualTokens));
+                logger.debug("Settled request for user: {} - estimated {} tokens, used {}", userId, estimatedTokens, actualTokens);
             }
         }
     }
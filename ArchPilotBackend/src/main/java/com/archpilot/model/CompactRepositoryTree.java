@@ -0,0 +1,390 @@
+package com.archpilot.model;
+
+import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+
+/**
+ * Compact Repository Tree
+ *
+ * Main Context:
+ * - Columnar, immutable form of a flat repository listing (as returned by the Git Trees API)
+ * - Path segments are interned once into a shared UTF-8 byte pool and directories are stored as
+ *   parent-index arrays, so a path costs two ints instead of two Strings (path and name)
+ * - Blob SHAs are kept as 20 binary bytes, sizes in a primitive long array, types as a byte index
+ * - API URLs of the form {base}/blobs/{sha} and {base}/trees/{sha} are rebuilt from a single base;
+ *   only URLs that do not fit are stored
+ * - {@link #toTreeNodes()} and {@link #node(int)} materialize TreeNode objects for existing callers
+ *
+ * Entry order is the order in which entries were added.
+ */
+public final class CompactRepositoryTree {
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final int SHA_BYTES = 20;
+    private static final long NO_SIZE = -1;
+    private static final int ROOT = -1;
+
+    // Interned path segments (segment i is segmentBytes[segmentOffsets[i], segmentOffsets[i + 1]))
+    // and the directory hierarchy (a directory is its parent plus a segment)
+    private final byte[] segmentBytes;
+    private final int[] segmentOffsets;
+    private final int[] directoryParent;
+    private final int[] directorySegment;
+
+    // One slot per entry
+    private final int size;
+    private final int[] entryDirectory;
+    private final int[] entrySegment;
+    private final byte[] entryType;
+    private final byte[] shas;
+    private final long[] sizes;
+
+    private final String[] types;
+    private final String urlBase;
+    // Rare values that do not fit the columns, keyed by entry index
+    private final Map<Integer, String> irregularShas;
+    private final Map<Integer, String> irregularUrls;
+    private final BitSet missingUrls;
+    private final Map<Integer, String> downloadUrls;
+
+    private CompactRepositoryTree(Builder builder) {
+        this.segmentBytes = Arrays.copyOf(builder.segmentBytes, builder.segmentOffsets[builder.segmentCount]);
+        this.segmentOffsets = Arrays.copyOf(builder.segmentOffsets, builder.segmentCount + 1);
+        this.directoryParent = Arrays.copyOf(builder.directoryParent, builder.directoryCount);
+        this.directorySegment = Arrays.copyOf(builder.directorySegment, builder.directoryCount);
+        this.size = builder.size;
+        this.entryDirectory = Arrays.copyOf(builder.entryDirectory, size);
+        this.entrySegment = Arrays.copyOf(builder.entrySegment, size);
+        this.entryType = Arrays.copyOf(builder.entryType, size);
+        this.shas = Arrays.copyOf(builder.shas, size * SHA_BYTES);
+        this.sizes = Arrays.copyOf(builder.sizes, size);
+        this.types = builder.types.toArray(new String[0]);
+        this.urlBase = builder.urlBase;
+        this.irregularShas = Map.copyOf(builder.irregularShas);
+        this.irregularUrls = Map.copyOf(builder.irregularUrls);
+        this.missingUrls = (BitSet) builder.missingUrls.clone();
+        this.downloadUrls = Map.copyOf(builder.downloadUrls);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Build a compact tree from TreeNodes; nested children are flattened in depth-first order
+     */
+    public static CompactRepositoryTree of(List<TreeNode> nodes) {
+        Builder builder = new Builder();
+        if (nodes != null) {
+            addAll(builder, nodes);
+        }
+        return builder.build();
+    }
+
+    private static void addAll(Builder builder, List<TreeNode> nodes) {
+        for (TreeNode node : nodes) {
+            builder.add(node.getPath(), node.getType(), node.getSha(), node.getSize(), node.getUrl(), node.getDownloadUrl());
+            if (node.getChildren() != null) {
+                addAll(builder, node.getChildren());
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String path(int index) {
+        String name = segment(entrySegment[checkIndex(index)]);
+        int directory = entryDirectory[index];
+        if (directory == ROOT) {
+            return name;
+        }
+        StringBuilder path = new StringBuilder(name.length() + 64);
+        appendDirectory(path, directory);
+        return path.append('/').append(name).toString();
+    }
+
+    public String name(int index) {
+        return segment(entrySegment[checkIndex(index)]);
+    }
+
+    public String type(int index) {
+        return types[entryType[checkIndex(index)]];
+    }
+
+    public boolean isFile(int index) {
+        return "file".equals(type(index));
+    }
+
+    public String sha(int index) {
+        checkIndex(index);
+        String irregular = irregularShas.get(index);
+        if (irregular != null || isMissingSha(index)) {
+            return irregular;
+        }
+        return HEX.formatHex(shas, index * SHA_BYTES, (index + 1) * SHA_BYTES);
+    }
+
+    /**
+     * @return Size in bytes, or null when the listing had none (directories)
+     */
+    public Long fileSize(int index) {
+        long value = sizes[checkIndex(index)];
+        return value == NO_SIZE ? null : value;
+    }
+
+    public String url(int index) {
+        checkIndex(index);
+        if (missingUrls.get(index)) {
+            return null;
+        }
+        String irregular = irregularUrls.get(index);
+        return irregular != null ? irregular : urlBase + objectKind(type(index)) + "/" + sha(index);
+    }
+
+    public String downloadUrl(int index) {
+        return downloadUrls.get(checkIndex(index));
+    }
+
+    public TreeNode node(int index) {
+        return new TreeNode(name(index), path(index), type(index), sha(index), fileSize(index), url(index), downloadUrl(index));
+    }
+
+    public List<TreeNode> toTreeNodes() {
+        List<TreeNode> nodes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            nodes.add(node(i));
+        }
+        return nodes;
+    }
+
+    /**
+     * Copy of this tree with only the entries accepted by the filter
+     */
+    public CompactRepositoryTree filter(IntPredicate entryFilter) {
+        Builder builder = new Builder();
+        for (int i = 0; i < size; i++) {
+            if (entryFilter.test(i)) {
+                builder.add(path(i), type(i), sha(i), fileSize(i), url(i), downloadUrl(i));
+            }
+        }
+        return builder.build();
+    }
+
+    private void appendDirectory(StringBuilder path, int directory) {
+        int parent = directoryParent[directory];
+        if (parent != ROOT) {
+            appendDirectory(path, parent);
+            path.append('/');
+        }
+        path.append(segment(directorySegment[directory]));
+    }
+
+    private String segment(int segment) {
+        int start = segmentOffsets[segment];
+        return new String(segmentBytes, start, segmentOffsets[segment + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    private boolean isMissingSha(int index) {
+        // An all-zero slot is only used for entries without a SHA (a real all-zero SHA is stored as irregular)
+        int offset = index * SHA_BYTES;
+        for (int i = offset; i < offset + SHA_BYTES; i++) {
+            if (shas[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int checkIndex(int index) {
+        return Objects.checkIndex(index, size);
+    }
+
+    private static String objectKind(String type) {
+        return "dir".equals(type) ? "trees" : "blobs";
+    }
+
+    /**
+     * Collects entries in order; not thread-safe
+     */
+    public static final class Builder {
+        private final Map<String, Integer> segmentIndex = new HashMap<>();
+        private byte[] segmentBytes = new byte[4096];
+        private int[] segmentOffsets = new int[257];
+        private int segmentCount;
+        // Directory lookup by (parent, segment) packed into a long
+        private final Map<Long, Integer> directoryIndex = new HashMap<>();
+        private int[] directoryParent = new int[64];
+        private int[] directorySegment = new int[64];
+        private int directoryCount;
+
+        private int size;
+        private int[] entryDirectory = new int[256];
+        private int[] entrySegment = new int[256];
+        private byte[] entryType = new byte[256];
+        private byte[] shas = new byte[256 * SHA_BYTES];
+        private long[] sizes = new long[256];
+
+        private final List<String> types = new ArrayList<>();
+        private String urlBase;
+        private boolean urlBaseKnown;
+        private final Map<Integer, String> irregularShas = new HashMap<>();
+        private final Map<Integer, String> irregularUrls = new HashMap<>();
+        private final BitSet missingUrls = new BitSet();
+        private final Map<Integer, String> downloadUrls = new HashMap<>();
+
+        private Builder() {}
+
+        public Builder add(String path, String type, String sha, Long fileSize, String url, String downloadUrl) {
+            if (path == null || path.isEmpty()) {
+                throw new IllegalArgumentException("Tree entry path is required");
+            }
+            ensureEntryCapacity();
+            int index = size++;
+
+            int slash = path.lastIndexOf('/');
+            entryDirectory[index] = slash < 0 ? ROOT : directory(path, slash);
+            entrySegment[index] = segment(path.substring(slash + 1));
+            entryType[index] = typeIndex(type);
+            sizes[index] = fileSize == null ? NO_SIZE : fileSize;
+
+            if (sha != null && !putSha(index, sha)) {
+                irregularShas.put(index, sha);
+            }
+            if (url == null) {
+                // No URL in the listing: keep it that way instead of rebuilding one
+                missingUrls.set(index);
+            } else if (!matchesUrlBase(url, type, sha)) {
+                irregularUrls.put(index, url);
+            }
+            if (downloadUrl != null) {
+                downloadUrls.put(index, downloadUrl);
+            }
+            return this;
+        }
+
+        public CompactRepositoryTree build() {
+            return new CompactRepositoryTree(this);
+        }
+
+        private int directory(String path, int end) {
+            int parent = ROOT;
+            int start = 0;
+            while (start < end) {
+                int slash = path.indexOf('/', start);
+                if (slash < 0 || slash > end) {
+                    slash = end;
+                }
+                int segment = segment(path.substring(start, slash));
+                long key = ((long) parent << 32) | (segment & 0xffffffffL);
+                Integer existing = directoryIndex.get(key);
+                if (existing == null) {
+                    existing = addDirectory(parent, segment);
+                    directoryIndex.put(key, existing);
+                }
+                parent = existing;
+                start = slash + 1;
+            }
+            return parent;
+        }
+
+        private int addDirectory(int parent, int segment) {
+            if (directoryCount == directoryParent.length) {
+                directoryParent = Arrays.copyOf(directoryParent, directoryCount * 2);
+                directorySegment = Arrays.copyOf(directorySegment, directoryCount * 2);
+            }
+            directoryParent[directoryCount] = parent;
+            directorySegment[directoryCount] = segment;
+            return directoryCount++;
+        }
+
+        private int segment(String value) {
+            Integer existing = segmentIndex.get(value);
+            if (existing != null) {
+                return existing;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            int start = segmentOffsets[segmentCount];
+            if (start + bytes.length > segmentBytes.length) {
+                segmentBytes = Arrays.copyOf(segmentBytes, Math.max(segmentBytes.length * 2, start + bytes.length));
+            }
+            if (segmentCount + 2 > segmentOffsets.length) {
+                segmentOffsets = Arrays.copyOf(segmentOffsets, segmentOffsets.length * 2);
+            }
+            System.arraycopy(bytes, 0, segmentBytes, start, bytes.length);
+            segmentOffsets[segmentCount + 1] = start + bytes.length;
+            segmentIndex.put(value, segmentCount);
+            return segmentCount++;
+        }
+
+        private byte typeIndex(String type) {
+            int index = types.indexOf(type);
+            if (index < 0) {
+                if (types.size() == Byte.MAX_VALUE) {
+                    throw new IllegalArgumentException("Too many distinct tree entry types");
+                }
+                types.add(type);
+                index = types.size() - 1;
+            }
+            return (byte) index;
+        }
+
+        private boolean putSha(int index, String sha) {
+            if (sha.length() != SHA_BYTES * 2) {
+                return false;
+            }
+            try {
+                byte[] bytes = HEX.parseHex(sha);
+                boolean allZero = true;
+                for (byte b : bytes) {
+                    allZero &= b == 0;
+                }
+                // Keep the canonical lowercase form round-tripping exactly
+                if (allZero || !sha.equals(HEX.formatHex(bytes))) {
+                    return false;
+                }
+                System.arraycopy(bytes, 0, shas, index * SHA_BYTES, SHA_BYTES);
+                return true;
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+
+        private boolean matchesUrlBase(String url, String type, String sha) {
+            if (sha == null) {
+                return false;
+            }
+            String suffix = objectKind(type) + "/" + sha;
+            if (!url.endsWith(suffix)) {
+                return false;
+            }
+            String base = url.substring(0, url.length() - suffix.length());
+            if (!urlBaseKnown) {
+                urlBase = base;
+                urlBaseKnown = true;
+            }
+            return base.equals(urlBase);
+        }
+
+        private void ensureEntryCapacity() {
+            if (size < entryDirectory.length) {
+                return;
+            }
+            int capacity = size * 2;
+            entryDirectory = Arrays.copyOf(entryDirectory, capacity);
+            entrySegment = Arrays.copyOf(entrySegment, capacity);
+            entryType = Arrays.copyOf(entryType, capacity);
+            shas = Arrays.copyOf(shas, capacity * SHA_BYTES);
+            sizes = Arrays.copyOf(sizes, capacity);
+        }
+    }
+}
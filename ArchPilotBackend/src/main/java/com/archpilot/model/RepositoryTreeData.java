@@ -2,17 +2,24 @@ package com.archpilot.model;
 
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 public class RepositoryTreeData {
     private String repositoryUrl;
     private String branch;
     private String platform;
     private String commitSha;  // Add commit SHA field
-    private List<TreeNode> tree;
+    private CompactRepositoryTree tree;
     
     public RepositoryTreeData() {}
     
     public RepositoryTreeData(String repositoryUrl, String branch, 
                              List<TreeNode> tree, String platform, String commitSha) {
+        this(repositoryUrl, branch, tree != null ? CompactRepositoryTree.of(tree) : null, platform, commitSha);
+    }
+    
+    public RepositoryTreeData(String repositoryUrl, String branch, 
+                             CompactRepositoryTree tree, String platform, String commitSha) {
         this.repositoryUrl = repositoryUrl;
         this.branch = branch;
         this.tree = tree;
@@ -33,6 +40,11 @@ public class RepositoryTreeData {
     public String getCommitSha() { return commitSha; }
     public void setCommitSha(String commitSha) { this.commitSha = commitSha; }
     
-    public List<TreeNode> getTree() { return tree; }
-    public void setTree(List<TreeNode> tree) { this.tree = tree; }
+    // Materialized on every call (the JSON view of the tree); prefer getCompactTree()
+    public List<TreeNode> getTree() { return tree != null ? tree.toTreeNodes() : null; }
+    public void setTree(List<TreeNode> tree) { this.tree = tree != null ? CompactRepositoryTree.of(tree) : null; }
+    
+    @JsonIgnore
+    public CompactRepositoryTree getCompactTree() { return tree; }
+    public void setCompactTree(CompactRepositoryTree tree) { this.tree = tree; }
 }
\ No newline at end of file
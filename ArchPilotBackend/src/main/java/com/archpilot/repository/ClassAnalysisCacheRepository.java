@@ -0,0 +1,35 @@
+package com.archpilot.repository;
+
+import com.archpilot.entity.ClassAnalysisCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Repository for cached class analysis results
+ */
+@Repository
+public interface ClassAnalysisCacheRepository extends JpaRepository<ClassAnalysisCacheEntry, Long> {
+
+    Optional<ClassAnalysisCacheEntry> findByCacheKey(String cacheKey);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ClassAnalysisCacheEntry c WHERE c.blobSha = :blobSha")
+    int deleteByBlobSha(@Param("blobSha") String blobSha);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ClassAnalysisCacheEntry c WHERE c.modelId = :modelId")
+    int deleteByModelId(@Param("modelId") String modelId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ClassAnalysisCacheEntry c")
+    int deleteAllEntries();
+}
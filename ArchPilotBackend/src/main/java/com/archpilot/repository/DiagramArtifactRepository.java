@@ -0,0 +1,16 @@
+package com.archpilot.repository;
+
+import com.archpilot.entity.DiagramArtifactEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository for the persisted diagram artifact index
+ */
+@Repository
+public interface DiagramArtifactRepository extends JpaRepository<DiagramArtifactEntry, Long> {
+
+    Optional<DiagramArtifactEntry> findByRepositoryNameAndProjectSha(String repositoryName, String projectSha);
+}
@@ -0,0 +1,25 @@
+package com.archpilot.repository;
+
+import com.archpilot.entity.ProviderBudget;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.LockModeType;
+import java.util.Optional;
+
+/**
+ * Repository for the shared LLM provider budget
+ */
+@Repository
+public interface ProviderBudgetRepository extends JpaRepository<ProviderBudget, Long> {
+
+    /**
+     * Find the provider's budget with a pessimistic lock for leasing
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM ProviderBudget b WHERE b.provider = :provider")
+    Optional<ProviderBudget> findByProviderWithLock(@Param("provider") String provider);
+}
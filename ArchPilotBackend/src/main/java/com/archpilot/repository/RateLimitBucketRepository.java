@@ -3,9 +3,11 @@ package com.archpilot.repository;
 import com.archpilot.entity.RateLimitBucket;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.LockModeType;
 import java.util.Optional;
@@ -27,4 +29,12 @@ public interface RateLimitBucketRepository extends JpaRepository<RateLimitBucket
      * Find rate limit bucket by user ID without lock for read operations
      */
     Optional<RateLimitBucket> findByUserId(String userId);
+
+    /**
+     * Delete the buckets whose user ID starts with the prefix
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RateLimitBucket r WHERE r.userId LIKE CONCAT(:prefix, '%')")
+    int deleteByUserIdPrefix(@Param("prefix") String prefix);
 }
\ No newline at end of file
@@ -8,28 +8,191 @@ import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.util.Optional;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.archpilot.dto.ClassDiagramResponse;
+import com.archpilot.model.CompactRepositoryTree;
 import com.archpilot.model.RepositoryTreeData;
-import com.archpilot.model.TreeNode;
 import com.archpilot.service.agent.GeminiChatAgentService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.archpilot.service.agent.GeminiClassAnalyzerAgentService;
+import com.archpilot.service.analysis.ClassAnalysisPipeline;
+import com.archpilot.service.analysis.ClassAnalysisStages;
+import com.archpilot.service.analysis.CompositeProgressListener;
+import com.archpilot.service.analysis.DiagramProgressListener;
+import com.archpilot.service.analysis.JavaStructureParser;
+import com.archpilot.service.cache.ClassAnalysisCache;
+import com.archpilot.service.cache.DiagramCacheIndex;
+import com.archpilot.service.fetch.FileContentFetcher;
+import com.archpilot.service.llm.LlmPriority;
+import com.archpilot.service.llm.TokenEstimator;
+import com.archpilot.service.support.SingleFlight;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 @Service
 public class ClassDiagramGeneratorService {
     
     private static final Logger logger = LoggerFactory.getLogger(ClassDiagramGeneratorService.class);
+    // Source budget per analyzed class, measured with TokenEstimator
+    private static final int MAX_CONTENT_TOKENS = 1500;
+    private static final String TRUNCATION_MARKER = "\n// ... (truncated due to token limits)";
+    
+    /**
+     * Prompt template for per-class analysis: existing UML, class name, source, class name.
+     * Any change here changes {@link #ENHANCED_ANALYSIS_PROMPT_HASH} and so invalidates cached analyses.
+     */
+    private static final String ENHANCED_ANALYSIS_PROMPT = """
+        I have a basic PlantUML class diagram that I want to enhance with detailed class analysis. Here's the current UML:
+        
+        ```plantuml
+        %s
+        ```
+        
+        Now I want to analyze this Java class and extract detailed information including relationships, methods, and fields:
+        
+        Class Name: %s
+        
+        Java Code:
+        ```java
+        %s
+        ```
+        
+        Please provide ONLY a JSON response with the following structure:
+        {
+            "className": "%s",
+            "classType": "class|interface|enum|abstract class",
+            "packageName": "extracted package name",
+            "extends": "parent class name if any, null otherwise",
+            "implements": ["list of implemented interfaces"],
+            "fields": [
+                {
+                    "name": "field name",
+                    "type": "field type",
+                    "visibility": "private|public|protected|package",
+                    "isStatic": true/false,
+                    "isFinal": true/false
+                }
+            ],
+            "methods": [
+                {
+                    "name": "method name",
+                    "returnType": "return type",
+                    "visibility": "private|public|protected|package",
+                    "isStatic": true/false,
+                    "isAbstract": true/false,
+                    "parameters": [
+                        {
+                            "name": "param name",
+                            "type": "param type"
+                        }
+                    ]
+                }
+            ],
+            "usedClasses": ["list of other classes this class references or uses"],
+            "annotations": ["list of class-level annotations"]
+        }
+        
+        Focus on extracting:
+        1. All fields with their types and visibility
+        2. All method signatures with parameters and return types
+        3. Class relationships (extends, implements)
+        4. Other classes that this class uses or references
+        5. Annotations and modifiers
+        """;
+    // The source budget shapes what the model sees, so it is part of the cache key too
+    private static final String ENHANCED_ANALYSIS_PROMPT_HASH =
+        ClassAnalysisCache.promptHash(ENHANCED_ANALYSIS_PROMPT + "|maxContentTokens=" + MAX_CONTENT_TOKENS);
+    
+    /**
+     * Prompt template for a batch of classes from one package: existing UML, class sections.
+     * Each element of the answer uses the same schema as {@link #ENHANCED_ANALYSIS_PROMPT}.
+     */
+    private static final String ENHANCED_BATCH_ANALYSIS_PROMPT = """
+        I have a basic PlantUML class diagram that I want to enhance with detailed class analysis. Here's the current UML:
+        
+        ```plantuml
+        %s
+        ```
+        
+        Now I want to analyze the following Java classes and extract detailed information including relationships, methods, and fields:
+        
+        %s
+        Please provide ONLY a JSON array with exactly one object per class, in the order given above.
+        Each object must use the exact class name from its "### Class:" heading and the following structure:
+        {
+            "className": "class name from the heading",
+            "classType": "class|interface|enum|abstract class",
+            "packageName": "extracted package name",
+            "extends": "parent class name if any, null otherwise",
+            "implements": ["list of implemented interfaces"],
+            "fields": [
+                {
+                    "name": "field name",
+                    "type": "field type",
+                    "visibility": "private|public|protected|package",
+                    "isStatic": true/false,
+                    "isFinal": true/false
+                }
+            ],
+            "methods": [
+                {
+                    "name": "method name",
+                    "returnType": "return type",
+                    "visibility": "private|public|protected|package",
+                    "isStatic": true/false,
+                    "isAbstract": true/false,
+                    "parameters": [
+                        {
+                            "name": "param name",
+                            "type": "param type"
+                        }
+                    ]
+                }
+            ],
+            "usedClasses": ["list of other classes this class references or uses"],
+            "annotations": ["list of class-level annotations"]
+        }
+        
+        Focus on extracting:
+        1. All fields with their types and visibility
+        2. All method signatures with parameters and return types
+        3. Class relationships (extends, implements)
+        4. Other classes that this class uses or references
+        5. Annotations and modifiers
+        """;
+    private static final String BATCH_CLASS_SECTION = """
+        ### Class: %s
+        
+        ```java
+        %s
+        ```
+        
+        """;
+    // Batched analyses are cached under their own key, so either prompt can serve a lookup
+    private static final String BATCH_ANALYSIS_PROMPT_HASH =
+        ClassAnalysisCache.promptHash(ENHANCED_BATCH_ANALYSIS_PROMPT + BATCH_CLASS_SECTION + "|maxContentTokens=" + MAX_CONTENT_TOKENS);
+    // Parsed results merged with an LLM analysis are neither parser nor LLM output, so they get a key of their own
+    private static final String ENRICHED_ANALYSIS_PROMPT_HASH =
+        ClassAnalysisCache.promptHash(ENHANCED_ANALYSIS_PROMPT + "|enriched|maxContentTokens=" + MAX_CONTENT_TOKENS);
+    
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SingleFlight<String, ClassDiagramResponse> diagramGenerations = new SingleFlight<>();
     
     @Autowired
     private GeminiChatAgentService geminiChatAgentService;
@@ -37,68 +200,173 @@ public class ClassDiagramGeneratorService {
     @Autowired
     private PlantUmlToPngService plantUmlToPngService;
     
+    @Autowired
+    private ClassAnalysisPipeline classAnalysisPipeline;
+    
+    @Autowired
+    private FileContentFetcher fileContentFetcher;
+    
+    @Autowired
+    private ClassAnalysisCache classAnalysisCache;
+    
+    @Autowired
+    private JavaStructureParser javaStructureParser;
+    
+    // Structural facts come from the local parser; the LLM only analyzes what it cannot read
+    @Value("${archpilot.analysis.static-parser.enabled:true}")
+    private boolean staticParserEnabled;
+    
+    // Parsed classes also go to the LLM, which adds the referenced classes and annotations the parser cannot see
+    @Value("${archpilot.analysis.static-parser.llm-enrichment:false}")
+    private boolean llmEnrichmentEnabled;
+    
+    @Autowired
+    private DiagramCacheIndex diagramCacheIndex;
+    
+    @Autowired
+    @Qualifier("diagramScheduler")
+    private Scheduler diagramScheduler;
+    
     /**
      * Generate class diagram and return only PNG image data in the specified format
      * Uses SHA-based caching to avoid regenerating unchanged projects
+     * 
+     * Non-blocking: file I/O, rendering and the pipeline hand-off run on the bounded diagram scheduler,
+     * and no thread is held while the class analysis pipeline is waiting on fetches or the LLM.
      */
-    public ClassDiagramResponse generateClassDiagramImage(RepositoryTreeData treeData) {
-        logger.info("Generating class diagram image for repository: {}", treeData.getRepositoryUrl());
+    public Mono<ClassDiagramResponse> generateClassDiagramImage(RepositoryTreeData treeData) {
+        return generateClassDiagramImage(treeData, DiagramProgressListener.NOOP);
+    }
+    
+    /**
+     * Generate class diagram, reporting per-stage and per-class progress to the listener
+     */
+    public Mono<ClassDiagramResponse> generateClassDiagramImage(RepositoryTreeData treeData, DiagramProgressListener listener) {
+        return generateClassDiagramImage(treeData, null, Map.of(), listener);
+    }
+    
+    /**
+     * Regenerate a class diagram incrementally from a previously generated commit
+     * 
+     * Classes outside the changed paths whose blob SHA is unchanged reuse the analysis stored in the
+     * previous commit's JSON model; only changed classes are re-analyzed. The JSON model, PlantUML and
+     * PNG are then rebuilt from the merged analyses. Falls back to a full generation when no previous
+     * model exists for the base commit.
+     * 
+     * @param treeData Repository tree at the new commit
+     * @param baseSha Commit SHA of the previously generated diagram
+     * @param changedPaths Paths added, modified or renamed between the base and the new commit
+     * @param listener Receives generation progress
+     */
+    public Mono<ClassDiagramResponse> generateClassDiagramImageIncremental(RepositoryTreeData treeData, String baseSha, 
+                                                                           Collection<String> changedPaths,
+                                                                           DiagramProgressListener listener) {
+        String repositoryName = extractRepositoryName(treeData.getRepositoryUrl());
         
-        try {
-            String projectSha = treeData.getCommitSha();
-            String repositoryName = extractRepositoryName(treeData.getRepositoryUrl());
-            
-            if (projectSha == null || projectSha.isEmpty()) {
-                logger.warn("No commit SHA available, proceeding without caching");
-                projectSha = "no-sha-" + System.currentTimeMillis();
-            } else {
-                logger.info("Using commit SHA for caching: {} for repository: {}", projectSha, repositoryName);
-                
-                // Check if we have a cached image for this exact project state
-                ClassDiagramResponse cachedResponse = checkForCachedImage(repositoryName, projectSha);
-                if (cachedResponse != null) {
-                    logger.info("Found existing image for project SHA: {}, returning cached result", projectSha);
-                    return cachedResponse;
+        return Mono.fromCallable(() -> loadPreviousAnalysis(repositoryName, baseSha, changedPaths))
+            .subscribeOn(diagramScheduler)
+            .flatMap(previousResults -> {
+                if (previousResults.isEmpty()) {
+                    logger.info("No reusable analysis found for base commit {}, running full generation", baseSha);
+                    return generateClassDiagramImage(treeData, listener);
                 }
                 
-                logger.info("No cached image found for project SHA: {}, generating new image", projectSha);
-            }
-            
-            // Make projectSha effectively final for lambda
-            final String finalProjectSha = projectSha;
-            
-            // Run the blocking operations in a separate thread
-            return CompletableFuture.supplyAsync(() -> {
-                try {
-                    return generateClassDiagramImageBlocking(treeData, finalProjectSha);
-                } catch (Exception e) {
-                    logger.error("Error in async class diagram image generation: {}", e.getMessage(), e);
-                    return ClassDiagramResponse.error("Failed to generate class diagram image: " + e.getMessage());
-                }
-            }).get();
-            
-        } catch (Exception e) {
-            logger.error("Error generating class diagram image: {}", e.getMessage(), e);
-            return ClassDiagramResponse.error("Failed to generate class diagram image: " + e.getMessage());
+                logger.info("Incremental generation from base commit {}: {} changed paths, {} reusable class analyses", 
+                           baseSha, changedPaths.size(), previousResults.size());
+                return generateClassDiagramImage(treeData, baseSha, previousResults, listener);
+            });
+    }
+    
+    /**
+     * Find the commit SHA of the most recently generated diagram of a repository
+     * 
+     * @return Commit SHA, or null when the repository has no generated diagram yet
+     */
+    public String findLatestGeneratedSha(String repositoryUrl) {
+        return diagramCacheIndex.findLatest(extractRepositoryName(repositoryUrl))
+            .map(DiagramCacheIndex.DiagramArtifact::getProjectSha)
+            .filter(sha -> !sha.startsWith("no-sha-"))
+            .orElse(null);
+    }
+    
+    private Mono<ClassDiagramResponse> generateClassDiagramImage(RepositoryTreeData treeData, String baseSha,
+            Map<String, GeminiClassAnalyzerAgentService.ClassAnalysisResult> previousResults, DiagramProgressListener listener) {
+        logger.info("Generating class diagram image for repository: {}", treeData.getRepositoryUrl());
+        
+        String repositoryName = extractRepositoryName(treeData.getRepositoryUrl());
+        String commitSha = treeData.getCommitSha();
+        
+        if (commitSha == null || commitSha.isEmpty()) {
+            logger.warn("No commit SHA available, proceeding without caching");
+            String projectSha = "no-sha-" + System.currentTimeMillis();
+            return Mono.defer(() -> generateClassDiagramImageAsync(treeData, projectSha, baseSha, previousResults, listener))
+                .subscribeOn(diagramScheduler)
+                .onErrorResume(e -> generationFailed(e));
         }
+        
+        logger.info("Using commit SHA for caching: {} for repository: {}", commitSha, repositoryName);
+        
+        // Concurrent requests for the same repository state share one generation
+        String flightKey = repositoryName + "@" + commitSha;
+        
+        return findCachedImage(repositoryName, commitSha)
+            .doOnNext(cached -> {
+                logger.info("Found existing image for project SHA: {}, returning cached result", commitSha);
+                listener.onStage("CACHED", "Class diagram retrieved from cache");
+            })
+            .switchIfEmpty(Mono.defer(() -> {
+                logger.info("No cached image found for project SHA: {}, generating new image", commitSha);
+                if (diagramGenerations.isInFlight(flightKey)) {
+                    logger.info("Generation already in flight for {}, joining it", flightKey);
+                }
+                // A generation that completed just before this one started has already written the cache;
+                // progress of the shared generation is reported to every caller that joined it
+                return diagramGenerations.execute(flightKey, CompositeProgressListener::new,
+                    progress -> findCachedImage(repositoryName, commitSha)
+                        .switchIfEmpty(Mono.defer(() -> generateClassDiagramImageAsync(treeData, commitSha, baseSha, previousResults, progress))),
+                    (progress, flight) -> progress.join(listener, flight));
+            }))
+            .onErrorResume(e -> generationFailed(e));
+    }
+    
+    private Mono<ClassDiagramResponse> findCachedImage(String repositoryName, String projectSha) {
+        return Mono.fromCallable(() -> checkForCachedImage(repositoryName, projectSha))
+            .subscribeOn(diagramScheduler);
+    }
+    
+    private Mono<ClassDiagramResponse> generationFailed(Throwable e) {
+        logger.error("Error generating class diagram image: {}", e.getMessage(), e);
+        return Mono.just(ClassDiagramResponse.error("Failed to generate class diagram image: " + e.getMessage()));
     }
     
-    private ClassDiagramResponse generateClassDiagramImageBlocking(RepositoryTreeData treeData, String projectSha) {
+    private Mono<ClassDiagramResponse> generateClassDiagramImageAsync(RepositoryTreeData treeData, String projectSha, String baseSha,
+            Map<String, GeminiClassAnalyzerAgentService.ClassAnalysisResult> previousResults, DiagramProgressListener listener) {
         // Extract Java classes from tree data
         List<JavaClassInfo> javaClasses = extractJavaClasses(treeData);
         logger.info("Found {} Java classes to analyze", javaClasses.size());
         
         if (javaClasses.isEmpty()) {
-            return ClassDiagramResponse.error("No Java classes found in the repository");
+            return Mono.just(ClassDiagramResponse.error("No Java classes found in the repository"));
         }
         
         // Generate basic PlantUML structure
         String basicPlantUml = generateBasicPlantUML(javaClasses, treeData);
         logger.info("Generated basic PlantUML structure");
         
-        // Fetch file contents and analyze with enhanced relationships
-        Map<String, GeminiClassAnalyzerAgentService.ClassAnalysisResult> analysisResults = 
-            analyzeClassesSequentially(javaClasses, treeData, basicPlantUml);
+        // Fetch file contents and analyze with enhanced relationships, then render and save off the event loop
+        return analyzeClasses(javaClasses, treeData, basicPlantUml, previousResults, listener)
+            .publishOn(diagramScheduler)
+            .map(analysisResults -> {
+                listener.onStage("RENDERING", "Rendering diagram for " + analysisResults.size() + " analyzed classes");
+                ClassDiagramResponse response = renderAndSaveDiagram(treeData, projectSha, baseSha, javaClasses, basicPlantUml, analysisResults);
+                listener.onStage("RENDERED", response.getMessage());
+                return response;
+            });
+    }
+    
+    private ClassDiagramResponse renderAndSaveDiagram(RepositoryTreeData treeData, String projectSha, String baseSha,
+            List<JavaClassInfo> javaClasses, String basicPlantUml,
+            Map<String, GeminiClassAnalyzerAgentService.ClassAnalysisResult> analysisResults) {
         logger.info("Completed enhanced analysis for {} classes", analysisResults.size());
         
         // Generate enhanced PlantUML diagram with analysis results
@@ -109,6 +377,9 @@ public class ClassDiagramGeneratorService {
         
         // Add project SHA to JSON data for caching
         jsonData.put("projectSha", projectSha);
+        if (baseSha != null) {
+            jsonData.put("incrementalBaseSha", baseSha);
+        }
         
         // Generate PNG from enhanced PlantUML
         String pngBase64 = null;
@@ -169,98 +440,46 @@ public class ClassDiagramGeneratorService {
             timestamp
         );
         
-        return ClassDiagramResponse.success("Class diagram generated successfully", data);
+        String message = baseSha != null
+            ? String.format("Class diagram regenerated incrementally from %s", baseSha)
+            : "Class diagram generated successfully";
+        return ClassDiagramResponse.success(message, data);
     }
     
     /**
-     * Check for cached image by looking at existing PNG files in umlDigr directory
+     * Check for a cached image of this exact project state through the diagram cache index
      */
     private ClassDiagramResponse checkForCachedImage(String repositoryName, String projectSha) {
+        Optional<DiagramCacheIndex.DiagramArtifact> cached = diagramCacheIndex.find(repositoryName, projectSha);
+        if (cached.isEmpty()) {
+            return null;
+        }
+        
+        DiagramCacheIndex.DiagramArtifact artifact = cached.get();
         try {
-            Path umlDigrPath = Paths.get("umlDigr");
-            if (!Files.exists(umlDigrPath)) {
-                return null;
-            }
+            logger.info("Found matching cached image: {} with SHA: {}", artifact.getPngFileName(), projectSha);
             
-            // Look for PNG files matching the repository name pattern
-            return Files.list(umlDigrPath)
-                .filter(path -> path.toString().endsWith(".png"))
-                .filter(path -> path.getFileName().toString().startsWith(repositoryName + "_"))
-                .filter(path -> !path.getFileName().toString().contains("_lite.png")) // Skip lite versions
-                .map(pngFile -> {
-                    try {
-                        // Check if there's a corresponding metadata file and JSON file with the same SHA
-                        String pngFileName = pngFile.getFileName().toString();
-                        String metadataFileName = pngFileName.replace(".png", "_metadata.txt");
-                        String jsonFileName = pngFileName.replace(".png", ".json");
-                        Path metadataFile = umlDigrPath.resolve(metadataFileName);
-                        Path jsonFile = umlDigrPath.resolve(jsonFileName);
-                        
-                        if (Files.exists(metadataFile)) {
-                            String metadataContent = Files.readString(metadataFile);
-                            
-                            // Check if the project SHA matches
-                            if (metadataContent.contains("projectSha=" + projectSha)) {
-                                logger.info("Found matching cached image: {} with SHA: {}", pngFileName, projectSha);
-                                
-                                // Read the PNG file and convert to base64
-                                byte[] pngBytes = Files.readAllBytes(pngFile);
-                                String pngBase64 = java.util.Base64.getEncoder().encodeToString(pngBytes);
-                                
-                                // Extract information from metadata
-                                String repositoryNameFromFile = extractMetadataValue(metadataContent, "repositoryName");
-                                String timestampFromFile = extractMetadataValue(metadataContent, "timestamp");
-                                String classCountStr = extractMetadataValue(metadataContent, "classCount");
-                                int classCount = classCountStr != null ? Integer.parseInt(classCountStr) : 0;
-                                
-                                String litePngFileName = pngFileName.replace(".png", "_lite.png");
-                                
-                                // Log additional cached files found
-                                if (Files.exists(jsonFile)) {
-                                    logger.info("Found corresponding JSON file: {}", jsonFileName);
-                                }
-                                
-                                // Create response data
-                                ClassDiagramResponse.ClassDiagramData data = new ClassDiagramResponse.ClassDiagramData(
-                                    pngFileName,
-                                    classCount,
-                                    pngBase64,
-                                    repositoryNameFromFile != null ? repositoryNameFromFile : repositoryName,
-                                    litePngFileName,
-                                    timestampFromFile
-                                );
-                                
-                                return ClassDiagramResponse.success("Class diagram retrieved from cache", data);
-                            }
-                        }
-                    } catch (Exception e) {
-                        logger.warn("Error reading cached file {}: {}", pngFile.getFileName(), e.getMessage());
-                    }
-                    return null;
-                })
-                .filter(result -> result != null)
-                .findFirst()
-                .orElse(null);
-                
+            // Read the PNG file and convert to base64
+            byte[] pngBytes = Files.readAllBytes(diagramCacheIndex.resolve(artifact.getPngFileName()));
+            String pngBase64 = java.util.Base64.getEncoder().encodeToString(pngBytes);
+            
+            // Create response data
+            ClassDiagramResponse.ClassDiagramData data = new ClassDiagramResponse.ClassDiagramData(
+                artifact.getPngFileName(),
+                artifact.getClassCount(),
+                pngBase64,
+                artifact.getRepositoryName(),
+                artifact.getLitePngFileName(),
+                artifact.getTimestamp()
+            );
+            
+            return ClassDiagramResponse.success("Class diagram retrieved from cache", data);
         } catch (Exception e) {
-            logger.error("Error checking for cached image: {}", e.getMessage());
+            logger.warn("Error reading cached file {}: {}", artifact.getPngFileName(), e.getMessage());
             return null;
         }
     }
     
-    /**
-     * Extract value from metadata content
-     */
-    private String extractMetadataValue(String metadataContent, String key) {
-        String[] lines = metadataContent.split("\n");
-        for (String line : lines) {
-            if (line.startsWith(key + "=")) {
-                return line.substring(key.length() + 1);
-            }
-        }
-        return null;
-    }
-    
     /**
      * Save metadata file alongside the PNG for caching purposes
      */
@@ -290,6 +509,8 @@ public class ClassDiagramGeneratorService {
             Files.writeString(metadataFilePath, metadataContent);
             logger.info("Saved metadata file: {}", metadataFileName);
             
+            diagramCacheIndex.record(repositoryName, projectSha, timestamp, classCount);
+            
         } catch (Exception e) {
             logger.warn("Error saving metadata file: {}", e.getMessage());
         }
@@ -324,6 +545,8 @@ public class ClassDiagramGeneratorService {
                         logger.warn("Error deleting old cached file {}: {}", path.getFileName(), e.getMessage());
                     }
                 });
+            
+            diagramCacheIndex.rebuild();
                 
         } catch (Exception e) {
             logger.error("Error during cache cleanup: {}", e.getMessage());
@@ -333,32 +556,29 @@ public class ClassDiagramGeneratorService {
     private List<JavaClassInfo> extractJavaClasses(RepositoryTreeData treeData) {
         List<JavaClassInfo> javaClasses = new ArrayList<>();
         
-        if (treeData.getTree() != null) {
-            extractJavaClassesFromNodes(treeData.getTree(), javaClasses);
+        CompactRepositoryTree tree = treeData.getCompactTree();
+        if (tree == null) {
+            return javaClasses;
         }
         
-        return javaClasses;
-    }
-    
-    private void extractJavaClassesFromNodes(List<TreeNode> nodes, List<JavaClassInfo> javaClasses) {
-        for (TreeNode node : nodes) {
-            if ("file".equals(node.getType()) && node.getName().endsWith(".java")) {
+        // Read the compact columns directly instead of materializing a TreeNode per entry
+        for (int i = 0; i < tree.size(); i++) {
+            if (tree.isFile(i) && tree.name(i).endsWith(".java")) {
+                String path = tree.path(i);
                 JavaClassInfo classInfo = new JavaClassInfo();
-                classInfo.setClassName(extractClassName(node.getName()));
-                classInfo.setFullPath(node.getPath());
-                classInfo.setPackageName(extractPackageName(node.getPath()));
-                classInfo.setSha(node.getSha());
-                classInfo.setSize(node.getSize());
-                classInfo.setUrl(node.getUrl());
-                classInfo.setDownloadUrl(node.getDownloadUrl());
+                classInfo.setClassName(extractClassName(tree.name(i)));
+                classInfo.setFullPath(path);
+                classInfo.setPackageName(extractPackageName(path));
+                classInfo.setSha(tree.sha(i));
+                classInfo.setSize(tree.fileSize(i));
+                classInfo.setUrl(tree.url(i));
+                classInfo.setDownloadUrl(tree.downloadUrl(i));
                 
                 javaClasses.add(classInfo);
             }
-            
-            if (node.getChildren() != null) {
-                extractJavaClassesFromNodes(node.getChildren(), javaClasses);
-            }
         }
+        
+        return javaClasses;
     }
     
     private String extractClassName(String fileName) {
@@ -434,108 +654,225 @@ public class ClassDiagramGeneratorService {
     }
     
     /**
-     * Analyze classes sequentially with enhanced relationship detection
+     * Load the successful class analyses stored in the JSON model of a previously generated commit
+     * 
+     * @return Analyses keyed by {@link #previousResultKey(String, String)}, skipping changed paths;
+     *         empty when no model is stored for the commit
      */
-    private Map<String, GeminiClassAnalyzerAgentService.ClassAnalysisResult> analyzeClassesSequentially(
-            List<JavaClassInfo> javaClasses, RepositoryTreeData treeData, String basicPlantUml) {
-        
-        Map<String, GeminiClassAnalyzerAgentService.ClassAnalysisResult> analysisResults = new HashMap<>();
+    private Map<String, GeminiClassAnalyzerAgentService.ClassAnalysisResult> loadPreviousAnalysis(
+            String repositoryName, String baseSha, Collection<String> changedPaths) {
+        Map<String, GeminiClassAnalyzerAgentService.ClassAnalysisResult> previousResults = new HashMap<>();
+        if (baseSha == null || baseSha.isEmpty()) {
+            return previousResults;
+        }
         
-        // Limit the number of files to analyze based on token guardrail (max 5 files for free tier)
-        int maxFiles = Math.min(javaClasses.size(), 5);
-        logger.info("Limiting analysis to {} files due to token guardrail restrictions", maxFiles);
+        Path jsonFile = findJsonModelFile(repositoryName, baseSha);
+        if (jsonFile == null) {
+            return previousResults;
+        }
         
-        for (int i = 0; i < maxFiles; i++) {
-            JavaClassInfo javaClass = javaClasses.get(i);
-            
-            try {
-                // Fetch file content using raw GitHub URL
-                String content = fetchSingleFileContentFromGitHub(javaClass, treeData);
-                
-                if (content != null && !content.trim().isEmpty()) {
-                    // Limit content size to respect token limits (max 3000 chars per file)
-                    if (content.length() > 3000) {
-                        content = content.substring(0, 3000) + "\n// ... (truncated due to token limits)";
-                        logger.info("Truncated content for {} due to token limits", javaClass.getClassName());
+        Set<String> changed = new HashSet<>(changedPaths);
+        try {
+            JsonNode model = objectMapper.readTree(jsonFile.toFile());
+            for (JsonNode packageClasses : model.path("packages")) {
+                for (JsonNode classData : packageClasses) {
+                    String fullPath = classData.path("fullPath").asText(null);
+                    String sha = classData.path("sha").asText(null);
+                    if (fullPath == null || sha == null || changed.contains(fullPath)
+                            || !"SUCCESS".equals(classData.path("analysisStatus").asText())) {
+                        continue;
                     }
                     
-                    // Analyze using Gemini with context of existing UML
-                    GeminiClassAnalyzerAgentService.ClassAnalysisResult result = 
-                        analyzeClassWithContext(javaClass.getClassName(), content, basicPlantUml);
-                    
-                    if (result != null) {
-                        analysisResults.put(javaClass.getClassName(), result);
-                        logger.info("Successfully analyzed class: {}", javaClass.getClassName());
+                    GeminiClassAnalyzerAgentService.ClassAnalysisResult result = new GeminiClassAnalyzerAgentService.ClassAnalysisResult();
+                    result.setClassName(classData.path("className").asText(null));
+                    result.setClassType(classData.path("classType").asText(null));
+                    result.setExtendsClass(classData.path("extendsClass").asText(null));
+                    result.setRawAnalysis(classData.path("rawAnalysis").asText(null));
+                    if (result.getRawAnalysis() != null) {
+                        result.setPackageName(extractJsonValue(result.getRawAnalysis(), "packageName"));
                     }
+                    result.setAnalysisStatus("SUCCESS");
+                    previousResults.put(previousResultKey(fullPath, sha), result);
                 }
-                
-                // Add small delay to respect rate limits
-                Thread.sleep(1000);
-                
-            } catch (Exception e) {
-                logger.error("Error analyzing class {}: {}", javaClass.getClassName(), e.getMessage());
             }
+            logger.info("Loaded {} class analyses from previous model: {}", previousResults.size(), jsonFile.getFileName());
+        } catch (IOException e) {
+            logger.warn("Error reading previous JSON model {}: {}", jsonFile.getFileName(), e.getMessage());
+            previousResults.clear();
         }
         
-        return analysisResults;
+        return previousResults;
     }
     
     /**
-     * Fetch single file content from GitHub raw URL
+     * Find the JSON model written for a repository at the given commit SHA
      */
-    private String fetchSingleFileContentFromGitHub(JavaClassInfo javaClass, RepositoryTreeData treeData) {
-        try {
-            // Construct raw GitHub URL from repository URL and file path
-            String rawUrl = constructRawGitHubUrl(treeData.getRepositoryUrl(), treeData.getBranch(), javaClass.getFullPath());
+    private Path findJsonModelFile(String repositoryName, String projectSha) {
+        return diagramCacheIndex.find(repositoryName, projectSha)
+            .map(artifact -> diagramCacheIndex.resolve(artifact.getJsonFileName()))
+            .filter(Files::exists)
+            .orElse(null);
+    }
+    
+    /**
+     * Previous analyses are only reused for the same path with the same blob SHA
+     */
+    private static String previousResultKey(String fullPath, String blobSha) {
+        return fullPath + "@" + blobSha;
+    }
+    
+    /**
+     * Analyze classes through the fetch -> analyze -> merge pipeline with enhanced relationship detection
+     */
+    private Mono<Map<String, GeminiClassAnalyzerAgentService.ClassAnalysisResult>> analyzeClasses(
+            List<JavaClassInfo> javaClasses, RepositoryTreeData treeData, String basicPlantUml,
+            Map<String, GeminiClassAnalyzerAgentService.ClassAnalysisResult> previousResults,
+            DiagramProgressListener listener) {
+        
+        ClassAnalysisStages stages = new ClassAnalysisStages() {
+            @Override
+            public GeminiClassAnalyzerAgentService.ClassAnalysisResult findCached(JavaClassInfo javaClass) {
+                // Unchanged classes of an incremental run reuse the previous commit's analysis
+                GeminiClassAnalyzerAgentService.ClassAnalysisResult previous = 
+                    previousResults.get(previousResultKey(javaClass.getFullPath(), javaClass.getSha()));
+                if (previous != null) {
+                    return previous;
+                }
+                if (enrichesParsed()) {
+                    GeminiClassAnalyzerAgentService.ClassAnalysisResult enriched =
+                        classAnalysisCache.get(javaClass.getSha(), ENRICHED_ANALYSIS_PROMPT_HASH).orElse(null);
+                    if (enriched != null) {
+                        return enriched;
+                    }
+                }
+                return classAnalysisCache.get(javaClass.getSha(), ENHANCED_ANALYSIS_PROMPT_HASH)
+                    .or(() -> classAnalysisCache.get(javaClass.getSha(), BATCH_ANALYSIS_PROMPT_HASH))
+                    .orElse(null);
+            }
             
-            if (rawUrl != null) {
-                logger.info("Fetching content from: {}", rawUrl);
-                
-                // Use RestTemplate instead of WebClient to avoid blocking issues
-                org.springframework.web.client.RestTemplate restTemplate = new org.springframework.web.client.RestTemplate();
-                String content = restTemplate.getForObject(rawUrl, String.class);
+            @Override
+            public Mono<String> fetch(JavaClassInfo javaClass) {
+                return fileContentFetcher.fetchContent(treeData, javaClass);
+            }
+            
+            @Override
+            public GeminiClassAnalyzerAgentService.ClassAnalysisResult parse(JavaClassInfo javaClass, String content) {
+                // Not cached: parsing the stored blob again is cheaper than a cache row
+                return staticParserEnabled ? javaStructureParser.parse(content, javaClass.getClassName()) : null;
+            }
+            
+            @Override
+            public boolean enrichesParsed() {
+                return staticParserEnabled && llmEnrichmentEnabled;
+            }
+            
+            @Override
+            public GeminiClassAnalyzerAgentService.ClassAnalysisResult enrich(JavaClassInfo javaClass,
+                    GeminiClassAnalyzerAgentService.ClassAnalysisResult parsed,
+                    GeminiClassAnalyzerAgentService.ClassAnalysisResult analyzed) {
+                GeminiClassAnalyzerAgentService.ClassAnalysisResult enriched = javaStructureParser.enrich(parsed,
+                    extractJsonArrayValues(analyzed.getRawAnalysis(), "usedClasses"),
+                    extractJsonArrayValues(analyzed.getRawAnalysis(), "annotations"));
+                classAnalysisCache.put(javaClass.getSha(), ENRICHED_ANALYSIS_PROMPT_HASH, enriched);
+                return enriched;
+            }
+            
+            @Override
+            public GeminiClassAnalyzerAgentService.ClassAnalysisResult analyze(JavaClassInfo javaClass, String content) {
+                // Analyze using Gemini with context of existing UML
+                GeminiClassAnalyzerAgentService.ClassAnalysisResult result =
+                    analyzeClassWithContext(javaClass.getClassName(), packContent(javaClass, content), basicPlantUml);
+                classAnalysisCache.put(javaClass.getSha(), ENHANCED_ANALYSIS_PROMPT_HASH, result);
+                return result;
+            }
+            
+            @Override
+            public Map<String, GeminiClassAnalyzerAgentService.ClassAnalysisResult> analyzeBatch(
+                    List<JavaClassInfo> javaClasses, List<String> contents) {
+                StringBuilder sections = new StringBuilder();
+                for (int i = 0; i < javaClasses.size(); i++) {
+                    JavaClassInfo javaClass = javaClasses.get(i);
+                    sections.append(String.format(BATCH_CLASS_SECTION, javaClass.getClassName(),
+                                                  packContent(javaClass, contents.get(i))));
+                }
                 
-                if (content != null && !content.trim().isEmpty()) {
-                    logger.info("Successfully fetched {} characters for class: {}", content.length(), javaClass.getClassName());
-                    return content;
-                } else {
-                    logger.warn("Empty content received for class: {}", javaClass.getClassName());
-                    return null;
+                Map<String, GeminiClassAnalyzerAgentService.ClassAnalysisResult> results =
+                    analyzeClassBatchWithContext(javaClasses, sections.toString(), basicPlantUml);
+                for (JavaClassInfo javaClass : javaClasses) {
+                    GeminiClassAnalyzerAgentService.ClassAnalysisResult result = results.get(javaClass.getClassName());
+                    if (result != null) {
+                        classAnalysisCache.put(javaClass.getSha(), BATCH_ANALYSIS_PROMPT_HASH, result);
+                    }
                 }
-            } else {
-                logger.warn("Could not construct raw URL for class: {}", javaClass.getClassName());
-                return null;
+                return results;
             }
-        } catch (Exception e) {
-            logger.error("Error fetching file content for {}: {}", javaClass.getClassName(), e.getMessage());
-            return null;
+        };
+        
+        return classAnalysisPipeline.analyze(javaClasses, stages, listener);
+    }
+    
+    /**
+     * Pack the source up to the token budget, cutting at a line boundary
+     */
+    private static String packContent(JavaClassInfo javaClass, String content) {
+        String packed = TokenEstimator.truncate(content, MAX_CONTENT_TOKENS, TRUNCATION_MARKER);
+        if (packed != content) {
+            logger.info("Truncated content for {} to {} tokens", javaClass.getClassName(), MAX_CONTENT_TOKENS);
         }
+        return packed;
     }
     
     /**
-     * Construct raw GitHub URL for file content
+     * Analyze a batch of classes from one package with a single Gemini call
+     *
+     * @return Results keyed by class name; classes missing from the answer are left out
+     * @throws IllegalStateException When the answer is empty or not a JSON array
      */
-    private String constructRawGitHubUrl(String repositoryUrl, String branch, String filePath) {
+    Map<String, GeminiClassAnalyzerAgentService.ClassAnalysisResult> analyzeClassBatchWithContext(
+            List<JavaClassInfo> javaClasses, String classSections, String existingUml) {
+        
+        logger.info("Starting batched Gemini analysis for {} classes", javaClasses.size());
+        
+        String prompt = String.format(ENHANCED_BATCH_ANALYSIS_PROMPT, existingUml, classSections);
+        String response = geminiChatAgentService.askQuestion(prompt, LlmPriority.BATCH);
+        logger.info("Received batched response from Gemini for {} classes (length: {})",
+                   javaClasses.size(), response != null ? response.length() : 0);
+        
+        // An unusable answer fails the whole call, so the pipeline does not re-analyze every class on its own
+        if (response == null || response.trim().isEmpty()) {
+            throw new IllegalStateException("Empty batched response from Gemini");
+        }
+        
+        Map<String, GeminiClassAnalyzerAgentService.ClassAnalysisResult> results = new HashMap<>();
+        Set<String> expected = new HashSet<>();
+        javaClasses.forEach(javaClass -> expected.add(javaClass.getClassName()));
         try {
-            // Convert https://github.com/owner/repo to https://raw.githubusercontent.com/owner/repo/branch/path
-            if (repositoryUrl.contains("github.com")) {
-                String[] parts = repositoryUrl.replace("https://github.com/", "").split("/");
-                if (parts.length >= 2) {
-                    String owner = parts[0];
-                    String repo = parts[1];
-                    // Use the actual branch from the tree data, fallback to master, then main
-                    String branchName = (branch != null && !branch.isEmpty()) ? branch : "master";
-                    
-                    String rawUrl = String.format("https://raw.githubusercontent.com/%s/%s/%s/%s", 
-                                                 owner, repo, branchName, filePath);
-                    logger.info("Constructed raw GitHub URL: {}", rawUrl);
-                    return rawUrl;
+            for (JsonNode element : objectMapper.readTree(extractJsonArrayFromResponse(response))) {
+                GeminiClassAnalyzerAgentService.ClassAnalysisResult result =
+                    parseJsonToClassAnalysisResult(objectMapper.writeValueAsString(element));
+                // Unknown or repeated names are ignored; the pipeline retries uncovered classes on their own
+                if (result.getClassName() != null && expected.remove(result.getClassName())) {
+                    results.put(result.getClassName(), result);
                 }
             }
         } catch (Exception e) {
-            logger.error("Error constructing raw GitHub URL: {}", e.getMessage());
+            throw new IllegalStateException("Unreadable batched response from Gemini: " + e.getMessage(), e);
         }
-        return null;
+        return results;
+    }
+    
+    /**
+     * Extract JSON array from a batched Gemini response
+     */
+    private String extractJsonArrayFromResponse(String response) {
+        int arrayStart = response.indexOf("[");
+        int arrayEnd = response.lastIndexOf("]");
+        
+        if (arrayStart != -1 && arrayEnd > arrayStart) {
+            return response.substring(arrayStart, arrayEnd + 1);
+        }
+        
+        return response;
     }
     
     /**
@@ -546,68 +883,11 @@ public class ClassDiagramGeneratorService {
         
         logger.info("Starting enhanced Gemini analysis for class: {}", className);
         
-        String prompt = String.format("""
-            I have a basic PlantUML class diagram that I want to enhance with detailed class analysis. Here's the current UML:
-            
-            ```plantuml
-            %s
-            ```
-            
-            Now I want to analyze this Java class and extract detailed information including relationships, methods, and fields:
-            
-            Class Name: %s
-            
-            Java Code:
-            ```java
-            %s
-            ```
-            
-            Please provide ONLY a JSON response with the following structure:
-            {
-                "className": "%s",
-                "classType": "class|interface|enum|abstract class",
-                "packageName": "extracted package name",
-                "extends": "parent class name if any, null otherwise",
-                "implements": ["list of implemented interfaces"],
-                "fields": [
-                    {
-                        "name": "field name",
-                        "type": "field type",
-                        "visibility": "private|public|protected|package",
-                        "isStatic": true/false,
-                        "isFinal": true/false
-                    }
-                ],
-                "methods": [
-                    {
-                        "name": "method name",
-                        "returnType": "return type",
-                        "visibility": "private|public|protected|package",
-                        "isStatic": true/false,
-                        "isAbstract": true/false,
-                        "parameters": [
-                            {
-                                "name": "param name",
-                                "type": "param type"
-                            }
-                        ]
-                    }
-                ],
-                "usedClasses": ["list of other classes this class references or uses"],
-                "annotations": ["list of class-level annotations"]
-            }
-            
-            Focus on extracting:
-            1. All fields with their types and visibility
-            2. All method signatures with parameters and return types
-            3. Class relationships (extends, implements)
-            4. Other classes that this class uses or references
-            5. Annotations and modifiers
-            """, existingUml, className, content, className);
+        String prompt = String.format(ENHANCED_ANALYSIS_PROMPT, existingUml, className, content, className);
         
         try {
             logger.info("Sending enhanced prompt to Gemini for class: {}", className);
-            String response = geminiChatAgentService.askQuestion(prompt);
+            String response = geminiChatAgentService.askQuestion(prompt, LlmPriority.BATCH);
             logger.info("Received response from Gemini for class: {} (length: {})", className, response != null ? response.length() : 0);
             
             if (response != null && !response.trim().isEmpty()) {
@@ -688,6 +968,13 @@ public class ClassDiagramGeneratorService {
         return null;
     }
     
+    /**
+     * Check a boolean JSON member, whatever the whitespace around the colon
+     */
+    private static boolean hasJsonFlag(String json, String key) {
+        return java.util.regex.Pattern.compile("\"" + key + "\"\\s*:\\s*true").matcher(json).find();
+    }
+    
     /**
      * Create fallback result for failed analysis
      */
@@ -702,7 +989,7 @@ public class ClassDiagramGeneratorService {
     /**
      * Generate enhanced PlantUML from analysis results with relationships
      */
-    private String generateEnhancedPlantUMLFromAnalysis(String basicPlantUml, 
+    String generateEnhancedPlantUMLFromAnalysis(String basicPlantUml, 
                                                        Map<String, GeminiClassAnalyzerAgentService.ClassAnalysisResult> analysisResults,
                                                        RepositoryTreeData treeData) {
         StringBuilder enhanced = new StringBuilder();
@@ -777,18 +1064,59 @@ public class ClassDiagramGeneratorService {
             plantUml.append("  class ").append(className).append(" {\n");
         }
         
-        // Parse and add fields from rawAnalysis
-        addFieldsFromRawAnalysis(plantUml, analysis.getRawAnalysis());
+        // Locally parsed results carry the structured model; LLM results only the raw JSON
+        if (analysis.getFields() != null) {
+            addFields(plantUml, analysis.getFields());
+        } else {
+            addFieldsFromRawAnalysis(plantUml, analysis.getRawAnalysis());
+        }
         
         // Add separator between fields and methods
         plantUml.append("    --\n");
         
-        // Parse and add methods from rawAnalysis
-        addMethodsFromRawAnalysis(plantUml, analysis.getRawAnalysis());
+        if (analysis.getMethods() != null) {
+            addMethods(plantUml, analysis.getMethods());
+        } else {
+            addMethodsFromRawAnalysis(plantUml, analysis.getRawAnalysis());
+        }
         
         plantUml.append("  }\n");
     }
     
+    /**
+     * Add fields from a structured analysis
+     */
+    private void addFields(StringBuilder plantUml, List<GeminiClassAnalyzerAgentService.FieldInfo> fields) {
+        for (GeminiClassAnalyzerAgentService.FieldInfo field : fields) {
+            plantUml.append("    ").append(visibilitySymbol(field.getVisibility()));
+            plantUml.append(field.getName()).append(" : ").append(field.getType());
+            if (field.isStatic()) plantUml.append(" {static}");
+            if (field.isFinal()) plantUml.append(" {final}");
+            plantUml.append("\n");
+        }
+    }
+    
+    /**
+     * Add methods from a structured analysis
+     */
+    private void addMethods(StringBuilder plantUml, List<GeminiClassAnalyzerAgentService.MethodInfo> methods) {
+        for (GeminiClassAnalyzerAgentService.MethodInfo method : methods) {
+            plantUml.append("    ").append(visibilitySymbol(method.getVisibility()));
+            plantUml.append(method.getName()).append("()");
+            plantUml.append(" : ").append(method.getReturnType());
+            if (method.isStatic()) plantUml.append(" {static}");
+            if (method.isAbstract()) plantUml.append(" {abstract}");
+            plantUml.append("\n");
+        }
+    }
+    
+    private static String visibilitySymbol(String visibility) {
+        if ("private".equals(visibility)) return "-";
+        if ("protected".equals(visibility)) return "#";
+        if ("public".equals(visibility)) return "+";
+        return "~";
+    }
+    
     /**
      * Add fields from raw analysis JSON
      */
@@ -805,8 +1133,8 @@ public class ClassDiagramGeneratorService {
                         String name = extractJsonValue(field, "name");
                         String type = extractJsonValue(field, "type");
                         String visibility = extractJsonValue(field, "visibility");
-                        boolean isStatic = field.contains("\"isStatic\": true");
-                        boolean isFinal = field.contains("\"isFinal\": true");
+                        boolean isStatic = hasJsonFlag(field, "isStatic");
+                        boolean isFinal = hasJsonFlag(field, "isFinal");
                         
                         if (name != null && type != null) {
                             plantUml.append("    ");
@@ -848,8 +1176,8 @@ public class ClassDiagramGeneratorService {
                         String name = extractJsonValue(method, "name");
                         String returnType = extractJsonValue(method, "returnType");
                         String visibility = extractJsonValue(method, "visibility");
-                        boolean isStatic = method.contains("\"isStatic\": true");
-                        boolean isAbstract = method.contains("\"isAbstract\": true");
+                        boolean isStatic = hasJsonFlag(method, "isStatic");
+                        boolean isAbstract = hasJsonFlag(method, "isAbstract");
                         
                         if (name != null && returnType != null) {
                             plantUml.append("    ");
@@ -932,7 +1260,7 @@ public class ClassDiagramGeneratorService {
     /**
      * Generate enhanced JSON representation with analysis results
      */
-    private Map<String, Object> generateEnhancedJsonRepresentation(List<JavaClassInfo> javaClasses, 
+    Map<String, Object> generateEnhancedJsonRepresentation(List<JavaClassInfo> javaClasses, 
                                                                  Map<String, GeminiClassAnalyzerAgentService.ClassAnalysisResult> analysisResults,
                                                                  RepositoryTreeData treeData) {
         Map<String, Object> jsonData = new HashMap<>();
@@ -1062,8 +1390,8 @@ public class ClassDiagramGeneratorService {
                         fieldData.put("name", extractJsonValue(field, "name"));
                         fieldData.put("type", extractJsonValue(field, "type"));
                         fieldData.put("visibility", extractJsonValue(field, "visibility"));
-                        fieldData.put("isStatic", field.contains("\"isStatic\": true"));
-                        fieldData.put("isFinal", field.contains("\"isFinal\": true"));
+                        fieldData.put("isStatic", hasJsonFlag(field, "isStatic"));
+                        fieldData.put("isFinal", hasJsonFlag(field, "isFinal"));
                         fields.add(fieldData);
                     }
                 }
@@ -1092,8 +1420,8 @@ public class ClassDiagramGeneratorService {
                         methodData.put("name", extractJsonValue(method, "name"));
                         methodData.put("returnType", extractJsonValue(method, "returnType"));
                         methodData.put("visibility", extractJsonValue(method, "visibility"));
-                        methodData.put("isStatic", method.contains("\"isStatic\": true"));
-                        methodData.put("isAbstract", method.contains("\"isAbstract\": true"));
+                        methodData.put("isStatic", hasJsonFlag(method, "isStatic"));
+                        methodData.put("isAbstract", hasJsonFlag(method, "isAbstract"));
                         
                         // Parse parameters (simplified)
                         List<Map<String, String>> parameters = new ArrayList<>();
@@ -18,6 +18,7 @@ import org.springframework.stereotype.Service;
 import com.archpilot.dto.JiraTicketResponse;
 import com.archpilot.model.ChatSession;
 import com.archpilot.service.agent.GeminiChatAgentService;
+import com.archpilot.service.llm.TokenEstimator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
@@ -40,6 +41,7 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 public class JiraTicketService {
 
     private static final Logger logger = LoggerFactory.getLogger(JiraTicketService.class);
+    private static final int MAX_UML_CONTEXT_TOKENS = 30000;
     private final ObjectMapper objectMapper;
 
     @Autowired
@@ -190,7 +192,7 @@ public class JiraTicketService {
             Respond with ONLY the JSON object, no additional text.
             """, 
             session.getProjectName(),
-            session.getUmlContent(),
+            TokenEstimator.truncate(session.getUmlContent(), MAX_UML_CONTEXT_TOKENS, "\n' ... (diagram truncated)"),
             formatProjectMetadata(session.getJsonData()),
             userMessage
         );
@@ -1,8 +1,13 @@
 package com.archpilot.service.agent;
 
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.stereotype.Service;
 
+import com.archpilot.service.llm.LlmPriority;
+import com.archpilot.service.llm.LlmUsageTracker;
+import com.archpilot.service.llm.ProviderRateLimiter;
+
 /**
  * Gemini Chat Agent Service
  * 
@@ -16,7 +21,9 @@ import org.springframework.stereotype.Service;
  * Token Guardrail Protection:
  * - This agent is automatically protected when used through other services
  * - Token consumption is managed by the calling services (JavaArchitectAgentService, etc.)
- * - Rate limiting is handled at the endpoint level, not directly in this service
+ * - Per-user rate limiting is handled at the endpoint level
+ * - Every call waits for a slot from the shared {@link ProviderRateLimiter}
+ * - Prompt and completion tokens reported by the provider are recorded in {@link LlmUsageTracker}
  * 
  * Usage:
  * - Used by JavaArchitectAgentService for architectural analysis
@@ -28,9 +35,14 @@ import org.springframework.stereotype.Service;
 public class GeminiChatAgentService {
 
     private final ChatClient chatClient;
+    private final ProviderRateLimiter providerRateLimiter;
+    private final LlmUsageTracker llmUsageTracker;
 
-    public GeminiChatAgentService(ChatClient.Builder chatClientBuilder) {
+    public GeminiChatAgentService(ChatClient.Builder chatClientBuilder, ProviderRateLimiter providerRateLimiter,
+                                  LlmUsageTracker llmUsageTracker) {
         this.chatClient = chatClientBuilder.build();
+        this.providerRateLimiter = providerRateLimiter;
+        this.llmUsageTracker = llmUsageTracker;
     }
 
     /**
@@ -40,9 +52,21 @@ public class GeminiChatAgentService {
      * @return The AI's response as a string
      */
     public String askQuestion(String question) {
-        return chatClient.prompt()
+        return askQuestion(question, LlmPriority.STANDARD);
+    }
+
+    /**
+     * Send a question to Gemini AI at the given scheduling priority
+     * 
+     * @param question The question or prompt to send to Gemini
+     * @param priority Queue the call waits in when the provider budget is contended
+     * @return The AI's response as a string
+     */
+    public String askQuestion(String question, LlmPriority priority) {
+        ChatResponse response = providerRateLimiter.execute(question, priority, () -> chatClient.prompt()
                 .user(question)
                 .call()
-                .content();
+                .chatResponse(), llmUsageTracker::record);
+        return response != null && response.getResult() != null ? response.getResult().getOutput().getContent() : null;
     }
 }
\ No newline at end of file
@@ -4,15 +4,19 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import com.archpilot.service.ClassDiagramGeneratorService.JavaClassInfo;
+import com.archpilot.service.llm.LlmPriority;
+import com.archpilot.service.llm.LlmUsageTracker;
+import com.archpilot.service.llm.ProviderRateLimiter;
 
 /**
  * Gemini Class Analyzer Agent Service
@@ -26,9 +30,9 @@ import com.archpilot.service.ClassDiagramGeneratorService.JavaClassInfo;
  * 
  * Token Guardrail Protection:
  * - This agent is automatically protected by the TokenGuardrailInterceptor
- * - Uses a controlled thread pool (2 threads) to manage API rate limits
- * - Token consumption is tracked and managed automatically through the guardrail system
- * - Respects the dual bucket strategy (RPM + TPM) for Gemini API calls
+ * - Uses a controlled thread pool (archpilot.analyzer.threads, default 2) to manage API rate limits
+ * - Token consumption reported by Gemini is recorded in the LlmUsageTracker
+ * - Every Gemini call waits for a slot from the shared provider-level ProviderRateLimiter
  * 
  * Analysis Capabilities:
  * - Class structure analysis (fields, methods, constructors)
@@ -50,11 +54,18 @@ public class GeminiClassAnalyzerAgentService {
     private static final Logger logger = LoggerFactory.getLogger(GeminiClassAnalyzerAgentService.class);
     private final ChatClient chatClient;
     private final ExecutorService executorService;
+    private final ProviderRateLimiter providerRateLimiter;
+    private final LlmUsageTracker llmUsageTracker;
 
-    public GeminiClassAnalyzerAgentService(ChatClient.Builder chatClientBuilder) {
+    public GeminiClassAnalyzerAgentService(ChatClient.Builder chatClientBuilder,
+                                           @Qualifier("classAnalyzerExecutor") ExecutorService executorService,
+                                           ProviderRateLimiter providerRateLimiter,
+                                           LlmUsageTracker llmUsageTracker) {
         this.chatClient = chatClientBuilder.build();
-        // Using 2 threads as per TokenGuardrail strategy to manage API rate limits
-        this.executorService = Executors.newFixedThreadPool(2);
+        this.providerRateLimiter = providerRateLimiter;
+        this.llmUsageTracker = llmUsageTracker;
+        // Sized by archpilot.analyzer.threads (2 by default, as per TokenGuardrail strategy to manage API rate limits)
+        this.executorService = executorService;
     }
 
     /**
@@ -63,7 +74,7 @@ public class GeminiClassAnalyzerAgentService {
      */
     public Map<String, ClassAnalysisResult> analyzeJavaClasses(List<JavaClassInfo> javaClasses, 
                                                               Map<String, String> fileContents) {
-        logger.info("Starting parallel analysis of {} Java classes with 2 threads", javaClasses.size());
+        logger.info("Starting parallel analysis of {} Java classes", javaClasses.size());
         
         Map<String, ClassAnalysisResult> results = new java.util.concurrent.ConcurrentHashMap<>();
         List<CompletableFuture<Void>> futures = new java.util.ArrayList<>();
@@ -105,12 +116,12 @@ public class GeminiClassAnalyzerAgentService {
         String prompt = buildAnalysisPrompt(className, content);
         
         try {
-            String response = chatClient.prompt()
+            ChatResponse response = providerRateLimiter.execute(prompt, LlmPriority.BATCH, () -> chatClient.prompt()
                 .user(prompt)
                 .call()
-                .content();
+                .chatResponse(), llmUsageTracker::record);
             
-            return parseAnalysisResponse(className, response);
+            return parseAnalysisResponse(className, response.getResult().getOutput().getContent());
         } catch (Exception e) {
             logger.error("Error calling Gemini API for class {}: {}", className, e.getMessage(), e);
             return createFallbackResult(className);
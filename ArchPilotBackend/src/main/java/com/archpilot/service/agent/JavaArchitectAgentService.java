@@ -12,6 +12,8 @@ import com.archpilot.model.ChatSession;
 import com.archpilot.service.IntentAnalyzerService;
 import com.archpilot.service.JiraTicketService;
 import com.archpilot.service.diagram.DiagramFileManager;
+import com.archpilot.service.llm.LlmPriority;
+import com.archpilot.service.llm.TokenEstimator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
@@ -41,6 +43,7 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 public class JavaArchitectAgentService {
 
     private static final Logger logger = LoggerFactory.getLogger(JavaArchitectAgentService.class);
+    private static final int MAX_UML_CONTEXT_TOKENS = 30000;
     private final ObjectMapper objectMapper;
 
     public JavaArchitectAgentService() {
@@ -292,7 +295,7 @@ public class JavaArchitectAgentService {
             - Use SPECIFIC exception names (ValidationException, NotFoundException) NOT generic "error"
             """,
             session.getProjectName(),
-            session.getUmlContent(),
+            umlContext(session),
             formatProjectMetadata(session.getJsonData()),
             userMessage,
             className,
@@ -313,7 +316,7 @@ public class JavaArchitectAgentService {
             methodName != null ? methodName : "execute"
         );
         
-        return geminiChatAgentService.askQuestion(prompt);
+        return geminiChatAgentService.askQuestion(prompt, LlmPriority.INTERACTIVE);
     }
     /**
      * Handle architectural advice requests
@@ -322,7 +325,7 @@ public class JavaArchitectAgentService {
         logger.info("Providing architectural advice for: {}", userMessage);
         
         String prompt = buildArchitecturalAdvicePrompt(session, userMessage);
-        return geminiChatAgentService.askQuestion(prompt);
+        return geminiChatAgentService.askQuestion(prompt, LlmPriority.INTERACTIVE);
     }
 
     /**
@@ -332,7 +335,7 @@ public class JavaArchitectAgentService {
         logger.info("General architectural discussion: {}", userMessage);
         
         String prompt = buildGeneralDiscussionPrompt(session, userMessage);
-        return geminiChatAgentService.askQuestion(prompt);
+        return geminiChatAgentService.askQuestion(prompt, LlmPriority.INTERACTIVE);
     }
 
     /**
@@ -388,7 +391,7 @@ public class JavaArchitectAgentService {
             Use realistic Java class names and method calls throughout the explanation.
             """,
             session.getProjectName(),
-            session.getUmlContent(),
+            umlContext(session),
             formatProjectMetadata(session.getJsonData()),
             userMessage,
             className,
@@ -397,7 +400,7 @@ public class JavaArchitectAgentService {
             methodName != null ? methodName : "execute"
         );
         
-        return geminiChatAgentService.askQuestion(prompt);
+        return geminiChatAgentService.askQuestion(prompt, LlmPriority.INTERACTIVE);
     }
     /**
      * Explain general code flow when no specific class/method is mentioned
@@ -434,12 +437,12 @@ public class JavaArchitectAgentService {
             Note: For detailed code-level analysis, I can coordinate with a Java SME agent if you provide specific class/method names.
             """,
             session.getProjectName(),
-            session.getUmlContent(),
+            umlContext(session),
             formatProjectMetadata(session.getJsonData()),
             userMessage
         );
         
-        return geminiChatAgentService.askQuestion(prompt);
+        return geminiChatAgentService.askQuestion(prompt, LlmPriority.INTERACTIVE);
     }
 
     /**
@@ -473,7 +476,7 @@ public class JavaArchitectAgentService {
             Provide specific, actionable recommendations with reasoning.
             """,
             session.getProjectName(),
-            session.getUmlContent(),
+            umlContext(session),
             formatProjectMetadata(session.getJsonData()),
             userMessage
         );
@@ -503,11 +506,18 @@ public class JavaArchitectAgentService {
             Keep the discussion technical but accessible, focusing on architectural aspects.
             """,
             session.getProjectName(),
-            session.getUmlContent(),
+            umlContext(session),
             userMessage
         );
     }
 
+    /**
+     * UML model for the prompt, packed to the context budget so large projects do not overshoot TPM
+     */
+    private String umlContext(ChatSession session) {
+        return TokenEstimator.truncate(session.getUmlContent(), MAX_UML_CONTEXT_TOKENS, "\n' ... (diagram truncated)");
+    }
+
     private String formatProjectMetadata(Map<String, Object> jsonData) {
         if (jsonData == null) return "No metadata available";
         
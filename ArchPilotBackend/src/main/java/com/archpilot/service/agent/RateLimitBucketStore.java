@@ -0,0 +1,42 @@
+package com.archpilot.service.agent;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.archpilot.entity.RateLimitBucket;
+import com.archpilot.repository.RateLimitBucketRepository;
+
+/**
+ * Persistence side of the {@link TokenGuardrailService} buckets
+ *
+ * Only the periodic synchronization goes through here, so the row lock is taken
+ * once per user and sync interval on each node rather than once per request.
+ */
+@Component
+public class RateLimitBucketStore {
+
+    @Autowired
+    private RateLimitBucketRepository rateLimitBucketRepository;
+
+    /**
+     * Lock the user's bucket row (creating it if missing), apply the update and save it in one transaction
+     *
+     * @return The bucket as stored after the update
+     */
+    @Transactional
+    public RateLimitBucket update(String userId, Supplier<RateLimitBucket> creator, Consumer<RateLimitBucket> update) {
+        RateLimitBucket bucket = rateLimitBucketRepository.findByUserIdWithLock(userId)
+                .orElseGet(creator);
+        update.accept(bucket);
+        return rateLimitBucketRepository.save(bucket);
+    }
+
+    public Optional<RateLimitBucket> find(String userId) {
+        return rateLimitBucketRepository.findByUserId(userId);
+    }
+}
@@ -2,11 +2,20 @@ package com.archpilot.service.agent;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import com.archpilot.entity.RateLimitBucket;
+
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * TokenGuardrailService - Acts as a guardrail for AI Agent requests
@@ -24,6 +33,18 @@ import java.time.temporal.ChronoUnit;
  * Dual Bucket Strategy:
  * - RPM Bucket: Tracks request count, refills at 1 request per (60/maxRPM) seconds
  * - TPM Bucket: Tracks token usage, refills at maxTPM/60 tokens per second
+ *
+ * Hot Path and Persistence:
+ * - Each user's buckets live in memory as an immutable snapshot swapped with compare-and-set,
+ *   so validation never locks and never touches the database
+ * - Consumption since the last sync is accumulated per user and applied to rate_limit_buckets
+ *   by a scheduled task; the stored state (including other nodes' consumption) is merged back,
+ *   so nodes converge within one sync interval
+ *
+ * Configuration:
+ * - archpilot.rate-limit.persist: synchronize buckets through the database (default true)
+ * - archpilot.rate-limit.sync-interval-ms: delay between synchronizations (default 1000)
+ * - archpilot.rate-limit.idle-eviction-minutes: drop in-memory buckets idle this long (default 10)
  */
 @Service
 public class TokenGuardrailService {
@@ -42,44 +63,105 @@ public class TokenGuardrailService {
     @Value("${gemini.rate-limit.requests-refill-per-second:0.167}")  // 10/60 requests per second
     private double requestsRefillPerSecond;
 
+    @Value("${archpilot.rate-limit.persist:true}")
+    private boolean persistenceEnabled;
+
+    @Value("${archpilot.rate-limit.idle-eviction-minutes:10}")
+    private long idleEvictionMinutes;
+
+    @Autowired
+    private RateLimitBucketStore rateLimitBucketStore;
+
+    private final Map<String, UserBuckets> buckets = new ConcurrentHashMap<>();
+
     /**
      * Validates if a request can proceed based on both RPM and TPM bucket states
      * 
+     * An approved request reserves one request and the estimated tokens; use
+     * {@link #updateConsumption(String, int, int)} to settle the reservation once actual usage is known.
+     *
      * @param userId User identifier for rate limiting
      * @param estimatedTokens Estimated tokens for the request
      * @return TokenValidationResult containing approval status and wait time for both limits
      */
     public TokenValidationResult validateRequest(String userId, int estimatedTokens) {
-        // TODO: Implement dual bucket validation logic
-        // 1. Get current user RPM and TPM bucket states from database
-        // 2. Calculate refill amounts for both buckets based on time elapsed
-        // 3. Check if request can be fulfilled against BOTH limits
-        // 4. Return validation result with maximum wait time if either limit exceeded
-        
-        logger.info("Validating request for user: {} with estimated tokens: {}", userId, estimatedTokens);
-        
-        // Placeholder implementation - replace with actual dual bucket logic
-        // Need to check both:
-        // - Available requests in RPM bucket >= 1
-        // - Available tokens in TPM bucket >= estimatedTokens
-        
-        return new TokenValidationResult(true, 0, 0, maxRequestsPerMinute, maxTokensPerMinute);
+        UserBuckets userBuckets = bucketsFor(userId);
+        int requiredTokens = reservableTokens(estimatedTokens);
+
+        while (true) {
+            long now = System.currentTimeMillis();
+            BucketState current = userBuckets.state.get();
+            BucketState refilled = refill(current, now);
+
+            if (refilled.requests < 1.0 || refilled.tokens < requiredTokens) {
+                long waitTime = calculateWaitTime(requiredTokens, (int) refilled.tokens, refilled.requests);
+                long rpmWaitTime = calculateWaitTime(0, 0, refilled.requests);
+                logger.debug("Rejecting request for user: {} (available: {} requests, {} tokens, needed: {} tokens)",
+                            userId, refilled.requests, (long) refilled.tokens, requiredTokens);
+                return new TokenValidationResult(false, waitTime, rpmWaitTime,
+                                                 (int) refilled.requests, (int) refilled.tokens);
+            }
+
+            BucketState next = new BucketState(refilled.requests - 1.0, refilled.tokens - requiredTokens, refilled.timestampMillis);
+            if (userBuckets.state.compareAndSet(current, next)) {
+                userBuckets.pendingRequests.incrementAndGet();
+                userBuckets.pendingTokens.addAndGet(requiredTokens);
+                userBuckets.lastAccessMillis = now;
+                return new TokenValidationResult(true, 0, 0, (int) next.requests, (int) next.tokens);
+            }
+        }
     }
 
     /**
-     * Updates both request count and token consumption after successful API call
-     * 
+     * Records a call that was not reserved through {@link #validateRequest(String, int)}
+     *
+     * Subtracts one request and the actual tokens even if the buckets go negative; the debt
+     * delays subsequent requests until it is refilled.
+     *
      * @param userId User identifier
      * @param actualTokensUsed Actual tokens consumed from Gemini API response
      */
     public void updateConsumption(String userId, int actualTokensUsed) {
-        // TODO: Implement dual consumption update
-        // 1. Subtract 1 from RPM bucket (request count)
-        // 2. Subtract actual tokens from TPM bucket
-        // 3. Update last request timestamp for both buckets
-        // 4. Store in database atomically
-        
-        logger.info("Updating consumption for user: {} - 1 request, {} tokens", userId, actualTokensUsed);
+        logger.debug("Updating consumption for user: {} - 1 request, {} tokens", userId, actualTokensUsed);
+        consume(bucketsFor(userId), 1, Math.max(actualTokensUsed, 0));
+    }
+
+    /**
+     * Settles a reservation made by {@link #validateRequest(String, int)} against the actual token usage
+     *
+     * @param userId User identifier
+     * @param estimatedTokens Tokens estimated (and reserved) when the request was validated
+     * @param actualTokensUsed Actual tokens consumed from Gemini API response
+     */
+    public void updateConsumption(String userId, int estimatedTokens, int actualTokensUsed) {
+        long difference = (long) Math.max(actualTokensUsed, 0) - reservableTokens(estimatedTokens);
+        if (difference != 0) {
+            logger.debug("Settling consumption for user: {} - {} tokens over the estimate", userId, difference);
+            consume(bucketsFor(userId), 0, difference);
+        }
+    }
+
+    /**
+     * Applies the consumption accumulated since the last run to the persisted buckets and merges
+     * the stored state (which includes consumption on other nodes) back into memory
+     */
+    @Scheduled(fixedDelayString = "${archpilot.rate-limit.sync-interval-ms:1000}")
+    public void synchronizeBuckets() {
+        long idleCutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(idleEvictionMinutes);
+
+        for (Map.Entry<String, UserBuckets> entry : buckets.entrySet()) {
+            String userId = entry.getKey();
+            UserBuckets userBuckets = entry.getValue();
+
+            if (persistenceEnabled) {
+                synchronize(userId, userBuckets);
+            }
+
+            if (userBuckets.lastAccessMillis < idleCutoff && userBuckets.pendingRequests.get() == 0
+                    && userBuckets.pendingTokens.get() == 0) {
+                buckets.remove(userId, userBuckets);
+            }
+        }
     }
 
     /**
@@ -110,6 +192,119 @@ public class TokenGuardrailService {
         return Math.max(tokenWaitTime, requestWaitTime);
     }
 
+    private void synchronize(String userId, UserBuckets userBuckets) {
+        long requests = userBuckets.pendingRequests.getAndSet(0);
+        long tokens = userBuckets.pendingTokens.getAndSet(0);
+
+        try {
+            RateLimitBucket stored;
+            if (requests != 0 || tokens != 0) {
+                stored = rateLimitBucketStore.update(userId,
+                        () -> new RateLimitBucket(userId, (double) maxRequestsPerMinute, maxTokensPerMinute),
+                        bucket -> {
+                            LocalDateTime now = LocalDateTime.now();
+                            BucketState refilled = fromStored(bucket, now);
+                            bucket.setAvailableRequests(refilled.requests - requests);
+                            bucket.setAvailableTokens((int) (refilled.tokens - tokens));
+                            bucket.setLastRequestTime(now);
+                            bucket.setLastTokenTime(now);
+                        });
+            } else {
+                stored = rateLimitBucketStore.find(userId).orElse(null);
+            }
+
+            if (stored != null) {
+                BucketState global = fromStored(stored, LocalDateTime.now());
+                // Consumption recorded while the database call ran is not in the stored state yet
+                userBuckets.state.set(new BucketState(global.requests - userBuckets.pendingRequests.get(),
+                                                      global.tokens - userBuckets.pendingTokens.get(),
+                                                      System.currentTimeMillis()));
+            }
+        } catch (RuntimeException e) {
+            // Keep the consumption for the next run rather than losing it
+            userBuckets.pendingRequests.addAndGet(requests);
+            userBuckets.pendingTokens.addAndGet(tokens);
+            logger.warn("Error synchronizing rate limit bucket for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private UserBuckets bucketsFor(String userId) {
+        UserBuckets userBuckets = buckets.get(userId);
+        if (userBuckets == null) {
+            // New users start with full buckets; the next synchronization brings in their stored state
+            userBuckets = buckets.computeIfAbsent(userId, id -> new UserBuckets(
+                    new BucketState(maxRequestsPerMinute, maxTokensPerMinute, System.currentTimeMillis())));
+        }
+        return userBuckets;
+    }
+
+    private void consume(UserBuckets userBuckets, int requests, long tokens) {
+        long now = System.currentTimeMillis();
+        userBuckets.state.updateAndGet(current -> {
+            BucketState refilled = refill(current, now);
+            return new BucketState(refilled.requests - requests, refilled.tokens - tokens, refilled.timestampMillis);
+        });
+        userBuckets.pendingRequests.addAndGet(requests);
+        userBuckets.pendingTokens.addAndGet(tokens);
+        userBuckets.lastAccessMillis = now;
+    }
+
+    /**
+     * A request larger than the whole TPM bucket could never be admitted, so it reserves a full bucket instead
+     */
+    private int reservableTokens(int estimatedTokens) {
+        return Math.min(Math.max(estimatedTokens, 0), maxTokensPerMinute);
+    }
+
+    private BucketState refill(BucketState state, long nowMillis) {
+        long elapsedMillis = Math.max(0, nowMillis - state.timestampMillis);
+        if (elapsedMillis == 0) {
+            return state;
+        }
+        return new BucketState(
+                Math.min(maxRequestsPerMinute, state.requests + elapsedMillis * requestsRefillPerSecond / 1000.0),
+                Math.min(maxTokensPerMinute, state.tokens + elapsedMillis * (double) tokensRefillPerSecond / 1000.0),
+                nowMillis);
+    }
+
+    private BucketState fromStored(RateLimitBucket bucket, LocalDateTime now) {
+        long requestMillis = Math.max(0, ChronoUnit.MILLIS.between(bucket.getLastRequestTime(), now));
+        long tokenMillis = Math.max(0, ChronoUnit.MILLIS.between(bucket.getLastTokenTime(), now));
+        return new BucketState(
+                Math.min(maxRequestsPerMinute, bucket.getAvailableRequests() + requestMillis * requestsRefillPerSecond / 1000.0),
+                Math.min(maxTokensPerMinute, bucket.getAvailableTokens() + tokenMillis * (double) tokensRefillPerSecond / 1000.0),
+                System.currentTimeMillis());
+    }
+
+    /**
+     * Immutable snapshot of a user's RPM and TPM buckets
+     */
+    private static final class BucketState {
+        private final double requests;
+        private final double tokens;
+        private final long timestampMillis;
+
+        private BucketState(double requests, double tokens, long timestampMillis) {
+            this.requests = requests;
+            this.tokens = tokens;
+            this.timestampMillis = timestampMillis;
+        }
+    }
+
+    /**
+     * In-memory buckets of one user plus the consumption not yet synchronized
+     */
+    private static final class UserBuckets {
+        private final AtomicReference<BucketState> state;
+        private final AtomicLong pendingRequests = new AtomicLong();
+        private final AtomicLong pendingTokens = new AtomicLong();
+        private volatile long lastAccessMillis = System.currentTimeMillis();
+
+        private UserBuckets(BucketState initial) {
+            this.state = new AtomicReference<>(initial);
+        }
+    }
+
     /**
      * Result class for dual bucket token validation (RPM + TPM)
      */
@@ -0,0 +1,391 @@
+package com.archpilot.service.analysis;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.archpilot.service.ClassDiagramGeneratorService.JavaClassInfo;
+import com.archpilot.service.agent.GeminiClassAnalyzerAgentService.ClassAnalysisResult;
+import com.archpilot.service.llm.LlmUsageTracker;
+import com.archpilot.service.llm.TokenEstimator;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Class Analysis Pipeline
+ *
+ * Main Context:
+ * - Replaces the one-file-at-a-time analysis loop used for class diagram generation
+ * - Runs four stages: cache lookup -> fetch source -> LLM analysis -> merge results
+ * - Cache hits skip both the fetch and the LLM call
+ * - Sources the local structure parser can read skip the LLM call; only the rest are analyzed by the LLM,
+ *   unless the stages enrich parsed classes, which then share the LLM batches and keep their parsed
+ *   result when the call fails
+ * - Each stage has its own configurable parallelism, so slow fetches never idle the LLM stage
+ *
+ * Batching:
+ * - Cache misses of the same package are packed into batches analyzed with a single LLM call,
+ *   planned from blob sizes and re-packed by estimated tokens once the sources are fetched
+ * - Classes larger than batch-max-class-tokens are analyzed on their own
+ * - Classes the batch response does not cover are retried one by one
+ * - A failed batch call (e.g. throttled or timed out) is not repeated per class; its classes are
+ *   left out like a failed single analysis, so throttling never multiplies the number of calls
+ *
+ * Rate Budget:
+ * - LLM calls wait for the provider-wide ProviderRateLimiter, shared with every other call site
+ * - analyze-concurrency bounds how many analysis calls queue there at once
+ * - Calls are attributed to the request whose usage is in the subscriber's context (see LlmUsageTracker)
+ *
+ * Configuration:
+ * - archpilot.analysis.fetch-concurrency: parallel source fetches (default 8)
+ * - archpilot.analysis.analyze-concurrency: parallel in-flight LLM calls (default 4)
+ * - archpilot.analysis.max-classes: upper bound of analyzed classes, 0 for all (default 0)
+ * - archpilot.analysis.batch-max-classes: classes per batched call, 1 disables batching (default 8)
+ * - archpilot.analysis.batch-max-tokens: estimated source tokens per batched call (default 6000)
+ * - archpilot.analysis.batch-max-class-tokens: largest class that is batched (default 1500)
+ */
+@Component
+public class ClassAnalysisPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClassAnalysisPipeline.class);
+    private static final String STATUS_SUCCESS = "SUCCESS";
+
+    @Autowired
+    @Qualifier("blockingIoScheduler")
+    private Scheduler blockingIoScheduler;
+
+    @Value("${archpilot.analysis.fetch-concurrency:8}")
+    private int fetchConcurrency;
+
+    @Value("${archpilot.analysis.analyze-concurrency:4}")
+    private int analyzeConcurrency;
+
+    @Value("${archpilot.analysis.max-classes:0}")
+    private int maxClasses;
+
+    @Value("${archpilot.analysis.batch-max-classes:8}")
+    private int batchMaxClasses;
+
+    @Value("${archpilot.analysis.batch-max-tokens:6000}")
+    private int batchMaxTokens;
+
+    @Value("${archpilot.analysis.batch-max-class-tokens:1500}")
+    private int batchMaxClassTokens;
+
+    /**
+     * Run all classes through the fetch, analyze and merge stages
+     *
+     * @param javaClasses Classes to analyze
+     * @param stages Per-class fetch and analysis implementation
+     * @return Analysis results keyed by class name, in completion order
+     */
+    public Mono<Map<String, ClassAnalysisResult>> analyze(List<JavaClassInfo> javaClasses, ClassAnalysisStages stages) {
+        return analyze(javaClasses, stages, DiagramProgressListener.NOOP);
+    }
+
+    /**
+     * Run all classes through the fetch, analyze and merge stages, reporting per-class progress
+     *
+     * @param listener Notified when classes are fetched and analyzed
+     */
+    public Mono<Map<String, ClassAnalysisResult>> analyze(List<JavaClassInfo> javaClasses, ClassAnalysisStages stages,
+                                                           DiagramProgressListener listener) {
+        int limit = maxClasses > 0 ? Math.min(maxClasses, javaClasses.size()) : javaClasses.size();
+        logger.info("Analyzing {} of {} classes (fetch concurrency: {}, analyze concurrency: {})",
+                   limit, javaClasses.size(), fetchConcurrency, analyzeConcurrency);
+        listener.onClassesDiscovered(limit);
+
+        AtomicInteger cacheHits = new AtomicInteger();
+        AtomicInteger analysisCalls = new AtomicInteger();
+        AtomicInteger parsedClasses = new AtomicInteger();
+
+        return Flux.fromIterable(javaClasses.subList(0, limit))
+                // Stage 1: cached analysis lookup
+                .flatMap(javaClass -> lookupStage(javaClass, stages), Math.max(1, fetchConcurrency))
+                .collectList()
+                .flatMapMany(lookedUp -> {
+                    List<ClassWork> misses = new ArrayList<>();
+                    List<Map.Entry<String, ClassAnalysisResult>> hits = new ArrayList<>();
+                    for (ClassWork work : lookedUp) {
+                        if (work.isCached()) {
+                            cacheHits.incrementAndGet();
+                            listener.onClassAnalyzed(work.getJavaClass(), work.getCachedResult(), true);
+                            hits.add(Map.entry(work.getJavaClass().getClassName(), work.getCachedResult()));
+                        } else {
+                            misses.add(work);
+                        }
+                    }
+
+                    Flux<Map.Entry<String, ClassAnalysisResult>> analyzed = Flux.fromIterable(planBatches(misses))
+                            // Stage 2: fetch source content of each batch (one batch ahead of the LLM stage)
+                            .flatMap(batch -> fetchBatchStage(batch, stages, listener, parsedClasses),
+                                     Math.max(1, analyzeConcurrency) + 1)
+                            // Stage 3: LLM analysis, one call per batch
+                            .flatMap(batch -> analyzeBatchStage(batch, stages, listener, analysisCalls),
+                                     Math.max(1, analyzeConcurrency));
+                    return Flux.concat(Flux.fromIterable(hits), analyzed);
+                })
+                // Stage 4: merge (flatMap serializes emissions, so a plain map is safe here)
+                .collect(LinkedHashMap<String, ClassAnalysisResult>::new,
+                         (results, entry) -> results.put(entry.getKey(), entry.getValue()))
+                .map(results -> {
+                    logger.info("Analysis pipeline completed with {} results ({} from cache, {} parsed locally, {} LLM calls)",
+                               results.size(), cacheHits.get(), parsedClasses.get(), analysisCalls.get());
+                    return (Map<String, ClassAnalysisResult>) results;
+                });
+    }
+
+    /**
+     * Group cache misses by package and pack them by blob size (about 3 bytes per token)
+     */
+    private List<List<ClassWork>> planBatches(List<ClassWork> misses) {
+        Map<String, List<ClassWork>> byPackage = new LinkedHashMap<>();
+        for (ClassWork work : misses) {
+            String packageName = work.getJavaClass().getPackageName();
+            byPackage.computeIfAbsent(packageName != null ? packageName : "", key -> new ArrayList<>()).add(work);
+        }
+
+        List<List<ClassWork>> batches = new ArrayList<>();
+        for (List<ClassWork> packageClasses : byPackage.values()) {
+            batches.addAll(pack(packageClasses, work -> {
+                Long size = work.getJavaClass().getSize();
+                // Unknown sizes are treated as too large to batch
+                return size != null ? (int) Math.min(Integer.MAX_VALUE, size / 3) : Integer.MAX_VALUE;
+            }));
+        }
+        logger.info("Planned {} analysis calls for {} uncached classes", batches.size(), misses.size());
+        return batches;
+    }
+
+    /**
+     * Pack classes in order into batches that respect the class count and token limits
+     */
+    private List<List<ClassWork>> pack(List<ClassWork> classes, ToIntFunction<ClassWork> tokens) {
+        List<List<ClassWork>> batches = new ArrayList<>();
+        List<ClassWork> current = new ArrayList<>();
+        long currentTokens = 0;
+
+        for (ClassWork work : classes) {
+            int classTokens = tokens.applyAsInt(work);
+            if (batchMaxClasses <= 1 || classTokens > batchMaxClassTokens) {
+                batches.add(List.of(work));
+                continue;
+            }
+            if (!current.isEmpty() && (current.size() >= batchMaxClasses || currentTokens + classTokens > batchMaxTokens)) {
+                batches.add(current);
+                current = new ArrayList<>();
+                currentTokens = 0;
+            }
+            current.add(work);
+            currentTokens += classTokens;
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+
+    private Flux<List<ClassWork>> fetchBatchStage(List<ClassWork> batch, ClassAnalysisStages stages,
+                                                  DiagramProgressListener listener, AtomicInteger parsedClasses) {
+        return Flux.fromIterable(batch)
+                .flatMap(work -> fetchStage(work.getJavaClass(), stages)
+                        .doOnNext(fetched -> listener.onClassFetched(fetched.getJavaClass()))
+                        .flatMap(fetched -> parseStage(fetched, stages))
+                        .doOnNext(fetched -> {
+                            if (fetched.isParsed()) {
+                                parsedClasses.incrementAndGet();
+                            }
+                        }),
+                         Math.max(1, fetchConcurrency))
+                .collectList()
+                .flatMapIterable(fetched -> repack(fetched, stages));
+    }
+
+    /**
+     * Blob sizes were an estimate; re-pack by the tokens of the fetched sources.
+     * Parsed classes need no LLM call and travel alone, unless they are enriched.
+     */
+    private List<List<ClassWork>> repack(List<ClassWork> fetched, ClassAnalysisStages stages) {
+        List<List<ClassWork>> batches = new ArrayList<>();
+        List<ClassWork> toAnalyze = new ArrayList<>();
+        for (ClassWork work : fetched) {
+            if (work.isParsed() && !stages.enrichesParsed()) {
+                batches.add(List.of(work));
+            } else {
+                toAnalyze.add(work);
+            }
+        }
+        if (toAnalyze.size() == 1) {
+            batches.add(toAnalyze);
+        } else if (!toAnalyze.isEmpty()) {
+            batches.addAll(pack(toAnalyze, work -> TokenEstimator.estimate(work.getContent())));
+        }
+        return batches;
+    }
+
+    private Flux<Map.Entry<String, ClassAnalysisResult>> analyzeBatchStage(List<ClassWork> batch, ClassAnalysisStages stages,
+                                                                           DiagramProgressListener listener,
+                                                                           AtomicInteger analysisCalls) {
+        if (batch.size() == 1 && batch.get(0).isParsed() && !stages.enrichesParsed()) {
+            return Flux.just(parsedResult(batch.get(0), listener));
+        }
+        if (batch.size() == 1) {
+            return analyzeStage(batch.get(0), stages, listener, analysisCalls).flux();
+        }
+
+        List<JavaClassInfo> javaClasses = new ArrayList<>();
+        List<String> contents = new ArrayList<>();
+        for (ClassWork work : batch) {
+            javaClasses.add(work.getJavaClass());
+            contents.add(work.getContent());
+        }
+
+        return LlmUsageTracker.withRequestUsage(() -> {
+                    analysisCalls.incrementAndGet();
+                    return stages.analyzeBatch(javaClasses, contents);
+                })
+                .subscribeOn(blockingIoScheduler)
+                .flatMapMany(results -> {
+                    List<Map.Entry<String, ClassAnalysisResult>> covered = new ArrayList<>();
+                    List<ClassWork> missing = new ArrayList<>();
+                    for (ClassWork work : batch) {
+                        ClassAnalysisResult result = results.get(work.getJavaClass().getClassName());
+                        if (result != null && work.isParsed()) {
+                            result = enrich(work, result, stages);
+                        }
+                        if (result != null) {
+                            listener.onClassAnalyzed(work.getJavaClass(), result, false);
+                            covered.add(Map.entry(work.getJavaClass().getClassName(), result));
+                        } else if (work.isParsed()) {
+                            covered.add(parsedResult(work, listener));
+                        } else {
+                            missing.add(work);
+                        }
+                    }
+                    logger.info("Batch analysis covered {} of {} classes", covered.size(), batch.size());
+                    return Flux.concat(Flux.fromIterable(covered),
+                                       Flux.fromIterable(missing).concatMap(work -> analyzeStage(work, stages, listener, analysisCalls)));
+                })
+                .onErrorResume(e -> {
+                    logger.error("Error analyzing batch of {} classes, skipping them: {}", batch.size(), e.getMessage());
+                    // Parsed classes keep their parsed result
+                    return Flux.fromIterable(batch)
+                            .filter(ClassWork::isParsed)
+                            .map(work -> parsedResult(work, listener));
+                });
+    }
+
+    /**
+     * A failed analysis (e.g. a fallback result after a throttled call) leaves the parsed result
+     * as it is, so the enrichment is retried on the next run
+     */
+    private static ClassAnalysisResult enrich(ClassWork parsed, ClassAnalysisResult analyzed, ClassAnalysisStages stages) {
+        if (!STATUS_SUCCESS.equals(analyzed.getAnalysisStatus())) {
+            logger.warn("Analysis of parsed class {} failed, keeping the parsed result", parsed.getJavaClass().getClassName());
+            return parsed.getResult();
+        }
+        return stages.enrich(parsed.getJavaClass(), parsed.getResult(), analyzed);
+    }
+
+    private static Map.Entry<String, ClassAnalysisResult> parsedResult(ClassWork parsed, DiagramProgressListener listener) {
+        listener.onClassAnalyzed(parsed.getJavaClass(), parsed.getResult(), false);
+        return Map.entry(parsed.getJavaClass().getClassName(), parsed.getResult());
+    }
+
+    private Mono<ClassWork> lookupStage(JavaClassInfo javaClass, ClassAnalysisStages stages) {
+        return Mono.fromCallable(() -> stages.findCached(javaClass))
+                .subscribeOn(blockingIoScheduler)
+                .map(cached -> ClassWork.cached(javaClass, cached))
+                .onErrorResume(e -> {
+                    logger.warn("Error looking up cached analysis for {}: {}", javaClass.getClassName(), e.getMessage());
+                    return Mono.empty();
+                })
+                .defaultIfEmpty(ClassWork.pending(javaClass));
+    }
+
+    private Mono<ClassWork> fetchStage(JavaClassInfo javaClass, ClassAnalysisStages stages) {
+        return Mono.defer(() -> stages.fetch(javaClass))
+                .filter(content -> !content.trim().isEmpty())
+                .map(content -> ClassWork.fetched(javaClass, content))
+                .onErrorResume(e -> {
+                    logger.error("Error fetching class {}: {}", javaClass.getClassName(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<ClassWork> parseStage(ClassWork fetched, ClassAnalysisStages stages) {
+        JavaClassInfo javaClass = fetched.getJavaClass();
+
+        return Mono.fromCallable(() -> stages.parse(javaClass, fetched.getContent()))
+                .subscribeOn(blockingIoScheduler)
+                .map(result -> ClassWork.parsed(javaClass, fetched.getContent(), result))
+                .onErrorResume(e -> {
+                    logger.warn("Error parsing class {}: {}", javaClass.getClassName(), e.getMessage());
+                    return Mono.empty();
+                })
+                .defaultIfEmpty(fetched);
+    }
+
+    private Mono<Map.Entry<String, ClassAnalysisResult>> analyzeStage(ClassWork fetched, ClassAnalysisStages stages,
+                                                                     DiagramProgressListener listener,
+                                                                     AtomicInteger analysisCalls) {
+        JavaClassInfo javaClass = fetched.getJavaClass();
+
+        return LlmUsageTracker.withRequestUsage(() -> {
+                    analysisCalls.incrementAndGet();
+                    return stages.analyze(javaClass, fetched.getContent());
+                })
+                .subscribeOn(blockingIoScheduler)
+                .map(result -> fetched.isParsed() ? enrich(fetched, result, stages) : result)
+                .doOnNext(result -> listener.onClassAnalyzed(javaClass, result, false))
+                .doOnNext(result -> logger.info("Successfully analyzed class: {}", javaClass.getClassName()))
+                .map(result -> Map.entry(javaClass.getClassName(), result))
+                .onErrorResume(e -> {
+                    logger.error("Error analyzing class {}: {}", javaClass.getClassName(), e.getMessage());
+                    return Mono.empty();
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> fetched.isParsed() ? parsedResult(fetched, listener) : null));
+    }
+
+    /**
+     * A class moving through the stages: a cached result, (once fetched) its source content,
+     * or a result of the local structure parser
+     */
+    private static class ClassWork {
+        private final JavaClassInfo javaClass;
+        private final String content;
+        private final ClassAnalysisResult result;
+        private final boolean cached;
+
+        private ClassWork(JavaClassInfo javaClass, String content, ClassAnalysisResult result, boolean cached) {
+            this.javaClass = javaClass;
+            this.content = content;
+            this.result = result;
+            this.cached = cached;
+        }
+
+        static ClassWork pending(JavaClassInfo javaClass) { return new ClassWork(javaClass, null, null, false); }
+        static ClassWork fetched(JavaClassInfo javaClass, String content) { return new ClassWork(javaClass, content, null, false); }
+        static ClassWork cached(JavaClassInfo javaClass, ClassAnalysisResult result) { return new ClassWork(javaClass, null, result, true); }
+        static ClassWork parsed(JavaClassInfo javaClass, String content, ClassAnalysisResult result) { return new ClassWork(javaClass, content, result, false); }
+
+        JavaClassInfo getJavaClass() { return javaClass; }
+        String getContent() { return content; }
+        ClassAnalysisResult getResult() { return result; }
+        ClassAnalysisResult getCachedResult() { return cached ? result : null; }
+        boolean isCached() { return cached; }
+        boolean isParsed() { return result != null && !cached; }
+    }
+}
@@ -0,0 +1,84 @@
+package com.archpilot.service.analysis;
+
+import java.util.List;
+import java.util.Map;
+
+import com.archpilot.service.ClassDiagramGeneratorService.JavaClassInfo;
+import com.archpilot.service.agent.GeminiClassAnalyzerAgentService.ClassAnalysisResult;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Per-class work plugged into the {@link ClassAnalysisPipeline}
+ *
+ * The pipeline owns scheduling and parallelism; implementations only
+ * describe how a single class is fetched and analyzed.
+ */
+public interface ClassAnalysisStages {
+
+    /**
+     * Look up a previously stored analysis (blocking calls are allowed)
+     *
+     * @return Cached analysis result, or null to fetch and analyze the class
+     */
+    default ClassAnalysisResult findCached(JavaClassInfo javaClass) {
+        return null;
+    }
+
+    /**
+     * Fetch the source content of a class without blocking
+     *
+     * @return Mono with the source content, empty when it could not be fetched
+     */
+    Mono<String> fetch(JavaClassInfo javaClass);
+
+    /**
+     * Extract the structural model of the fetched source without an LLM call (blocking calls are allowed)
+     *
+     * @return Analysis result, or null to analyze the class with the LLM
+     */
+    default ClassAnalysisResult parse(JavaClassInfo javaClass, String content) {
+        return null;
+    }
+
+    /**
+     * Whether parsed classes are also sent to the LLM, to be merged through {@link #enrich}
+     */
+    default boolean enrichesParsed() {
+        return false;
+    }
+
+    /**
+     * Merge the LLM analysis of a parsed class into the parsed result (blocking calls are allowed)
+     *
+     * Only called when {@link #enrichesParsed()} is true, and only with a successful analysis. A parsed
+     * class whose analysis fails, falls back or is missing from a batch answer keeps its parsed result
+     * and is not analyzed again.
+     *
+     * @return Enriched analysis result
+     */
+    default ClassAnalysisResult enrich(JavaClassInfo javaClass, ClassAnalysisResult parsed, ClassAnalysisResult analyzed) {
+        return parsed;
+    }
+
+    /**
+     * Analyze the fetched source (blocking calls are allowed)
+     *
+     * @return Analysis result, or null to skip the class
+     */
+    ClassAnalysisResult analyze(JavaClassInfo javaClass, String content);
+
+    /**
+     * Analyze several fetched classes with a single call (blocking calls are allowed)
+     *
+     * A call that fails should throw rather than return an empty map: the classes of a failed
+     * batch are skipped, while classes missing from an answer are analyzed one by one.
+     *
+     * @param javaClasses Classes of the batch, all from the same package
+     * @param contents Source content of each class, in the same order
+     * @return Analysis results keyed by class name; missing classes are analyzed one by one
+     */
+    default Map<String, ClassAnalysisResult> analyzeBatch(List<JavaClassInfo> javaClasses, List<String> contents) {
+        return Map.of();
+    }
+}
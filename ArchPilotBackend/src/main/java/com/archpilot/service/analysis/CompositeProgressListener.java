@@ -0,0 +1,72 @@
+package com.archpilot.service.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.archpilot.service.ClassDiagramGeneratorService.JavaClassInfo;
+import com.archpilot.service.agent.GeminiClassAnalyzerAgentService.ClassAnalysisResult;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Fans the progress of one shared generation out to every caller waiting on it
+ *
+ * Main Context:
+ * - A listener joining mid-run first receives the progress it missed, then live progress,
+ *   so its counters end up the same as the first caller's
+ * - The missed progress is only kept while the generation runs; the composite is dropped with it
+ */
+public class CompositeProgressListener implements DiagramProgressListener {
+
+    private final List<DiagramProgressListener> listeners = new ArrayList<>();
+    private final List<Consumer<DiagramProgressListener>> history = new ArrayList<>();
+
+    /**
+     * Report progress to the listener for as long as it waits on the result
+     */
+    public <V> Mono<V> join(DiagramProgressListener listener, Mono<V> result) {
+        if (listener == NOOP) {
+            return result;
+        }
+        return Mono.defer(() -> {
+            add(listener);
+            return result.doFinally(signal -> remove(listener));
+        });
+    }
+
+    @Override
+    public void onStage(String stage, String message) {
+        dispatch(listener -> listener.onStage(stage, message));
+    }
+
+    @Override
+    public void onClassesDiscovered(int totalClasses) {
+        dispatch(listener -> listener.onClassesDiscovered(totalClasses));
+    }
+
+    @Override
+    public void onClassFetched(JavaClassInfo javaClass) {
+        dispatch(listener -> listener.onClassFetched(javaClass));
+    }
+
+    @Override
+    public void onClassAnalyzed(JavaClassInfo javaClass, ClassAnalysisResult result, boolean fromCache) {
+        dispatch(listener -> listener.onClassAnalyzed(javaClass, result, fromCache));
+    }
+
+    // Replay and registration share the lock with dispatch, so a joining listener sees every event once
+    private synchronized void add(DiagramProgressListener listener) {
+        history.forEach(event -> event.accept(listener));
+        listeners.add(listener);
+    }
+
+    private synchronized void remove(DiagramProgressListener listener) {
+        listeners.remove(listener);
+    }
+
+    private synchronized void dispatch(Consumer<DiagramProgressListener> event) {
+        history.add(event);
+        listeners.forEach(event);
+    }
+}
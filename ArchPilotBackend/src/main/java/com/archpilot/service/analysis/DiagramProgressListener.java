@@ -0,0 +1,34 @@
+package com.archpilot.service.analysis;
+
+import com.archpilot.service.ClassDiagramGeneratorService.JavaClassInfo;
+import com.archpilot.service.agent.GeminiClassAnalyzerAgentService.ClassAnalysisResult;
+
+/**
+ * Receives progress of a class diagram generation
+ *
+ * Callbacks may arrive concurrently from pipeline threads and must not block.
+ */
+public interface DiagramProgressListener {
+
+    DiagramProgressListener NOOP = new DiagramProgressListener() {};
+
+    /**
+     * A generation stage started or finished (e.g. TREE_FETCHED, RENDERING, RENDERED)
+     */
+    default void onStage(String stage, String message) {}
+
+    /**
+     * The classes to analyze are known
+     */
+    default void onClassesDiscovered(int totalClasses) {}
+
+    /**
+     * Source content of a class was fetched
+     */
+    default void onClassFetched(JavaClassInfo javaClass) {}
+
+    /**
+     * A class analysis is available, either freshly computed or reused from a cache
+     */
+    default void onClassAnalyzed(JavaClassInfo javaClass, ClassAnalysisResult result, boolean fromCache) {}
+}
@@ -0,0 +1,832 @@
+package com.archpilot.service.analysis;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.archpilot.service.agent.GeminiClassAnalyzerAgentService.ClassAnalysisResult;
+import com.archpilot.service.agent.GeminiClassAnalyzerAgentService.FieldInfo;
+import com.archpilot.service.agent.GeminiClassAnalyzerAgentService.MethodInfo;
+import com.archpilot.service.agent.GeminiClassAnalyzerAgentService.ParameterInfo;
+
+/**
+ * Java Structure Parser
+ *
+ * Main Context:
+ * - Extracts the structural model of a Java source file without an LLM call: type kind, package,
+ *   extends/implements, annotations, fields, methods and referenced classes
+ * - A small lexer drops comments and literals; a declaration-level parser then reads the type header
+ *   and its members, skipping method bodies and initializers by brace matching
+ * - Produces the same ClassAnalysisResult, including the rawAnalysis JSON schema, as the Gemini analysis
+ *
+ * Limits:
+ * - Only the top-level type named after the file is modeled; nested types only add to usedClasses
+ * - Constructors are not listed as methods
+ * - Returns null when the source cannot be parsed, so callers can fall back to the LLM
+ */
+@Component
+public class JavaStructureParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(JavaStructureParser.class);
+
+    // java.lang types are never part of the repository, so they are not worth a relationship
+    private static final Set<String> IGNORED_TYPES = Set.of(
+        "String", "Object", "Integer", "Long", "Short", "Byte", "Double", "Float", "Boolean", "Character",
+        "Number", "Void", "Math", "System", "Class", "Enum", "Record", "Iterable", "Comparable", "Runnable",
+        "Thread", "StringBuilder", "CharSequence", "Exception", "RuntimeException", "Error", "Throwable",
+        "Override", "Deprecated", "SuppressWarnings", "FunctionalInterface", "SafeVarargs",
+        "IllegalArgumentException", "IllegalStateException", "UnsupportedOperationException",
+        "NullPointerException", "InterruptedException");
+
+    private static final Set<String> MODIFIERS = Set.of(
+        "public", "protected", "private", "static", "final", "abstract", "default", "synchronized",
+        "native", "transient", "volatile", "strictfp", "sealed", "non-sealed");
+
+    /**
+     * Parse the structure of a Java source file
+     *
+     * @param source Java source code
+     * @param className Simple name of the type to model (normally the file name), or null for the first type
+     * @return Structural analysis, or null when the source could not be parsed
+     */
+    public ClassAnalysisResult parse(String source, String className) {
+        if (source == null || source.isBlank()) {
+            return null;
+        }
+        try {
+            return new Parser(tokenize(source), className).parseCompilationUnit();
+        } catch (RuntimeException e) {
+            logger.debug("Could not parse structure of {}: {}", className, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Enrich a parsed result with the relationships an LLM analysis of the same source found
+     *
+     * The parsed structure (type, members, modifiers, extends/implements) stays authoritative; the
+     * LLM only adds referenced classes and annotations the declaration-level parser cannot see.
+     *
+     * @return New result with the merged relationships
+     */
+    public ClassAnalysisResult enrich(ClassAnalysisResult parsed, List<String> usedClasses, List<String> annotations) {
+        ClassAnalysisResult result = new ClassAnalysisResult();
+        result.setClassName(parsed.getClassName());
+        result.setClassType(parsed.getClassType());
+        result.setPackageName(parsed.getPackageName());
+        result.setExtendsClass(parsed.getExtendsClass());
+        result.setImplementsInterfaces(parsed.getImplementsInterfaces());
+        result.setFields(parsed.getFields());
+        result.setMethods(parsed.getMethods());
+
+        Set<String> used = new LinkedHashSet<>(parsed.getUsedClasses());
+        for (String usedClass : usedClasses) {
+            if (!usedClass.equals(parsed.getClassName()) && !IGNORED_TYPES.contains(usedClass)) {
+                used.add(usedClass);
+            }
+        }
+        Set<String> merged = new LinkedHashSet<>(parsed.getAnnotations());
+        for (String annotation : annotations) {
+            merged.add(annotation.startsWith("@") ? annotation : "@" + annotation);
+        }
+        result.setUsedClasses(new ArrayList<>(used));
+        result.setAnnotations(new ArrayList<>(merged));
+        result.setRawAnalysis(toJson(result));
+        result.setAnalysisStatus("SUCCESS");
+        return result;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Lexer
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Split source into identifiers and symbols; comments, whitespace and literals are dropped
+     * (literals become a single "0" token so initializers stay well-formed)
+     */
+    static List<String> tokenize(String source) {
+        List<String> tokens = new ArrayList<>();
+        int length = source.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = source.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '/' && i + 1 < length && source.charAt(i + 1) == '/') {
+                while (i < length && source.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && i + 1 < length && source.charAt(i + 1) == '*') {
+                int end = source.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (source.startsWith("\"\"\"", i)) {
+                int end = source.indexOf("\"\"\"", i + 3);
+                while (end > 0 && source.charAt(end - 1) == '\\') {
+                    end = source.indexOf("\"\"\"", end + 1);
+                }
+                i = end < 0 ? length : end + 3;
+                tokens.add("0");
+            } else if (c == '"' || c == '\'') {
+                i++;
+                while (i < length && source.charAt(i) != c && source.charAt(i) != '\n') {
+                    i += source.charAt(i) == '\\' ? 2 : 1;
+                }
+                i++;
+                tokens.add("0");
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                while (i < length && Character.isJavaIdentifierPart(source.charAt(i))) {
+                    i++;
+                }
+                tokens.add(source.substring(start, i));
+            } else if (Character.isDigit(c)) {
+                while (i < length && (Character.isLetterOrDigit(source.charAt(i)) || source.charAt(i) == '.'
+                        || source.charAt(i) == '_')) {
+                    i++;
+                }
+                tokens.add("0");
+            } else if (source.startsWith("...", i)) {
+                tokens.add("...");
+                i += 3;
+            } else {
+                tokens.add(String.valueOf(c));
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Parser
+    // ---------------------------------------------------------------------------------------------
+
+    private static class Parser {
+        private final List<String> tokens;
+        private final String expectedName;
+        private int pos;
+
+        private String packageName;
+        private final Set<String> typeParameters = new LinkedHashSet<>();
+
+        Parser(List<String> tokens, String expectedName) {
+            this.tokens = tokens;
+            this.expectedName = expectedName;
+        }
+
+        ClassAnalysisResult parseCompilationUnit() {
+            ClassAnalysisResult first = null;
+            // Without a package declaration, leading annotations belong to the first type
+            List<String> leadingAnnotations = new ArrayList<>();
+            skipAnnotations(leadingAnnotations);
+            if (accept("package")) {
+                packageName = qualifiedName();
+                expect(";");
+                leadingAnnotations.clear();
+            }
+
+            while (pos < tokens.size()) {
+                if (accept(";")) {
+                    continue;
+                }
+                if (peekIs("import")) {
+                    skipPast(";");
+                    continue;
+                }
+
+                List<String> annotations = new ArrayList<>(leadingAnnotations);
+                leadingAnnotations.clear();
+                Set<String> modifiers = readModifiers(annotations);
+                String kind = typeKind();
+                if (kind == null) {
+                    throw new IllegalStateException("Unexpected token '" + peek() + "' at top level");
+                }
+                String name = next();
+
+                if (expectedName == null || expectedName.equals(name)) {
+                    return parseType(kind, name, modifiers, annotations);
+                }
+                ClassAnalysisResult other = parseType(kind, name, modifiers, annotations);
+                if (first == null) {
+                    first = other;
+                }
+            }
+            // Files whose type is not named after the file still get the first type modeled
+            return first;
+        }
+
+        private ClassAnalysisResult parseType(String kind, String name, Set<String> modifiers, List<String> annotations) {
+            int headerStart = pos;
+            ClassAnalysisResult result = new ClassAnalysisResult();
+            result.setClassName(name);
+            result.setPackageName(packageName);
+            result.setAnnotations(annotations);
+            result.setClassType(classType(kind, modifiers));
+
+            typeParameters.clear();
+            if (peekIs("<")) {
+                readTypeParameters();
+            }
+
+            List<FieldInfo> fields = new ArrayList<>();
+            List<MethodInfo> methods = new ArrayList<>();
+            List<String> implemented = new ArrayList<>();
+            String extendsClass = null;
+
+            if ("record".equals(kind)) {
+                expect("(");
+                if (!accept(")")) {
+                    do {
+                        ParameterInfo component = readParameter();
+                        fields.add(field(component.getName(), component.getType(), "private", false, true));
+                    } while (accept(","));
+                    expect(")");
+                }
+            }
+
+            while (!peekIs("{")) {
+                if (accept("extends")) {
+                    List<String> supertypes = rawTypes(typeList());
+                    if ("interface".equals(kind) || "@interface".equals(kind)) {
+                        implemented.addAll(supertypes);
+                    } else {
+                        extendsClass = supertypes.get(0);
+                    }
+                } else if (accept("implements")) {
+                    implemented.addAll(rawTypes(typeList()));
+                } else if (accept("permits")) {
+                    typeList();
+                } else {
+                    throw new IllegalStateException("Unexpected token '" + peek() + "' in type header");
+                }
+            }
+            expect("{");
+
+            boolean isInterface = "interface".equals(kind) || "@interface".equals(kind);
+            if ("enum".equals(kind)) {
+                readEnumConstants(name, fields);
+            }
+            readMembers(name, isInterface, fields, methods);
+
+            result.setExtendsClass(extendsClass);
+            result.setImplementsInterfaces(implemented);
+            result.setFields(fields);
+            result.setMethods(methods);
+            result.setUsedClasses(usedClasses(headerStart, pos, name));
+            result.setRawAnalysis(toJson(result));
+            result.setAnalysisStatus("SUCCESS");
+            return result;
+        }
+
+        private void readEnumConstants(String enumName, List<FieldInfo> fields) {
+            while (!peekIs(";") && !peekIs("}")) {
+                skipAnnotations(new ArrayList<>());
+                fields.add(field(next(), enumName, "public", true, true));
+                if (peekIs("(")) {
+                    skipBalanced("(", ")");
+                }
+                if (peekIs("{")) {
+                    skipBalanced("{", "}");
+                }
+                if (!accept(",")) {
+                    break;
+                }
+            }
+            accept(";");
+        }
+
+        private void readMembers(String typeName, boolean isInterface, List<FieldInfo> fields, List<MethodInfo> methods) {
+            while (!accept("}")) {
+                if (accept(";")) {
+                    continue;
+                }
+                if (peekIs("{")) {
+                    skipBalanced("{", "}");
+                    continue;
+                }
+
+                Set<String> modifiers = readModifiers(new ArrayList<>());
+                if (peekIs("{")) {
+                    // static initializer
+                    skipBalanced("{", "}");
+                    continue;
+                }
+                if (typeKind() != null) {
+                    // Nested type: its body is only scanned for referenced classes
+                    next();
+                    skipToBody();
+                    continue;
+                }
+                if (peekIs("<")) {
+                    skipBalanced("<", ">");
+                }
+
+                String visibility = visibility(modifiers, isInterface);
+                if (peek().equals(typeName) && peekIs(1, "(")) {
+                    // Constructor
+                    next();
+                    skipBalanced("(", ")");
+                    skipMethodTail();
+                    continue;
+                }
+                if (peek().equals(typeName) && peekIs(1, "{")) {
+                    // Compact record constructor
+                    next();
+                    skipBalanced("{", "}");
+                    continue;
+                }
+
+                String type = readType();
+                String name = next();
+                if (peekIs("(")) {
+                    methods.add(readMethod(name, type, visibility, modifiers, isInterface));
+                } else {
+                    readFieldDeclarators(name, type, visibility, modifiers, isInterface, fields);
+                }
+            }
+        }
+
+        private MethodInfo readMethod(String name, String returnType, String visibility, Set<String> modifiers,
+                                      boolean isInterface) {
+            MethodInfo method = new MethodInfo();
+            method.setName(name);
+            method.setReturnType(returnType);
+            method.setVisibility(visibility);
+            method.setStatic(modifiers.contains("static"));
+
+            List<ParameterInfo> parameters = new ArrayList<>();
+            expect("(");
+            if (!accept(")")) {
+                do {
+                    ParameterInfo parameter = readParameter();
+                    if (!"this".equals(parameter.getName())) {
+                        parameters.add(parameter);
+                    }
+                } while (accept(","));
+                expect(")");
+            }
+            method.setParameters(parameters);
+
+            boolean hasBody = skipMethodTail();
+            method.setAbstract(modifiers.contains("abstract")
+                || (isInterface && !hasBody && !modifiers.contains("static")));
+            return method;
+        }
+
+        /**
+         * Skip array dimensions, throws clause, annotation default and the body
+         *
+         * @return Whether the method has a body
+         */
+        private boolean skipMethodTail() {
+            while (!peekIs("{") && !peekIs(";")) {
+                if (accept("default")) {
+                    skipExpression();
+                } else {
+                    next();
+                }
+            }
+            if (peekIs("{")) {
+                skipBalanced("{", "}");
+                return true;
+            }
+            expect(";");
+            return false;
+        }
+
+        private void readFieldDeclarators(String firstName, String type, String visibility, Set<String> modifiers,
+                                          boolean isInterface, List<FieldInfo> fields) {
+            // Interface fields are implicitly public static final
+            boolean isStatic = isInterface || modifiers.contains("static");
+            boolean isFinal = isInterface || modifiers.contains("final");
+            String name = firstName;
+            while (true) {
+                String fieldType = type;
+                while (accept("[")) {
+                    expect("]");
+                    fieldType += "[]";
+                }
+                fields.add(field(name, fieldType, visibility, isStatic, isFinal));
+                if (accept("=")) {
+                    skipExpression();
+                }
+                if (accept(";")) {
+                    return;
+                }
+                expect(",");
+                name = next();
+            }
+        }
+
+        private ParameterInfo readParameter() {
+            readModifiers(new ArrayList<>());
+            String type = readType();
+            if (accept("...")) {
+                type += "...";
+            }
+            ParameterInfo parameter = new ParameterInfo();
+            if (accept("this")) {
+                parameter.setName("this");
+            } else {
+                String name = next();
+                while (accept("[")) {
+                    expect("]");
+                    type += "[]";
+                }
+                parameter.setName(name);
+            }
+            parameter.setType(type);
+            return parameter;
+        }
+
+        /**
+         * Read a type use, rendered compactly such as {@code Map<String, List<Foo>>} or {@code byte[]}
+         */
+        private String readType() {
+            StringBuilder type = new StringBuilder();
+            skipAnnotations(new ArrayList<>());
+            type.append(simpleName(qualifiedName()));
+            if (peekIs("<")) {
+                type.append(readTypeArguments());
+            }
+            // Qualified inner types such as Map.Entry<K, V>
+            while (peekIs(".") && !peekIs(1, ".")) {
+                next();
+                type.append('.').append(next());
+                if (peekIs("<")) {
+                    type.append(readTypeArguments());
+                }
+            }
+            while (peekIs("[") && peekIs(1, "]")) {
+                next();
+                next();
+                type.append("[]");
+            }
+            return type.toString();
+        }
+
+        private String readTypeArguments() {
+            StringBuilder arguments = new StringBuilder();
+            expect("<");
+            arguments.append('<');
+            if (!peekIs(">")) {
+                do {
+                    skipAnnotations(new ArrayList<>());
+                    if (accept("?")) {
+                        arguments.append('?');
+                        if (accept("extends")) {
+                            arguments.append(" extends ").append(readType());
+                        } else if (accept("super")) {
+                            arguments.append(" super ").append(readType());
+                        }
+                    } else {
+                        arguments.append(readType());
+                    }
+                    if (peekIs(",")) {
+                        arguments.append(", ");
+                    }
+                } while (accept(","));
+            }
+            expect(">");
+            return arguments.append('>').toString();
+        }
+
+        private void readTypeParameters() {
+            expect("<");
+            do {
+                skipAnnotations(new ArrayList<>());
+                typeParameters.add(next());
+                if (accept("extends")) {
+                    do {
+                        readType();
+                    } while (accept("&"));
+                }
+            } while (accept(","));
+            expect(">");
+        }
+
+        private List<String> typeList() {
+            List<String> types = new ArrayList<>();
+            do {
+                types.add(readType());
+            } while (accept(","));
+            return types;
+        }
+
+        /**
+         * Read annotations and modifiers in any order
+         */
+        private Set<String> readModifiers(List<String> annotations) {
+            Set<String> modifiers = new LinkedHashSet<>();
+            while (pos < tokens.size()) {
+                if (peekIs("@") && !peekIs(1, "interface")) {
+                    readAnnotation(annotations);
+                } else if (peekIs("non") && peekIs(1, "-") && peekIs(2, "sealed")) {
+                    pos += 3;
+                    modifiers.add("non-sealed");
+                } else if (MODIFIERS.contains(peek()) && !("default".equals(peek()) && peekIs(1, ":"))) {
+                    modifiers.add(next());
+                } else {
+                    break;
+                }
+            }
+            return modifiers;
+        }
+
+        private void skipAnnotations(List<String> annotations) {
+            while (peekIs("@") && !peekIs(1, "interface")) {
+                readAnnotation(annotations);
+            }
+        }
+
+        private void readAnnotation(List<String> annotations) {
+            expect("@");
+            annotations.add("@" + simpleName(qualifiedName()));
+            if (peekIs("(")) {
+                skipBalanced("(", ")");
+            }
+        }
+
+        /**
+         * Type declaration keyword at the current position, consumed when found
+         */
+        private String typeKind() {
+            if (peekIs("class") || peekIs("interface") || peekIs("enum")) {
+                return next();
+            }
+            if (peekIs("@") && peekIs(1, "interface")) {
+                pos += 2;
+                return "@interface";
+            }
+            // record is a contextual keyword: record Name( or record Name<
+            if (peekIs("record") && isIdentifier(peek(1)) && (peekIs(2, "(") || peekIs(2, "<"))) {
+                return next();
+            }
+            return null;
+        }
+
+        private String qualifiedName() {
+            StringBuilder name = new StringBuilder(identifier());
+            while (peekIs(".") && pos + 1 < tokens.size() && isIdentifier(peek(1))) {
+                next();
+                name.append('.').append(next());
+            }
+            return name.toString();
+        }
+
+        private String identifier() {
+            String token = next();
+            if (!isIdentifier(token)) {
+                throw new IllegalStateException("Expected identifier but found '" + token + "'");
+            }
+            return token;
+        }
+
+        /**
+         * Skip an initializer or default value up to the next top-level ',' or ';'
+         */
+        private void skipExpression() {
+            int depth = 0;
+            while (true) {
+                String token = peek();
+                if (depth == 0 && token.equals(";")) {
+                    return;
+                }
+                if (depth == 0 && token.equals(",") && startsDeclarator(1)) {
+                    // A ',' inside type arguments such as new HashMap<String, Integer>() does not
+                    return;
+                }
+                if (depth == 0 && token.equals("}")) {
+                    // End of an enclosing annotation or array default
+                    return;
+                }
+                if (token.equals("(") || token.equals("{") || token.equals("[")) {
+                    depth++;
+                } else if (token.equals(")") || token.equals("}") || token.equals("]")) {
+                    depth--;
+                }
+                pos++;
+            }
+        }
+
+        private boolean startsDeclarator(int offset) {
+            return pos + offset < tokens.size() && isIdentifier(tokens.get(pos + offset))
+                && (peekIs(offset + 1, "=") || peekIs(offset + 1, ",") || peekIs(offset + 1, ";")
+                    || peekIs(offset + 1, "["));
+        }
+
+        private void skipBalanced(String open, String close) {
+            expect(open);
+            int depth = 1;
+            while (depth > 0) {
+                String token = next();
+                if (token.equals(open)) {
+                    depth++;
+                } else if (token.equals(close)) {
+                    depth--;
+                }
+            }
+        }
+
+        private void skipPast(String token) {
+            while (!next().equals(token)) {
+                // skip
+            }
+        }
+
+        private void skipToBody() {
+            while (!peekIs("{")) {
+                next();
+            }
+            skipBalanced("{", "}");
+        }
+
+        /**
+         * Referenced types: capitalized identifiers of the declaration, minus annotations, constants,
+         * type parameters, java.lang types and the type itself
+         */
+        private List<String> usedClasses(int from, int to, String ownName) {
+            Set<String> used = new LinkedHashSet<>();
+            for (int i = from; i < to; i++) {
+                String token = tokens.get(i);
+                if (!isIdentifier(token) || !Character.isUpperCase(token.charAt(0)) || token.length() < 2) {
+                    continue;
+                }
+                if (i > 0 && tokens.get(i - 1).equals("@")) {
+                    continue;
+                }
+                if (token.equals(token.toUpperCase()) || token.equals(ownName)
+                        || typeParameters.contains(token) || IGNORED_TYPES.contains(token)) {
+                    continue;
+                }
+                used.add(token);
+            }
+            return new ArrayList<>(used);
+        }
+
+        private String peek() {
+            return peek(0);
+        }
+
+        private String peek(int offset) {
+            int index = pos + offset;
+            if (index >= tokens.size()) {
+                throw new IllegalStateException("Unexpected end of source");
+            }
+            return tokens.get(index);
+        }
+
+        private boolean peekIs(String token) {
+            return pos < tokens.size() && tokens.get(pos).equals(token);
+        }
+
+        private boolean peekIs(int offset, String token) {
+            int index = pos + offset;
+            return index < tokens.size() && tokens.get(index).equals(token);
+        }
+
+        private String next() {
+            String token = peek();
+            pos++;
+            return token;
+        }
+
+        private boolean accept(String token) {
+            if (peekIs(token)) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String token) {
+            String actual = next();
+            if (!actual.equals(token)) {
+                throw new IllegalStateException("Expected '" + token + "' but found '" + actual + "'");
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Result helpers
+    // ---------------------------------------------------------------------------------------------
+
+    private static boolean isIdentifier(String token) {
+        return !token.isEmpty() && Character.isJavaIdentifierStart(token.charAt(0));
+    }
+
+    private static String simpleName(String qualifiedName) {
+        int dot = qualifiedName.lastIndexOf('.');
+        return dot < 0 ? qualifiedName : qualifiedName.substring(dot + 1);
+    }
+
+    private static List<String> rawTypes(List<String> types) {
+        List<String> raw = new ArrayList<>();
+        for (String type : types) {
+            int generics = type.indexOf('<');
+            raw.add(generics < 0 ? type : type.substring(0, generics));
+        }
+        return raw;
+    }
+
+    private static String classType(String kind, Set<String> modifiers) {
+        switch (kind) {
+            case "interface":
+            case "@interface":
+                return "interface";
+            case "enum":
+                return "enum";
+            default:
+                return modifiers.contains("abstract") ? "abstract class" : "class";
+        }
+    }
+
+    private static String visibility(Set<String> modifiers, boolean isInterface) {
+        if (modifiers.contains("public")) return "public";
+        if (modifiers.contains("protected")) return "protected";
+        if (modifiers.contains("private")) return "private";
+        return isInterface ? "public" : "package";
+    }
+
+    private static FieldInfo field(String name, String type, String visibility, boolean isStatic, boolean isFinal) {
+        FieldInfo field = new FieldInfo();
+        field.setName(name);
+        field.setType(type);
+        field.setVisibility(visibility);
+        field.setStatic(isStatic);
+        field.setFinal(isFinal);
+        return field;
+    }
+
+    /**
+     * Render the result in the JSON layout of the Gemini analysis prompt, which the diagram renderer reads
+     */
+    static String toJson(ClassAnalysisResult result) {
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("    \"className\": ").append(quote(result.getClassName())).append(",\n");
+        json.append("    \"classType\": ").append(quote(result.getClassType())).append(",\n");
+        json.append("    \"packageName\": ").append(quote(result.getPackageName())).append(",\n");
+        json.append("    \"extends\": ").append(quote(result.getExtendsClass())).append(",\n");
+        json.append("    \"implements\": ").append(stringArray(result.getImplementsInterfaces())).append(",\n");
+
+        json.append("    \"fields\": [");
+        for (int i = 0; i < result.getFields().size(); i++) {
+            FieldInfo field = result.getFields().get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append("        {\n");
+            json.append("            \"name\": ").append(quote(field.getName())).append(",\n");
+            json.append("            \"type\": ").append(quote(field.getType())).append(",\n");
+            json.append("            \"visibility\": ").append(quote(field.getVisibility())).append(",\n");
+            json.append("            \"isStatic\": ").append(field.isStatic()).append(",\n");
+            json.append("            \"isFinal\": ").append(field.isFinal()).append("\n");
+            json.append("        }");
+        }
+        json.append(result.getFields().isEmpty() ? "],\n" : "\n    ],\n");
+
+        json.append("    \"methods\": [");
+        for (int i = 0; i < result.getMethods().size(); i++) {
+            MethodInfo method = result.getMethods().get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append("        {\n");
+            json.append("            \"name\": ").append(quote(method.getName())).append(",\n");
+            json.append("            \"returnType\": ").append(quote(method.getReturnType())).append(",\n");
+            json.append("            \"visibility\": ").append(quote(method.getVisibility())).append(",\n");
+            json.append("            \"isStatic\": ").append(method.isStatic()).append(",\n");
+            json.append("            \"isAbstract\": ").append(method.isAbstract()).append(",\n");
+            json.append("            \"parameters\": [");
+            for (int j = 0; j < method.getParameters().size(); j++) {
+                ParameterInfo parameter = method.getParameters().get(j);
+                json.append(j == 0 ? "" : ", ");
+                json.append("{\"name\": ").append(quote(parameter.getName()))
+                    .append(", \"type\": ").append(quote(parameter.getType())).append('}');
+            }
+            json.append("]\n");
+            json.append("        }");
+        }
+        json.append(result.getMethods().isEmpty() ? "],\n" : "\n    ],\n");
+
+        json.append("    \"usedClasses\": ").append(stringArray(result.getUsedClasses())).append(",\n");
+        json.append("    \"annotations\": ").append(stringArray(result.getAnnotations())).append("\n");
+        return json.append('}').toString();
+    }
+
+    private static String stringArray(List<String> values) {
+        StringBuilder array = new StringBuilder("[");
+        for (int i = 0; i < values.size(); i++) {
+            array.append(i == 0 ? "" : ", ").append(quote(values.get(i)));
+        }
+        return array.append(']').toString();
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+}
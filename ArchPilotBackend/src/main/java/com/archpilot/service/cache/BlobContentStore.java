@@ -0,0 +1,263 @@
+package com.archpilot.service.cache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Content-addressed store for Git blob contents
+ *
+ * Main Context:
+ * - Blobs are keyed by their Git blob SHA, so an entry never goes stale: a changed file has a new SHA
+ * - Two tiers: a bounded in-memory LRU in front of an on-disk store
+ * - Both tiers evict least recently used blobs once their byte budget is exceeded
+ * - Content is verified against the SHA before it is stored, so a raw fetch that raced a
+ *   branch update can never poison the store
+ *
+ * Configuration:
+ * - archpilot.blob-cache.directory: on-disk location (default blobCache)
+ * - archpilot.blob-cache.memory-max-bytes: in-memory tier budget (default 64MB)
+ * - archpilot.blob-cache.disk-max-bytes: on-disk tier budget (default 1GB)
+ */
+@Component
+public class BlobContentStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlobContentStore.class);
+
+    private final Path directory;
+    private final long memoryMaxBytes;
+    private final long diskMaxBytes;
+
+    // Access-ordered maps give LRU iteration order; guarded by "this"
+    private final LinkedHashMap<String, byte[]> memoryTier = new LinkedHashMap<>(256, 0.75f, true);
+    private final LinkedHashMap<String, Long> diskIndex = new LinkedHashMap<>(1024, 0.75f, true);
+    private long memoryBytes;
+    private long diskBytes;
+
+    @Autowired
+    public BlobContentStore(@Value("${archpilot.blob-cache.directory:blobCache}") String directory,
+                            @Value("${archpilot.blob-cache.memory-max-bytes:67108864}") long memoryMaxBytes,
+                            @Value("${archpilot.blob-cache.disk-max-bytes:1073741824}") long diskMaxBytes) {
+        this.directory = Paths.get(directory);
+        this.memoryMaxBytes = memoryMaxBytes;
+        this.diskMaxBytes = diskMaxBytes;
+        loadDiskIndex();
+    }
+
+    /**
+     * Look up a blob, promoting disk hits into the memory tier
+     *
+     * @param blobSha Git blob SHA (40 hex characters)
+     * @return Blob content as UTF-8 text, empty if unknown
+     */
+    public Optional<String> get(String blobSha) {
+        if (!isValidSha(blobSha)) {
+            return Optional.empty();
+        }
+        blobSha = blobSha.toLowerCase();
+
+        synchronized (this) {
+            byte[] cached = memoryTier.get(blobSha);
+            if (cached != null) {
+                return Optional.of(new String(cached, StandardCharsets.UTF_8));
+            }
+            if (!diskIndex.containsKey(blobSha)) {
+                return Optional.empty();
+            }
+            diskIndex.get(blobSha); // touch for LRU order
+        }
+
+        try {
+            Path blobPath = blobPath(blobSha);
+            byte[] content = Files.readAllBytes(blobPath);
+            Files.setLastModifiedTime(blobPath, FileTime.fromMillis(System.currentTimeMillis()));
+            synchronized (this) {
+                putInMemory(blobSha, content);
+            }
+            return Optional.of(new String(content, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.warn("Error reading cached blob {}: {}", blobSha, e.getMessage());
+            synchronized (this) {
+                Long size = diskIndex.remove(blobSha);
+                if (size != null) {
+                    diskBytes -= size;
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Store a blob if its content matches the given SHA
+     *
+     * @return true when the blob is stored (or already was)
+     */
+    public boolean put(String blobSha, String content) {
+        if (!isValidSha(blobSha) || content == null) {
+            return false;
+        }
+
+        blobSha = blobSha.toLowerCase();
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        if (!blobSha.equals(gitBlobSha(bytes))) {
+            logger.debug("Content does not match blob SHA {}, not caching", blobSha);
+            return false;
+        }
+
+        synchronized (this) {
+            putInMemory(blobSha, bytes);
+            if (diskIndex.containsKey(blobSha)) {
+                return true;
+            }
+        }
+
+        try {
+            Path blobPath = blobPath(blobSha);
+            Files.createDirectories(blobPath.getParent());
+            Path tempPath = Files.createTempFile(blobPath.getParent(), blobSha, ".tmp");
+            Files.write(tempPath, bytes);
+            Files.move(tempPath, blobPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            List<String> evicted;
+            synchronized (this) {
+                if (diskIndex.put(blobSha, (long) bytes.length) == null) {
+                    diskBytes += bytes.length;
+                }
+                evicted = evictFromDisk();
+            }
+            for (String sha : evicted) {
+                Files.deleteIfExists(blobPath(sha));
+            }
+            return true;
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Error writing blob {} to disk cache: {}", blobSha, e.getMessage());
+            return false;
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("memoryEntries", memoryTier.size());
+        stats.put("memoryBytes", memoryBytes);
+        stats.put("diskEntries", diskIndex.size());
+        stats.put("diskBytes", diskBytes);
+        return stats;
+    }
+
+    /**
+     * Compute the Git blob SHA-1 of raw content: sha1("blob " + length + "\0" + content)
+     */
+    public static String gitBlobSha(byte[] content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(("blob " + content.length + "\0").getBytes(StandardCharsets.US_ASCII));
+            digest.update(content);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+
+    private void putInMemory(String blobSha, byte[] content) {
+        if (content.length > memoryMaxBytes) {
+            return;
+        }
+        byte[] previous = memoryTier.put(blobSha, content);
+        memoryBytes += content.length - (previous != null ? previous.length : 0);
+
+        Iterator<Map.Entry<String, byte[]>> iterator = memoryTier.entrySet().iterator();
+        while (memoryBytes > memoryMaxBytes && iterator.hasNext()) {
+            Map.Entry<String, byte[]> eldest = iterator.next();
+            memoryBytes -= eldest.getValue().length;
+            iterator.remove();
+        }
+    }
+
+    private List<String> evictFromDisk() {
+        List<String> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> iterator = diskIndex.entrySet().iterator();
+        while (diskBytes > diskMaxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            diskBytes -= eldest.getValue();
+            evicted.add(eldest.getKey());
+            iterator.remove();
+        }
+        if (!evicted.isEmpty()) {
+            logger.info("Evicted {} blobs from disk cache", evicted.size());
+        }
+        return evicted;
+    }
+
+    /**
+     * Rebuild the LRU index from the blob files, oldest access first
+     */
+    private void loadDiskIndex() {
+        if (!Files.exists(directory)) {
+            return;
+        }
+
+        try (Stream<Path> files = Files.walk(directory, 2)) {
+            files.filter(Files::isRegularFile)
+                 .filter(path -> isValidSha(path.getParent().getFileName() + path.getFileName().toString()))
+                 .sorted(Comparator.comparingLong(this::lastModifiedMillis))
+                 .forEach(path -> {
+                     try {
+                         long size = Files.size(path);
+                         diskIndex.put(path.getParent().getFileName() + path.getFileName().toString(), size);
+                         diskBytes += size;
+                     } catch (IOException e) {
+                         logger.warn("Error indexing cached blob {}: {}", path, e.getMessage());
+                     }
+                 });
+            logger.info("Loaded blob cache index with {} entries ({} bytes)", diskIndex.size(), diskBytes);
+        } catch (IOException e) {
+            logger.warn("Error loading blob cache index: {}", e.getMessage());
+        }
+    }
+
+    private long lastModifiedMillis(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private Path blobPath(String blobSha) {
+        return directory.resolve(blobSha.substring(0, 2)).resolve(blobSha.substring(2));
+    }
+
+    private static boolean isValidSha(String sha) {
+        if (sha == null || sha.length() != 40) {
+            return false;
+        }
+        for (int i = 0; i < sha.length(); i++) {
+            if (Character.digit(sha.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
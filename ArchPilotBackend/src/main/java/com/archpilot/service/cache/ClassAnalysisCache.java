@@ -0,0 +1,230 @@
+package com.archpilot.service.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import com.archpilot.entity.ClassAnalysisCacheEntry;
+import com.archpilot.repository.ClassAnalysisCacheRepository;
+import com.archpilot.service.agent.GeminiClassAnalyzerAgentService.ClassAnalysisResult;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Persistent cache of per-class LLM analysis results
+ *
+ * Main Context:
+ * - Entries are keyed by (blob SHA, prompt template hash, model id)
+ * - A class whose source is byte-identical to a previous run has the same blob SHA, so its
+ *   analysis is served from the cache instead of calling the LLM again
+ * - Changing the prompt template or the configured model changes the key, so stale results
+ *   are never served after either is updated
+ * - Only successful analyses are cached; fallback results are retried on the next run
+ * - A bounded in-memory LRU sits in front of the class_analysis_cache table
+ *
+ * Configuration:
+ * - archpilot.analysis-cache.enabled: turn the cache on or off (default true)
+ * - archpilot.analysis-cache.memory-max-entries: in-memory LRU size (default 2000)
+ */
+@Component
+public class ClassAnalysisCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClassAnalysisCache.class);
+    private static final String STATUS_SUCCESS = "SUCCESS";
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final ClassAnalysisCacheRepository repository;
+    private final String modelId;
+    private final boolean enabled;
+    private final int memoryMaxEntries;
+
+    // Access-ordered map gives LRU iteration order; guarded by "this"
+    private final LinkedHashMap<String, String> memoryTier = new LinkedHashMap<>(256, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+
+    @Autowired
+    public ClassAnalysisCache(ClassAnalysisCacheRepository repository,
+                              @Value("${spring.ai.openai.chat.options.model:unknown}") String modelId,
+                              @Value("${archpilot.analysis-cache.enabled:true}") boolean enabled,
+                              @Value("${archpilot.analysis-cache.memory-max-entries:2000}") int memoryMaxEntries) {
+        this.repository = repository;
+        this.modelId = modelId;
+        this.enabled = enabled;
+        this.memoryMaxEntries = memoryMaxEntries;
+    }
+
+    /**
+     * Look up a cached analysis for the given blob and prompt version under the current model
+     *
+     * @param blobSha Git blob SHA of the analyzed source
+     * @param promptHash Hash of the prompt template, see {@link #promptHash(String)}
+     * @return Cached analysis result, empty on a miss
+     */
+    public Optional<ClassAnalysisResult> get(String blobSha, String promptHash) {
+        if (!enabled || blobSha == null || blobSha.isEmpty()) {
+            return Optional.empty();
+        }
+
+        String cacheKey = cacheKey(blobSha, promptHash);
+        String resultJson;
+        synchronized (this) {
+            resultJson = memoryTier.get(cacheKey);
+        }
+
+        if (resultJson == null) {
+            try {
+                resultJson = repository.findByCacheKey(cacheKey)
+                        .map(ClassAnalysisCacheEntry::getResultJson)
+                        .orElse(null);
+            } catch (DataAccessException e) {
+                logger.warn("Error reading analysis cache entry {}: {}", cacheKey, e.getMessage());
+            }
+            if (resultJson != null) {
+                putInMemory(cacheKey, resultJson);
+            }
+        }
+
+        if (resultJson == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        try {
+            ClassAnalysisResult result = objectMapper.readValue(resultJson, ClassAnalysisResult.class);
+            hits.incrementAndGet();
+            return Optional.of(result);
+        } catch (Exception e) {
+            logger.warn("Discarding unreadable analysis cache entry {}: {}", cacheKey, e.getMessage());
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Store a successful analysis result; failed or fallback results are ignored
+     */
+    public void put(String blobSha, String promptHash, ClassAnalysisResult result) {
+        if (!enabled || blobSha == null || blobSha.isEmpty()
+                || result == null || !STATUS_SUCCESS.equals(result.getAnalysisStatus())) {
+            return;
+        }
+
+        String cacheKey = cacheKey(blobSha, promptHash);
+        try {
+            String resultJson = objectMapper.writeValueAsString(result);
+            putInMemory(cacheKey, resultJson);
+
+            ClassAnalysisCacheEntry entry = repository.findByCacheKey(cacheKey)
+                    .orElseGet(() -> new ClassAnalysisCacheEntry(cacheKey, blobSha.toLowerCase(), promptHash,
+                                                                 modelId, result.getClassName(), null));
+            entry.setResultJson(resultJson);
+            repository.save(entry);
+            stores.incrementAndGet();
+        } catch (DataAccessException e) {
+            // A concurrent run may have stored the same key first; the memory tier still has it
+            logger.warn("Error storing analysis cache entry {}: {}", cacheKey, e.getMessage());
+        } catch (Exception e) {
+            logger.warn("Error serializing analysis result for {}: {}", result.getClassName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Remove every cached analysis
+     *
+     * @return Number of removed persistent entries
+     */
+    public long invalidateAll() {
+        synchronized (this) {
+            memoryTier.clear();
+        }
+        int count = repository.deleteAllEntries();
+        logger.info("Invalidated all {} class analysis cache entries", count);
+        return count;
+    }
+
+    /**
+     * Remove cached analyses of one blob, across all prompt versions and models
+     */
+    public int invalidateBlob(String blobSha) {
+        String normalized = blobSha.toLowerCase();
+        synchronized (this) {
+            memoryTier.keySet().removeIf(key -> key.startsWith(normalized + ":"));
+        }
+        int count = repository.deleteByBlobSha(normalized);
+        logger.info("Invalidated {} class analysis cache entries for blob {}", count, normalized);
+        return count;
+    }
+
+    /**
+     * Remove cached analyses produced by one model
+     */
+    public int invalidateModel(String model) {
+        synchronized (this) {
+            memoryTier.keySet().removeIf(key -> key.endsWith(":" + model));
+        }
+        int count = repository.deleteByModelId(model);
+        logger.info("Invalidated {} class analysis cache entries for model {}", count, model);
+        return count;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("modelId", modelId);
+        synchronized (this) {
+            stats.put("memoryEntries", memoryTier.size());
+        }
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("stores", stores.get());
+        return stats;
+    }
+
+    public String getModelId() {
+        return modelId;
+    }
+
+    /**
+     * Hash a prompt template so any wording change produces a new cache key
+     */
+    public static String promptHash(String promptTemplate) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(promptTemplate.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private String cacheKey(String blobSha, String promptHash) {
+        return blobSha.toLowerCase() + ":" + promptHash + ":" + modelId;
+    }
+
+    private synchronized void putInMemory(String cacheKey, String resultJson) {
+        memoryTier.put(cacheKey, resultJson);
+        Iterator<String> iterator = memoryTier.keySet().iterator();
+        while (memoryTier.size() > memoryMaxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
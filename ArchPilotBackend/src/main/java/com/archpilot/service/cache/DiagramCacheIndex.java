@@ -0,0 +1,222 @@
+package com.archpilot.service.cache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import com.archpilot.entity.DiagramArtifactEntry;
+import com.archpilot.repository.DiagramArtifactRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-memory index of generated class diagrams, keyed by (repository, commit SHA)
+ *
+ * Main Context:
+ * - Replaces scanning and parsing every *_metadata.txt file in umlDigr on each request
+ * - Rebuilt once at startup from the metadata files (and the database when persistence is on)
+ * - Updated whenever a diagram is written, so a cache hit is a single map lookup
+ * - Entries whose PNG has been deleted are dropped lazily on lookup
+ *
+ * Configuration:
+ * - archpilot.diagram-index.persist: also store the index in Postgres (default false)
+ */
+@Component
+public class DiagramCacheIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiagramCacheIndex.class);
+    public static final String DIAGRAM_DIRECTORY = "umlDigr";
+
+    private final Path directory;
+    private final DiagramArtifactRepository repository;
+    private final boolean persist;
+
+    private final Map<String, DiagramArtifact> artifacts = new ConcurrentHashMap<>();
+    private final Map<String, DiagramArtifact> latestByRepository = new ConcurrentHashMap<>();
+
+    @Autowired
+    public DiagramCacheIndex(DiagramArtifactRepository repository,
+                             @Value("${archpilot.diagram-index.persist:false}") boolean persist) {
+        this(Paths.get(DIAGRAM_DIRECTORY), repository, persist);
+    }
+
+    DiagramCacheIndex(Path directory, DiagramArtifactRepository repository, boolean persist) {
+        this.directory = directory;
+        this.repository = repository;
+        this.persist = persist;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        artifacts.clear();
+        latestByRepository.clear();
+
+        if (persist) {
+            try {
+                for (DiagramArtifactEntry entry : repository.findAll()) {
+                    DiagramArtifact artifact = new DiagramArtifact(entry.getRepositoryName(), entry.getProjectSha(),
+                                                                   entry.getTimestamp(), entry.getClassCount());
+                    if (Files.exists(resolve(artifact.getPngFileName()))) {
+                        index(artifact);
+                    }
+                }
+            } catch (DataAccessException e) {
+                logger.warn("Error loading persisted diagram index, using metadata files only: {}", e.getMessage());
+            }
+        }
+
+        if (Files.exists(directory)) {
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(path -> path.getFileName().toString().endsWith("_metadata.txt"))
+                     .map(this::readMetadata)
+                     .flatMap(Optional::stream)
+                     .filter(artifact -> Files.exists(resolve(artifact.getPngFileName())))
+                     .forEach(this::index);
+            } catch (IOException e) {
+                logger.warn("Error scanning {} for diagram metadata: {}", directory, e.getMessage());
+            }
+        }
+
+        logger.info("Diagram cache index built with {} entries", artifacts.size());
+    }
+
+    /**
+     * Record a newly written diagram
+     */
+    public void record(String repositoryName, String projectSha, String timestamp, int classCount) {
+        DiagramArtifact artifact = new DiagramArtifact(repositoryName, projectSha, timestamp, classCount);
+        index(artifact);
+
+        if (persist) {
+            try {
+                DiagramArtifactEntry entry = repository.findByRepositoryNameAndProjectSha(repositoryName, projectSha)
+                        .orElseGet(() -> new DiagramArtifactEntry(repositoryName, projectSha, timestamp, classCount));
+                entry.setTimestamp(timestamp);
+                entry.setClassCount(classCount);
+                repository.save(entry);
+            } catch (DataAccessException e) {
+                logger.warn("Error persisting diagram index entry for {}@{}: {}", repositoryName, projectSha, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Look up the diagram of a repository at a commit SHA
+     *
+     * @return Artifact whose PNG exists on disk, empty otherwise
+     */
+    public Optional<DiagramArtifact> find(String repositoryName, String projectSha) {
+        DiagramArtifact artifact = artifacts.get(key(repositoryName, projectSha));
+        if (artifact == null) {
+            return Optional.empty();
+        }
+        if (!Files.exists(resolve(artifact.getPngFileName()))) {
+            remove(artifact);
+            return Optional.empty();
+        }
+        return Optional.of(artifact);
+    }
+
+    /**
+     * Most recently generated diagram of a repository
+     */
+    public Optional<DiagramArtifact> findLatest(String repositoryName) {
+        return Optional.ofNullable(latestByRepository.get(repositoryName));
+    }
+
+    public Path resolve(String fileName) {
+        return directory.resolve(fileName);
+    }
+
+    public int size() {
+        return artifacts.size();
+    }
+
+    private void index(DiagramArtifact artifact) {
+        artifacts.merge(key(artifact.getRepositoryName(), artifact.getProjectSha()), artifact, DiagramArtifact::newer);
+        latestByRepository.merge(artifact.getRepositoryName(), artifact, DiagramArtifact::newer);
+    }
+
+    private void remove(DiagramArtifact artifact) {
+        artifacts.remove(key(artifact.getRepositoryName(), artifact.getProjectSha()), artifact);
+        if (latestByRepository.remove(artifact.getRepositoryName(), artifact)) {
+            artifacts.values().stream()
+                    .filter(candidate -> candidate.getRepositoryName().equals(artifact.getRepositoryName()))
+                    .max(Comparator.comparing(DiagramArtifact::getTimestamp))
+                    .ifPresent(candidate -> latestByRepository.merge(candidate.getRepositoryName(), candidate, DiagramArtifact::newer));
+        }
+    }
+
+    private Optional<DiagramArtifact> readMetadata(Path metadataFile) {
+        try {
+            Map<String, String> values = new HashMap<>();
+            for (String line : Files.readAllLines(metadataFile)) {
+                int separator = line.indexOf('=');
+                if (separator > 0) {
+                    values.put(line.substring(0, separator), line.substring(separator + 1));
+                }
+            }
+
+            String repositoryName = values.get("repositoryName");
+            String projectSha = values.get("projectSha");
+            String timestamp = values.get("timestamp");
+            if (repositoryName == null || projectSha == null || timestamp == null) {
+                return Optional.empty();
+            }
+            int classCount = values.containsKey("classCount") ? Integer.parseInt(values.get("classCount")) : 0;
+            return Optional.of(new DiagramArtifact(repositoryName, projectSha, timestamp, classCount));
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Error reading diagram metadata {}: {}", metadataFile.getFileName(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static String key(String repositoryName, String projectSha) {
+        return repositoryName + "@" + projectSha;
+    }
+
+    /**
+     * Files written for one generated diagram; all share the {repository}_{timestamp} prefix
+     */
+    public static class DiagramArtifact {
+        private final String repositoryName;
+        private final String projectSha;
+        private final String timestamp;
+        private final int classCount;
+
+        public DiagramArtifact(String repositoryName, String projectSha, String timestamp, int classCount) {
+            this.repositoryName = repositoryName;
+            this.projectSha = projectSha;
+            this.timestamp = timestamp;
+            this.classCount = classCount;
+        }
+
+        public String getRepositoryName() { return repositoryName; }
+        public String getProjectSha() { return projectSha; }
+        public String getTimestamp() { return timestamp; }
+        public int getClassCount() { return classCount; }
+
+        public String getPngFileName() { return repositoryName + "_" + timestamp + ".png"; }
+        public String getLitePngFileName() { return repositoryName + "_" + timestamp + "_lite.png"; }
+        public String getJsonFileName() { return repositoryName + "_" + timestamp + ".json"; }
+
+        // Timestamps are yyyyMMdd_HHmmss, so string order is chronological
+        static DiagramArtifact newer(DiagramArtifact a, DiagramArtifact b) {
+            return a.timestamp.compareTo(b.timestamp) >= 0 ? a : b;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.archpilot.service.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.archpilot.model.CompactRepositoryTree;
+
+/**
+ * In-memory cache of repository trees and branch heads
+ *
+ * Main Context:
+ * - Trees are keyed by (repository, commit SHA, recursive, path filter); a commit never changes,
+ *   so a cached tree is served without contacting GitHub at all
+ * - Path filters are compared by identity, so callers should pass constant filters to share entries
+ * - Branch heads are kept with the ETag of the response that resolved them; the next resolution
+ *   sends If-None-Match and a 304 (not counted against the GitHub rate limit) reuses the SHA
+ * - Default branches from repository metadata are kept for a TTL, so requests without a branch
+ *   skip both the metadata call and probing of candidate branch names
+ * - All tiers are LRU; trees are bounded by their total number of entries rather than by count,
+ *   since one monorepo tree can outweigh hundreds of small ones
+ *
+ * Configuration:
+ * - archpilot.tree-cache.enabled: turn the cache on or off (default true)
+ * - archpilot.tree-cache.max-tree-entries: total tree entries kept across cached trees (default 500000)
+ * - archpilot.tree-cache.max-heads: branch heads (and default branches) kept (default 1000)
+ * - archpilot.tree-cache.default-branch-ttl-minutes: how long a default branch is trusted (default 60)
+ */
+@Component
+public class RepositoryTreeCache {
+
+    /**
+     * Resolved branch head and the ETag to revalidate it with
+     */
+    public record BranchHead(String commitSha, String etag) {
+    }
+
+    private record DefaultBranch(String branch, long expiresAtMillis) {
+    }
+
+    private record TreeKey(String repository, String commitSha, boolean recursive, Predicate<String> pathFilter) {
+    }
+
+    private final boolean enabled;
+    private final long maxTreeEntries;
+    private final int maxHeads;
+    private final long defaultBranchTtlMillis;
+
+    // Access-ordered maps give LRU iteration order; guarded by "this"
+    private final LinkedHashMap<TreeKey, CompactRepositoryTree> trees = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, BranchHead> heads = new LinkedHashMap<>(64, 0.75f, true);
+    private final LinkedHashMap<String, DefaultBranch> defaultBranches = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedTreeEntries;
+
+    private final AtomicLong treeHits = new AtomicLong();
+    private final AtomicLong treeMisses = new AtomicLong();
+    private final AtomicLong headRevalidations = new AtomicLong();
+
+    @Autowired
+    public RepositoryTreeCache(@Value("${archpilot.tree-cache.enabled:true}") boolean enabled,
+                               @Value("${archpilot.tree-cache.max-tree-entries:500000}") long maxTreeEntries,
+                               @Value("${archpilot.tree-cache.max-heads:1000}") int maxHeads,
+                               @Value("${archpilot.tree-cache.default-branch-ttl-minutes:60}") long defaultBranchTtlMinutes) {
+        this.enabled = enabled;
+        this.maxTreeEntries = maxTreeEntries;
+        this.maxHeads = maxHeads;
+        this.defaultBranchTtlMillis = Duration.ofMinutes(defaultBranchTtlMinutes).toMillis();
+    }
+
+    /**
+     * Look up the tree of a commit
+     *
+     * @param repository Repository identifier, e.g. "owner/repo"
+     * @param commitSha Full commit SHA; anything else (a branch name) is never cached
+     * @param pathFilter Filter the tree was parsed with, or null
+     * @return Cached tree, empty on a miss
+     */
+    public synchronized Optional<CompactRepositoryTree> getTree(String repository, String commitSha,
+                                                                boolean recursive, Predicate<String> pathFilter) {
+        if (!enabled || !isCommitSha(commitSha)) {
+            return Optional.empty();
+        }
+        CompactRepositoryTree tree = trees.get(new TreeKey(repository, commitSha, recursive, pathFilter));
+        (tree != null ? treeHits : treeMisses).incrementAndGet();
+        return Optional.ofNullable(tree);
+    }
+
+    public synchronized void putTree(String repository, String commitSha, boolean recursive,
+                                     Predicate<String> pathFilter, CompactRepositoryTree tree) {
+        if (!enabled || !isCommitSha(commitSha) || tree == null || tree.size() > maxTreeEntries) {
+            return;
+        }
+        CompactRepositoryTree previous = trees.put(new TreeKey(repository, commitSha, recursive, pathFilter), tree);
+        cachedTreeEntries += tree.size() - (previous != null ? previous.size() : 0);
+
+        Iterator<CompactRepositoryTree> iterator = trees.values().iterator();
+        while (cachedTreeEntries > maxTreeEntries && iterator.hasNext()) {
+            cachedTreeEntries -= iterator.next().size();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * @param ref Reference key, e.g. "owner/repo@main"
+     * @return Last resolved head of the reference, empty when unknown
+     */
+    public synchronized Optional<BranchHead> getHead(String ref) {
+        return enabled ? Optional.ofNullable(heads.get(ref)) : Optional.empty();
+    }
+
+    /**
+     * Remember a resolved head; responses without an ETag cannot be revalidated and are not kept
+     */
+    public synchronized void putHead(String ref, String commitSha, String etag) {
+        if (!enabled || etag == null || etag.isEmpty() || !isCommitSha(commitSha)) {
+            return;
+        }
+        heads.put(ref, new BranchHead(commitSha, etag));
+        Iterator<String> iterator = heads.keySet().iterator();
+        while (heads.size() > maxHeads && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * @param repository Repository identifier, e.g. "owner/repo"
+     * @return Default branch of the repository, empty when unknown or expired
+     */
+    public synchronized Optional<String> getDefaultBranch(String repository) {
+        DefaultBranch entry = enabled ? defaultBranches.get(repository) : null;
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.expiresAtMillis() <= System.currentTimeMillis()) {
+            defaultBranches.remove(repository);
+            return Optional.empty();
+        }
+        return Optional.of(entry.branch());
+    }
+
+    public synchronized void putDefaultBranch(String repository, String branch) {
+        if (!enabled || repository == null || repository.isEmpty() || branch == null || branch.isEmpty()) {
+            return;
+        }
+        defaultBranches.put(repository, new DefaultBranch(branch, System.currentTimeMillis() + defaultBranchTtlMillis));
+        Iterator<String> iterator = defaultBranches.keySet().iterator();
+        while (defaultBranches.size() > maxHeads && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Record that a head was confirmed unchanged by a 304 response
+     */
+    public void recordRevalidation() {
+        headRevalidations.incrementAndGet();
+    }
+
+    public synchronized void invalidateAll() {
+        trees.clear();
+        heads.clear();
+        defaultBranches.clear();
+        cachedTreeEntries = 0;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        synchronized (this) {
+            stats.put("trees", trees.size());
+            stats.put("treeEntries", cachedTreeEntries);
+            stats.put("heads", heads.size());
+            stats.put("defaultBranches", defaultBranches.size());
+        }
+        stats.put("treeHits", treeHits.get());
+        stats.put("treeMisses", treeMisses.get());
+        stats.put("headRevalidations", headRevalidations.get());
+        return stats;
+    }
+
+    private static boolean isCommitSha(String sha) {
+        return sha != null && sha.matches("[0-9a-f]{40}");
+    }
+}
@@ -0,0 +1,230 @@
+package com.archpilot.service.fetch;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.archpilot.model.CompactRepositoryTree;
+import com.archpilot.model.RepositoryTreeData;
+import com.archpilot.service.ClassDiagramGeneratorService.JavaClassInfo;
+import com.archpilot.service.support.SingleFlight;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Fetches file contents from one download of the repository archive
+ *
+ * Main Context:
+ * - The first fetch for a snapshot (repository + commit) downloads its zipball once and streams
+ *   it through {@link ZipSnapshotReader}; concurrent fetches of the same snapshot share the download
+ * - Only the .java entries of the snapshot's tree are kept, in memory; nothing is unpacked to disk
+ * - Later fetches of a snapshot are served from memory, so a whole-repository analysis costs
+ *   one sequential download instead of one request per file
+ * - A branch can move, so a snapshot of a branch (tree without a commit SHA) is only served to
+ *   fetches of the same tree, i.e. for the duration of the analysis that downloaded it
+ * - Files missing from the archive (or skipped by the size limits) and failed downloads fall
+ *   back to the raw file fetcher; a failed download is not retried for the snapshot until the
+ *   failure retry delay has passed, so e.g. a private repository without a token costs one failed request
+ *
+ * Configuration:
+ * - archpilot.fetch.archive.url-template: archive URL with {owner}, {repo} and {ref} placeholders
+ * - archpilot.fetch.archive.token: optional token for private repositories (default $GITHUB_TOKEN)
+ * - archpilot.fetch.archive.max-file-bytes: larger entries are skipped (default 1048576)
+ * - archpilot.fetch.archive.max-snapshot-bytes: selected content kept per snapshot (default 33554432); the
+ *   Java sources of all but the largest repositories fit, files past the budget are fetched individually
+ * - archpilot.fetch.archive.max-snapshots: snapshots kept in memory (default 2, one per concurrent analysis)
+ * - archpilot.fetch.archive.failure-retry-seconds: delay before a failed snapshot is downloaded again (default 600)
+ */
+@Component
+public class ArchiveSnapshotFetcher implements FileContentFetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveSnapshotFetcher.class);
+    private static final Pattern GITHUB_REPOSITORY = Pattern.compile("^https://github\\.com/([\\w.-]+)/([\\w.-]+?)(?:\\.git)?/?$");
+    private static final Pattern COMMIT_SHA = Pattern.compile("[0-9a-f]{40}");
+    private static final Predicate<String> JAVA_SOURCES = path -> path.endsWith(".java");
+
+    private final WebClient webClient;
+    private final FileContentFetcher fallback;
+    private final Scheduler blockingIoScheduler;
+    private final String urlTemplate;
+    private final String token;
+    private final long maxFileBytes;
+    private final long maxSnapshotBytes;
+    private final int maxSnapshots;
+    private final long failureRetryMillis;
+
+    private final SingleFlight<String, Map<String, String>> downloads = new SingleFlight<>();
+    // Access-ordered map gives LRU iteration order; guarded by "this"
+    private final LinkedHashMap<String, Snapshot> snapshots = new LinkedHashMap<>(4, 0.75f, true);
+    // Time until which a snapshot whose download failed is not requested again; guarded by "this"
+    private final Map<String, Long> failedUntil = new HashMap<>();
+
+    @Autowired
+    public ArchiveSnapshotFetcher(@Qualifier("fileFetchWebClient") WebClient webClient,
+                                  RawGitHubFileContentFetcher fallback,
+                                  @Qualifier("blockingIoScheduler") Scheduler blockingIoScheduler,
+                                  @Value("${archpilot.fetch.archive.url-template:https://api.github.com/repos/{owner}/{repo}/zipball/{ref}}") String urlTemplate,
+                                  @Value("${archpilot.fetch.archive.token:${GITHUB_TOKEN:}}") String token,
+                                  @Value("${archpilot.fetch.archive.max-file-bytes:1048576}") long maxFileBytes,
+                                  @Value("${archpilot.fetch.archive.max-snapshot-bytes:33554432}") long maxSnapshotBytes,
+                                  @Value("${archpilot.fetch.archive.max-snapshots:2}") int maxSnapshots,
+                                  @Value("${archpilot.fetch.archive.failure-retry-seconds:600}") long failureRetrySeconds) {
+        this.webClient = webClient;
+        this.fallback = fallback;
+        this.blockingIoScheduler = blockingIoScheduler;
+        this.urlTemplate = urlTemplate;
+        this.token = token != null ? token.trim() : "";
+        this.maxFileBytes = maxFileBytes;
+        this.maxSnapshotBytes = maxSnapshotBytes;
+        this.maxSnapshots = Math.max(1, maxSnapshots);
+        this.failureRetryMillis = failureRetrySeconds * 1000;
+    }
+
+    @Override
+    public Mono<String> fetchContent(RepositoryTreeData treeData, JavaClassInfo javaClass) {
+        Matcher matcher = GITHUB_REPOSITORY.matcher(treeData.getRepositoryUrl() != null ? treeData.getRepositoryUrl() : "");
+        if (!matcher.matches()) {
+            return fallback.fetchContent(treeData, javaClass);
+        }
+        String owner = matcher.group(1);
+        String repo = matcher.group(2);
+        String ref = revision(treeData);
+        String snapshotKey = owner + "/" + repo + "@" + ref;
+        if (recentlyFailed(snapshotKey)) {
+            return fallback.fetchContent(treeData, javaClass);
+        }
+
+        return snapshot(snapshotKey, owner, repo, ref, treeData)
+                .flatMap(contents -> {
+                    String content = contents.get(javaClass.getFullPath());
+                    if (content == null) {
+                        logger.debug("{} not in archive of {}, fetching it individually", javaClass.getFullPath(), snapshotKey);
+                        return fallback.fetchContent(treeData, javaClass);
+                    }
+                    return content.trim().isEmpty() ? Mono.<String>empty() : Mono.just(content);
+                })
+                .onErrorResume(e -> {
+                    logger.warn("Archive of {} unavailable, fetching {} individually: {}",
+                               snapshotKey, javaClass.getClassName(), e.getMessage());
+                    return fallback.fetchContent(treeData, javaClass);
+                });
+    }
+
+    private Mono<Map<String, String>> snapshot(String snapshotKey, String owner, String repo, String ref,
+                                               RepositoryTreeData treeData) {
+        // Commit snapshots are shared by every tree of the commit, branch snapshots only by the same tree
+        RepositoryTreeData source = COMMIT_SHA.matcher(ref).matches() ? null : treeData;
+        String key = source == null ? snapshotKey : snapshotKey + "#" + System.identityHashCode(source);
+        synchronized (this) {
+            Snapshot loaded = snapshots.get(key);
+            if (loaded != null && loaded.source() == source) {
+                return Mono.just(loaded.contents());
+            }
+        }
+        return downloads.execute(key, () -> download(owner, repo, ref, treeData)
+                .doOnNext(contents -> remember(key, new Snapshot(contents, source)))
+                .doOnError(e -> rememberFailure(snapshotKey)));
+    }
+
+    /**
+     * Stream the archive through the zip reader on the blocking scheduler, selecting the tree's Java files
+     */
+    private Mono<Map<String, String>> download(String owner, String repo, String ref, RepositoryTreeData treeData) {
+        String url = urlTemplate.replace("{owner}", owner).replace("{repo}", repo).replace("{ref}", ref);
+        Predicate<String> pathFilter = selection(treeData);
+        logger.info("Downloading archive of {}/{}@{} from {}", owner, repo, ref, url);
+
+        return Mono.fromCallable(() -> {
+            long start = System.currentTimeMillis();
+            WebClient.RequestHeadersSpec<?> request = webClient.get().uri(url);
+            if (!token.isEmpty()) {
+                request = request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+            }
+            Flux<DataBuffer> body = request.retrieve()
+                    .bodyToFlux(DataBuffer.class)
+                    .timeout(Duration.ofSeconds(60));
+
+            ZipSnapshotReader reader = new ZipSnapshotReader(maxFileBytes, maxSnapshotBytes);
+            try (InputStream archive = DataBufferUtils.subscriberInputStream(body, 16)) {
+                Map<String, String> contents = reader.read(archive, pathFilter);
+                logger.info("Read {} files from archive of {}/{}@{} in {} ms ({} entries skipped, {} over the size limit{})",
+                           contents.size(), owner, repo, ref, System.currentTimeMillis() - start,
+                           reader.getSkippedEntries(), reader.getOversizedEntries(),
+                           reader.isBudgetExhausted() ? ", snapshot byte budget exhausted" : "");
+                return contents;
+            }
+        }).subscribeOn(blockingIoScheduler);
+    }
+
+    private synchronized void remember(String key, Snapshot snapshot) {
+        snapshots.put(key, snapshot);
+        Iterator<String> iterator = snapshots.keySet().iterator();
+        while (snapshots.size() > maxSnapshots && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private synchronized void rememberFailure(String snapshotKey) {
+        long now = System.currentTimeMillis();
+        failedUntil.values().removeIf(until -> until <= now);
+        failedUntil.put(snapshotKey, now + failureRetryMillis);
+    }
+
+    private synchronized boolean recentlyFailed(String snapshotKey) {
+        Long until = failedUntil.get(snapshotKey);
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    /**
+     * Java files of the tree when it is known, any Java file otherwise
+     */
+    private static Predicate<String> selection(RepositoryTreeData treeData) {
+        CompactRepositoryTree tree = treeData.getCompactTree();
+        if (tree == null) {
+            return JAVA_SOURCES;
+        }
+        Set<String> paths = new HashSet<>();
+        for (int i = 0; i < tree.size(); i++) {
+            if (tree.isFile(i) && tree.name(i).endsWith(".java")) {
+                paths.add(tree.path(i));
+            }
+        }
+        return paths::contains;
+    }
+
+    private static String revision(RepositoryTreeData treeData) {
+        if (treeData.getCommitSha() != null && !treeData.getCommitSha().isEmpty()) {
+            return treeData.getCommitSha();
+        }
+        return treeData.getBranch() != null && !treeData.getBranch().isEmpty() ? treeData.getBranch() : "HEAD";
+    }
+
+    /**
+     * Selected contents of a downloaded archive
+     *
+     * @param source Tree a branch snapshot was downloaded for, null for a commit snapshot
+     */
+    private record Snapshot(Map<String, String> contents, RepositoryTreeData source) {}
+}
@@ -0,0 +1,84 @@
+package com.archpilot.service.fetch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import com.archpilot.model.RepositoryTreeData;
+import com.archpilot.service.ClassDiagramGeneratorService.JavaClassInfo;
+import com.archpilot.service.cache.BlobContentStore;
+import com.archpilot.service.mirror.GitMirrorManager;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * File content fetcher that serves known Git blobs from the {@link BlobContentStore}
+ *
+ * Blobs already in the store are returned without any network I/O; so are blobs of
+ * repositories with a local mirror ({@link GitMirrorManager}). Remaining misses are
+ * fetched from GitHub and written back under their blob SHA.
+ *
+ * Configuration:
+ * - archpilot.fetch.mode: "raw" fetches each file from raw.githubusercontent.com (default),
+ *   "graphql" fetches misses in bulk through {@link GraphQlBlobContentFetcher} when a token is configured,
+ *   "archive" reads misses from one download of the repository zipball ({@link ArchiveSnapshotFetcher})
+ */
+@Component
+@Primary
+public class CachingFileContentFetcher implements FileContentFetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingFileContentFetcher.class);
+
+    private final BlobContentStore blobContentStore;
+    private final GitMirrorManager gitMirrorManager;
+    private final FileContentFetcher delegate;
+    private final Scheduler blockingIoScheduler;
+
+    @Autowired
+    public CachingFileContentFetcher(BlobContentStore blobContentStore, RawGitHubFileContentFetcher rawFetcher,
+                                     GraphQlBlobContentFetcher graphQlFetcher,
+                                     ArchiveSnapshotFetcher archiveFetcher,
+                                     GitMirrorManager gitMirrorManager,
+                                     @Qualifier("blockingIoScheduler") Scheduler blockingIoScheduler,
+                                     @Value("${archpilot.fetch.mode:raw}") String fetchMode) {
+        this.blobContentStore = blobContentStore;
+        this.gitMirrorManager = gitMirrorManager;
+        this.blockingIoScheduler = blockingIoScheduler;
+
+        if ("graphql".equalsIgnoreCase(fetchMode) && !graphQlFetcher.isAvailable()) {
+            logger.warn("GraphQL fetch mode requires archpilot.fetch.graphql.token; fetching raw files instead");
+        }
+        if ("archive".equalsIgnoreCase(fetchMode)) {
+            this.delegate = archiveFetcher;
+        } else if ("graphql".equalsIgnoreCase(fetchMode) && graphQlFetcher.isAvailable()) {
+            this.delegate = graphQlFetcher;
+        } else {
+            this.delegate = rawFetcher;
+        }
+    }
+
+    @Override
+    public Mono<String> fetchContent(RepositoryTreeData treeData, JavaClassInfo javaClass) {
+        String blobSha = javaClass.getSha();
+        if (blobSha == null || blobSha.isEmpty()) {
+            return delegate.fetchContent(treeData, javaClass);
+        }
+
+        return Mono.fromCallable(() -> blobContentStore.get(blobSha)
+                        .or(() -> gitMirrorManager.readBlob(treeData.getRepositoryUrl(), blobSha)))
+                .subscribeOn(blockingIoScheduler)
+                .flatMap(cached -> cached
+                        .map(content -> {
+                            logger.debug("Local blob hit for {} ({})", javaClass.getClassName(), blobSha);
+                            return Mono.just(content);
+                        })
+                        .orElseGet(() -> delegate.fetchContent(treeData, javaClass)
+                                .publishOn(blockingIoScheduler)
+                                .doOnNext(content -> blobContentStore.put(blobSha, content))));
+    }
+}
@@ -0,0 +1,81 @@
+package com.archpilot.service.fetch;
+
+import java.net.SocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Collects connection pool and per-host request metrics for outbound file fetches
+ *
+ * Reactor Netty registers one {@link ConnectionPoolMetrics} per pool and remote address;
+ * request counters are maintained by the fetchers themselves.
+ */
+@Component
+public class ConnectionPoolMetricsRegistry implements ConnectionProvider.MeterRegistrar {
+
+    private final Map<String, ConnectionPoolMetrics> pools = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> inFlightRequests = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> completedRequests = new ConcurrentHashMap<>();
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+        pools.put(poolKey(poolName, remoteAddress), metrics);
+    }
+
+    @Override
+    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        pools.remove(poolKey(poolName, remoteAddress));
+    }
+
+    public void requestStarted(String host) {
+        inFlightRequests.computeIfAbsent(host, k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    public void requestFinished(String host) {
+        inFlightRequests.computeIfAbsent(host, k -> new AtomicInteger()).decrementAndGet();
+        completedRequests.computeIfAbsent(host, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Point-in-time view of all pools and hosts
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> poolData = new LinkedHashMap<>();
+        pools.forEach((key, metrics) -> {
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("acquired", metrics.acquiredSize());
+            values.put("allocated", metrics.allocatedSize());
+            values.put("idle", metrics.idleSize());
+            values.put("pendingAcquire", metrics.pendingAcquireSize());
+            values.put("maxAllocated", metrics.maxAllocatedSize());
+            values.put("maxPendingAcquire", metrics.maxPendingAcquireSize());
+            poolData.put(key, values);
+        });
+
+        Map<String, Object> hostData = new LinkedHashMap<>();
+        inFlightRequests.forEach((host, inFlight) -> {
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("inFlight", inFlight.get());
+            AtomicLong completed = completedRequests.get(host);
+            values.put("completed", completed != null ? completed.get() : 0L);
+            hostData.put(host, values);
+        });
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("pools", poolData);
+        snapshot.put("hosts", hostData);
+        return snapshot;
+    }
+
+    private String poolKey(String poolName, SocketAddress remoteAddress) {
+        return poolName + "@" + remoteAddress;
+    }
+}
@@ -0,0 +1,21 @@
+package com.archpilot.service.fetch;
+
+import com.archpilot.model.RepositoryTreeData;
+import com.archpilot.service.ClassDiagramGeneratorService.JavaClassInfo;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Source of file contents for class analysis
+ *
+ * Implementations must not block the calling thread.
+ */
+public interface FileContentFetcher {
+
+    /**
+     * Fetch the content of a single file of the repository snapshot described by treeData
+     *
+     * @return Mono with the file content, empty when the file could not be fetched
+     */
+    Mono<String> fetchContent(RepositoryTreeData treeData, JavaClassInfo javaClass);
+}
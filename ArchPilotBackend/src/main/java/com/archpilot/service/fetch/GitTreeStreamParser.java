@@ -0,0 +1,182 @@
+package com.archpilot.service.fetch;
+
+import java.io.IOException;
+import java.util.function.Predicate;
+
+import com.archpilot.model.CompactRepositoryTree;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+
+/**
+ * Incremental parser for GitHub Git Trees API responses
+ *
+ * Main Context:
+ * - Feeds response chunks into Jackson's non-blocking parser as they arrive, so neither the
+ *   response body nor a JSON tree of it is ever held in memory
+ * - Entries are filtered by path while parsing; rejected entries never reach the tree
+ *   (and their remaining fields are not even materialized as strings)
+ * - Accepted entries go straight into a {@link CompactRepositoryTree}, so peak heap is proportional
+ *   to the accepted entries, not to the size of the repository
+ *
+ * Not thread-safe: one instance parses one response, chunks fed in order.
+ */
+public class GitTreeStreamParser {
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final Predicate<String> pathFilter;
+
+    private final CompactRepositoryTree.Builder tree = CompactRepositoryTree.builder();
+    private int skippedEntries;
+    private boolean truncated;
+    private boolean sawTree;
+
+    // Nesting depth: 1 = root object, 2 = tree array, 3 = tree entry
+    private int depth;
+    private boolean inTreeArray;
+    private String field;
+
+    // Entry being parsed
+    private String path;
+    private String type;
+    private String sha;
+    private Long size;
+    private String url;
+    private boolean rejected;
+
+    /**
+     * @param jsonFactory Factory of the application ObjectMapper
+     * @param pathFilter Accepts the paths to keep, or null to keep every entry
+     */
+    public GitTreeStreamParser(JsonFactory jsonFactory, Predicate<String> pathFilter) throws IOException {
+        this.parser = jsonFactory.createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.pathFilter = pathFilter;
+    }
+
+    /**
+     * Parse the next chunk of the response body; the array is not retained after the call
+     */
+    public void feed(byte[] chunk) throws IOException {
+        feeder.feedInput(chunk, 0, chunk.length);
+        drain();
+    }
+
+    /**
+     * Signal the end of the response body
+     *
+     * @return Accepted tree entries in response order
+     */
+    public CompactRepositoryTree finish() throws IOException {
+        feeder.endOfInput();
+        drain();
+        if (depth != 0 || !sawTree) {
+            throw new JsonParseException(parser, "Incomplete Git Trees API response");
+        }
+        return tree.build();
+    }
+
+    /**
+     * Whether GitHub cut the listing short (over 100,000 entries or 7 MB)
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Entries dropped by the path filter
+     */
+    public int getSkippedEntries() {
+        return skippedEntries;
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            handle(token);
+        }
+    }
+
+    private void handle(JsonToken token) throws IOException {
+        switch (token) {
+            case START_OBJECT -> {
+                depth++;
+                if (depth == 3 && inTreeArray) {
+                    startEntry();
+                }
+            }
+            case END_OBJECT -> {
+                if (depth == 3 && inTreeArray) {
+                    endEntry();
+                }
+                depth--;
+            }
+            case START_ARRAY -> {
+                depth++;
+                if (depth == 2 && "tree".equals(field)) {
+                    inTreeArray = true;
+                    sawTree = true;
+                }
+            }
+            case END_ARRAY -> {
+                if (depth == 2) {
+                    inTreeArray = false;
+                }
+                depth--;
+            }
+            case FIELD_NAME -> {
+                if (depth <= 3) {
+                    field = parser.currentName();
+                }
+            }
+            default -> {
+                if (depth == 1 && "truncated".equals(field)) {
+                    truncated = token == JsonToken.VALUE_TRUE;
+                } else if (depth == 3 && inTreeArray) {
+                    entryValue(token);
+                }
+            }
+        }
+    }
+
+    private void startEntry() {
+        path = null;
+        type = null;
+        sha = null;
+        size = null;
+        url = null;
+        rejected = false;
+    }
+
+    private void entryValue(JsonToken token) throws IOException {
+        if (rejected || token == JsonToken.VALUE_NULL) {
+            return;
+        }
+        switch (field) {
+            case "path" -> {
+                path = parser.getText();
+                rejected = pathFilter != null && !pathFilter.test(path);
+            }
+            case "type" -> type = parser.getText();
+            case "sha" -> sha = parser.getText();
+            case "size" -> size = parser.getLongValue();
+            case "url" -> url = parser.getText();
+            default -> {
+                // mode and unknown fields are not needed
+            }
+        }
+    }
+
+    private void endEntry() {
+        if (rejected || path == null) {
+            skippedEntries++;
+            return;
+        }
+        // Git object types map to the file/dir types of the tree API
+        String nodeType = "tree".equals(type) ? "dir" : "blob".equals(type) ? "file" : type;
+        tree.add(path, nodeType, sha, size, url, null);
+    }
+}
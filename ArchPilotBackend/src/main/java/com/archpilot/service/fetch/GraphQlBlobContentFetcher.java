@@ -0,0 +1,295 @@
+package com.archpilot.service.fetch;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.archpilot.model.RepositoryTreeData;
+import com.archpilot.service.ClassDiagramGeneratorService.JavaClassInfo;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Fetches file contents in bulk through the GitHub GraphQL API
+ *
+ * Main Context:
+ * - Concurrent {@link #fetchContent} calls are collected for a short window and sent as one
+ *   GraphQL query per repository, each file an aliased object(oid:) lookup (or a
+ *   "revision:path" expression when the blob SHA is unknown)
+ * - Batches are capped by file count and by the files' byte sizes from the tree, so responses
+ *   stay within GitHub's and the client's response-size limits
+ * - Files GitHub does not return (missing, binary, truncated) and whole failed batches fall back
+ *   to the raw file fetcher one by one, so callers see the same results as before
+ * - The GraphQL API always requires authentication; without a token the fetcher is unavailable
+ *
+ * Configuration:
+ * - archpilot.fetch.graphql.endpoint: GraphQL endpoint (default https://api.github.com/graphql)
+ * - archpilot.fetch.graphql.token: token used for GraphQL queries (default $GITHUB_TOKEN)
+ * - archpilot.fetch.graphql.max-batch-files: files per query (default 50)
+ * - archpilot.fetch.graphql.max-batch-bytes: summed file size per query (default 1048576)
+ * - archpilot.fetch.graphql.batch-window-ms: how long to collect calls before querying (default 20)
+ * - archpilot.fetch.graphql.max-concurrent-queries: queries in flight (default 4)
+ */
+@Component
+public class GraphQlBlobContentFetcher implements FileContentFetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(GraphQlBlobContentFetcher.class);
+    private static final Pattern GITHUB_REPOSITORY = Pattern.compile("^https://github\\.com/([\\w.-]+)/([\\w.-]+?)(?:\\.git)?/?$");
+    // Assumed size of files whose size the tree does not report
+    private static final long UNKNOWN_SIZE = 16 * 1024;
+
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final FileContentFetcher fallback;
+    private final ConnectionPoolMetricsRegistry metricsRegistry;
+    private final String endpoint;
+    private final String host;
+    private final String token;
+    private final int maxBatchFiles;
+    private final long maxBatchBytes;
+
+    private final Sinks.Many<BlobRequest> requests = Sinks.many().unicast().onBackpressureBuffer();
+    private final Disposable dispatcher;
+
+    @Autowired
+    public GraphQlBlobContentFetcher(@Qualifier("fileFetchWebClient") WebClient webClient,
+                                     ObjectMapper objectMapper,
+                                     RawGitHubFileContentFetcher fallback,
+                                     ConnectionPoolMetricsRegistry metricsRegistry,
+                                     @Value("${archpilot.fetch.graphql.endpoint:https://api.github.com/graphql}") String endpoint,
+                                     @Value("${archpilot.fetch.graphql.token:${GITHUB_TOKEN:}}") String token,
+                                     @Value("${archpilot.fetch.graphql.max-batch-files:50}") int maxBatchFiles,
+                                     @Value("${archpilot.fetch.graphql.max-batch-bytes:1048576}") long maxBatchBytes,
+                                     @Value("${archpilot.fetch.graphql.batch-window-ms:20}") long batchWindowMs,
+                                     @Value("${archpilot.fetch.graphql.max-concurrent-queries:4}") int maxConcurrentQueries) {
+        this.maxBatchFiles = Math.max(1, maxBatchFiles);
+        this.maxBatchBytes = Math.max(1, maxBatchBytes);
+        // JSON escaping can double the size of a source file, leave room for it
+        int maxResponseBytes = (int) Math.min(Integer.MAX_VALUE, this.maxBatchBytes * 2 + 64 * 1024);
+        this.webClient = webClient.mutate()
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(maxResponseBytes))
+                .build();
+        this.objectMapper = objectMapper;
+        this.fallback = fallback;
+        this.metricsRegistry = metricsRegistry;
+        this.endpoint = endpoint;
+        this.host = URI.create(endpoint).getHost();
+        this.token = token != null ? token.trim() : "";
+
+        this.dispatcher = requests.asFlux()
+                .bufferTimeout(this.maxBatchFiles, Duration.ofMillis(Math.max(1, batchWindowMs)))
+                // bufferTimeout cannot wait for demand when its timer fires
+                .onBackpressureBuffer()
+                .concatMapIterable(this::splitBatches)
+                .flatMap(this::executeBatch, Math.max(1, maxConcurrentQueries))
+                .subscribe(null, e -> logger.error("GraphQL blob dispatcher stopped: {}", e.getMessage(), e));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.dispose();
+    }
+
+    /**
+     * @return true when a token is configured; GitHub rejects anonymous GraphQL queries
+     */
+    public boolean isAvailable() {
+        return !token.isEmpty();
+    }
+
+    @Override
+    public Mono<String> fetchContent(RepositoryTreeData treeData, JavaClassInfo javaClass) {
+        Matcher matcher = GITHUB_REPOSITORY.matcher(treeData.getRepositoryUrl() != null ? treeData.getRepositoryUrl() : "");
+        if (!isAvailable() || !matcher.matches()) {
+            return fallback.fetchContent(treeData, javaClass);
+        }
+
+        return Mono.defer(() -> {
+            BlobRequest request = new BlobRequest(matcher.group(1), matcher.group(2), treeData, javaClass);
+            requests.emitNext(request, Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+            return request.result.asMono();
+        });
+    }
+
+    /**
+     * Split a window of requests into per-repository batches within the byte budget
+     */
+    private List<List<BlobRequest>> splitBatches(List<BlobRequest> window) {
+        Map<String, List<BlobRequest>> byRepository = new LinkedHashMap<>();
+        for (BlobRequest request : window) {
+            byRepository.computeIfAbsent(request.owner + "/" + request.repo, k -> new ArrayList<>()).add(request);
+        }
+
+        List<List<BlobRequest>> batches = new ArrayList<>();
+        for (List<BlobRequest> repositoryRequests : byRepository.values()) {
+            List<BlobRequest> current = new ArrayList<>();
+            long currentBytes = 0;
+            for (BlobRequest request : repositoryRequests) {
+                long bytes = request.estimatedBytes();
+                if (!current.isEmpty() && currentBytes + bytes > maxBatchBytes) {
+                    batches.add(current);
+                    current = new ArrayList<>();
+                    currentBytes = 0;
+                }
+                current.add(request);
+                currentBytes += bytes;
+            }
+            batches.add(current);
+        }
+        return batches;
+    }
+
+    private Mono<Void> executeBatch(List<BlobRequest> batch) {
+        String owner = batch.get(0).owner;
+        String repo = batch.get(0).repo;
+        logger.debug("Fetching {} blobs of {}/{} with one GraphQL query", batch.size(), owner, repo);
+
+        return webClient.post()
+                .uri(endpoint)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(buildQuery(batch))
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(Duration.ofSeconds(30))
+                .doOnSubscribe(subscription -> metricsRegistry.requestStarted(host))
+                .doFinally(signal -> metricsRegistry.requestFinished(host))
+                .flatMap(responseBody -> {
+                    JsonNode repository = readRepository(responseBody, owner, repo);
+                    List<BlobRequest> missing = new ArrayList<>();
+                    for (int i = 0; i < batch.size(); i++) {
+                        JsonNode blob = repository.path("f" + i);
+                        if (!blob.hasNonNull("text") || blob.path("isBinary").asBoolean(false)
+                                || blob.path("isTruncated").asBoolean(false)) {
+                            missing.add(batch.get(i));
+                            continue;
+                        }
+                        String text = blob.get("text").asText();
+                        batch.get(i).result.tryEmitValue(text.trim().isEmpty() ? null : text);
+                    }
+                    if (!missing.isEmpty()) {
+                        logger.debug("{} of {} blobs not returned by GraphQL, fetching them individually",
+                                     missing.size(), batch.size());
+                    }
+                    return fetchIndividually(missing);
+                })
+                .onErrorResume(e -> {
+                    logger.warn("GraphQL blob query for {}/{} failed, fetching {} files individually: {}",
+                               owner, repo, batch.size(), e.getMessage());
+                    return fetchIndividually(batch);
+                });
+    }
+
+    /**
+     * One aliased object lookup per file; values go in variables so paths need no escaping
+     */
+    private String buildQuery(List<BlobRequest> batch) {
+        StringBuilder declarations = new StringBuilder("$owner: String!, $name: String!");
+        StringBuilder selections = new StringBuilder();
+        ObjectNode variables = objectMapper.createObjectNode()
+                .put("owner", batch.get(0).owner)
+                .put("name", batch.get(0).repo);
+
+        for (int i = 0; i < batch.size(); i++) {
+            BlobRequest request = batch.get(i);
+            String variable = "f" + i;
+            String oid = request.javaClass.getSha();
+            if (oid != null && !oid.isEmpty()) {
+                declarations.append(", $").append(variable).append(": GitObjectID");
+                selections.append(variable).append(": object(oid: $").append(variable).append(") { ...blob } ");
+                variables.put(variable, oid);
+            } else {
+                declarations.append(", $").append(variable).append(": String");
+                selections.append(variable).append(": object(expression: $").append(variable).append(") { ...blob } ");
+                variables.put(variable, request.revision() + ":" + request.javaClass.getFullPath());
+            }
+        }
+
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("query", "query(" + declarations + ") { repository(owner: $owner, name: $name) { " + selections + "} } "
+                + "fragment blob on GitObject { ... on Blob { text isBinary isTruncated } }");
+        body.set("variables", variables);
+        return body.toString();
+    }
+
+    private JsonNode readRepository(String responseBody, String owner, String repo) {
+        JsonNode response;
+        try {
+            response = objectMapper.readTree(responseBody);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable GraphQL response: " + e.getMessage(), e);
+        }
+        JsonNode errors = response.path("errors");
+        if (errors.isArray() && !errors.isEmpty()) {
+            // Partial results are still usable; unresolved objects fall back individually
+            logger.warn("GraphQL blob query for {}/{} returned {} errors, first: {}",
+                       owner, repo, errors.size(), errors.get(0).path("message").asText());
+        }
+        JsonNode repository = response.path("data").path("repository");
+        if (!repository.isObject()) {
+            throw new IllegalStateException("GraphQL response has no repository data");
+        }
+        return repository;
+    }
+
+    private Mono<Void> fetchIndividually(List<BlobRequest> batch) {
+        return Flux.fromIterable(batch)
+                .flatMap(request -> fallback.fetchContent(request.treeData, request.javaClass)
+                        .doOnNext(request.result::tryEmitValue)
+                        .doOnTerminate(() -> request.result.tryEmitValue(null))
+                        .onErrorResume(e -> Mono.empty()))
+                .then();
+    }
+
+    /**
+     * A pending file content lookup and the sink its caller is waiting on
+     */
+    private static final class BlobRequest {
+        private final String owner;
+        private final String repo;
+        private final RepositoryTreeData treeData;
+        private final JavaClassInfo javaClass;
+        private final Sinks.One<String> result = Sinks.one();
+
+        BlobRequest(String owner, String repo, RepositoryTreeData treeData, JavaClassInfo javaClass) {
+            this.owner = owner;
+            this.repo = repo;
+            this.treeData = treeData;
+            this.javaClass = javaClass;
+        }
+
+        long estimatedBytes() {
+            return javaClass.getSize() != null ? javaClass.getSize() : UNKNOWN_SIZE;
+        }
+
+        String revision() {
+            if (treeData.getCommitSha() != null && !treeData.getCommitSha().isEmpty()) {
+                return treeData.getCommitSha();
+            }
+            return treeData.getBranch() != null && !treeData.getBranch().isEmpty() ? treeData.getBranch() : "HEAD";
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.archpilot.service.fetch;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.archpilot.model.RepositoryTreeData;
+import com.archpilot.service.ClassDiagramGeneratorService.JavaClassInfo;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Fetches file contents from raw.githubusercontent.com
+ *
+ * Uses the shared, pooled fileFetchWebClient so connections (and HTTP/2 streams)
+ * are reused across files instead of paying a TCP+TLS handshake per fetch.
+ *
+ * Files are read at the tree's commit, so a branch that moves after the tree was read never
+ * yields content of a different blob; the branch is only used for trees without a commit SHA.
+ */
+@Component
+public class RawGitHubFileContentFetcher implements FileContentFetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(RawGitHubFileContentFetcher.class);
+    private static final String RAW_HOST = "raw.githubusercontent.com";
+
+    private final WebClient webClient;
+    private final ConnectionPoolMetricsRegistry metricsRegistry;
+
+    @Autowired
+    public RawGitHubFileContentFetcher(@Qualifier("fileFetchWebClient") WebClient webClient,
+                                       ConnectionPoolMetricsRegistry metricsRegistry) {
+        this.webClient = webClient;
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    @Override
+    public Mono<String> fetchContent(RepositoryTreeData treeData, JavaClassInfo javaClass) {
+        // Construct raw GitHub URL from repository URL and file path
+        String rawUrl = constructRawGitHubUrl(treeData.getRepositoryUrl(), treeRef(treeData), javaClass.getFullPath());
+
+        if (rawUrl == null) {
+            logger.warn("Could not construct raw URL for class: {}", javaClass.getClassName());
+            return Mono.empty();
+        }
+
+        logger.debug("Fetching content from: {}", rawUrl);
+
+        return webClient.get()
+                .uri(rawUrl)
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(Duration.ofSeconds(15))
+                .doOnSubscribe(subscription -> metricsRegistry.requestStarted(RAW_HOST))
+                .doFinally(signal -> metricsRegistry.requestFinished(RAW_HOST))
+                .filter(content -> !content.trim().isEmpty())
+                .doOnNext(content -> logger.info("Successfully fetched {} characters for class: {}", content.length(), javaClass.getClassName()))
+                .switchIfEmpty(Mono.defer(() -> {
+                    logger.warn("Empty content received for class: {}", javaClass.getClassName());
+                    return Mono.empty();
+                }))
+                .onErrorResume(e -> {
+                    logger.error("Error fetching file content for {}: {}", javaClass.getClassName(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Commit of the tree, falling back to its branch (or master) when the commit is unknown
+     */
+    static String treeRef(RepositoryTreeData treeData) {
+        if (treeData.getCommitSha() != null && !treeData.getCommitSha().isEmpty()) {
+            return treeData.getCommitSha();
+        }
+        String branch = treeData.getBranch();
+        return (branch != null && !branch.isEmpty()) ? branch : "master";
+    }
+
+    /**
+     * Construct raw GitHub URL for file content
+     */
+    static String constructRawGitHubUrl(String repositoryUrl, String ref, String filePath) {
+        try {
+            // Convert https://github.com/owner/repo to https://raw.githubusercontent.com/owner/repo/ref/path
+            if (repositoryUrl.contains("github.com")) {
+                String[] parts = repositoryUrl.replace("https://github.com/", "").split("/");
+                if (parts.length >= 2) {
+                    String owner = parts[0];
+                    String repo = parts[1];
+
+                    return String.format("https://%s/%s/%s/%s/%s", RAW_HOST, owner, repo, ref, filePath);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error constructing raw GitHub URL: {}", e.getMessage());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,104 @@
+package com.archpilot.service.fetch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Sequential reader of repository zip archives (GitHub zipballs)
+ *
+ * Main Context:
+ * - Reads the archive as a stream, one entry after the other; nothing is unpacked to disk and
+ *   the archive itself is never held in memory
+ * - Entries are selected by path as they go by; unselected entries are skipped without
+ *   decompressing them into a buffer
+ * - GitHub wraps the repository in a single "owner-repo-sha/" directory, which is stripped so
+ *   paths match the Git tree
+ * - Per-entry and total byte limits bound memory for hostile or unexpectedly large archives
+ */
+public class ZipSnapshotReader {
+
+    private final long maxEntryBytes;
+    private final long maxTotalBytes;
+
+    private int skippedEntries;
+    private int oversizedEntries;
+    private boolean budgetExhausted;
+
+    /**
+     * @param maxEntryBytes Selected entries larger than this are skipped
+     * @param maxTotalBytes Reading stops once the selected contents reach this size
+     */
+    public ZipSnapshotReader(long maxEntryBytes, long maxTotalBytes) {
+        this.maxEntryBytes = maxEntryBytes;
+        this.maxTotalBytes = maxTotalBytes;
+    }
+
+    /**
+     * Read the selected entries of an archive
+     *
+     * @param archive Zip stream, read to the end (or to the byte budget); the caller closes it
+     * @param pathFilter Accepts the repository-relative paths to keep
+     * @return Content of each selected file keyed by its repository-relative path
+     */
+    public Map<String, String> read(InputStream archive, Predicate<String> pathFilter) throws IOException {
+        Map<String, String> contents = new HashMap<>();
+        long totalBytes = 0;
+
+        ZipInputStream zip = new ZipInputStream(archive, StandardCharsets.UTF_8);
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            String path = stripRootDirectory(entry.getName());
+            if (entry.isDirectory() || path == null || !pathFilter.test(path)) {
+                skippedEntries++;
+                continue;
+            }
+
+            byte[] content = readLimited(zip, maxEntryBytes);
+            if (content == null) {
+                oversizedEntries++;
+                continue;
+            }
+            if (totalBytes + content.length > maxTotalBytes) {
+                budgetExhausted = true;
+                break;
+            }
+            totalBytes += content.length;
+            contents.put(path, new String(content, StandardCharsets.UTF_8));
+        }
+        return contents;
+    }
+
+    public int getSkippedEntries() {
+        return skippedEntries;
+    }
+
+    public int getOversizedEntries() {
+        return oversizedEntries;
+    }
+
+    /**
+     * Whether reading stopped at the total byte limit; later entries were not read
+     */
+    public boolean isBudgetExhausted() {
+        return budgetExhausted;
+    }
+
+    private static String stripRootDirectory(String name) {
+        int slash = name.indexOf('/');
+        return slash >= 0 && slash < name.length() - 1 ? name.substring(slash + 1) : null;
+    }
+
+    /**
+     * @return Entry content, or null when it exceeds the limit
+     */
+    private static byte[] readLimited(InputStream in, long limit) throws IOException {
+        byte[] content = in.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, limit + 1));
+        return content.length > limit ? null : content;
+    }
+}
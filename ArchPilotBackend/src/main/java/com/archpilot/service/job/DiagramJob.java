@@ -0,0 +1,164 @@
+package com.archpilot.service.job;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.archpilot.service.ClassDiagramGeneratorService.JavaClassInfo;
+import com.archpilot.service.agent.GeminiClassAnalyzerAgentService.ClassAnalysisResult;
+import com.archpilot.service.analysis.DiagramProgressListener;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * State of one asynchronous class diagram generation
+ *
+ * Main Context:
+ * - Doubles as the progress listener of its generation, so counters and events stay in one place
+ * - Every progress update is also published as a {@link DiagramJobEvent}; only the most recent
+ *   events are replayed to late subscribers, which then follow live events. Every event carries the
+ *   job counters, so a client connecting mid-run still starts from the current progress
+ */
+public class DiagramJob implements DiagramProgressListener {
+
+    public static final String STATUS_QUEUED = "QUEUED";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private final String jobId;
+    private final String repositoryUrl;
+    private final String branch;
+    private final LocalDateTime createdAt;
+    private volatile LocalDateTime updatedAt;
+    private volatile String status = STATUS_QUEUED;
+    private volatile String stage;
+    private volatile String message;
+    private volatile Object result;
+
+    private final AtomicInteger totalClasses = new AtomicInteger();
+    private final AtomicInteger fetchedClasses = new AtomicInteger();
+    private final AtomicInteger analyzedClasses = new AtomicInteger();
+
+    private final Sinks.Many<DiagramJobEvent> events;
+    private long nextSequence;
+
+    /**
+     * @param eventHistory Number of most recent events replayed to late subscribers
+     */
+    public DiagramJob(String jobId, String repositoryUrl, String branch, int eventHistory) {
+        this.jobId = jobId;
+        this.repositoryUrl = repositoryUrl;
+        this.branch = branch;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = createdAt;
+        this.events = Sinks.many().replay().limit(eventHistory);
+    }
+
+    @Override
+    public void onStage(String stage, String message) {
+        this.status = STATUS_RUNNING;
+        this.stage = stage;
+        this.message = message;
+        publish(event(DiagramJobEvent.TYPE_STAGE, message));
+    }
+
+    @Override
+    public void onClassesDiscovered(int totalClasses) {
+        this.totalClasses.set(totalClasses);
+        onStage("ANALYZING", String.format("Analyzing %d classes", totalClasses));
+    }
+
+    @Override
+    public void onClassFetched(JavaClassInfo javaClass) {
+        fetchedClasses.incrementAndGet();
+        DiagramJobEvent event = event(DiagramJobEvent.TYPE_CLASS_FETCHED, null);
+        event.setClassName(javaClass.getClassName());
+        publish(event);
+    }
+
+    @Override
+    public void onClassAnalyzed(JavaClassInfo javaClass, ClassAnalysisResult result, boolean fromCache) {
+        if (fromCache) {
+            fetchedClasses.incrementAndGet(); // cache hits skip the fetch stage
+        }
+        analyzedClasses.incrementAndGet();
+
+        Map<String, Object> analysis = new LinkedHashMap<>();
+        analysis.put("fullPath", javaClass.getFullPath());
+        analysis.put("packageName", javaClass.getPackageName());
+        analysis.put("classType", result.getClassType());
+        analysis.put("extendsClass", result.getExtendsClass());
+        analysis.put("analysisStatus", result.getAnalysisStatus());
+        analysis.put("rawAnalysis", result.getRawAnalysis());
+        analysis.put("fromCache", fromCache);
+
+        DiagramJobEvent event = event(DiagramJobEvent.TYPE_CLASS_ANALYZED, null);
+        event.setClassName(javaClass.getClassName());
+        event.setData(analysis);
+        publish(event);
+    }
+
+    void complete(boolean success, String message, Object result) {
+        this.status = success ? STATUS_COMPLETED : STATUS_FAILED;
+        this.message = message;
+        this.result = result;
+
+        DiagramJobEvent event = event(success ? DiagramJobEvent.TYPE_COMPLETED : DiagramJobEvent.TYPE_FAILED, message);
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("result", result);
+        event.setData(data);
+        publish(event);
+
+        synchronized (this) {
+            events.tryEmitComplete();
+        }
+    }
+
+    Flux<DiagramJobEvent> events() {
+        return events.asFlux();
+    }
+
+    LocalDateTime lastUpdated() {
+        return updatedAt;
+    }
+
+    boolean isFinished() {
+        return STATUS_COMPLETED.equals(status) || STATUS_FAILED.equals(status);
+    }
+
+    private DiagramJobEvent event(String type, String message) {
+        updatedAt = LocalDateTime.now();
+        DiagramJobEvent event = new DiagramJobEvent();
+        event.setJobId(jobId);
+        event.setType(type);
+        event.setStage(stage);
+        event.setMessage(message);
+        event.setTotalClasses(totalClasses.get());
+        event.setFetchedClasses(fetchedClasses.get());
+        event.setAnalyzedClasses(analyzedClasses.get());
+        return event;
+    }
+
+    // Pipeline callbacks arrive from several threads; the sink needs serialized emissions
+    private synchronized void publish(DiagramJobEvent event) {
+        event.setSequence(nextSequence++);
+        events.tryEmitNext(event);
+    }
+
+    // Getters
+    public String getJobId() { return jobId; }
+    public String getRepositoryUrl() { return repositoryUrl; }
+    public String getBranch() { return branch; }
+    public String getStatus() { return status; }
+    public String getStage() { return stage; }
+    public String getMessage() { return message; }
+    public int getTotalClasses() { return totalClasses.get(); }
+    public int getFetchedClasses() { return fetchedClasses.get(); }
+    public int getAnalyzedClasses() { return analyzedClasses.get(); }
+    public Object getResult() { return result; }
+    public String getCreatedAt() { return createdAt.toString(); }
+    public String getUpdatedAt() { return updatedAt.toString(); }
+}
@@ -0,0 +1,66 @@
+package com.archpilot.service.job;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Progress event of a diagram job, streamed to clients over Server-Sent Events
+ */
+public class DiagramJobEvent {
+
+    public static final String TYPE_STAGE = "stage";
+    public static final String TYPE_CLASS_FETCHED = "class-fetched";
+    public static final String TYPE_CLASS_ANALYZED = "class-analyzed";
+    public static final String TYPE_COMPLETED = "completed";
+    public static final String TYPE_FAILED = "failed";
+
+    private long sequence;
+    private String jobId;
+    private String type;
+    private String stage;
+    private String message;
+    private int totalClasses;
+    private int fetchedClasses;
+    private int analyzedClasses;
+    private String className;
+    private Map<String, Object> data;  // Partial analysis for class events, final result for completion
+    private String timestamp;
+
+    public DiagramJobEvent() {
+        this.timestamp = LocalDateTime.now().toString();
+    }
+
+    // Getters and setters
+    public long getSequence() { return sequence; }
+    public void setSequence(long sequence) { this.sequence = sequence; }
+
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public String getStage() { return stage; }
+    public void setStage(String stage) { this.stage = stage; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    public int getTotalClasses() { return totalClasses; }
+    public void setTotalClasses(int totalClasses) { this.totalClasses = totalClasses; }
+
+    public int getFetchedClasses() { return fetchedClasses; }
+    public void setFetchedClasses(int fetchedClasses) { this.fetchedClasses = fetchedClasses; }
+
+    public int getAnalyzedClasses() { return analyzedClasses; }
+    public void setAnalyzedClasses(int analyzedClasses) { this.analyzedClasses = analyzedClasses; }
+
+    public String getClassName() { return className; }
+    public void setClassName(String className) { this.className = className; }
+
+    public Map<String, Object> getData() { return data; }
+    public void setData(Map<String, Object> data) { this.data = data; }
+
+    public String getTimestamp() { return timestamp; }
+    public void setTimestamp(String timestamp) { this.timestamp = timestamp; }
+}
@@ -0,0 +1,123 @@
+package com.archpilot.service.job;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.archpilot.dto.ClassDiagramResponse;
+import com.archpilot.model.ApiResponse;
+import com.archpilot.service.analysis.DiagramProgressListener;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Asynchronous diagram job registry
+ *
+ * Main Context:
+ * - A submitted job starts its generation in the background and returns immediately with a job id
+ * - Clients poll the job status or subscribe to its progress events instead of holding an HTTP
+ *   connection open for the whole generation
+ * - Finished jobs are kept for the configured retention and evicted on later submissions
+ *
+ * Configuration:
+ * - archpilot.jobs.retention-minutes: how long finished jobs stay queryable (default 60)
+ * - archpilot.jobs.max-jobs: upper bound of jobs in progress, and of retained jobs (default 200)
+ * - archpilot.jobs.event-history: most recent progress events replayed to a late subscriber (default 50)
+ */
+@Service
+public class DiagramJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiagramJobService.class);
+
+    private final Map<String, DiagramJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${archpilot.jobs.retention-minutes:60}")
+    private long retentionMinutes;
+
+    @Value("${archpilot.jobs.max-jobs:200}")
+    private int maxJobs;
+
+    @Value("${archpilot.jobs.event-history:50}")
+    private int eventHistory;
+
+    /**
+     * Start a generation as a job
+     *
+     * @param repositoryUrl Repository the job generates a diagram for
+     * @param branch Requested branch, may be null
+     * @param generation Generation to run, given the job as its progress listener
+     * @return The submitted job
+     */
+    public DiagramJob submit(String repositoryUrl, String branch,
+                             Function<DiagramProgressListener, Mono<ApiResponse<Object>>> generation) {
+        evictFinishedJobs();
+        if (jobs.values().stream().filter(job -> !job.isFinished()).count() >= maxJobs) {
+            throw new IllegalStateException("Too many diagram jobs in progress, try again later");
+        }
+
+        DiagramJob job = new DiagramJob(UUID.randomUUID().toString(), repositoryUrl, branch, eventHistory);
+        jobs.put(job.getJobId(), job);
+        logger.info("Submitted diagram job {} for repository: {}", job.getJobId(), repositoryUrl);
+
+        Mono.defer(() -> generation.apply(job))
+            .subscribe(
+                response -> {
+                    boolean success = isSuccessful(response);
+                    job.complete(success, response.getMessage(), response.getData());
+                    logger.info("Diagram job {} finished with status {}", job.getJobId(), job.getStatus());
+                },
+                error -> {
+                    logger.error("Diagram job {} failed: {}", job.getJobId(), error.getMessage(), error);
+                    job.complete(false, "Internal server error: " + error.getMessage(), null);
+                });
+
+        return job;
+    }
+
+    public Optional<DiagramJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Progress events of a job, starting with its most recent events and completing when the job finishes
+     */
+    public Flux<DiagramJobEvent> getEvents(String jobId) {
+        return getJob(jobId)
+            .map(DiagramJob::events)
+            .orElseGet(Flux::empty);
+    }
+
+    private boolean isSuccessful(ApiResponse<Object> response) {
+        if (!"SUCCESS".equals(response.getStatus())) {
+            return false;
+        }
+        // The facade wraps diagram failures in a successful envelope
+        return !(response.getData() instanceof ClassDiagramResponse diagram) || "SUCCESS".equals(diagram.getStatus());
+    }
+
+    private void evictFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMinutes(retentionMinutes));
+        jobs.values().removeIf(job -> job.isFinished() && job.lastUpdated().isBefore(cutoff));
+
+        // Over capacity: drop the oldest finished jobs first
+        if (jobs.size() >= maxJobs) {
+            jobs.values().stream()
+                .filter(DiagramJob::isFinished)
+                .sorted(Comparator.comparing(DiagramJob::lastUpdated))
+                .limit(jobs.size() - maxJobs + 1L)
+                .toList()
+                .forEach(job -> jobs.remove(job.getJobId()));
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.archpilot.service.llm;
+
+/**
+ * Scheduling class of an LLM call in the {@link ProviderRateLimiter}
+ */
+public enum LlmPriority {
+
+    /** A user is waiting on the answer (chat, direct questions) */
+    INTERACTIVE,
+
+    /** User-triggered work that tolerates some delay (JIRA ticket generation) */
+    STANDARD,
+
+    /** Background fan-out (class analysis for diagrams) */
+    BATCH
+}
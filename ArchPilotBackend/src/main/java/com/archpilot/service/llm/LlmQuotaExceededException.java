@@ -0,0 +1,20 @@
+package com.archpilot.service.llm;
+
+import java.time.Duration;
+
+/**
+ * Thrown when an LLM call cannot be admitted because the provider's daily request quota is used up
+ */
+public class LlmQuotaExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public LlmQuotaExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
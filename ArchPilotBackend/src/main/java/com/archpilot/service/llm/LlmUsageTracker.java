@@ -0,0 +1,265 @@
+package com.archpilot.service.llm;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.http.HttpServletRequest;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Token accounting from the provider's usage metadata
+ *
+ * Main Context:
+ * - Every ChatClient call reports the prompt and completion tokens of its ChatResponse here
+ * - Counters are kept in total, per endpoint (the matched request mapping) and per user
+ *   (the identity resolved by the TokenGuardrailInterceptor)
+ * - Calls made for a servlet request also add to that request's token total, which the
+ *   interceptor charges to the user's TPM bucket instead of its up-front estimate
+ * - Work that leaves the request thread (e.g. the class analysis pipeline) carries the request's
+ *   usage in the Reactor context: {@link #requestUsageContext()} captures it on the request thread
+ *   and {@link #withRequestUsage(Callable)} attributes the blocking calls made on worker threads
+ * - Calls outside a request (scheduled work) are counted as "background" / "system"
+ *
+ * Configuration:
+ * - archpilot.llm.usage.max-tracked-users: distinct users with their own counter (default 10000)
+ */
+@Component
+public class LlmUsageTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(LlmUsageTracker.class);
+
+    /** Request attribute holding the {@link RequestUsage} of the current request */
+    public static final String REQUEST_USAGE_ATTRIBUTE = LlmUsageTracker.class.getName() + ".usage";
+
+    // Usage of the request a worker thread is currently calling the LLM for
+    private static final ThreadLocal<RequestUsage> CURRENT_USAGE = new ThreadLocal<>();
+
+    private static final String BACKGROUND_ENDPOINT = "background";
+    private static final String SYSTEM_USER = "system";
+    private static final String OTHER_USERS = "other";
+
+    private final int maxTrackedUsers;
+    private final UsageCounter total = new UsageCounter();
+    private final Map<String, UsageCounter> endpoints = new ConcurrentHashMap<>();
+    private final Map<String, UsageCounter> users = new ConcurrentHashMap<>();
+
+    public LlmUsageTracker(@Value("${archpilot.llm.usage.max-tracked-users:10000}") int maxTrackedUsers) {
+        this.maxTrackedUsers = maxTrackedUsers;
+    }
+
+    /**
+     * Record the usage reported with a chat response
+     *
+     * @return Total tokens of the call, or -1 when the provider reported no usage
+     */
+    public long record(ChatResponse response) {
+        Usage usage = response != null && response.getMetadata() != null ? response.getMetadata().getUsage() : null;
+        long promptTokens = usage != null && usage.getPromptTokens() != null ? usage.getPromptTokens() : 0;
+        long completionTokens = usage != null && usage.getGenerationTokens() != null ? usage.getGenerationTokens() : 0;
+        boolean reported = promptTokens + completionTokens > 0;
+
+        String endpoint = BACKGROUND_ENDPOINT;
+        String user = SYSTEM_USER;
+        RequestUsage requestUsage = currentUsage();
+        if (requestUsage != null) {
+            endpoint = requestUsage.endpoint;
+            user = requestUsage.user;
+            requestUsage.add(promptTokens + completionTokens, reported);
+        }
+
+        total.add(promptTokens, completionTokens, reported);
+        endpoints.computeIfAbsent(endpoint, key -> new UsageCounter()).add(promptTokens, completionTokens, reported);
+        userCounter(user).add(promptTokens, completionTokens, reported);
+
+        logger.debug("LLM usage for {} ({}): {} prompt + {} completion tokens",
+                    endpoint, user, promptTokens, completionTokens);
+        return reported ? promptTokens + completionTokens : -1;
+    }
+
+    /**
+     * Capture the usage of the current request for the LLM calls of a Mono built for it
+     *
+     * Must be called on the request thread, e.g. while assembling the request's Mono; returns an
+     * empty context outside a request.
+     */
+    public static Context requestUsageContext() {
+        RequestUsage usage = currentUsage();
+        return usage != null ? Context.of(RequestUsage.class, usage) : Context.empty();
+    }
+
+    /**
+     * Run a blocking call on subscription, attributing its LLM calls to the request captured in the
+     * subscriber's context by {@link #requestUsageContext()}
+     */
+    public static <T> Mono<T> withRequestUsage(Callable<T> call) {
+        return Mono.deferContextual(context -> {
+            RequestUsage usage = context.getOrDefault(RequestUsage.class, null);
+            return Mono.fromCallable(() -> callWithUsage(usage, call));
+        });
+    }
+
+    /**
+     * Tokens used by LLM calls made for the given request
+     */
+    public static long requestTokens(HttpServletRequest request) {
+        RequestUsage usage = requestUsage(request);
+        return usage != null ? usage.tokens.sum() : 0L;
+    }
+
+    /**
+     * Number of LLM calls attributed to the given request so far
+     */
+    public static long requestCalls(HttpServletRequest request) {
+        RequestUsage usage = requestUsage(request);
+        return usage != null ? usage.calls.sum() : 0L;
+    }
+
+    /**
+     * Whether any LLM call made for the given request lacked usage metadata
+     */
+    public static boolean hasUnreportedUsage(HttpServletRequest request) {
+        RequestUsage usage = requestUsage(request);
+        return usage != null && usage.unreported;
+    }
+
+    static <T> T callWithUsage(RequestUsage usage, Callable<T> call) throws Exception {
+        if (usage == null) {
+            return call.call();
+        }
+        RequestUsage previous = CURRENT_USAGE.get();
+        CURRENT_USAGE.set(usage);
+        try {
+            return call.call();
+        } finally {
+            if (previous != null) {
+                CURRENT_USAGE.set(previous);
+            } else {
+                CURRENT_USAGE.remove();
+            }
+        }
+    }
+
+    /**
+     * Usage of the request the current thread works for: the one bound by a worker thread, or the
+     * servlet request of a request thread (created on first use)
+     */
+    private static RequestUsage currentUsage() {
+        RequestUsage usage = CURRENT_USAGE.get();
+        if (usage != null) {
+            return usage;
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return null;
+        }
+        HttpServletRequest request = servletAttributes.getRequest();
+        usage = requestUsage(request);
+        if (usage == null) {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            Object userId = request.getAttribute("userId");
+            usage = new RequestUsage(pattern != null ? pattern.toString() : request.getRequestURI(),
+                                     userId != null ? userId.toString() : "anonymous");
+            request.setAttribute(REQUEST_USAGE_ATTRIBUTE, usage);
+        }
+        return usage;
+    }
+
+    private static RequestUsage requestUsage(HttpServletRequest request) {
+        Object usage = request.getAttribute(REQUEST_USAGE_ATTRIBUTE);
+        return usage instanceof RequestUsage requestUsage ? requestUsage : null;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("total", total.toMap());
+        stats.put("endpoints", toMap(endpoints));
+        stats.put("users", toMap(users));
+        return stats;
+    }
+
+    private UsageCounter userCounter(String user) {
+        UsageCounter counter = users.get(user);
+        if (counter != null) {
+            return counter;
+        }
+        // Bound memory for per-IP identities; late users share one counter
+        String key = users.size() < maxTrackedUsers ? user : OTHER_USERS;
+        return users.computeIfAbsent(key, k -> new UsageCounter());
+    }
+
+    private static Map<String, Object> toMap(Map<String, UsageCounter> counters) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        counters.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> result.put(entry.getKey(), entry.getValue().toMap()));
+        return result;
+    }
+
+    /**
+     * Endpoint, user and token total of one request; calls may add to it from any thread
+     */
+    static final class RequestUsage {
+        private final String endpoint;
+        private final String user;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder tokens = new LongAdder();
+        private volatile boolean unreported;
+
+        private RequestUsage(String endpoint, String user) {
+            this.endpoint = endpoint;
+            this.user = user;
+        }
+
+        private void add(long callTokens, boolean reported) {
+            calls.increment();
+            tokens.add(callTokens);
+            if (!reported) {
+                unreported = true;
+            }
+        }
+    }
+
+    /**
+     * Call and token counts of one endpoint or user
+     */
+    private static final class UsageCounter {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder callsWithoutUsage = new LongAdder();
+        private final LongAdder promptTokens = new LongAdder();
+        private final LongAdder completionTokens = new LongAdder();
+
+        private void add(long prompt, long completion, boolean reported) {
+            calls.increment();
+            if (!reported) {
+                callsWithoutUsage.increment();
+            }
+            promptTokens.add(prompt);
+            completionTokens.add(completion);
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("calls", calls.sum());
+            map.put("callsWithoutUsage", callsWithoutUsage.sum());
+            map.put("promptTokens", promptTokens.sum());
+            map.put("completionTokens", completionTokens.sum());
+            map.put("totalTokens", promptTokens.sum() + completionTokens.sum());
+            return map;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.archpilot.service.llm;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.archpilot.entity.ProviderBudget;
+import com.archpilot.repository.ProviderBudgetRepository;
+import com.archpilot.repository.RateLimitBucketRepository;
+
+/**
+ * Provider budget shared by every instance through provider_budgets
+ *
+ * Main Context:
+ * - {@link ProviderRateLimiter} only sees the calls of its own instance; it leases windows of the
+ *   provider's timeline here, so all instances together stay within the organization's limits
+ * - A lease is a window of a few request slots plus the day's requests that may be sent in it;
+ *   the row is locked once per lease rather than once per call
+ * - Requests a lease did not use go back to the day's budget when the next lease is taken, so an
+ *   idle instance holds back at most one lease of requests
+ * - The provider's row keeps the day it counts for and is reset in place when the day changes
+ *
+ * Configuration:
+ * - archpilot.rate-limit.persist: share the budget through the database (default true); when off,
+ *   each instance enforces the full limits on its own and only a single instance may be deployed
+ * - archpilot.rate-limit.lease-slots: request slots leased per transaction (default 5)
+ */
+@Component
+public class ProviderBudgetStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProviderBudgetStore.class);
+
+    static final String PROVIDER = "gemini";
+    // Rows the shared budget used to keep in rate_limit_buckets
+    private static final String LEGACY_BUCKET_PREFIX = "provider:";
+
+    private final ProviderBudgetRepository providerBudgetRepository;
+    private final RateLimitBucketRepository rateLimitBucketRepository;
+    private final boolean enabled;
+    private final int leaseSlots;
+
+    /**
+     * Window of the provider's timeline leased to one instance
+     *
+     * @param requests Requests of the day that may be sent in the window; 0 when the day's budget is used up
+     */
+    public record Lease(Instant start, Instant end, int requests, LocalDate day) {
+    }
+
+    @Autowired
+    public ProviderBudgetStore(ProviderBudgetRepository providerBudgetRepository,
+                               RateLimitBucketRepository rateLimitBucketRepository,
+                               @Value("${archpilot.rate-limit.persist:true}") boolean enabled,
+                               @Value("${archpilot.rate-limit.lease-slots:5}") int leaseSlots) {
+        this.providerBudgetRepository = providerBudgetRepository;
+        this.rateLimitBucketRepository = rateLimitBucketRepository;
+        this.enabled = enabled;
+        this.leaseSlots = Math.max(1, leaseSlots);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getLeaseSlots() {
+        return leaseSlots;
+    }
+
+    @PostConstruct
+    public void removeLegacyBuckets() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int removed = rateLimitBucketRepository.deleteByUserIdPrefix(LEGACY_BUCKET_PREFIX);
+            if (removed > 0) {
+                logger.info("Removed {} provider budget rows from rate_limit_buckets", removed);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Error removing provider budget rows from rate_limit_buckets: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Lease the next window of the shared timeline
+     *
+     * @param windowMillis Length of the window
+     * @param day Current provider day
+     * @param requestsPerDay Daily request limit, 0 for none
+     * @param previous Lease this one replaces, or null
+     * @param previousUsed Requests sent under the previous lease
+     * @return The lease; it starts once earlier leases and any back-off are over
+     */
+    @Transactional
+    public Lease lease(long windowMillis, LocalDate day, long requestsPerDay, Lease previous, int previousUsed) {
+        ProviderBudget budget = lockBudget(day);
+        if (!day.equals(budget.getBudgetDay())) {
+            budget.setBudgetDay(day);
+            budget.setRequestsToday(0L);
+        } else if (previous != null && day.equals(previous.day())) {
+            long unused = Math.max(0, previous.requests() - previousUsed);
+            budget.setRequestsToday(Math.max(0, budget.getRequestsToday() - unused));
+        }
+
+        int requests = leaseSlots;
+        if (requestsPerDay > 0) {
+            requests = (int) Math.min(requests, Math.max(0, requestsPerDay - budget.getRequestsToday()));
+        }
+        Instant now = Instant.now();
+        if (requests == 0) {
+            store(budget);
+            return new Lease(now, now, 0, day);
+        }
+
+        Instant start = latest(now, latest(budget.getLeasedUntil(), budget.getPausedUntil()));
+        Instant end = start.plusMillis(windowMillis);
+        budget.setLeasedUntil(end);
+        budget.setRequestsToday(budget.getRequestsToday() + requests);
+        store(budget);
+        return new Lease(start, end, requests, day);
+    }
+
+    /**
+     * Keep every instance from starting a new lease until the back-off has passed
+     */
+    @Transactional
+    public void backOff(long backoffMillis) {
+        ProviderBudget budget = lockBudget(null);
+        Instant resume = Instant.now().plusMillis(backoffMillis);
+        if (resume.isAfter(budget.getPausedUntil())) {
+            budget.setPausedUntil(resume);
+        }
+        store(budget);
+    }
+
+    /**
+     * Lock the provider's row, creating it if missing
+     */
+    ProviderBudget lockBudget(LocalDate day) {
+        return providerBudgetRepository.findByProviderWithLock(PROVIDER)
+                .orElseGet(() -> new ProviderBudget(PROVIDER, day != null ? day : LocalDate.now()));
+    }
+
+    void store(ProviderBudget budget) {
+        providerBudgetRepository.save(budget);
+    }
+
+    private static Instant latest(Instant a, Instant b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -0,0 +1,514 @@
+package com.archpilot.service.llm;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Provider-level rate limiter shared by every LLM call site
+ *
+ * Main Context:
+ * - The per-user guardrail only sees servlet requests; internal fan-out (class analysis, Jira
+ *   tickets, architect answers) all draws from the same organization-wide Gemini quota
+ * - Every ChatClient call waits here for a slot before it is sent
+ * - A slot is as long as the more restrictive of RPM (one request) and TPM (the estimated tokens)
+ *   requires at the target utilization, so calls are spread evenly and never burst past the window
+ * - Once a call returns, its slot is resized to the tokens the provider actually reported
+ * - Requests per day are counted per provider day; once the day's budget is used up calls fail fast
+ *   with {@link LlmQuotaExceededException} instead of queueing until the reset
+ * - A call the provider throttles anyway (429) pushes the next slot out by a back-off that doubles
+ *   with each consecutive throttled call
+ *
+ * Multiple Instances:
+ * - With the shared budget enabled, this instance leases windows of a few slots from the database
+ *   ({@link ProviderBudgetStore}) and sends its calls inside them, so all instances together use one
+ *   timeline and one daily budget while the row is locked once per lease rather than once per call
+ * - If the database cannot be reached a call falls back to this instance's limits only
+ *
+ * Priority Scheduling:
+ * - Callers wait in one FIFO queue per {@link LlmPriority}; a slot is assigned only when it starts,
+ *   so a chat message arriving behind a diagram's class analysis takes the very next slot
+ * - While several queues are waiting, slots are shared by smooth weighted round-robin
+ *   (interactive 8 : standard 3 : batch 1 by default)
+ * - Starvation protection: a caller that has waited longer than max-wait-seconds is served next
+ *   regardless of weights
+ *
+ * Configuration:
+ * - gemini.rate-limit.max-requests-per-minute / max-tokens-per-minute: provider limits
+ * - gemini.rate-limit.max-requests-per-day: provider daily limit, 0 for none (default 0)
+ * - gemini.rate-limit.target-utilization: fraction of each limit to use (default 0.95)
+ * - gemini.rate-limit.daily-reset-zone: time zone of the provider's daily reset (default America/Los_Angeles)
+ * - gemini.rate-limit.completion-tokens-estimate: tokens assumed for a response (default 1000)
+ * - archpilot.llm.priority.weights: interactive,standard,batch weights (default 8,3,1)
+ * - gemini.rate-limit.throttle-backoff-seconds: back-off after a throttled call (default 30)
+ * - archpilot.llm.priority.max-wait-seconds: starvation threshold (default 120)
+ * - archpilot.rate-limit.persist: share the budget across instances through the database (default true)
+ * - archpilot.rate-limit.lease-slots: slots leased from the shared budget at a time (default 5)
+ */
+@Component
+public class ProviderRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProviderRateLimiter.class);
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final long requestIntervalNanos;
+    private final double tokensPerMinute;
+    private final long requestsPerDay;
+    private final ZoneId resetZone;
+    private final int completionTokensEstimate;
+    private final Map<LlmPriority, Integer> weights = new EnumMap<>(LlmPriority.class);
+    private final long maxWaitNanos;
+    private final long throttleBackoffNanos;
+    private final LongSupplier nanoClock;
+    private final ProviderBudgetStore sharedBudget;
+    private final ScheduledExecutorService dispatcher;
+    // Held while renewing the lease, so callers queued behind a renewal use the new lease
+    private final Object leaseRenewal = new Object();
+
+    // Guarded by "this"
+    private final Map<LlmPriority, ArrayDeque<Waiter>> queues = new EnumMap<>(LlmPriority.class);
+    private final Map<LlmPriority, Integer> currentWeights = new EnumMap<>(LlmPriority.class);
+    private long nextFreeSlotNanos;
+    private long lastGrantNanos;
+    private boolean wakeupScheduled;
+    private LocalDate currentDay;
+    private long requestsToday;
+    private int consecutiveThrottles;
+    private ProviderBudgetStore.Lease lease;
+    private long leaseStartNanos;
+    private long leaseEndNanos;
+    private int leaseRequestsUsed;
+    private LocalDate sharedBudgetExhausted;
+
+    @Autowired
+    public ProviderRateLimiter(@Value("${gemini.rate-limit.max-requests-per-minute:10}") int maxRequestsPerMinute,
+                               @Value("${gemini.rate-limit.max-tokens-per-minute:250000}") int maxTokensPerMinute,
+                               @Value("${gemini.rate-limit.max-requests-per-day:0}") int maxRequestsPerDay,
+                               @Value("${gemini.rate-limit.target-utilization:0.95}") double targetUtilization,
+                               @Value("${gemini.rate-limit.daily-reset-zone:America/Los_Angeles}") String resetZone,
+                               @Value("${gemini.rate-limit.completion-tokens-estimate:1000}") int completionTokensEstimate,
+                               @Value("${archpilot.llm.priority.weights:8,3,1}") int[] priorityWeights,
+                               @Value("${archpilot.llm.priority.max-wait-seconds:120}") long maxWaitSeconds,
+                               @Value("${gemini.rate-limit.throttle-backoff-seconds:30}") long throttleBackoffSeconds,
+                               ProviderBudgetStore providerBudgetStore) {
+        this(maxRequestsPerMinute, maxTokensPerMinute, maxRequestsPerDay, targetUtilization, resetZone,
+             completionTokensEstimate, priorityWeights, maxWaitSeconds, throttleBackoffSeconds, System::nanoTime,
+             providerBudgetStore.isEnabled() ? providerBudgetStore : null);
+    }
+
+    /**
+     * Limiter of a single instance, without a shared budget
+     */
+    public ProviderRateLimiter(int maxRequestsPerMinute, int maxTokensPerMinute, int maxRequestsPerDay,
+                               double targetUtilization, String resetZone, int completionTokensEstimate,
+                               int[] priorityWeights, long maxWaitSeconds) {
+        this(maxRequestsPerMinute, maxTokensPerMinute, maxRequestsPerDay, targetUtilization, resetZone,
+             completionTokensEstimate, priorityWeights, maxWaitSeconds, System::nanoTime);
+    }
+
+    ProviderRateLimiter(int maxRequestsPerMinute, int maxTokensPerMinute, int maxRequestsPerDay,
+                        double targetUtilization, String resetZone, int completionTokensEstimate,
+                        int[] priorityWeights, long maxWaitSeconds, LongSupplier nanoClock) {
+        this(maxRequestsPerMinute, maxTokensPerMinute, maxRequestsPerDay, targetUtilization, resetZone,
+             completionTokensEstimate, priorityWeights, maxWaitSeconds, 30, nanoClock, null);
+    }
+
+    ProviderRateLimiter(int maxRequestsPerMinute, int maxTokensPerMinute, int maxRequestsPerDay,
+                        double targetUtilization, String resetZone, int completionTokensEstimate,
+                        int[] priorityWeights, long maxWaitSeconds, long throttleBackoffSeconds,
+                        LongSupplier nanoClock, ProviderBudgetStore sharedBudget) {
+        double utilization = Math.min(1.0, Math.max(0.01, targetUtilization));
+        this.requestIntervalNanos = (long) (NANOS_PER_MINUTE / (Math.max(1, maxRequestsPerMinute) * utilization));
+        this.tokensPerMinute = Math.max(1, maxTokensPerMinute) * utilization;
+        this.requestsPerDay = maxRequestsPerDay > 0 ? Math.max(1, (long) (maxRequestsPerDay * utilization)) : 0;
+        this.resetZone = ZoneId.of(resetZone);
+        this.completionTokensEstimate = Math.max(0, completionTokensEstimate);
+        this.maxWaitNanos = TimeUnit.SECONDS.toNanos(Math.max(1, maxWaitSeconds));
+        this.throttleBackoffNanos = TimeUnit.SECONDS.toNanos(Math.max(1, throttleBackoffSeconds));
+        this.nanoClock = nanoClock;
+        this.sharedBudget = sharedBudget;
+        this.nextFreeSlotNanos = nanoClock.getAsLong();
+        this.lastGrantNanos = nextFreeSlotNanos - requestIntervalNanos;
+        this.currentDay = LocalDate.now(this.resetZone);
+
+        for (LlmPriority priority : LlmPriority.values()) {
+            int index = priority.ordinal();
+            int weight = priorityWeights != null && index < priorityWeights.length ? priorityWeights[index] : 1;
+            weights.put(priority, Math.max(1, weight));
+            currentWeights.put(priority, 0);
+            queues.put(priority, new ArrayDeque<>());
+        }
+
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("llm-dispatcher").daemon(true).factory());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    /**
+     * Wait for a slot at standard priority, then run the call
+     */
+    public <T> T execute(String prompt, Supplier<T> call) {
+        return execute(prompt, LlmPriority.STANDARD, call);
+    }
+
+    /**
+     * Wait for a slot, then run the call
+     *
+     * @param prompt Prompt sent by the call, used to estimate its tokens
+     * @param priority Scheduling class of the call
+     * @param call The blocking LLM call
+     */
+    public <T> T execute(String prompt, LlmPriority priority, Supplier<T> call) {
+        return execute(prompt, priority, call, result -> -1);
+    }
+
+    /**
+     * Wait for a slot, run the call, then settle the slot against the tokens it actually used
+     *
+     * @param tokensUsed Actual tokens of the call's result, negative when unknown
+     */
+    public <T> T execute(String prompt, LlmPriority priority, Supplier<T> call, ToLongFunction<T> tokensUsed) {
+        int estimatedTokens = estimateTokens(prompt);
+        acquire(estimatedTokens, priority);
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            if (isThrottled(e)) {
+                throttled();
+            }
+            throw e;
+        }
+        synchronized (this) {
+            consecutiveThrottles = 0;
+        }
+        long actualTokens = tokensUsed.applyAsLong(result);
+        if (actualTokens >= 0) {
+            settle(estimatedTokens, actualTokens);
+        }
+        return result;
+    }
+
+    /**
+     * Move the next slot by the difference between estimated and actual tokens, but never closer
+     * than one request interval after the last grant
+     */
+    synchronized void settle(int estimatedTokens, long actualTokens) {
+        long differenceNanos = tokenNanos(actualTokens - estimatedTokens);
+        nextFreeSlotNanos = Math.max(lastGrantNanos + requestIntervalNanos, nextFreeSlotNanos + differenceNanos);
+        if (differenceNanos < 0 && hasWaiters()) {
+            // The pending wake-up is now late; an extra dispatch is harmless
+            long delay = Math.max(0, nextFreeSlotNanos - nanoClock.getAsLong());
+            dispatcher.schedule(this::dispatch, delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * The provider throttled a call the limiter admitted: hold every slot back for the back-off,
+     * doubling it with each consecutive throttled call (up to 16 times the configured back-off)
+     */
+    void throttled() {
+        long backoffNanos;
+        synchronized (this) {
+            backoffNanos = throttleBackoffNanos << Math.min(4, consecutiveThrottles);
+            consecutiveThrottles++;
+            deferSlots(backoffNanos);
+        }
+        logger.warn("LLM provider throttled a call, holding calls back for {} s", TimeUnit.NANOSECONDS.toSeconds(backoffNanos));
+        if (sharedBudget != null) {
+            try {
+                sharedBudget.backOff(TimeUnit.NANOSECONDS.toMillis(backoffNanos));
+            } catch (RuntimeException e) {
+                logger.warn("Error sharing LLM back-off: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Queue for a slot and block until it starts
+     *
+     * @param estimatedTokens Estimated prompt + completion tokens of the request
+     * @param priority Scheduling class of the request
+     * @throws LlmQuotaExceededException when the daily request budget is used up
+     */
+    public void acquire(int estimatedTokens, LlmPriority priority) {
+        Waiter waiter = enqueue(estimatedTokens, priority, sharedBudget == null);
+        try {
+            waiter.granted.await();
+            claimSharedSlot(estimatedTokens);
+        } catch (InterruptedException e) {
+            synchronized (this) {
+                queues.get(priority).remove(waiter);
+            }
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for LLM rate limit", e);
+        }
+
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(waiter.grantedAtNanos - waiter.enqueuedAtNanos);
+        logger.debug("Granted {} LLM slot for {} tokens after {} ms", priority, estimatedTokens, waitedMillis);
+    }
+
+    /**
+     * Prompt tokens by {@link TokenEstimator}, plus the expected response
+     */
+    public int estimateTokens(String prompt) {
+        return TokenEstimator.estimate(prompt) + completionTokensEstimate;
+    }
+
+    synchronized Waiter enqueue(int estimatedTokens, LlmPriority priority) {
+        return enqueue(estimatedTokens, priority, true);
+    }
+
+    /**
+     * @param countDaily Count the request against this instance's daily budget
+     */
+    private synchronized Waiter enqueue(int estimatedTokens, LlmPriority priority, boolean countDaily) {
+        LocalDate today = LocalDate.now(resetZone);
+        if (today.equals(sharedBudgetExhausted)) {
+            throw quotaExceeded(today);
+        }
+        if (countDaily) {
+            countDailyRequest(today);
+        }
+
+        Waiter waiter = new Waiter(priority, Math.max(0, estimatedTokens), nanoClock.getAsLong());
+        queues.get(priority).addLast(waiter);
+        dispatch();
+        return waiter;
+    }
+
+    /**
+     * Count the request against this instance's daily budget; caller holds "this"
+     */
+    private void countDailyRequest(LocalDate today) {
+        if (!today.equals(currentDay)) {
+            currentDay = today;
+            requestsToday = 0;
+        }
+        if (requestsPerDay > 0 && requestsToday >= requestsPerDay) {
+            throw quotaExceeded(today);
+        }
+        requestsToday++;
+    }
+
+    /**
+     * Send the granted slot under this instance's lease of the shared budget, leasing the next
+     * window when the lease is used up or over
+     */
+    private void claimSharedSlot(int estimatedTokens) throws InterruptedException {
+        if (sharedBudget == null) {
+            return;
+        }
+        long slotNanos = Math.max(requestIntervalNanos, tokenNanos(estimatedTokens));
+        synchronized (leaseRenewal) {
+            if (takeFromLease(slotNanos)) {
+                return;
+            }
+
+            LocalDate today = LocalDate.now(resetZone);
+            long windowNanos = Math.max(slotNanos, sharedBudget.getLeaseSlots() * requestIntervalNanos);
+            ProviderBudgetStore.Lease renewed;
+            try {
+                ProviderBudgetStore.Lease previous;
+                int previousUsed;
+                synchronized (this) {
+                    previous = lease;
+                    previousUsed = leaseRequestsUsed;
+                }
+                renewed = sharedBudget.lease(Math.max(1, TimeUnit.NANOSECONDS.toMillis(windowNanos)), today, requestsPerDay,
+                                             previous, previousUsed);
+            } catch (RuntimeException e) {
+                logger.warn("Error leasing shared LLM budget, using this instance's limits only: {}", e.getMessage());
+                synchronized (this) {
+                    countDailyRequest(today);
+                }
+                return;
+            }
+
+            long waitNanos = Duration.between(Instant.now(), renewed.start()).toNanos();
+            synchronized (this) {
+                long now = nanoClock.getAsLong();
+                lease = renewed;
+                leaseStartNanos = now + waitNanos;
+                leaseEndNanos = leaseStartNanos + Duration.between(renewed.start(), renewed.end()).toNanos();
+                leaseRequestsUsed = 0;
+                if (renewed.requests() == 0) {
+                    sharedBudgetExhausted = today;
+                    throw quotaExceeded(today);
+                }
+                leaseRequestsUsed = 1;
+                if (waitNanos > 0) {
+                    // Other instances hold the timeline until the lease starts; so do local waiters
+                    deferSlots(waitNanos + slotNanos);
+                }
+            }
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+    }
+
+    /**
+     * Count the slot against the current lease if it fits in the lease's window and requests
+     */
+    private synchronized boolean takeFromLease(long slotNanos) {
+        long now = nanoClock.getAsLong();
+        if (lease == null || leaseRequestsUsed >= lease.requests()
+                || now < leaseStartNanos || now + slotNanos > leaseEndNanos) {
+            return false;
+        }
+        leaseRequestsUsed++;
+        return true;
+    }
+
+    /**
+     * Start no slot before the given time from now; the pending wake-up dispatches and reschedules
+     */
+    private void deferSlots(long delayNanos) {
+        nextFreeSlotNanos = Math.max(nextFreeSlotNanos, nanoClock.getAsLong() + delayNanos);
+    }
+
+    private long tokenNanos(long tokens) {
+        return (long) (tokens / tokensPerMinute * NANOS_PER_MINUTE);
+    }
+
+    private LlmQuotaExceededException quotaExceeded(LocalDate today) {
+        Duration untilReset = Duration.between(ZonedDateTime.now(resetZone), today.plusDays(1).atStartOfDay(resetZone));
+        return new LlmQuotaExceededException("Daily LLM request quota exhausted (" + requestsPerDay + " requests)",
+                                             untilReset);
+    }
+
+    /**
+     * 429 (or Gemini's RESOURCE_EXHAUSTED) anywhere in the cause chain
+     */
+    static boolean isThrottled(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            String message = cause.getMessage();
+            if (message != null && (message.contains("429") || message.contains("RESOURCE_EXHAUSTED")
+                    || message.contains("Too Many Requests"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Grant the current slot if it has started, then schedule a wake-up for the next one
+     */
+    synchronized void dispatch() {
+        long now = nanoClock.getAsLong();
+        if (now >= nextFreeSlotNanos) {
+            Waiter next = selectNext(now);
+            if (next != null) {
+                nextFreeSlotNanos = now + Math.max(requestIntervalNanos, tokenNanos(next.estimatedTokens));
+                lastGrantNanos = now;
+                next.grantedAtNanos = now;
+                next.granted.countDown();
+            }
+        }
+
+        if (!wakeupScheduled && hasWaiters()) {
+            wakeupScheduled = true;
+            dispatcher.schedule(() -> {
+                synchronized (this) {
+                    wakeupScheduled = false;
+                    dispatch();
+                }
+            }, Math.max(0, nextFreeSlotNanos - now), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Pick the caller for the slot starting now: a starving caller first, otherwise smooth weighted round-robin
+     */
+    private Waiter selectNext(long now) {
+        Waiter starving = null;
+        for (ArrayDeque<Waiter> queue : queues.values()) {
+            Waiter head = queue.peekFirst();
+            if (head != null && now - head.enqueuedAtNanos >= maxWaitNanos
+                    && (starving == null || head.enqueuedAtNanos < starving.enqueuedAtNanos)) {
+                starving = head;
+            }
+        }
+        if (starving != null) {
+            return queues.get(starving.priority).pollFirst();
+        }
+
+        LlmPriority selected = null;
+        int totalWeight = 0;
+        for (LlmPriority priority : LlmPriority.values()) {
+            if (queues.get(priority).isEmpty()) {
+                continue;
+            }
+            int weight = weights.get(priority);
+            totalWeight += weight;
+            currentWeights.merge(priority, weight, Integer::sum);
+            if (selected == null || currentWeights.get(priority) > currentWeights.get(selected)) {
+                selected = priority;
+            }
+        }
+        if (selected == null) {
+            return null;
+        }
+        currentWeights.merge(selected, -totalWeight, Integer::sum);
+        return queues.get(selected).pollFirst();
+    }
+
+    private boolean hasWaiters() {
+        for (ArrayDeque<Waiter> queue : queues.values()) {
+            if (!queue.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A caller queued for a slot
+     */
+    static final class Waiter {
+        private final LlmPriority priority;
+        private final int estimatedTokens;
+        private final long enqueuedAtNanos;
+        private final CountDownLatch granted = new CountDownLatch(1);
+        private volatile long grantedAtNanos;
+
+        private Waiter(LlmPriority priority, int estimatedTokens, long enqueuedAtNanos) {
+            this.priority = priority;
+            this.estimatedTokens = estimatedTokens;
+            this.enqueuedAtNanos = enqueuedAtNanos;
+        }
+
+        boolean isGranted() {
+            return granted.getCount() == 0;
+        }
+
+        LlmPriority getPriority() {
+            return priority;
+        }
+    }
+}
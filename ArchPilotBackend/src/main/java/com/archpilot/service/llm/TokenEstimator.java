@@ -0,0 +1,140 @@
+package com.archpilot.service.llm;
+
+/**
+ * Local pre-flight token estimation for prompts made of Java source, PlantUML and English text
+ *
+ * Main Context:
+ * - A single pass over the characters with no allocation, cheap enough to run on every prompt
+ * - Approximates how BPE/SentencePiece tokenizers split code:
+ *   - identifiers split at camelCase and underscore boundaries, about one token per 6 letters of each part
+ *   - a single space before a word is merged into the word; indentation runs cost one token
+ *   - digit runs cost one token per 3 digits
+ *   - operator and bracket runs ("();", "->", "<|--", "..>") cost one token per 2 characters
+ *   - every other non-ASCII character costs one token
+ * - Errs slightly high on Java keywords, so budgets packed with it stay under the provider limit
+ */
+public final class TokenEstimator {
+
+    private TokenEstimator() {
+    }
+
+    /**
+     * Estimate the tokens of a text
+     */
+    public static int estimate(CharSequence text) {
+        return text == null ? 0 : tokens(scan(text, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Cut a text to fit a token budget, preferably at a line boundary
+     *
+     * @param maxTokens Budget for the returned text, marker included
+     * @param marker Appended when the text is cut (e.g. a "truncated" comment)
+     * @return The text itself when it fits, otherwise its longest fitting prefix plus the marker
+     */
+    public static String truncate(String text, int maxTokens, String marker) {
+        if (text == null) {
+            return null;
+        }
+        long fitsWhole = scan(text, maxTokens);
+        if (endIndex(fitsWhole) == text.length()) {
+            return text;
+        }
+        int budget = Math.max(0, maxTokens - estimate(marker));
+        return text.substring(0, endIndex(scan(text, budget))) + (marker != null ? marker : "");
+    }
+
+    /**
+     * Count tokens until the budget would be exceeded
+     *
+     * @return Token count in the high and end index of the fitting prefix in the low 32 bits
+     */
+    private static long scan(CharSequence text, int maxTokens) {
+        int length = text.length();
+        int tokens = 0;
+        int lineStart = 0;
+        int i = 0;
+
+        while (i < length) {
+            int start = i;
+            char c = text.charAt(i);
+            int cost;
+
+            if (isWordChar(c)) {
+                int segmentLength = 1;
+                cost = 0;
+                i++;
+                while (i < length && isWordChar(text.charAt(i))) {
+                    char current = text.charAt(i);
+                    char previous = text.charAt(i - 1);
+                    boolean camelBoundary = current >= 'A' && current <= 'Z' && previous >= 'a' && previous <= 'z';
+                    if (camelBoundary || current == '_') {
+                        cost += segmentCost(segmentLength);
+                        segmentLength = 0;
+                    }
+                    segmentLength++;
+                    i++;
+                }
+                cost += segmentCost(segmentLength);
+            } else if (c >= '0' && c <= '9') {
+                while (i < length && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+                    i++;
+                }
+                cost = (i - start + 2) / 3;
+            } else if (c == ' ' || c == '\t') {
+                while (i < length && (text.charAt(i) == ' ' || text.charAt(i) == '\t')) {
+                    i++;
+                }
+                boolean mergesWithWord = i - start == 1 && i < length && isWordChar(text.charAt(i));
+                cost = mergesWithWord ? 0 : 1;
+            } else if (c == '\n' || c == '\r') {
+                while (i < length && (text.charAt(i) == '\n' || text.charAt(i) == '\r')) {
+                    i++;
+                }
+                cost = 1;
+            } else if (c < 128) {
+                i++;
+                while (i < length && isSymbol(text.charAt(i))) {
+                    i++;
+                }
+                cost = (i - start + 1) / 2;
+            } else {
+                i++;
+                cost = 1;
+            }
+
+            if (tokens + cost > maxTokens) {
+                return pack(tokens, lineStart > 0 ? lineStart : start);
+            }
+            tokens += cost;
+            if (c == '\n' || c == '\r') {
+                lineStart = i;
+            }
+        }
+        return pack(tokens, length);
+    }
+
+    private static int segmentCost(int letters) {
+        return (letters + 5) / 6;
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == '$';
+    }
+
+    private static boolean isSymbol(char c) {
+        return c < 128 && c > ' ' && !isWordChar(c) && !(c >= '0' && c <= '9');
+    }
+
+    private static long pack(int tokens, int endIndex) {
+        return ((long) tokens << 32) | (endIndex & 0xFFFFFFFFL);
+    }
+
+    private static int tokens(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    private static int endIndex(long packed) {
+        return (int) packed;
+    }
+}
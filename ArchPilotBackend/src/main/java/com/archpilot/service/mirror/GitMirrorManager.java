@@ -0,0 +1,485 @@
+package com.archpilot.service.mirror;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.archpilot.model.BranchInfo;
+import com.archpilot.model.CompactRepositoryTree;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Local bare mirrors of repositories that are analyzed repeatedly
+ *
+ * Main Context:
+ * - A repository is mirrored (git clone --mirror) once it has been requested min-requests times;
+ *   afterwards its trees, branches and blobs are read from local disk instead of the REST APIs
+ * - Mirrors are refreshed with git fetch at most once per fetch interval, so only new objects
+ *   are transferred and REST rate limits are not consumed
+ * - Blobs are read through one long-running "git cat-file --batch" per mirror, which reads
+ *   straight from the pack files without a process per file
+ * - Clone and fetch hold a lock of their own, so blob reads carry on from the existing packs while
+ *   a mirror is updated; the reader is restarted once the fetch is done
+ * - Only public repositories are mirrored: clone and fetch run without credentials (credential
+ *   helpers of the host are disabled as well), so a mirror never holds anything a caller without a
+ *   token could not read. Serving a mirror therefore needs no check of the caller's access
+ * - A repository that cannot be cloned anonymously (private or missing) is not retried for the
+ *   unavailable-retry interval; a mirror whose fetch fails is deleted, since the repository may have
+ *   turned private. Mirrors found on disk after a restart are only served again after a fetch
+ * - Existing local repositories can be attached as read-only blob sources; they are never fetched
+ * - All methods block; callers run them on the blocking I/O scheduler
+ *
+ * Configuration:
+ * - archpilot.git-mirror.enabled: turn local mirrors on or off (default false)
+ * - archpilot.git-mirror.directory: where mirrors are kept (default gitMirrors)
+ * - archpilot.git-mirror.min-requests: requests of a repository before it is mirrored (default 2)
+ * - archpilot.git-mirror.fetch-interval-seconds: minimum time between fetches of a mirror (default 60)
+ * - archpilot.git-mirror.command-timeout-seconds: limit for clone and fetch (default 600)
+ * - archpilot.git-mirror.unavailable-retry-minutes: wait before retrying a repository that could
+ *   not be mirrored (default 60)
+ * - archpilot.git-mirror.git-executable: git binary (default git)
+ */
+@Component
+public class GitMirrorManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(GitMirrorManager.class);
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int minRequests;
+    private final long fetchIntervalMillis;
+    private final long commandTimeoutSeconds;
+    private final long unavailableRetryMillis;
+    private final String gitExecutable;
+
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+    private final Map<String, Mirror> mirrors = new ConcurrentHashMap<>();
+
+    private final AtomicLong clones = new AtomicLong();
+    private final AtomicLong fetches = new AtomicLong();
+    private final AtomicLong blobReads = new AtomicLong();
+
+    @Autowired
+    public GitMirrorManager(@Value("${archpilot.git-mirror.enabled:false}") boolean enabled,
+                            @Value("${archpilot.git-mirror.directory:gitMirrors}") String directory,
+                            @Value("${archpilot.git-mirror.min-requests:2}") int minRequests,
+                            @Value("${archpilot.git-mirror.fetch-interval-seconds:60}") long fetchIntervalSeconds,
+                            @Value("${archpilot.git-mirror.command-timeout-seconds:600}") long commandTimeoutSeconds,
+                            @Value("${archpilot.git-mirror.unavailable-retry-minutes:60}") long unavailableRetryMinutes,
+                            @Value("${archpilot.git-mirror.git-executable:git}") String gitExecutable) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.minRequests = Math.max(1, minRequests);
+        this.fetchIntervalMillis = TimeUnit.SECONDS.toMillis(Math.max(0, fetchIntervalSeconds));
+        this.commandTimeoutSeconds = Math.max(1, commandTimeoutSeconds);
+        this.unavailableRetryMillis = TimeUnit.MINUTES.toMillis(Math.max(0, unavailableRetryMinutes));
+        this.gitExecutable = gitExecutable;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        mirrors.values().forEach(Mirror::closeBlobReader);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Count a request for a repository and decide whether it is served from a local mirror
+     *
+     * @return true when the repository is already mirrored or has now been requested often enough,
+     *         and it has not recently failed to mirror
+     */
+    public boolean useMirror(String repositoryUrl) {
+        if (!enabled || repositoryUrl == null) {
+            return false;
+        }
+        Mirror known = mirrors.get(repositoryUrl);
+        if (known != null && known.unavailableUntilMillis > System.currentTimeMillis()) {
+            return false;
+        }
+        if (Files.isDirectory(mirrorPath(repositoryUrl))) {
+            return true;
+        }
+        return requestCounts.computeIfAbsent(repositoryUrl, k -> new AtomicInteger()).incrementAndGet() >= minRequests;
+    }
+
+    /**
+     * Create the mirror of a public repository, or fetch new objects into it when the last fetch is
+     * older than the fetch interval
+     *
+     * Clone and fetch run without credentials. When they fail the repository is marked unavailable
+     * for the retry interval and a mirror left from an earlier clone is deleted.
+     *
+     * @return Path of the bare mirror
+     */
+    public Path sync(String repositoryUrl) throws IOException {
+        Mirror mirror = mirrors.computeIfAbsent(repositoryUrl, url -> new Mirror(mirrorPath(url), false));
+        mirror.syncLock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            if (mirror.unavailableUntilMillis > now) {
+                throw new IOException("Repository could not be mirrored recently");
+            }
+            try {
+                if (!Files.isDirectory(mirror.path)) {
+                    Files.createDirectories(mirror.path.getParent());
+                    logger.info("Creating local mirror of {} in {}", repositoryUrl, mirror.path);
+                    git(null, "clone", "--mirror", "--quiet", repositoryUrl, mirror.path.toString());
+                    clones.incrementAndGet();
+                    mirror.lastFetchMillis = now;
+                } else if (now - mirror.lastFetchMillis >= fetchIntervalMillis) {
+                    logger.debug("Fetching updates into mirror of {}", repositoryUrl);
+                    git(mirror.path, "fetch", "--prune", "--quiet", "origin");
+                    fetches.incrementAndGet();
+                    mirror.lastFetchMillis = now;
+                    // New packs: restart the blob reader so it sees them
+                    mirror.closeBlobReader();
+                }
+            } catch (IOException e) {
+                logger.info("Repository {} cannot be mirrored without credentials: {}", repositoryUrl, e.getMessage());
+                mirror.unavailableUntilMillis = now + unavailableRetryMillis;
+                mirror.lastFetchMillis = 0;
+                mirror.closeBlobReader();
+                deleteRecursively(mirror.path);
+                throw e;
+            }
+            return mirror.path;
+        } finally {
+            mirror.syncLock.unlock();
+        }
+    }
+
+    /**
+     * Resolve a branch, tag or commit of a mirror to its commit SHA
+     *
+     * @param ref Reference to resolve, or null for the default branch
+     */
+    public String resolveCommit(Path mirror, String ref) throws IOException {
+        if (ref != null && ref.startsWith("-")) {
+            // Would be parsed as an option of rev-parse
+            throw new IOException("Invalid reference: " + ref);
+        }
+        String revision = (ref != null && !ref.isEmpty() ? ref : "HEAD") + "^{commit}";
+        return text(git(mirror, "rev-parse", "--verify", "--quiet", revision)).trim();
+    }
+
+    /**
+     * @return Short name of the branch HEAD points to
+     */
+    public String defaultBranch(Path mirror) throws IOException {
+        return text(git(mirror, "symbolic-ref", "--short", "HEAD")).trim();
+    }
+
+    /**
+     * Read the tree of a commit with git ls-tree, keeping the entries whose path passes the filter
+     *
+     * @param pathFilter Accepts the paths to keep, or null to keep every entry
+     */
+    public CompactRepositoryTree readTree(Path mirror, String commitSha, boolean recursive,
+                                          Predicate<String> pathFilter) throws IOException {
+        List<String> args = new ArrayList<>(List.of("ls-tree", "-z", "-l"));
+        if (recursive) {
+            args.add("-r");
+            args.add("-t");
+        }
+        args.add(commitSha);
+
+        // Records are "<mode> <type> <sha> <size>\t<path>\0", size padded and "-" for trees
+        CompactRepositoryTree.Builder tree = CompactRepositoryTree.builder();
+        for (String record : text(git(mirror, args.toArray(new String[0]))).split("\0")) {
+            int tab = record.indexOf('\t');
+            if (tab < 0) {
+                continue;
+            }
+            String path = record.substring(tab + 1);
+            if (pathFilter != null && !pathFilter.test(path)) {
+                continue;
+            }
+            String[] fields = record.substring(0, tab).trim().split(" +");
+            String type = "tree".equals(fields[1]) ? "dir" : "blob".equals(fields[1]) ? "file" : fields[1];
+            Long size = fields.length > 3 && !"-".equals(fields[3]) ? Long.valueOf(fields[3]) : null;
+            tree.add(path, type, fields[2], size, null, null);
+        }
+        return tree.build();
+    }
+
+    /**
+     * @param limit Maximum number of branches, or null for all
+     */
+    public List<BranchInfo> listBranches(Path mirror, Integer limit) throws IOException {
+        String defaultBranch = defaultBranch(mirror);
+        List<String> args = new ArrayList<>(List.of("for-each-ref", "--format=%(refname:short)%09%(objectname)"));
+        if (limit != null && limit > 0) {
+            args.add("--count=" + limit);
+        }
+        args.add("refs/heads/");
+
+        List<BranchInfo> branches = new ArrayList<>();
+        for (String line : text(git(mirror, args.toArray(new String[0]))).split("\n")) {
+            int tab = line.indexOf('\t');
+            if (tab > 0) {
+                String name = line.substring(0, tab);
+                branches.add(new BranchInfo(name, line.substring(tab + 1).trim(), name.equals(defaultBranch)));
+            }
+        }
+        return branches;
+    }
+
+    /**
+     * Serve blobs of a repository URL from an existing local repository, e.g. a working copy
+     *
+     * @param gitDir Git directory of the repository (".git" of a working copy, or a bare repository)
+     */
+    public void attach(String repositoryUrl, Path gitDir) {
+        mirrors.putIfAbsent(repositoryUrl, new Mirror(gitDir, true));
+    }
+
+    /**
+     * Read a blob from an existing mirror or attached repository; never creates or fetches a mirror
+     *
+     * Mirrors are only read after a successful anonymous clone or fetch in this process.
+     *
+     * @return Blob content as UTF-8 text, empty when the repository is not mirrored or lacks the blob
+     */
+    public Optional<String> readBlob(String repositoryUrl, String blobSha) {
+        if (repositoryUrl == null || blobSha == null || blobSha.isEmpty()) {
+            return Optional.empty();
+        }
+        Mirror mirror = mirrors.get(repositoryUrl);
+        if (mirror == null && enabled) {
+            mirror = mirrors.computeIfAbsent(repositoryUrl, url -> new Mirror(mirrorPath(url), false));
+        }
+        if (mirror == null || !mirror.isReadable()) {
+            return Optional.empty();
+        }
+        try {
+            byte[] content = mirror.readBlob(blobSha);
+            if (content != null) {
+                blobReads.incrementAndGet();
+                return Optional.of(new String(content, StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            logger.warn("Error reading blob {} from mirror of {}: {}", blobSha, repositoryUrl, e.getMessage());
+            mirror.closeBlobReader();
+        }
+        return Optional.empty();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("mirrors", mirrors.values().stream().filter(mirror -> Files.isDirectory(mirror.path)).count());
+        stats.put("clones", clones.get());
+        stats.put("fetches", fetches.get());
+        stats.put("blobReads", blobReads.get());
+        return stats;
+    }
+
+    Path mirrorPath(String repositoryUrl) {
+        URI uri = URI.create(repositoryUrl.trim());
+        String host = uri.getHost() != null ? uri.getHost() : "local";
+        String path = uri.getPath() != null ? uri.getPath().replaceAll("\\.git/?$", "") : "";
+        String name = (host + path).replaceAll("[^A-Za-z0-9._-]+", "_");
+        return directory.resolve(name + ".git");
+    }
+
+    private byte[] git(Path mirror, String... args) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(gitExecutable);
+        if (mirror != null) {
+            command.add("--git-dir=" + mirror);
+        }
+        command.addAll(List.of(args));
+
+        ProcessBuilder builder = new ProcessBuilder(command);
+        configureEnvironment(builder);
+        Process process = builder.start();
+        process.getOutputStream().close();
+
+        // Drain both pipes on the side: a chatty command can never fill a pipe and stall, and the
+        // timeout below applies even when git hangs without closing its output
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        Thread outputReader = drain(process.getInputStream(), output);
+        Thread errorReader = drain(process.getErrorStream(), errors);
+
+        try {
+            if (!process.waitFor(commandTimeoutSeconds, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                throw new IOException("git " + args[0] + " timed out after " + commandTimeoutSeconds + " s");
+            }
+            // A helper process that outlives git could keep the pipe open; bound that wait as well
+            outputReader.join(TimeUnit.SECONDS.toMillis(commandTimeoutSeconds));
+            errorReader.join(TimeUnit.SECONDS.toMillis(5));
+            if (outputReader.isAlive()) {
+                throw new IOException("git " + args[0] + " exited but its output did not end");
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running git " + args[0], e);
+        }
+        if (process.exitValue() != 0) {
+            throw new IOException("git " + args[0] + " failed (" + process.exitValue() + "): "
+                                  + errors.toString(StandardCharsets.UTF_8).trim());
+        }
+        return output.toByteArray();
+    }
+
+    private static Thread drain(InputStream in, ByteArrayOutputStream sink) {
+        return Thread.ofVirtual().start(() -> {
+            try (in) {
+                in.transferTo(sink);
+            } catch (IOException ignored) {
+                // The process is gone; its exit code reports the failure
+            }
+        });
+    }
+
+    private static void configureEnvironment(ProcessBuilder builder) {
+        Map<String, String> environment = builder.environment();
+        environment.put("GIT_TERMINAL_PROMPT", "0");
+        // Mirrors hold public repositories only: never send credentials, not even from a helper of the host
+        environment.put("GIT_CONFIG_COUNT", "1");
+        environment.put("GIT_CONFIG_KEY_0", "credential.helper");
+        environment.put("GIT_CONFIG_VALUE_0", "");
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (Path entry : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(entry);
+            }
+        }
+    }
+
+    private static String text(byte[] output) {
+        return new String(output, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * One mirror on disk and its blob reader process
+     */
+    private final class Mirror {
+        private final Path path;
+        private final boolean attached;
+        private volatile long lastFetchMillis;
+        private volatile long unavailableUntilMillis;
+        // Held through clone and fetch
+        private final ReentrantLock syncLock = new ReentrantLock();
+        // Guards the blob reader; a lock rather than the monitor, so readers blocked on it do not pin
+        // a virtual thread's carrier
+        private final ReentrantLock readerLock = new ReentrantLock();
+        private Process blobReader;
+        private InputStream blobOutput;
+        private OutputStream blobInput;
+
+        Mirror(Path path, boolean attached) {
+            this.path = path;
+            this.attached = attached;
+            // Mirrors found on disk after a restart are fetched on first use
+            this.lastFetchMillis = 0;
+        }
+
+        /**
+         * Attached repositories always; mirrors once a fetch in this process confirmed public access
+         */
+        boolean isReadable() {
+            return (attached || lastFetchMillis > 0) && Files.isDirectory(path);
+        }
+
+        /**
+         * @return Blob content, or null when the object is missing or not a blob
+         */
+        byte[] readBlob(String blobSha) throws IOException {
+            readerLock.lock();
+            try {
+                return readBlobLocked(blobSha);
+            } finally {
+                readerLock.unlock();
+            }
+        }
+
+        private byte[] readBlobLocked(String blobSha) throws IOException {
+            if (blobReader == null || !blobReader.isAlive()) {
+                ProcessBuilder builder = new ProcessBuilder(gitExecutable, "--git-dir=" + path, "cat-file", "--batch");
+                configureEnvironment(builder);
+                builder.redirectError(ProcessBuilder.Redirect.DISCARD);
+                blobReader = builder.start();
+                blobOutput = new BufferedInputStream(blobReader.getInputStream());
+                blobInput = blobReader.getOutputStream();
+            }
+
+            blobInput.write((blobSha + "\n").getBytes(StandardCharsets.US_ASCII));
+            blobInput.flush();
+
+            // Header is "<sha> <type> <size>" or "<sha> missing"
+            String[] header = readLine(blobOutput).split(" ");
+            if (header.length < 3) {
+                return null;
+            }
+            int size = Integer.parseInt(header[2]);
+            byte[] content = blobOutput.readNBytes(size);
+            if (content.length != size || blobOutput.read() != '\n') {
+                throw new IOException("Truncated cat-file output for " + blobSha);
+            }
+            return "blob".equals(header[1]) ? content : null;
+        }
+
+        void closeBlobReader() {
+            readerLock.lock();
+            try {
+                if (blobReader != null) {
+                    blobReader.destroy();
+                    blobReader = null;
+                }
+            } finally {
+                readerLock.unlock();
+            }
+        }
+
+        private String readLine(InputStream in) throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+            int b;
+            while ((b = in.read()) != '\n') {
+                if (b < 0) {
+                    throw new IOException("git cat-file exited");
+                }
+                line.write(b);
+            }
+            return line.toString(StandardCharsets.US_ASCII);
+        }
+    }
+}
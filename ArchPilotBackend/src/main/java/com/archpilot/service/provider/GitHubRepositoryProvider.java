@@ -0,0 +1,626 @@
+package com.archpilot.service.provider;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.archpilot.dto.CommitComparisonResponse;
+import com.archpilot.dto.RepositoryTreeResponse;
+import com.archpilot.dto.RepositoryVerificationResponse;
+import com.archpilot.model.BranchInfo;
+import com.archpilot.model.RepositoryInfo;
+import com.archpilot.service.cache.RepositoryTreeCache;
+import com.archpilot.service.fetch.GitTreeStreamParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * GitHub repositories through the GitHub REST API
+ *
+ * Main Context:
+ * - Trees are fetched by commit SHA and served from the {@link RepositoryTreeCache}; branch heads
+ *   are revalidated with ETags
+ * - Branches are streamed page by page through {@link PaginatedApiClient}, 100 per request
+ * - Without a branch, the default branch from the repository metadata is used; candidate branches
+ *   are probed in parallel only when the metadata is not accessible
+ *
+ * Configuration:
+ * - archpilot.provider.github.api-url: REST API base URL (default https://api.github.com)
+ * - archpilot.tree.branch-probe-concurrency: candidate branches probed at once (default 3)
+ */
+@Component
+@Order(1)
+public class GitHubRepositoryProvider implements RepositoryProvider {
+    
+    private static final Logger logger = LoggerFactory.getLogger(GitHubRepositoryProvider.class);
+    private static final Pattern GITHUB_PATTERN = Pattern.compile("^https://github\\.com/([\\w.-]+)/([\\w.-]+)/?$");
+    
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final RepositoryTreeCache treeCache;
+    private final PaginatedApiClient pageClient;
+    private final int branchProbeConcurrency;
+    private final String apiBaseUrl;
+    
+    @Autowired
+    public GitHubRepositoryProvider(WebClient.Builder webClientBuilder, ObjectMapper objectMapper,
+                                    RepositoryTreeCache treeCache, PaginatedApiClient pageClient,
+                                    @Value("${archpilot.tree.branch-probe-concurrency:3}") int branchProbeConcurrency,
+                                    @Value("${archpilot.provider.github.api-url:https://api.github.com}") String apiBaseUrl) {
+        this.webClient = webClientBuilder.clone()
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(1024 * 1024)) // 1MB
+                .build();
+        this.objectMapper = objectMapper;
+        this.treeCache = treeCache;
+        this.pageClient = pageClient;
+        this.branchProbeConcurrency = Math.max(1, branchProbeConcurrency);
+        this.apiBaseUrl = apiBaseUrl.replaceAll("/+$", "");
+    }
+    
+    @Override
+    public String getPlatform() {
+        return "GitHub";
+    }
+    
+    @Override
+    public boolean supports(String repositoryUrl) {
+        return GITHUB_PATTERN.matcher(repositoryUrl).matches();
+    }
+    
+    @Override
+    public Mono<RepositoryVerificationResponse> verify(String repositoryUrl, String accessToken) {
+        Matcher matcher = GITHUB_PATTERN.matcher(repositoryUrl);
+        if (!matcher.matches()) {
+            return Mono.just(RepositoryVerificationResponse.error("Invalid GitHub URL format"));
+        }
+        
+        String owner = matcher.group(1);
+        String repo = matcher.group(2);
+        String apiUrl = String.format("%s/repos/%s/%s", apiBaseUrl, owner, repo);
+        
+        logger.info("Making GitHub API request to: {}", apiUrl);
+        
+        if (accessToken != null && !accessToken.trim().isEmpty()) {
+            return makeGitHubRequest(apiUrl, accessToken.trim(), repositoryUrl);
+        } else {
+            return checkGitHubRepositoryExists(repositoryUrl, owner, repo);
+        }
+    }
+    
+    private Mono<RepositoryVerificationResponse> makeGitHubRequest(String apiUrl, String accessToken, String repositoryUrl) {
+        WebClient.RequestHeadersSpec<?> request = webClient.get().uri(apiUrl);
+        
+        logger.info("Adding authorization header for GitHub API request");
+        request = request.header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken);
+        
+        return request
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(Duration.ofSeconds(10))
+                .doOnNext(responseBody -> logger.debug("GitHub API response received, length: {}", responseBody.length()))
+                .map(responseBody -> {
+                    try {
+                        JsonNode jsonNode = objectMapper.readTree(responseBody);
+                        
+                        RepositoryInfo info = new RepositoryInfo(
+                                jsonNode.path("name").asText(),
+                                jsonNode.path("full_name").asText(),
+                                jsonNode.path("description").asText("No description"),
+                                jsonNode.path("default_branch").asText("main"),
+                                jsonNode.path("private").asBoolean(false),
+                                jsonNode.path("language").asText("Unknown"),
+                                "GitHub",
+                                repositoryUrl
+                        );
+                        
+                        treeCache.putDefaultBranch(jsonNode.path("full_name").asText(), 
+                                                   jsonNode.path("default_branch").asText(null));
+                        
+                        logger.info("Successfully verified GitHub repository: {}", repositoryUrl);
+                        return RepositoryVerificationResponse.verified(repositoryUrl, info);
+                        
+                    } catch (IOException e) {
+                        logger.error("Error parsing GitHub API response: {}", e.getMessage());
+                        return RepositoryVerificationResponse.error("Error parsing repository information");
+                    } catch (Exception e) {
+                        logger.error("Unexpected error parsing GitHub API response: {}", e.getMessage());
+                        return RepositoryVerificationResponse.error("Error parsing repository information");
+                    }
+                })
+                .onErrorResume(WebClientResponseException.class, ex -> {
+                    logger.warn("GitHub API error for {}: {} - {} - Response: {}", 
+                               repositoryUrl, ex.getStatusCode(), ex.getMessage(), ex.getResponseBodyAsString());
+                    
+                    if (ex.getStatusCode() == HttpStatus.NOT_FOUND) {
+                        return Mono.just(RepositoryVerificationResponse.error("Repository not found or not accessible"));
+                    } else if (ex.getStatusCode() == HttpStatus.FORBIDDEN) {
+                        return Mono.just(RepositoryVerificationResponse.error("Access forbidden. Repository may be private or rate limit exceeded"));
+                    } else if (ex.getStatusCode() == HttpStatus.UNAUTHORIZED) {
+                        String errorBody = ex.getResponseBodyAsString();
+                        if (errorBody.contains("rate limit")) {
+                            return Mono.just(RepositoryVerificationResponse.error("GitHub API rate limit exceeded. Please try again later"));
+                        } else {
+                            return Mono.just(RepositoryVerificationResponse.error("GitHub API authentication failed. Please check your access token"));
+                        }
+                    } else {
+                        return Mono.just(RepositoryVerificationResponse.error("GitHub API error: " + ex.getStatusCode() + " - " + ex.getMessage()));
+                    }
+                })
+                .onErrorResume(Exception.class, ex -> {
+                    logger.error("Network error verifying GitHub repository: {}", ex.getMessage());
+                    return Mono.just(RepositoryVerificationResponse.error("Network error: " + ex.getMessage()));
+                });
+    }
+    
+    private Mono<RepositoryVerificationResponse> checkGitHubRepositoryExists(String repositoryUrl, String owner, String repo) {
+        logger.info("Checking GitHub repository existence without API: {}", repositoryUrl);
+        
+        return webClient.get()
+                .uri(repositoryUrl)
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(Duration.ofSeconds(10))
+                .map(responseBody -> {
+                    RepositoryInfo info = new RepositoryInfo(
+                            repo,
+                            owner + "/" + repo,
+                            "Repository verified via web access (API authentication required for detailed info)",
+                            "main",
+                            false,
+                            "Unknown",
+                            "GitHub",
+                            repositoryUrl
+                    );
+                    
+                    logger.info("Successfully verified GitHub repository via web access: {}", repositoryUrl);
+                    return RepositoryVerificationResponse.verified(repositoryUrl, info);
+                })
+                .onErrorResume(WebClientResponseException.class, ex -> {
+                    logger.warn("GitHub web access error for {}: {} - {}", repositoryUrl, ex.getStatusCode(), ex.getMessage());
+                    
+                    if (ex.getStatusCode() == HttpStatus.NOT_FOUND) {
+                        return Mono.just(RepositoryVerificationResponse.error("Repository not found"));
+                    } else if (ex.getStatusCode() == HttpStatus.FORBIDDEN) {
+                        return Mono.just(RepositoryVerificationResponse.error("Repository is private or access is restricted"));
+                    } else {
+                        return Mono.just(RepositoryVerificationResponse.error("Unable to verify repository: " + ex.getStatusCode()));
+                    }
+                })
+                .onErrorResume(Exception.class, ex -> {
+                    logger.error("Network error checking GitHub repository: {}", ex.getMessage());
+                    return Mono.just(RepositoryVerificationResponse.error("Network error: " + ex.getMessage()));
+                });
+    }
+    
+    @Override
+    public Flux<BranchInfo> branches(String repositoryUrl, String accessToken) {
+        Matcher matcher = GITHUB_PATTERN.matcher(repositoryUrl);
+        if (!matcher.matches()) {
+            return Flux.error(new IllegalArgumentException("Invalid GitHub URL format"));
+        }
+        
+        String owner = matcher.group(1);
+        String repo = matcher.group(2);
+        String defaultBranch = treeCache.getDefaultBranch(owner + "/" + repo).orElse(null);
+        // 100 is the largest page GitHub serves, so large repositories need the fewest requests
+        String firstPageUrl = String.format("%s/repos/%s/%s/branches?per_page=100", apiBaseUrl, owner, repo);
+        
+        logger.info("Fetching GitHub branches from: {}", firstPageUrl);
+        
+        return pageClient.pages(firstPageUrl, headers -> authenticate(headers, accessToken), Duration.ofSeconds(15))
+                .concatMapIterable(page -> {
+                    List<BranchInfo> branches = new ArrayList<>();
+                    for (JsonNode branchNode : page) {
+                        String branchName = branchNode.path("name").asText();
+                        branches.add(new BranchInfo(
+                                branchName, branchNode.path("commit").path("sha").asText(),
+                                branchName.equals(defaultBranch), branchNode.path("protected").asBoolean(false),
+                                null, null, null));
+                    }
+                    return branches;
+                });
+    }
+    
+    @Override
+    public String describeError(Throwable error) {
+        if (error instanceof WebClientResponseException ex) {
+            if (ex.getStatusCode() == HttpStatus.NOT_FOUND) {
+                return "Repository not found or not accessible";
+            } else if (ex.getStatusCode() == HttpStatus.FORBIDDEN) {
+                return "Access forbidden. Repository may be private or rate limit exceeded. Try providing an access token";
+            } else if (ex.getStatusCode() == HttpStatus.UNAUTHORIZED) {
+                return "GitHub API requires authentication for branch access. Please provide an access token";
+            }
+            return "GitHub API error: " + ex.getStatusCode();
+        }
+        return RepositoryProvider.super.describeError(error);
+    }
+    
+    @Override
+    public Mono<RepositoryTreeResponse> tree(String repositoryUrl, String accessToken, String branch,
+                                             boolean recursive, Predicate<String> pathFilter) {
+        return fetchGitHubTree(repositoryUrl, accessToken, branch, recursive, pathFilter);
+    }
+    
+    private Mono<RepositoryTreeResponse> fetchGitHubTree(String repositoryUrl, String accessToken, 
+                                                        String branch, Boolean recursive, 
+                                                        Predicate<String> pathFilter) {
+        Matcher matcher = GITHUB_PATTERN.matcher(repositoryUrl);
+        if (!matcher.matches()) {
+            return Mono.just(RepositoryTreeResponse.error("Invalid GitHub URL format"));
+        }
+        
+        String owner = matcher.group(1);
+        String repo = matcher.group(2);
+        
+        return fetchGitHubTreeWithBranch(repositoryUrl, accessToken, owner, repo, branch, recursive, pathFilter);
+    }
+    
+    private Mono<RepositoryTreeResponse> fetchGitHubTreeWithBranch(String repositoryUrl, String accessToken, 
+                                                                  String owner, String repo, String branch, 
+                                                                  Boolean recursive, Predicate<String> pathFilter) {
+        logger.debug("Processing GitHub tree request for repository URL: {}", repositoryUrl);
+        
+        // If no access token, try different approaches
+        if (accessToken == null || accessToken.trim().isEmpty()) {
+            return tryUnauthenticatedTreeAccess(repositoryUrl, owner, repo, branch, recursive, pathFilter);
+        }
+        
+        // With access token, resolve the branch head commit and use the direct Git Trees API
+        String ref = branch != null ? branch : "HEAD";
+        
+        return resolveGitHubCommitSha(owner, repo, ref, accessToken)
+                .defaultIfEmpty(ref)
+                .flatMap(commitSha -> fetchGitTree(owner, repo, commitSha, recursive, accessToken, 
+                                                   repositoryUrl, branch, pathFilter, Duration.ofSeconds(15)))
+                .onErrorResume(WebClientResponseException.class, ex -> {
+                    logger.warn("GitHub tree API error for {}: {} - {}", repositoryUrl, ex.getStatusCode(), ex.getMessage());
+                    return handleGitHubTreeError(ex);
+                })
+                .onErrorResume(Exception.class, ex -> {
+                    logger.error("Network error fetching GitHub tree: {}", ex.getMessage());
+                    return Mono.just(RepositoryTreeResponse.error("Network error: " + ex.getMessage()));
+                });
+    }
+    
+    private Mono<RepositoryTreeResponse> tryUnauthenticatedTreeAccess(String repositoryUrl, String owner, String repo, String branch, 
+                                                                     Boolean recursive, Predicate<String> pathFilter) {
+        logger.info("Trying unauthenticated access for repository: {}", repositoryUrl);
+        
+        // Without a branch, use the default branch from the repository metadata instead of guessing;
+        // then resolve the commit SHA of the branch and fetch the tree of that commit
+        Mono<String> ref = branch != null ? Mono.just(branch) : resolveGitHubDefaultBranch(owner, repo, null);
+        
+        return ref
+                .flatMap(resolvedBranch -> resolveGitHubCommitSha(owner, repo, resolvedBranch, null)
+                        .flatMap(commitSha -> fetchGitTree(owner, repo, commitSha, recursive, null, 
+                                                           repositoryUrl, resolvedBranch, pathFilter, Duration.ofSeconds(15))))
+                .switchIfEmpty(Mono.defer(() -> {
+                    logger.warn("Could not resolve branch '{}' of {}, trying alternative approaches", branch, repositoryUrl);
+                    return tryAlternativeBranches(repositoryUrl, owner, repo, recursive, pathFilter);
+                }))
+                .onErrorResume(ex -> {
+                    logger.warn("Branch API failed, trying alternative approaches: {}", ex.getMessage());
+                    return tryAlternativeBranches(repositoryUrl, owner, repo, recursive, pathFilter);
+                });
+    }
+    
+    private Mono<RepositoryTreeResponse> tryAlternativeBranches(String repositoryUrl, String owner, String repo, Boolean recursive, 
+                                                               Predicate<String> pathFilter) {
+        // Try common branch names
+        String[] branchesToTry = {"master", "main", "HEAD"};
+        
+        return probeBranches(repositoryUrl, owner, repo, branchesToTry)
+                .flatMap(head -> fetchGitTree(owner, repo, head.getValue(), recursive, null, 
+                                              repositoryUrl, head.getKey(), pathFilter, Duration.ofSeconds(15)))
+                .switchIfEmpty(Mono.fromSupplier(() -> RepositoryTreeResponse.error(
+                    "GitHub API requires authentication for this repository. Please provide an access token. " +
+                    "You can get one from GitHub Settings > Developer settings > Personal access tokens"
+                )));
+    }
+    
+    /**
+     * Find the first candidate branch that exists
+     * 
+     * Candidates are probed with the lightweight commit SHA lookup, up to branchProbeConcurrency at
+     * a time, so a repository whose branch is the last candidate no longer waits for each earlier
+     * candidate to time out. Results are still taken in candidate order: "master" wins over "main"
+     * when both exist, exactly as with one-at-a-time probing (concurrency 1).
+     * 
+     * @return Mono with the (branch, commit SHA) of the first existing candidate, empty when none exists
+     */
+    private Mono<Map.Entry<String, String>> probeBranches(String repositoryUrl, String owner, String repo, String[] branches) {
+        logger.info("Probing branches {} for repository: {}", String.join(", ", branches), repositoryUrl);
+        
+        return Flux.fromArray(branches)
+                .flatMapSequential(branch -> resolveGitHubCommitSha(owner, repo, branch, null)
+                                           .map(commitSha -> Map.entry(branch, commitSha)), 
+                                   branchProbeConcurrency)
+                .next();
+    }
+    
+    /**
+     * Resolve the default branch of a repository from its metadata, cached per repository
+     *
+     * @return Mono with the default branch name, empty when the metadata is not accessible
+     */
+    private Mono<String> resolveGitHubDefaultBranch(String owner, String repo, String accessToken) {
+        String repositoryKey = owner + "/" + repo;
+        return treeCache.getDefaultBranch(repositoryKey)
+                .map(Mono::just)
+                .orElseGet(() -> {
+                    WebClient.RequestHeadersSpec<?> request = webClient.get()
+                            .uri(String.format("%s/repos/%s/%s", apiBaseUrl, owner, repo));
+                    if (accessToken != null && !accessToken.trim().isEmpty()) {
+                        request = request.header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken.trim());
+                    }
+                    
+                    return request
+                            .retrieve()
+                            .bodyToMono(String.class)
+                            .timeout(Duration.ofSeconds(10))
+                            .flatMap(responseBody -> {
+                                try {
+                                    String defaultBranch = objectMapper.readTree(responseBody).path("default_branch").asText(null);
+                                    treeCache.putDefaultBranch(repositoryKey, defaultBranch);
+                                    return Mono.justOrEmpty(defaultBranch);
+                                } catch (IOException e) {
+                                    logger.warn("Error parsing repository metadata of {}: {}", repositoryKey, e.getMessage());
+                                    return Mono.empty();
+                                }
+                            })
+                            .onErrorResume(ex -> {
+                                logger.warn("Could not resolve default branch of {}: {}", repositoryKey, ex.getMessage());
+                                return Mono.empty();
+                            });
+                });
+    }
+    
+    /**
+     * Fetch the tree of a commit (or of a branch name as a last resort), served from the tree cache when possible
+     * 
+     * Trees of a commit SHA never change, so cache hits do not contact GitHub.
+     */
+    private Mono<RepositoryTreeResponse> fetchGitTree(String owner, String repo, String commitSha, Boolean recursive, 
+                                                      String accessToken, String repositoryUrl, String branch, 
+                                                      Predicate<String> pathFilter, Duration timeout) {
+        String repositoryKey = owner + "/" + repo;
+        boolean recursiveTree = recursive != null && recursive;
+        
+        return treeCache.getTree(repositoryKey, commitSha, recursiveTree, pathFilter)
+                .map(tree -> {
+                    logger.info("Serving {} tree items of {}@{} from the tree cache", tree.size(), repositoryKey, commitSha);
+                    return Mono.just(RepositoryTreeResponse.success(repositoryUrl, branch, tree, "GitHub", commitSha));
+                })
+                .orElseGet(() -> {
+                    String apiUrl = String.format("%s/repos/%s/%s/git/trees/%s?recursive=%d", apiBaseUrl, 
+                                                 owner, repo, commitSha, recursiveTree ? 1 : 0);
+                    
+                    logger.info("Fetching GitHub tree from: {}", apiUrl);
+                    
+                    WebClient.RequestHeadersSpec<?> request = webClient.get().uri(apiUrl);
+                    if (accessToken != null && !accessToken.trim().isEmpty()) {
+                        request = request.header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken.trim());
+                    }
+                    
+                    return streamGitTree(request, repositoryUrl, branch, commitSha, pathFilter, timeout)
+                            .doOnNext(response -> {
+                                if ("Success".equals(response.getStatus())) {
+                                    treeCache.putTree(repositoryKey, commitSha, recursiveTree, pathFilter, 
+                                                      response.getCompactTree());
+                                }
+                            });
+                });
+    }
+    
+    /**
+     * Stream a Git Trees API response through {@link GitTreeStreamParser}
+     * 
+     * The body is never buffered, so the WebClient in-memory limit does not apply to trees.
+     */
+    private Mono<RepositoryTreeResponse> streamGitTree(WebClient.RequestHeadersSpec<?> request, String repositoryUrl, 
+                                                       String branch, String commitSha, Predicate<String> pathFilter, 
+                                                       Duration timeout) {
+        return Mono.defer(() -> {
+            GitTreeStreamParser treeParser;
+            try {
+                treeParser = new GitTreeStreamParser(objectMapper.getFactory(), pathFilter);
+            } catch (IOException e) {
+                return Mono.error(e);
+            }
+            
+            return request
+                    .retrieve()
+                    .bodyToFlux(DataBuffer.class)
+                    .<Void>handle((buffer, sink) -> {
+                        try {
+                            byte[] chunk = new byte[buffer.readableByteCount()];
+                            buffer.read(chunk);
+                            treeParser.feed(chunk);
+                        } catch (IOException e) {
+                            sink.error(e);
+                        } finally {
+                            DataBufferUtils.release(buffer);
+                        }
+                    })
+                    .then(Mono.fromCallable(treeParser::finish))
+                    .timeout(timeout)
+                    .map(treeItems -> {
+                        if (treeParser.isTruncated()) {
+                            logger.warn("Git Trees API truncated the tree of {}; some files are missing", repositoryUrl);
+                        }
+                        logger.info("Successfully parsed {} tree items ({} filtered out) using Git Trees API for repository: {}", 
+                                   treeItems.size(), treeParser.getSkippedEntries(), repositoryUrl);
+                        return RepositoryTreeResponse.success(repositoryUrl, branch, treeItems, "GitHub", commitSha);
+                    })
+                    .onErrorResume(JsonProcessingException.class, e -> {
+                        logger.error("Error parsing Git Trees API response: {}", e.getMessage());
+                        return Mono.just(RepositoryTreeResponse.error("Error parsing tree structure from Git Trees API"));
+                    });
+        });
+    }
+    
+    /**
+     * Resolve a branch, tag or commit reference to its commit SHA
+     *
+     * The last resolution of each reference is revalidated with If-None-Match; GitHub answers
+     * 304 Not Modified when the head has not moved, which does not count against the rate limit.
+     *
+     * @return Mono with the commit SHA, empty when it could not be resolved
+     */
+    private Mono<String> resolveGitHubCommitSha(String owner, String repo, String ref, String accessToken) {
+        String apiUrl = String.format("%s/repos/%s/%s/commits/%s", apiBaseUrl, owner, repo, ref);
+        String headKey = owner + "/" + repo + "@" + ref;
+        RepositoryTreeCache.BranchHead cachedHead = treeCache.getHead(headKey).orElse(null);
+        
+        WebClient.RequestHeadersSpec<?> request = webClient.get().uri(apiUrl)
+                .header(HttpHeaders.ACCEPT, "application/vnd.github.sha");
+        if (accessToken != null && !accessToken.trim().isEmpty()) {
+            request = request.header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken.trim());
+        }
+        if (cachedHead != null) {
+            request = request.header(HttpHeaders.IF_NONE_MATCH, cachedHead.etag());
+        }
+        
+        return request
+                .exchangeToMono(response -> {
+                    if (response.statusCode().value() == HttpStatus.NOT_MODIFIED.value() && cachedHead != null) {
+                        logger.debug("Head of {} unchanged at {}", headKey, cachedHead.commitSha());
+                        treeCache.recordRevalidation();
+                        return response.releaseBody().thenReturn(cachedHead.commitSha());
+                    }
+                    if (!response.statusCode().is2xxSuccessful()) {
+                        return response.<String>createError();
+                    }
+                    String etag = response.headers().asHttpHeaders().getETag();
+                    return response.bodyToMono(String.class)
+                            .map(String::trim)
+                            .filter(sha -> sha.matches("[0-9a-f]{40}"))
+                            .doOnNext(sha -> treeCache.putHead(headKey, sha, etag));
+                })
+                .timeout(Duration.ofSeconds(10))
+                .onErrorResume(ex -> {
+                    logger.warn("Could not resolve commit SHA for {}/{}@{}: {}", owner, repo, ref, ex.getMessage());
+                    return Mono.empty();
+                });
+    }
+    
+    /**
+     * Compare two commits and list the changed file paths using the GitHub compare API
+     *
+     * GitHub lists at most 300 files per comparison; larger diffs are reported as incomplete.
+     */
+    @Override
+    public Mono<CommitComparisonResponse> compareCommits(String repositoryUrl, String accessToken, 
+                                                         String baseSha, String headSha) {
+        logger.info("Comparing commits {}...{} for repository: {}", baseSha, headSha, repositoryUrl);
+        
+        if (repositoryUrl == null || !supports(repositoryUrl.trim())) {
+            return Mono.just(CommitComparisonResponse.error("Unsupported repository platform. Only GitHub is supported"));
+        }
+        if (baseSha == null || baseSha.isEmpty() || headSha == null || headSha.isEmpty()) {
+            return Mono.just(CommitComparisonResponse.error("Both base and head commits are required"));
+        }
+        
+        Matcher matcher = GITHUB_PATTERN.matcher(repositoryUrl.trim());
+        if (!matcher.matches()) {
+            return Mono.just(CommitComparisonResponse.error("Invalid GitHub URL format"));
+        }
+        
+        String apiUrl = String.format("%s/repos/%s/%s/compare/%s...%s", apiBaseUrl, 
+                                     matcher.group(1), matcher.group(2), baseSha, headSha);
+        
+        WebClient.RequestHeadersSpec<?> request = webClient.get().uri(apiUrl);
+        if (accessToken != null && !accessToken.trim().isEmpty()) {
+            request = request.header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken.trim());
+        }
+        
+        return request
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(Duration.ofSeconds(15))
+                .map(responseBody -> parseCompareResponse(responseBody, repositoryUrl, baseSha, headSha))
+                .onErrorResume(WebClientResponseException.class, ex -> {
+                    logger.warn("GitHub compare API error for {}: {} - {}", repositoryUrl, ex.getStatusCode(), ex.getMessage());
+                    return Mono.just(CommitComparisonResponse.error("GitHub compare API error: " + ex.getStatusCode()));
+                })
+                .onErrorResume(Exception.class, ex -> {
+                    logger.error("Error comparing commits: {}", ex.getMessage());
+                    return Mono.just(CommitComparisonResponse.error("Error comparing commits: " + ex.getMessage()));
+                });
+    }
+    
+    private CommitComparisonResponse parseCompareResponse(String responseBody, String repositoryUrl, 
+                                                          String baseSha, String headSha) {
+        try {
+            JsonNode jsonNode = objectMapper.readTree(responseBody);
+            JsonNode filesArray = jsonNode.path("files");
+            List<String> changedPaths = new ArrayList<>();
+            List<String> removedPaths = new ArrayList<>();
+            
+            for (JsonNode fileNode : filesArray) {
+                String status = fileNode.path("status").asText();
+                String filename = fileNode.path("filename").asText();
+                
+                if ("removed".equals(status)) {
+                    removedPaths.add(filename);
+                } else {
+                    changedPaths.add(filename);
+                    if ("renamed".equals(status) && fileNode.hasNonNull("previous_filename")) {
+                        removedPaths.add(fileNode.path("previous_filename").asText());
+                    }
+                }
+            }
+            
+            // The file list is capped at 300 entries
+            boolean complete = filesArray.size() < 300;
+            logger.info("Compared {}...{}: {} changed, {} removed files (complete: {})", 
+                       baseSha, headSha, changedPaths.size(), removedPaths.size(), complete);
+            return CommitComparisonResponse.success(repositoryUrl, baseSha, headSha, changedPaths, removedPaths, complete);
+            
+        } catch (IOException e) {
+            logger.error("Error parsing GitHub compare response: {}", e.getMessage());
+            return CommitComparisonResponse.error("Error parsing commit comparison");
+        }
+    }
+    
+    private Mono<RepositoryTreeResponse> handleGitHubTreeError(WebClientResponseException ex) {
+        if (ex.getStatusCode() == HttpStatus.NOT_FOUND) {
+            return Mono.just(RepositoryTreeResponse.error("Repository not found or branch does not exist"));
+        } else if (ex.getStatusCode() == HttpStatus.FORBIDDEN) {
+            return Mono.just(RepositoryTreeResponse.error("Access forbidden. Repository may be private or rate limit exceeded. Please provide an access token"));
+        } else if (ex.getStatusCode() == HttpStatus.UNAUTHORIZED) {
+            return Mono.just(RepositoryTreeResponse.error("GitHub API requires authentication. Please provide an access token"));
+        } else {
+            return Mono.just(RepositoryTreeResponse.error("GitHub API error: " + ex.getStatusCode()));
+        }
+    }
+    
+    private static void authenticate(HttpHeaders headers, String accessToken) {
+        if (accessToken != null && !accessToken.trim().isEmpty()) {
+            headers.setBearerAuth(accessToken.trim());
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.archpilot.service.provider;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.archpilot.dto.RepositoryTreeResponse;
+import com.archpilot.dto.RepositoryVerificationResponse;
+import com.archpilot.model.BranchInfo;
+import com.archpilot.model.RepositoryInfo;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * GitLab repositories through the GitLab REST API (v4)
+ *
+ * Main Context:
+ * - Branches are streamed page by page through {@link PaginatedApiClient}, 100 per request
+ * - Trees are not available through this provider; GitLab repositories get trees from a local
+ *   git mirror when mirroring is enabled
+ *
+ * Configuration:
+ * - archpilot.provider.gitlab.api-url: REST API base URL (default https://gitlab.com/api/v4)
+ */
+@Component
+@Order(2)
+public class GitLabRepositoryProvider implements RepositoryProvider {
+    
+    private static final Logger logger = LoggerFactory.getLogger(GitLabRepositoryProvider.class);
+    private static final Pattern GITLAB_PATTERN = Pattern.compile("^https://gitlab\\.com/([\\w.-]+)/([\\w.-]+)/?$");
+    
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final PaginatedApiClient pageClient;
+    private final String apiBaseUrl;
+    
+    @Autowired
+    public GitLabRepositoryProvider(WebClient.Builder webClientBuilder, ObjectMapper objectMapper,
+                                    PaginatedApiClient pageClient,
+                                    @Value("${archpilot.provider.gitlab.api-url:https://gitlab.com/api/v4}") String apiBaseUrl) {
+        this.webClient = webClientBuilder.clone()
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(1024 * 1024)) // 1MB
+                .build();
+        this.objectMapper = objectMapper;
+        this.pageClient = pageClient;
+        this.apiBaseUrl = apiBaseUrl.replaceAll("/+$", "");
+    }
+    
+    @Override
+    public String getPlatform() {
+        return "GitLab";
+    }
+    
+    @Override
+    public boolean supports(String repositoryUrl) {
+        return GITLAB_PATTERN.matcher(repositoryUrl).matches();
+    }
+    
+    @Override
+    public Mono<RepositoryVerificationResponse> verify(String repositoryUrl, String accessToken) {
+        Matcher matcher = GITLAB_PATTERN.matcher(repositoryUrl);
+        if (!matcher.matches()) {
+            return Mono.just(RepositoryVerificationResponse.error("Invalid GitLab URL format"));
+        }
+        
+        String owner = matcher.group(1);
+        String repo = matcher.group(2);
+        String projectPath = owner + "/" + repo;
+        String encodedPath = projectPath.replace("/", "%2F");
+        String apiUrl = String.format("%s/projects/%s", apiBaseUrl, encodedPath);
+        
+        // The project path is already encoded; a URI keeps %2F from being encoded again
+        WebClient.RequestHeadersSpec<?> request = webClient.get().uri(URI.create(apiUrl))
+                .headers(headers -> authenticate(headers, accessToken));
+        
+        return request
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(Duration.ofSeconds(10))
+                .map(responseBody -> {
+                    try {
+                        JsonNode jsonNode = objectMapper.readTree(responseBody);
+                        
+                        RepositoryInfo info = new RepositoryInfo(
+                                jsonNode.path("name").asText(),
+                                jsonNode.path("path_with_namespace").asText(),
+                                jsonNode.path("description").asText("No description"),
+                                jsonNode.path("default_branch").asText("main"),
+                                jsonNode.path("visibility").asText("public").equals("private"),
+                                "Unknown",
+                                "GitLab",
+                                repositoryUrl
+                        );
+                        
+                        return RepositoryVerificationResponse.verified(repositoryUrl, info);
+                        
+                    } catch (IOException e) {
+                        logger.error("Error parsing GitLab API response: {}", e.getMessage());
+                        return RepositoryVerificationResponse.error("Error parsing repository information");
+                    } catch (Exception e) {
+                        logger.error("Unexpected error parsing GitLab API response: {}", e.getMessage());
+                        return RepositoryVerificationResponse.error("Error parsing repository information");
+                    }
+                })
+                .onErrorResume(WebClientResponseException.class, ex -> {
+                    logger.warn("GitLab API error for {}: {} - {}", repositoryUrl, ex.getStatusCode(), ex.getMessage());
+                    
+                    if (ex.getStatusCode() == HttpStatus.NOT_FOUND) {
+                        return Mono.just(RepositoryVerificationResponse.error("Repository not found or not accessible"));
+                    } else if (ex.getStatusCode() == HttpStatus.FORBIDDEN) {
+                        return Mono.just(RepositoryVerificationResponse.error("Access forbidden. Repository may be private or access token invalid"));
+                    } else if (ex.getStatusCode() == HttpStatus.UNAUTHORIZED) {
+                        return Mono.just(RepositoryVerificationResponse.error("Unauthorized. Invalid or missing access token for private repository"));
+                    } else {
+                        return Mono.just(RepositoryVerificationResponse.error("GitLab API error: " + ex.getStatusCode()));
+                    }
+                })
+                .onErrorResume(Exception.class, ex -> {
+                    logger.error("Network error verifying GitLab repository: {}", ex.getMessage());
+                    return Mono.just(RepositoryVerificationResponse.error("Network error: " + ex.getMessage()));
+                });
+    }
+    
+    @Override
+    public Flux<BranchInfo> branches(String repositoryUrl, String accessToken) {
+        Matcher matcher = GITLAB_PATTERN.matcher(repositoryUrl);
+        if (!matcher.matches()) {
+            return Flux.error(new IllegalArgumentException("Invalid GitLab URL format"));
+        }
+        
+        String encodedPath = (matcher.group(1) + "/" + matcher.group(2)).replace("/", "%2F");
+        // 100 is the largest page GitLab serves, so large repositories need the fewest requests
+        String firstPageUrl = String.format("%s/projects/%s/repository/branches?per_page=100", apiBaseUrl, encodedPath);
+        
+        logger.info("Fetching GitLab branches from: {}", firstPageUrl);
+        
+        return pageClient.pages(firstPageUrl, headers -> authenticate(headers, accessToken), Duration.ofSeconds(15))
+                .concatMapIterable(page -> {
+                    List<BranchInfo> branches = new ArrayList<>();
+                    for (JsonNode branchNode : page) {
+                        JsonNode commitNode = branchNode.path("commit");
+                        branches.add(new BranchInfo(
+                                branchNode.path("name").asText(), commitNode.path("id").asText(),
+                                branchNode.path("default").asBoolean(false), branchNode.path("protected").asBoolean(false),
+                                commitNode.path("message").asText(null), commitNode.path("author_name").asText(null), null));
+                    }
+                    return branches;
+                });
+    }
+    
+    @Override
+    public String describeError(Throwable error) {
+        if (error instanceof WebClientResponseException ex) {
+            if (ex.getStatusCode() == HttpStatus.NOT_FOUND) {
+                return "Repository not found or not accessible";
+            } else if (ex.getStatusCode() == HttpStatus.FORBIDDEN) {
+                return "Access forbidden. Repository may be private or access token invalid";
+            } else if (ex.getStatusCode() == HttpStatus.UNAUTHORIZED) {
+                return "Unauthorized. Access token required for this repository";
+            }
+            return "GitLab API error: " + ex.getStatusCode();
+        }
+        return RepositoryProvider.super.describeError(error);
+    }
+    
+    @Override
+    public Mono<RepositoryTreeResponse> tree(String repositoryUrl, String accessToken, String branch,
+                                             boolean recursive, Predicate<String> pathFilter) {
+        return Mono.just(RepositoryTreeResponse.error("Unsupported repository platform. Only GitHub is supported"));
+    }
+    
+    private static void authenticate(HttpHeaders headers, String accessToken) {
+        if (accessToken != null && !accessToken.trim().isEmpty()) {
+            headers.set("PRIVATE-TOKEN", accessToken.trim());
+        }
+    }
+}
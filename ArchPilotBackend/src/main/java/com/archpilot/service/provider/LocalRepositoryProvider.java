@@ -0,0 +1,167 @@
+package com.archpilot.service.provider;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.archpilot.dto.RepositoryTreeResponse;
+import com.archpilot.dto.RepositoryVerificationResponse;
+import com.archpilot.model.BranchInfo;
+import com.archpilot.model.RepositoryInfo;
+import com.archpilot.service.mirror.GitMirrorManager;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Git repositories on the local filesystem, addressed by file: URLs
+ *
+ * Main Context:
+ * - Serves the committed state of a working copy or bare repository through the git CLI
+ *   ({@link GitMirrorManager}); blobs of a served tree are read from the same repository
+ * - Useful for offline analysis and as a local fake of the hosted providers in tests
+ * - Only repositories below one of the configured roots are served; with no roots the provider is off.
+ *   Roots and repositories are compared by their real paths, so symbolic links cannot lead outside
+ * - Request DTOs validate URLs through {@link com.archpilot.dto.RepositoryUrl}, so file: URLs outside
+ *   the roots are rejected before they reach a controller
+ *
+ * Configuration:
+ * - archpilot.provider.local.roots: comma-separated directories whose repositories may be served (default none)
+ */
+@Component
+@Order(3)
+public class LocalRepositoryProvider implements RepositoryProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalRepositoryProvider.class);
+
+    private final GitMirrorManager gitMirrorManager;
+    private final Scheduler blockingIoScheduler;
+    private final List<Path> roots;
+
+    @Autowired
+    public LocalRepositoryProvider(GitMirrorManager gitMirrorManager,
+                                   @Qualifier("blockingIoScheduler") Scheduler blockingIoScheduler,
+                                   @Value("${archpilot.provider.local.roots:}") String roots) {
+        this.gitMirrorManager = gitMirrorManager;
+        this.blockingIoScheduler = blockingIoScheduler;
+        this.roots = Arrays.stream(roots.split(","))
+                .map(String::trim)
+                .filter(root -> !root.isEmpty())
+                .map(LocalRepositoryProvider::realRoot)
+                .filter(root -> root != null)
+                .toList();
+    }
+
+    private static Path realRoot(String root) {
+        try {
+            return Paths.get(root).toRealPath();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring local repository root {}: {}", root, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public String getPlatform() {
+        return "Local";
+    }
+
+    @Override
+    public boolean supports(String repositoryUrl) {
+        return repositoryDirectory(repositoryUrl) != null;
+    }
+
+    @Override
+    public boolean isMirrorable() {
+        return false;
+    }
+
+    @Override
+    public Mono<RepositoryVerificationResponse> verify(String repositoryUrl, String accessToken) {
+        return Mono.fromCallable(() -> {
+                    Path directory = repositoryDirectory(repositoryUrl);
+                    String defaultBranch = gitMirrorManager.defaultBranch(gitDir(directory));
+                    RepositoryInfo info = new RepositoryInfo(
+                            directory.getFileName().toString(), directory.toString(), "Local repository",
+                            defaultBranch, true, "Unknown", getPlatform(), repositoryUrl);
+                    return RepositoryVerificationResponse.verified(repositoryUrl, info);
+                })
+                .subscribeOn(blockingIoScheduler)
+                .onErrorResume(ex -> {
+                    logger.warn("Local repository {} not readable: {}", repositoryUrl, ex.getMessage());
+                    return Mono.just(RepositoryVerificationResponse.error("Not a readable git repository: " + repositoryUrl));
+                });
+    }
+
+    @Override
+    public Flux<BranchInfo> branches(String repositoryUrl, String accessToken) {
+        return Mono.fromCallable(() -> gitMirrorManager.listBranches(gitDir(repositoryDirectory(repositoryUrl)), null))
+                .subscribeOn(blockingIoScheduler)
+                .flatMapIterable(branches -> branches);
+    }
+
+    @Override
+    public Mono<RepositoryTreeResponse> tree(String repositoryUrl, String accessToken, String branch,
+                                             boolean recursive, Predicate<String> pathFilter) {
+        return Mono.fromCallable(() -> {
+                    Path gitDir = gitDir(repositoryDirectory(repositoryUrl));
+                    String resolvedBranch = branch != null ? branch : gitMirrorManager.defaultBranch(gitDir);
+                    String commitSha = gitMirrorManager.resolveCommit(gitDir, resolvedBranch);
+                    // File contents of this tree are read from the same repository
+                    gitMirrorManager.attach(repositoryUrl, gitDir);
+                    return RepositoryTreeResponse.success(repositoryUrl, resolvedBranch,
+                            gitMirrorManager.readTree(gitDir, commitSha, recursive, pathFilter), getPlatform(), commitSha);
+                })
+                .subscribeOn(blockingIoScheduler)
+                .onErrorResume(ex -> {
+                    logger.warn("Error reading tree of local repository {}: {}", repositoryUrl, ex.getMessage());
+                    return Mono.just(RepositoryTreeResponse.error("Repository not found or branch does not exist"));
+                });
+    }
+
+    @Override
+    public String describeError(Throwable error) {
+        return "Error reading local repository: " + error.getMessage();
+    }
+
+    /**
+     * @return Directory of a file: URL below one of the roots, or null
+     */
+    private Path repositoryDirectory(String repositoryUrl) {
+        if (roots.isEmpty() || repositoryUrl == null || !repositoryUrl.startsWith("file:")) {
+            return null;
+        }
+        try {
+            // Resolves symbolic links and "..", so the roots check sees where the URL really leads
+            Path directory = Paths.get(URI.create(repositoryUrl)).toRealPath();
+            return roots.stream().anyMatch(directory::startsWith) && Files.isDirectory(directory) ? directory : null;
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Git directory of a working copy, or the directory itself for a bare repository
+     */
+    private static Path gitDir(Path directory) throws IOException {
+        if (directory == null) {
+            throw new IOException("Repository is outside the configured local roots");
+        }
+        Path dotGit = directory.resolve(".git");
+        return Files.isDirectory(dotGit) ? dotGit : directory;
+    }
+}
@@ -0,0 +1,177 @@
+package com.archpilot.service.provider;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Client for paginated JSON list endpoints of the GitHub and GitLab REST APIs
+ *
+ * Main Context:
+ * - Pages are followed through the rel="next" URL of the Link header, which both platforms send,
+ *   and emitted as a Flux: a page is requested only when the subscriber still wants items, so
+ *   cancelling (e.g. take(limit)) stops the remaining page requests
+ * - Every page with an ETag is remembered; later requests for the same page send If-None-Match
+ *   and reuse the remembered page on 304 Not Modified, which GitHub does not count against the rate limit
+ * - The platform validates the caller's credentials before answering 304, so a remembered page is
+ *   only served to callers that may read it
+ *
+ * Configuration:
+ * - archpilot.provider.page-cache.max-entries: pages remembered for conditional requests (default 500)
+ */
+@Component
+public class PaginatedApiClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaginatedApiClient.class);
+    private static final Pattern NEXT_LINK = Pattern.compile("<([^>]+)>\\s*;\\s*rel=\"next\"");
+
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final int maxEntries;
+
+    // Access-ordered map gives LRU iteration order; guarded by "this"
+    private final LinkedHashMap<String, Page> pages = new LinkedHashMap<>(64, 0.75f, true);
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+
+    @Autowired
+    public PaginatedApiClient(WebClient.Builder webClientBuilder, ObjectMapper objectMapper,
+                              @Value("${archpilot.provider.page-cache.max-entries:500}") int maxEntries) {
+        this.webClient = webClientBuilder.clone()
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(1024 * 1024)) // 1MB
+                .build();
+        this.objectMapper = objectMapper;
+        this.maxEntries = Math.max(0, maxEntries);
+    }
+
+    /**
+     * One page of a list endpoint
+     *
+     * @param body Parsed JSON body
+     * @param nextUrl URL of the following page, or null on the last page
+     * @param etag Entity tag of the page, or null
+     */
+    public record Page(JsonNode body, String nextUrl, String etag) {}
+
+    /**
+     * Stream the pages of a list endpoint, starting at firstPageUrl
+     *
+     * @param firstPageUrl Fully encoded URL of the first page
+     * @param headers Adds authentication and other request headers
+     */
+    public Flux<JsonNode> pages(String firstPageUrl, Consumer<HttpHeaders> headers, Duration timeout) {
+        return fetchPage(firstPageUrl, headers, timeout)
+                .expand(page -> page.nextUrl() != null ? fetchPage(page.nextUrl(), headers, timeout) : Mono.empty())
+                .map(Page::body);
+    }
+
+    /**
+     * Fetch a single page, revalidating a remembered copy with If-None-Match
+     */
+    public Mono<Page> fetchPage(String url, Consumer<HttpHeaders> headers, Duration timeout) {
+        return Mono.defer(() -> {
+            Page cached = remembered(url);
+            requests.incrementAndGet();
+
+            return webClient.get()
+                    .uri(URI.create(url))
+                    .headers(headers)
+                    .headers(h -> {
+                        if (cached != null) {
+                            h.setIfNoneMatch(cached.etag());
+                        }
+                    })
+                    .exchangeToMono(response -> {
+                        if (response.statusCode().value() == HttpStatus.NOT_MODIFIED.value() && cached != null) {
+                            logger.debug("Page {} not modified", url);
+                            revalidations.incrementAndGet();
+                            return response.releaseBody().thenReturn(cached);
+                        }
+                        if (!response.statusCode().is2xxSuccessful()) {
+                            return response.<Page>createError();
+                        }
+                        String etag = response.headers().asHttpHeaders().getETag();
+                        String nextUrl = nextLink(response.headers().header(HttpHeaders.LINK));
+                        return response.bodyToMono(String.class)
+                                .defaultIfEmpty("[]")
+                                .map(body -> {
+                                    Page page = new Page(parse(body), nextUrl, etag);
+                                    if (etag != null) {
+                                        remember(url, page);
+                                    }
+                                    return page;
+                                });
+                    })
+                    .timeout(timeout);
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests", requests.get());
+        stats.put("notModified", revalidations.get());
+        synchronized (this) {
+            stats.put("rememberedPages", pages.size());
+        }
+        return stats;
+    }
+
+    /**
+     * @return URL of the rel="next" link, or null when there is none
+     */
+    static String nextLink(List<String> linkHeaders) {
+        for (String header : linkHeaders) {
+            Matcher matcher = NEXT_LINK.matcher(header);
+            if (matcher.find()) {
+                return matcher.group(1);
+            }
+        }
+        return null;
+    }
+
+    private JsonNode parse(String body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private synchronized Page remembered(String url) {
+        return pages.get(url);
+    }
+
+    private synchronized void remember(String url, Page page) {
+        pages.put(url, page);
+        Iterator<String> iterator = pages.keySet().iterator();
+        while (pages.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
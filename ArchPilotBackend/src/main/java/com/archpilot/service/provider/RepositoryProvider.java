@@ -0,0 +1,70 @@
+package com.archpilot.service.provider;
+
+import java.util.function.Predicate;
+
+import com.archpilot.dto.CommitComparisonResponse;
+import com.archpilot.dto.RepositoryTreeResponse;
+import com.archpilot.dto.RepositoryVerificationResponse;
+import com.archpilot.model.BranchInfo;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Access to the repositories of one hosting platform
+ *
+ * Implementations are Spring components picked up by {@link RepositoryProviderRegistry}; the first
+ * provider (in @Order order) that supports a repository URL serves it. Implementations must not
+ * block the calling thread.
+ */
+public interface RepositoryProvider {
+
+    /**
+     * Platform name reported in responses, e.g. "GitHub"
+     */
+    String getPlatform();
+
+    boolean supports(String repositoryUrl);
+
+    /**
+     * Whether repositories of this provider may be served from a local git mirror
+     */
+    default boolean isMirrorable() {
+        return true;
+    }
+
+    Mono<RepositoryVerificationResponse> verify(String repositoryUrl, String accessToken);
+
+    /**
+     * Stream every branch of the repository
+     *
+     * Paginated APIs request the next page only while the subscriber still demands branches, so
+     * callers bound the work with take(limit).
+     */
+    Flux<BranchInfo> branches(String repositoryUrl, String accessToken);
+
+    /**
+     * Fetch the tree of a branch, keeping only the entries whose path passes the filter
+     *
+     * @param branch Branch, tag or commit, or null for the default branch
+     * @param pathFilter Accepts the paths to keep, or null to keep every entry
+     */
+    Mono<RepositoryTreeResponse> tree(String repositoryUrl, String accessToken, String branch,
+                                      boolean recursive, Predicate<String> pathFilter);
+
+    /**
+     * Compare two commits and list the changed file paths
+     */
+    default Mono<CommitComparisonResponse> compareCommits(String repositoryUrl, String accessToken,
+                                                          String baseSha, String headSha) {
+        return Mono.just(CommitComparisonResponse.error(
+                "Commit comparison is not supported for " + getPlatform() + " repositories"));
+    }
+
+    /**
+     * User-facing message for a failed branch listing
+     */
+    default String describeError(Throwable error) {
+        return "Network error: " + error.getMessage();
+    }
+}
@@ -0,0 +1,37 @@
+package com.archpilot.service.provider;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Finds the {@link RepositoryProvider} serving a repository URL
+ *
+ * Providers are consulted in @Order order; adding a platform only needs a new provider component.
+ */
+@Component
+public class RepositoryProviderRegistry {
+
+    private final List<RepositoryProvider> providers;
+
+    @Autowired
+    public RepositoryProviderRegistry(List<RepositoryProvider> providers) {
+        this.providers = List.copyOf(providers);
+    }
+
+    /**
+     * @return First provider that supports the URL, empty when no provider does
+     */
+    public Optional<RepositoryProvider> find(String repositoryUrl) {
+        if (repositoryUrl == null) {
+            return Optional.empty();
+        }
+        return providers.stream().filter(provider -> provider.supports(repositoryUrl)).findFirst();
+    }
+
+    public List<RepositoryProvider> getProviders() {
+        return providers;
+    }
+}
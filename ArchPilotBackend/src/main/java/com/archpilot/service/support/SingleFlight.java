@@ -0,0 +1,81 @@
+package com.archpilot.service.support;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Collapses concurrent executions of the same keyed work into one in-flight execution
+ *
+ * Main Context:
+ * - The first caller for a key starts the work; callers arriving while it runs share its result
+ * - The key is released as soon as the work terminates, so later callers start a fresh execution
+ * - A caller cancelling does not cancel the shared execution for the others
+ * - An execution may carry a context shared with every caller that joins it, e.g. to fan out progress
+ *
+ * @param <K> Key identifying identical work
+ * @param <V> Result type
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Run the work for a key, or join the execution already in flight for it
+     *
+     * @param key Key identifying identical work
+     * @param work Supplier of the work, only invoked when no execution is in flight
+     * @return Mono with the (possibly shared) result
+     */
+    public Mono<V> execute(K key, Supplier<Mono<V>> work) {
+        return execute(key, () -> null, context -> work.get(), (context, flight) -> flight);
+    }
+
+    /**
+     * Run the work for a key, or join the execution already in flight for it, sharing a context
+     *
+     * The context is created together with the execution and handed to the work and to every caller,
+     * including the ones that join later.
+     *
+     * @param key Key identifying identical work
+     * @param newContext Creates the context of a new execution
+     * @param work Work of a new execution, given its context
+     * @param join Applied per caller to the context and the shared result
+     * @return Mono with the (possibly shared) result
+     */
+    public <C> Mono<V> execute(K key, Supplier<C> newContext, Function<C, Mono<V>> work,
+                               BiFunction<C, Mono<V>, Mono<V>> join) {
+        return Mono.defer(() -> {
+            @SuppressWarnings("unchecked")
+            Flight<V>[] created = new Flight[1];
+            Flight<V> flight = inFlight.computeIfAbsent(key, k -> {
+                C context = newContext.get();
+                Mono<V> result = Mono.defer(() -> work.apply(context))
+                        .doFinally(signal -> inFlight.remove(k, created[0]))
+                        .cache();
+                created[0] = new Flight<>(result, context);
+                return created[0];
+            });
+            @SuppressWarnings("unchecked")
+            C context = (C) flight.context();
+            return join.apply(context, flight.result());
+        });
+    }
+
+    /**
+     * @return true when an execution is currently in flight for the key
+     */
+    public boolean isInFlight(K key) {
+        return inFlight.containsKey(key);
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private record Flight<V>(Mono<V> result, Object context) {}
+}
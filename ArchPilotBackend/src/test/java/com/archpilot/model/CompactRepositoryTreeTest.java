@@ -0,0 +1,88 @@
+package com.archpilot.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CompactRepositoryTreeTest {
+
+    private static final String BASE = "https://api.github.com/repos/octo/app/git/";
+    private static final String SHA_1 = "9fb037999f264ba9a7fc6274d15fa3ae2ab98312";
+    private static final String SHA_2 = "0123456789abcdef0123456789abcdef01234567";
+
+    @Test
+    void testToTreeNodes_RoundTripsEveryField() {
+        List<TreeNode> original = List.of(
+            new TreeNode("README.md", "README.md", "file", SHA_1, 30L, BASE + "blobs/" + SHA_1, null),
+            new TreeNode("main", "src/main", "dir", SHA_2, null, BASE + "trees/" + SHA_2, null),
+            new TreeNode("App.java", "src/main/App.java", "file", SHA_2, 1200L, BASE + "blobs/" + SHA_2,
+                         "https://raw.githubusercontent.com/octo/app/main/src/main/App.java"),
+            new TreeNode("lib", "lib", "commit", "not-a-sha", null, "https://elsewhere.example/lib", null),
+            new TreeNode("Empty.java", "src/Empty.java", "file", null, 0L, null, null));
+
+        List<TreeNode> nodes = CompactRepositoryTree.of(original).toTreeNodes();
+
+        assertEquals(original.size(), nodes.size());
+        for (int i = 0; i < original.size(); i++) {
+            TreeNode expected = original.get(i);
+            TreeNode actual = nodes.get(i);
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getPath(), actual.getPath());
+            assertEquals(expected.getType(), actual.getType());
+            assertEquals(expected.getSha(), actual.getSha());
+            assertEquals(expected.getSize(), actual.getSize());
+            assertEquals(expected.getUrl(), actual.getUrl());
+            assertEquals(expected.getDownloadUrl(), actual.getDownloadUrl());
+        }
+    }
+
+    @Test
+    void testBuilder_SharesDirectoriesAndSegments() {
+        CompactRepositoryTree tree = CompactRepositoryTree.builder()
+            .add("src/main/java/App.java", "file", SHA_1, 10L, BASE + "blobs/" + SHA_1, null)
+            .add("src/test/java/App.java", "file", SHA_2, 20L, BASE + "blobs/" + SHA_2, null)
+            .build();
+
+        assertEquals("src/test/java/App.java", tree.path(1));
+        assertEquals("App.java", tree.name(1));
+        assertEquals("src/main/java/App.java", tree.path(0));
+        assertEquals(20L, tree.fileSize(1).longValue());
+        assertTrue(tree.isFile(0));
+    }
+
+    @Test
+    void testPath_HandlesNonAsciiSegments() {
+        CompactRepositoryTree tree = CompactRepositoryTree.builder()
+            .add("docs/\u00fc/\u00dcberblick.md", "file", SHA_1, 1L, null, null)
+            .build();
+
+        assertEquals("docs/\u00fc/\u00dcberblick.md", tree.path(0));
+        assertEquals("\u00dcberblick.md", tree.name(0));
+    }
+
+    @Test
+    void testFilter_KeepsSelectedEntriesInOrder() {
+        CompactRepositoryTree tree = CompactRepositoryTree.builder()
+            .add("a/One.java", "file", SHA_1, 1L, null, null)
+            .add("a/notes.txt", "file", SHA_2, 2L, null, null)
+            .add("b/Two.java", "file", SHA_2, 3L, null, null)
+            .build();
+
+        CompactRepositoryTree javaOnly = tree.filter(i -> tree.name(i).endsWith(".java"));
+
+        assertEquals(2, javaOnly.size());
+        assertEquals("b/Two.java", javaOnly.path(1));
+        assertEquals(SHA_2, javaOnly.sha(1));
+        assertNull(javaOnly.url(1));
+    }
+
+    @Test
+    void testAccessors_RejectOutOfRangeIndex() {
+        CompactRepositoryTree tree = CompactRepositoryTree.of(List.of());
+
+        assertEquals(0, tree.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.path(0));
+    }
+}
@@ -0,0 +1,92 @@
+package com.archpilot.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.archpilot.model.RepositoryTreeData;
+import com.archpilot.service.agent.GeminiChatAgentService;
+import com.archpilot.service.agent.GeminiClassAnalyzerAgentService;
+import com.archpilot.service.llm.LlmPriority;
+
+@ExtendWith(MockitoExtension.class)
+class ClassDiagramGeneratorServiceTest {
+
+    @Mock
+    private GeminiChatAgentService geminiChatAgentService;
+
+    @InjectMocks
+    private ClassDiagramGeneratorService classDiagramGeneratorService;
+
+    @Test
+    void testBatchedAnalysis_KeepsModifiersThroughRendering() {
+        // Given
+        String batchResponse = """
+            Here is the analysis:
+            [
+              {
+                "className": "OrderService",
+                "classType": "class",
+                "packageName": "com.shop",
+                "fields": [
+                  {"name": "MAX_ITEMS", "type": "int", "visibility": "private", "isStatic": true, "isFinal": true}
+                ],
+                "methods": [
+                  {"name": "create", "returnType": "Order", "visibility": "public", "isStatic": true, "isAbstract": false}
+                ]
+              },
+              {
+                "className": "Shape",
+                "classType": "abstract class",
+                "packageName": "com.shop",
+                "fields": [
+                  {"name": "name", "type": "String", "visibility": "protected", "isStatic": false, "isFinal": false}
+                ],
+                "methods": [
+                  {"name": "area", "returnType": "double", "visibility": "public", "isStatic": false, "isAbstract": true}
+                ]
+              }
+            ]
+            """;
+        when(geminiChatAgentService.askQuestion(anyString(), eq(LlmPriority.BATCH))).thenReturn(batchResponse);
+        List<ClassDiagramGeneratorService.JavaClassInfo> javaClasses =
+            List.of(javaClass("OrderService"), javaClass("Shape"));
+        RepositoryTreeData treeData = new RepositoryTreeData();
+        treeData.setRepositoryUrl("https://github.com/octo/shop");
+
+        // When
+        Map<String, GeminiClassAnalyzerAgentService.ClassAnalysisResult> results =
+            classDiagramGeneratorService.analyzeClassBatchWithContext(javaClasses, "", "");
+        String plantUml = classDiagramGeneratorService.generateEnhancedPlantUMLFromAnalysis("", results, treeData);
+        Map<String, Object> jsonData =
+            classDiagramGeneratorService.generateEnhancedJsonRepresentation(javaClasses, results, treeData);
+
+        // Then
+        assertEquals(2, results.size());
+        assertTrue(plantUml.contains("-MAX_ITEMS : int {static} {final}"));
+        assertTrue(plantUml.contains("+create() : Order {static}"));
+        assertTrue(plantUml.contains("+area() : double {abstract}"));
+        assertTrue(plantUml.contains("#name : String\n"));
+        assertTrue(jsonData.toString().contains("isFinal=true"));
+        assertTrue(jsonData.toString().contains("isAbstract=true"));
+    }
+
+    private static ClassDiagramGeneratorService.JavaClassInfo javaClass(String className) {
+        ClassDiagramGeneratorService.JavaClassInfo javaClass = new ClassDiagramGeneratorService.JavaClassInfo();
+        javaClass.setClassName(className);
+        javaClass.setPackageName("com.shop");
+        javaClass.setFullPath("src/main/java/com/shop/" + className + ".java");
+        javaClass.setSha(className.toLowerCase());
+        return javaClass;
+    }
+}
@@ -19,6 +19,7 @@ import com.archpilot.model.ChatSession;
 import com.archpilot.service.IntentAnalyzerService;
 import com.archpilot.service.JiraTicketService;
 import com.archpilot.service.diagram.DiagramFileManager;
+import com.archpilot.service.llm.LlmPriority;
 
 @ExtendWith(MockitoExtension.class)
 class JavaArchitectAgentServiceTest {
@@ -110,7 +111,7 @@ class JavaArchitectAgentServiceTest {
         
         when(intentAnalyzerService.analyzeUserIntent(userMessage)).thenReturn(intent);
         when(intentAnalyzerService.extractClassAndMethod(userMessage)).thenReturn(classAndMethod);
-        when(geminiChatAgentService.askQuestion(anyString())).thenReturn("Detailed flow analysis");
+        when(geminiChatAgentService.askQuestion(anyString(), eq(LlmPriority.INTERACTIVE))).thenReturn("Detailed flow analysis");
         when(diagramFileManager.generateFlowDiagrams(anyString(), anyString(), anyString(), anyString()))
             .thenReturn("Diagram links");
 
@@ -123,7 +124,7 @@ class JavaArchitectAgentServiceTest {
         
         verify(intentAnalyzerService).analyzeUserIntent(userMessage);
         verify(intentAnalyzerService).extractClassAndMethod(userMessage);
-        verify(geminiChatAgentService).askQuestion(anyString());
+        verify(geminiChatAgentService).askQuestion(anyString(), eq(LlmPriority.INTERACTIVE));
         verify(diagramFileManager).generateFlowDiagrams(
             eq(testSession.getProjectName()), eq("PaymentService"), eq("processPayment"), anyString());
     }
@@ -137,7 +138,7 @@ class JavaArchitectAgentServiceTest {
         when(intentAnalyzerService.analyzeUserIntent(userMessage)).thenReturn(intent);
         when(intentAnalyzerService.extractClassAndMethod(userMessage)).thenReturn(classAndMethod);
         when(intentAnalyzerService.isGeneralFlowRequest(userMessage)).thenReturn(false);
-        when(geminiChatAgentService.askQuestion(anyString())).thenReturn("General flow explanation");
+        when(geminiChatAgentService.askQuestion(anyString(), eq(LlmPriority.INTERACTIVE))).thenReturn("General flow explanation");
 
         String result = javaArchitectAgentService.processArchitectRequest(testSession, userMessage);
 
@@ -147,7 +148,7 @@ class JavaArchitectAgentServiceTest {
         verify(intentAnalyzerService).analyzeUserIntent(userMessage);
         verify(intentAnalyzerService).extractClassAndMethod(userMessage);
         verify(intentAnalyzerService).isGeneralFlowRequest(userMessage);
-        verify(geminiChatAgentService).askQuestion(anyString());
+        verify(geminiChatAgentService).askQuestion(anyString(), eq(LlmPriority.INTERACTIVE));
         verifyNoInteractions(diagramFileManager);
     }
 
@@ -181,7 +182,7 @@ class JavaArchitectAgentServiceTest {
         String intent = "ARCHITECTURAL_ADVICE";
         
         when(intentAnalyzerService.analyzeUserIntent(userMessage)).thenReturn(intent);
-        when(geminiChatAgentService.askQuestion(anyString())).thenReturn("Architectural advice response");
+        when(geminiChatAgentService.askQuestion(anyString(), eq(LlmPriority.INTERACTIVE))).thenReturn("Architectural advice response");
 
         String result = javaArchitectAgentService.processArchitectRequest(testSession, userMessage);
 
@@ -194,7 +195,7 @@ class JavaArchitectAgentServiceTest {
             prompt.contains(testSession.getProjectName()) &&
             prompt.contains(testSession.getUmlContent()) &&
             prompt.contains(userMessage)
-        ));
+        ), eq(LlmPriority.INTERACTIVE));
         verifyNoInteractions(diagramFileManager, jiraTicketService);
     }
 
@@ -204,7 +205,7 @@ class JavaArchitectAgentServiceTest {
         String intent = "GENERAL_DISCUSSION";
         
         when(intentAnalyzerService.analyzeUserIntent(userMessage)).thenReturn(intent);
-        when(geminiChatAgentService.askQuestion(anyString())).thenReturn("General discussion response");
+        when(geminiChatAgentService.askQuestion(anyString(), eq(LlmPriority.INTERACTIVE))).thenReturn("General discussion response");
 
         String result = javaArchitectAgentService.processArchitectRequest(testSession, userMessage);
 
@@ -217,7 +218,7 @@ class JavaArchitectAgentServiceTest {
             prompt.contains(testSession.getProjectName()) &&
             prompt.contains(testSession.getUmlContent()) &&
             prompt.contains(userMessage)
-        ));
+        ), eq(LlmPriority.INTERACTIVE));
         verifyNoInteractions(diagramFileManager, jiraTicketService);
     }
 
@@ -246,7 +247,7 @@ class JavaArchitectAgentServiceTest {
         
         when(intentAnalyzerService.analyzeUserIntent(userMessage)).thenReturn(intent);
         when(intentAnalyzerService.extractClassAndMethod(userMessage)).thenReturn(classAndMethod);
-        when(geminiChatAgentService.askQuestion(anyString())).thenReturn("Flow analysis");
+        when(geminiChatAgentService.askQuestion(anyString(), eq(LlmPriority.INTERACTIVE))).thenReturn("Flow analysis");
         when(diagramFileManager.generateFlowDiagrams(anyString(), anyString(), anyString(), anyString()))
             .thenThrow(new RuntimeException("Diagram generation failed"));
 
@@ -257,7 +258,7 @@ class JavaArchitectAgentServiceTest {
         
         verify(intentAnalyzerService).analyzeUserIntent(userMessage);
         verify(intentAnalyzerService).extractClassAndMethod(userMessage);
-        verify(geminiChatAgentService, times(2)).askQuestion(anyString()); // Called twice: once for detailed analysis, once for fallback
+        verify(geminiChatAgentService, times(2)).askQuestion(anyString(), eq(LlmPriority.INTERACTIVE)); // Called twice: once for detailed analysis, once for fallback
         verify(diagramFileManager).generateFlowDiagrams(anyString(), anyString(), anyString(), anyString());
     }
 
@@ -276,7 +277,7 @@ class JavaArchitectAgentServiceTest {
         String intent = "GENERAL_DISCUSSION";
         
         when(intentAnalyzerService.analyzeUserIntent(userMessage)).thenReturn(intent);
-        when(geminiChatAgentService.askQuestion(anyString())).thenReturn("Response to empty message");
+        when(geminiChatAgentService.askQuestion(anyString(), eq(LlmPriority.INTERACTIVE))).thenReturn("Response to empty message");
 
         String result = javaArchitectAgentService.processArchitectRequest(testSession, userMessage);
 
@@ -284,7 +285,7 @@ class JavaArchitectAgentServiceTest {
         assertEquals("Response to empty message", result);
         
         verify(intentAnalyzerService).analyzeUserIntent(userMessage);
-        verify(geminiChatAgentService).askQuestion(anyString());
+        verify(geminiChatAgentService).askQuestion(anyString(), eq(LlmPriority.INTERACTIVE));
     }
 
     @Test
@@ -294,7 +295,7 @@ class JavaArchitectAgentServiceTest {
         String intent = "ARCHITECTURAL_ADVICE";
         
         when(intentAnalyzerService.analyzeUserIntent(userMessage)).thenReturn(intent);
-        when(geminiChatAgentService.askQuestion(anyString())).thenReturn("Advice response");
+        when(geminiChatAgentService.askQuestion(anyString(), eq(LlmPriority.INTERACTIVE))).thenReturn("Advice response");
 
         String result = javaArchitectAgentService.processArchitectRequest(testSession, userMessage);
 
@@ -303,6 +304,6 @@ class JavaArchitectAgentServiceTest {
         
         verify(geminiChatAgentService).askQuestion(argThat(prompt -> 
             prompt.contains("No metadata available")
-        ));
+        ), eq(LlmPriority.INTERACTIVE));
     }
 }
\ No newline at end of file
@@ -0,0 +1,139 @@
+package com.archpilot.service.agent;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.archpilot.entity.RateLimitBucket;
+import com.archpilot.service.agent.TokenGuardrailService.TokenValidationResult;
+
+@ExtendWith(MockitoExtension.class)
+class TokenGuardrailServiceTest {
+
+    @Mock
+    private RateLimitBucketStore rateLimitBucketStore;
+
+    @InjectMocks
+    private TokenGuardrailService tokenGuardrailService;
+
+    @BeforeEach
+    void setUp() {
+        tokenGuardrailService.maxRequestsPerMinute = 2;
+        tokenGuardrailService.maxTokensPerMinute = 1000;
+        ReflectionTestUtils.setField(tokenGuardrailService, "requestsRefillPerSecond", 2 / 60.0);
+        ReflectionTestUtils.setField(tokenGuardrailService, "tokensRefillPerSecond", 1);
+        ReflectionTestUtils.setField(tokenGuardrailService, "persistenceEnabled", true);
+        ReflectionTestUtils.setField(tokenGuardrailService, "idleEvictionMinutes", 10L);
+    }
+
+    @Test
+    void testValidateRequest_RejectsWhenRequestsExhausted() {
+        assertTrue(tokenGuardrailService.validateRequest("user", 100).isApproved());
+        assertTrue(tokenGuardrailService.validateRequest("user", 100).isApproved());
+
+        TokenValidationResult result = tokenGuardrailService.validateRequest("user", 100);
+
+        assertFalse(result.isApproved());
+        assertEquals("RPM", result.getLimitingFactor());
+        assertTrue(result.getWaitTimeSeconds() > 0);
+        assertEquals(800, result.getRemainingTokens());
+    }
+
+    @Test
+    void testValidateRequest_RejectsWhenTokensExhausted() {
+        assertTrue(tokenGuardrailService.validateRequest("user", 900).isApproved());
+
+        TokenValidationResult result = tokenGuardrailService.validateRequest("user", 500);
+
+        assertFalse(result.isApproved());
+        assertEquals("TPM", result.getLimitingFactor());
+        assertEquals(1, result.getRemainingRequests());
+    }
+
+    @Test
+    void testValidateRequest_BucketsAreIndependentPerUser() {
+        tokenGuardrailService.validateRequest("first", 1000);
+
+        assertTrue(tokenGuardrailService.validateRequest("second", 1000).isApproved());
+    }
+
+    @Test
+    void testUpdateConsumption_RefundsUnusedReservation() {
+        tokenGuardrailService.validateRequest("user", 900);
+        tokenGuardrailService.updateConsumption("user", 900, 100);
+
+        assertTrue(tokenGuardrailService.validateRequest("user", 800).isApproved());
+    }
+
+    @Test
+    void testSynchronizeBuckets_PersistsPendingConsumption() {
+        RateLimitBucket stored = new RateLimitBucket("user", 2.0, 1000);
+        when(rateLimitBucketStore.update(eq("user"), any(), any())).thenAnswer(invocation -> {
+            Consumer<RateLimitBucket> update = invocation.getArgument(2);
+            update.accept(stored);
+            return stored;
+        });
+
+        tokenGuardrailService.validateRequest("user", 300);
+        tokenGuardrailService.synchronizeBuckets();
+
+        assertEquals(1.0, stored.getAvailableRequests(), 0.01);
+        assertEquals(700, stored.getAvailableTokens(), 1);
+
+        // Nothing new to apply on the next run, only a read
+        when(rateLimitBucketStore.find("user")).thenReturn(Optional.of(stored));
+        tokenGuardrailService.synchronizeBuckets();
+        verify(rateLimitBucketStore, times(1)).update(eq("user"), any(), any());
+    }
+
+    @Test
+    void testSynchronizeBuckets_MergesConsumptionFromOtherNodes() {
+        tokenGuardrailService.validateRequest("user", 100);
+        RateLimitBucket stored = new RateLimitBucket("user", 2.0, 1000);
+        when(rateLimitBucketStore.update(eq("user"), any(), any())).thenAnswer(invocation -> {
+            // Another node already used most of the shared budget
+            stored.setAvailableTokens(200);
+            stored.setLastTokenTime(LocalDateTime.now());
+            Consumer<RateLimitBucket> update = invocation.getArgument(2);
+            update.accept(stored);
+            return stored;
+        });
+
+        tokenGuardrailService.synchronizeBuckets();
+
+        assertFalse(tokenGuardrailService.validateRequest("user", 500).isApproved());
+    }
+
+    @Test
+    void testSynchronizeBuckets_RetriesConsumptionAfterFailure() {
+        when(rateLimitBucketStore.update(eq("user"), any(), any()))
+                .thenThrow(new IllegalStateException("database unavailable"))
+                .thenAnswer(invocation -> {
+                    Supplier<RateLimitBucket> creator = invocation.getArgument(1);
+                    RateLimitBucket created = creator.get();
+                    Consumer<RateLimitBucket> update = invocation.getArgument(2);
+                    update.accept(created);
+                    return created;
+                });
+
+        tokenGuardrailService.validateRequest("user", 400);
+        tokenGuardrailService.synchronizeBuckets();
+        tokenGuardrailService.synchronizeBuckets();
+
+        verify(rateLimitBucketStore, times(2)).update(eq("user"), any(), any());
+        assertTrue(tokenGuardrailService.validateRequest("user", 600).isApproved());
+    }
+}
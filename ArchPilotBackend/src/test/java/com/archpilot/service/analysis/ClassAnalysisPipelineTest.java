@@ -0,0 +1,235 @@
+package com.archpilot.service.analysis;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.archpilot.service.ClassDiagramGeneratorService.JavaClassInfo;
+import com.archpilot.service.agent.GeminiClassAnalyzerAgentService.ClassAnalysisResult;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+class ClassAnalysisPipelineTest {
+
+    private final ClassAnalysisPipeline pipeline = new ClassAnalysisPipeline();
+    private final RecordingStages stages = new RecordingStages();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(pipeline, "blockingIoScheduler", Schedulers.immediate());
+        ReflectionTestUtils.setField(pipeline, "fetchConcurrency", 4);
+        ReflectionTestUtils.setField(pipeline, "analyzeConcurrency", 2);
+        ReflectionTestUtils.setField(pipeline, "batchMaxClasses", 3);
+        ReflectionTestUtils.setField(pipeline, "batchMaxTokens", 6000);
+        ReflectionTestUtils.setField(pipeline, "batchMaxClassTokens", 1500);
+    }
+
+    @Test
+    void testAnalyze_BatchesSmallClassesOfTheSamePackage() {
+        List<JavaClassInfo> classes = List.of(
+                javaClass("A", "com.example.a", 300L),
+                javaClass("B", "com.example.a", 300L),
+                javaClass("C", "com.example.b", 300L),
+                javaClass("D", "com.example.a", 300L),
+                javaClass("E", "com.example.a", 300L));
+
+        Map<String, ClassAnalysisResult> results = pipeline.analyze(classes, stages).block();
+
+        assertEquals(5, results.size());
+        // Package a fills one batch of three and leaves one class; package b is a single class
+        assertEquals(List.of(List.of("A", "B", "D")), stages.batches);
+        assertTrue(stages.singles.containsAll(List.of("C", "E")));
+        assertEquals(2, stages.singles.size());
+    }
+
+    @Test
+    void testAnalyze_LargeAndUnknownSizeClassesAreAnalyzedAlone() {
+        List<JavaClassInfo> classes = List.of(
+                javaClass("Small", "com.example", 300L),
+                javaClass("Large", "com.example", 30_000L),
+                javaClass("Unknown", "com.example", null),
+                javaClass("Other", "com.example", 600L));
+
+        pipeline.analyze(classes, stages).block();
+
+        assertEquals(List.of(List.of("Small", "Other")), stages.batches);
+        assertTrue(stages.singles.containsAll(List.of("Large", "Unknown")));
+    }
+
+    @Test
+    void testAnalyze_ClassesMissingFromBatchAnswerAreRetriedAlone() {
+        stages.dropFromBatch = "B";
+
+        Map<String, ClassAnalysisResult> results = pipeline.analyze(List.of(
+                javaClass("A", "com.example", 300L),
+                javaClass("B", "com.example", 300L)), stages).block();
+
+        assertEquals(2, results.size());
+        assertEquals(List.of("B"), stages.singles);
+    }
+
+    @Test
+    void testAnalyze_FailedBatchCallIsNotRepeatedPerClass() {
+        stages.failBatch = true;
+
+        Map<String, ClassAnalysisResult> results = pipeline.analyze(List.of(
+                javaClass("A", "com.example", 300L),
+                javaClass("B", "com.example", 300L),
+                javaClass("Large", "com.example", 30_000L)), stages).block();
+
+        assertEquals(List.of(List.of("A", "B")), stages.batches);
+        assertEquals(List.of("Large"), stages.singles);
+        assertEquals(List.of("Large"), new ArrayList<>(results.keySet()));
+    }
+
+    @Test
+    void testAnalyze_EnrichedParsedClassesShareTheBatchCall() {
+        stages.parsed = List.of("A", "Large");
+        stages.enrich = true;
+
+        Map<String, ClassAnalysisResult> results = pipeline.analyze(List.of(
+                javaClass("A", "com.example", 300L),
+                javaClass("B", "com.example", 300L),
+                javaClass("Large", "com.example", 30_000L)), stages).block();
+
+        assertEquals(List.of(List.of("A", "B")), stages.batches);
+        assertEquals(List.of("Large"), stages.singles);
+        assertEquals("enriched", results.get("A").getRawAnalysis());
+        assertEquals("enriched", results.get("Large").getRawAnalysis());
+        assertNull(results.get("B").getRawAnalysis());
+    }
+
+    @Test
+    void testAnalyze_ParsedClassesKeepTheirResultWhenEnrichmentFails() {
+        stages.parsed = List.of("A", "B");
+        stages.enrich = true;
+        stages.failBatch = true;
+
+        Map<String, ClassAnalysisResult> results = pipeline.analyze(List.of(
+                javaClass("A", "com.example", 300L),
+                javaClass("B", "com.example", 300L)), stages).block();
+
+        assertEquals(1, stages.batches.size());
+        assertTrue(stages.singles.isEmpty());
+        assertEquals("parsed", results.get("A").getRawAnalysis());
+        assertEquals("parsed", results.get("B").getRawAnalysis());
+    }
+
+    @Test
+    void testAnalyze_ParsedClassesAreNotEnrichedWithFallbackResults() {
+        stages.parsed = List.of("A", "B", "Large");
+        stages.enrich = true;
+        stages.fallbackStatus = "FAILED";
+
+        Map<String, ClassAnalysisResult> results = pipeline.analyze(List.of(
+                javaClass("A", "com.example", 300L),
+                javaClass("B", "com.example", 300L),
+                javaClass("Large", "com.example", 30_000L)), stages).block();
+
+        assertEquals(List.of(List.of("A", "B")), stages.batches);
+        assertEquals(List.of("Large"), stages.singles);
+        assertTrue(stages.enriched.isEmpty());
+        assertEquals(3, results.size());
+        results.values().forEach(result -> assertEquals("parsed", result.getRawAnalysis()));
+    }
+
+    @Test
+    void testAnalyze_SingleClassAnalysisWhenBatchingDisabled() {
+        ReflectionTestUtils.setField(pipeline, "batchMaxClasses", 1);
+
+        pipeline.analyze(List.of(
+                javaClass("A", "com.example", 300L),
+                javaClass("B", "com.example", 300L)), stages).block();
+
+        assertTrue(stages.batches.isEmpty());
+        assertEquals(2, stages.singles.size());
+    }
+
+    private static JavaClassInfo javaClass(String name, String packageName, Long size) {
+        JavaClassInfo javaClass = new JavaClassInfo();
+        javaClass.setClassName(name);
+        javaClass.setPackageName(packageName);
+        javaClass.setSize(size);
+        return javaClass;
+    }
+
+    private static class RecordingStages implements ClassAnalysisStages {
+        final List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+        final List<String> singles = Collections.synchronizedList(new ArrayList<>());
+        String dropFromBatch;
+        boolean failBatch;
+        final List<String> enriched = Collections.synchronizedList(new ArrayList<>());
+        List<String> parsed = List.of();
+        boolean enrich;
+        String fallbackStatus;
+
+        @Override
+        public Mono<String> fetch(JavaClassInfo javaClass) {
+            long size = javaClass.getSize() != null ? javaClass.getSize() : 9000;
+            return Mono.just("x ".repeat((int) size / 2));
+        }
+
+        @Override
+        public ClassAnalysisResult parse(JavaClassInfo javaClass, String content) {
+            if (!parsed.contains(javaClass.getClassName())) {
+                return null;
+            }
+            ClassAnalysisResult result = result(javaClass);
+            result.setRawAnalysis("parsed");
+            return result;
+        }
+
+        @Override
+        public boolean enrichesParsed() {
+            return enrich;
+        }
+
+        @Override
+        public ClassAnalysisResult enrich(JavaClassInfo javaClass, ClassAnalysisResult parsed, ClassAnalysisResult analyzed) {
+            enriched.add(javaClass.getClassName());
+            ClassAnalysisResult result = result(javaClass);
+            result.setRawAnalysis("enriched");
+            return result;
+        }
+
+        @Override
+        public ClassAnalysisResult analyze(JavaClassInfo javaClass, String content) {
+            singles.add(javaClass.getClassName());
+            return result(javaClass);
+        }
+
+        @Override
+        public Map<String, ClassAnalysisResult> analyzeBatch(List<JavaClassInfo> javaClasses, List<String> contents) {
+            List<String> names = new ArrayList<>();
+            Map<String, ClassAnalysisResult> results = new HashMap<>();
+            for (JavaClassInfo javaClass : javaClasses) {
+                names.add(javaClass.getClassName());
+                if (!javaClass.getClassName().equals(dropFromBatch)) {
+                    results.put(javaClass.getClassName(), result(javaClass));
+                }
+            }
+            batches.add(names);
+            if (failBatch) {
+                throw new IllegalStateException("429 Too Many Requests");
+            }
+            return results;
+        }
+
+        private ClassAnalysisResult result(JavaClassInfo javaClass) {
+            ClassAnalysisResult result = new ClassAnalysisResult();
+            result.setClassName(javaClass.getClassName());
+            // Like the service, a failed call can still answer with a fallback result
+            result.setAnalysisStatus(fallbackStatus != null ? fallbackStatus : "SUCCESS");
+            return result;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.archpilot.service.analysis;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import com.archpilot.service.ClassDiagramGeneratorService.JavaClassInfo;
+import com.archpilot.service.agent.GeminiClassAnalyzerAgentService.ClassAnalysisResult;
+
+import reactor.core.publisher.Sinks;
+
+class CompositeProgressListenerTest {
+
+    @Test
+    void testJoin_LateListenerReceivesMissedAndLiveProgress() {
+        CompositeProgressListener progress = new CompositeProgressListener();
+        Sinks.One<String> result = Sinks.one();
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+
+        progress.join(first, result.asMono()).subscribe();
+        progress.onClassesDiscovered(2);
+        progress.onClassAnalyzed(javaClass("A"), new ClassAnalysisResult(), true);
+
+        progress.join(second, result.asMono()).subscribe();
+        progress.onClassAnalyzed(javaClass("B"), new ClassAnalysisResult(), false);
+        result.tryEmitValue("diagram");
+        progress.onStage("RENDERED", "done");
+
+        assertEquals(List.of("discovered 2", "analyzed A", "analyzed B"), first.events);
+        assertEquals(first.events, second.events);
+    }
+
+    private static JavaClassInfo javaClass(String className) {
+        JavaClassInfo javaClass = new JavaClassInfo();
+        javaClass.setClassName(className);
+        return javaClass;
+    }
+
+    private static class RecordingListener implements DiagramProgressListener {
+
+        private final List<String> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onStage(String stage, String message) {
+            events.add("stage " + stage);
+        }
+
+        @Override
+        public void onClassesDiscovered(int totalClasses) {
+            events.add("discovered " + totalClasses);
+        }
+
+        @Override
+        public void onClassAnalyzed(JavaClassInfo javaClass, ClassAnalysisResult result, boolean fromCache) {
+            events.add("analyzed " + javaClass.getClassName());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.archpilot.service.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BlobContentStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testGitBlobSha_MatchesGitHashObject() {
+        // `echo 'hello world' | git hash-object --stdin`
+        String sha = BlobContentStore.gitBlobSha("hello world\n".getBytes(StandardCharsets.UTF_8));
+        assertEquals("3b18e512dba79e4c8300dd08aeb37f8e728b8dad", sha);
+    }
+
+    @Test
+    void testPutAndGet_RoundTrip() {
+        BlobContentStore store = new BlobContentStore(tempDir.toString(), 1024 * 1024, 10 * 1024 * 1024);
+        String content = "public class UserService {}\n";
+        String sha = sha(content);
+
+        assertTrue(store.put(sha, content));
+        assertEquals(Optional.of(content), store.get(sha));
+    }
+
+    @Test
+    void testPut_RejectsContentNotMatchingSha() {
+        BlobContentStore store = new BlobContentStore(tempDir.toString(), 1024 * 1024, 10 * 1024 * 1024);
+        String sha = sha("public class Old {}\n");
+
+        assertFalse(store.put(sha, "public class New {}\n"));
+        assertTrue(store.get(sha).isEmpty());
+    }
+
+    @Test
+    void testGet_ServedFromDiskAfterRestart() {
+        String content = "public interface Repository {}\n";
+        String sha = sha(content);
+        new BlobContentStore(tempDir.toString(), 1024 * 1024, 10 * 1024 * 1024).put(sha, content);
+
+        BlobContentStore reloaded = new BlobContentStore(tempDir.toString(), 1024 * 1024, 10 * 1024 * 1024);
+
+        assertEquals(Optional.of(content), reloaded.get(sha));
+    }
+
+    @Test
+    void testPut_EvictsLeastRecentlyUsedFromDisk() {
+        String first = "class First { /* padding padding padding */ }\n";
+        String second = "class Second { /* padding padding padding */ }\n";
+        String third = "class Third { /* padding padding padding */ }\n";
+        // Disk budget holds two blobs, memory tier disabled
+        BlobContentStore store = new BlobContentStore(tempDir.toString(), 0, first.length() + second.length() + 2);
+
+        store.put(sha(first), first);
+        store.put(sha(second), second);
+        store.get(sha(first)); // first is now more recently used than second
+        store.put(sha(third), third);
+
+        assertTrue(store.get(sha(first)).isPresent());
+        assertTrue(store.get(sha(second)).isEmpty());
+        assertTrue(store.get(sha(third)).isPresent());
+    }
+
+    private String sha(String content) {
+        return BlobContentStore.gitBlobSha(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,104 @@
+package com.archpilot.service.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.archpilot.entity.ClassAnalysisCacheEntry;
+import com.archpilot.repository.ClassAnalysisCacheRepository;
+import com.archpilot.service.agent.GeminiClassAnalyzerAgentService.ClassAnalysisResult;
+
+@ExtendWith(MockitoExtension.class)
+class ClassAnalysisCacheTest {
+
+    private static final String BLOB_SHA = "3b18e512dba79e4c8300dd08aeb37f8e728b8dad";
+
+    @Mock
+    private ClassAnalysisCacheRepository repository;
+
+    private ClassAnalysisCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ClassAnalysisCache(repository, "gemini-2.0-flash", true, 100);
+    }
+
+    @Test
+    void testPutAndGet_ServedFromMemoryWithoutDatabase() {
+        when(repository.findByCacheKey(anyString())).thenReturn(Optional.empty());
+
+        cache.put(BLOB_SHA, "prompt-v1", successResult("UserService"));
+        Optional<ClassAnalysisResult> cached = cache.get(BLOB_SHA, "prompt-v1");
+
+        assertTrue(cached.isPresent());
+        assertEquals("UserService", cached.get().getClassName());
+        assertEquals(List.of("Repository"), cached.get().getUsedClasses());
+        verify(repository, times(1)).findByCacheKey(anyString()); // only the upsert lookup
+    }
+
+    @Test
+    void testPut_PersistsKeyWithBlobPromptAndModel() {
+        when(repository.findByCacheKey(anyString())).thenReturn(Optional.empty());
+
+        cache.put(BLOB_SHA, "prompt-v1", successResult("UserService"));
+
+        ArgumentCaptor<ClassAnalysisCacheEntry> captor = ArgumentCaptor.forClass(ClassAnalysisCacheEntry.class);
+        verify(repository).save(captor.capture());
+        assertEquals(BLOB_SHA + ":prompt-v1:gemini-2.0-flash", captor.getValue().getCacheKey());
+        assertEquals("gemini-2.0-flash", captor.getValue().getModelId());
+    }
+
+    @Test
+    void testPut_IgnoresFailedResults() {
+        ClassAnalysisResult failed = successResult("UserService");
+        failed.setAnalysisStatus("FAILED");
+
+        cache.put(BLOB_SHA, "prompt-v1", failed);
+
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void testGet_MissForDifferentPromptVersion() {
+        when(repository.findByCacheKey(anyString())).thenReturn(Optional.empty());
+        cache.put(BLOB_SHA, "prompt-v1", successResult("UserService"));
+
+        assertTrue(cache.get(BLOB_SHA, "prompt-v2").isEmpty());
+    }
+
+    @Test
+    void testInvalidateBlob_RemovesMemoryEntries() {
+        when(repository.findByCacheKey(anyString())).thenReturn(Optional.empty());
+        when(repository.deleteByBlobSha(BLOB_SHA)).thenReturn(1);
+        cache.put(BLOB_SHA, "prompt-v1", successResult("UserService"));
+
+        assertEquals(1, cache.invalidateBlob(BLOB_SHA.toUpperCase()));
+        assertTrue(cache.get(BLOB_SHA, "prompt-v1").isEmpty());
+    }
+
+    @Test
+    void testPromptHash_ChangesWithTemplate() {
+        assertEquals(ClassAnalysisCache.promptHash("Analyze %s"), ClassAnalysisCache.promptHash("Analyze %s"));
+        assertNotEquals(ClassAnalysisCache.promptHash("Analyze %s"), ClassAnalysisCache.promptHash("Analyze the class %s"));
+    }
+
+    private ClassAnalysisResult successResult(String className) {
+        ClassAnalysisResult result = new ClassAnalysisResult();
+        result.setClassName(className);
+        result.setClassType("class");
+        result.setUsedClasses(List.of("Repository"));
+        result.setAnalysisStatus("SUCCESS");
+        return result;
+    }
+}
@@ -0,0 +1,64 @@
+package com.archpilot.service.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DiagramCacheIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRebuild_IndexesExistingMetadataFiles() throws IOException {
+        writeDiagram("ArchPilot", "20250101_120000", "abc123", 12);
+        writeDiagram("ArchPilot", "20250102_120000", "def456", 14);
+
+        DiagramCacheIndex index = new DiagramCacheIndex(tempDir, null, false);
+        index.rebuild();
+
+        assertEquals(2, index.size());
+        assertEquals(12, index.find("ArchPilot", "abc123").orElseThrow().getClassCount());
+        assertEquals("def456", index.findLatest("ArchPilot").orElseThrow().getProjectSha());
+    }
+
+    @Test
+    void testRecord_MakesDiagramFindableWithoutRescan() throws IOException {
+        DiagramCacheIndex index = new DiagramCacheIndex(tempDir, null, false);
+        index.rebuild();
+        Files.write(tempDir.resolve("ArchPilot_20250103_090000.png"), new byte[] {1, 2, 3});
+
+        index.record("ArchPilot", "fff999", "20250103_090000", 7);
+
+        DiagramCacheIndex.DiagramArtifact artifact = index.find("ArchPilot", "fff999").orElseThrow();
+        assertEquals("ArchPilot_20250103_090000.png", artifact.getPngFileName());
+        assertEquals("ArchPilot_20250103_090000.json", artifact.getJsonFileName());
+    }
+
+    @Test
+    void testFind_DropsEntryWhenPngWasDeleted() throws IOException {
+        writeDiagram("ArchPilot", "20250101_120000", "abc123", 12);
+        DiagramCacheIndex index = new DiagramCacheIndex(tempDir, null, false);
+        index.rebuild();
+
+        Files.delete(tempDir.resolve("ArchPilot_20250101_120000.png"));
+
+        assertTrue(index.find("ArchPilot", "abc123").isEmpty());
+        assertTrue(index.findLatest("ArchPilot").isEmpty());
+    }
+
+    private void writeDiagram(String repositoryName, String timestamp, String projectSha, int classCount) throws IOException {
+        Files.write(tempDir.resolve(repositoryName + "_" + timestamp + ".png"), new byte[] {1, 2, 3});
+        Files.writeString(tempDir.resolve(repositoryName + "_" + timestamp + "_metadata.txt"),
+                "repositoryName=" + repositoryName + "\n" +
+                "timestamp=" + timestamp + "\n" +
+                "classCount=" + classCount + "\n" +
+                "projectSha=" + projectSha + "\n" +
+                "generatedAt=2025-01-01T12:00:00\n");
+    }
+}
@@ -0,0 +1,86 @@
+package com.archpilot.service.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+
+import com.archpilot.model.CompactRepositoryTree;
+
+class RepositoryTreeCacheTest {
+
+    private static final String SHA_1 = "9fb037999f264ba9a7fc6274d15fa3ae2ab98312";
+    private static final String SHA_2 = "0123456789abcdef0123456789abcdef01234567";
+    private static final Predicate<String> JAVA = path -> path.endsWith(".java");
+
+    @Test
+    void testGetTree_KeyedByCommitRecursionAndFilter() {
+        RepositoryTreeCache cache = new RepositoryTreeCache(true, 100, 10, 60);
+        CompactRepositoryTree tree = tree(2);
+
+        cache.putTree("octo/app", SHA_1, true, JAVA, tree);
+
+        assertSame(tree, cache.getTree("octo/app", SHA_1, true, JAVA).orElseThrow());
+        assertTrue(cache.getTree("octo/app", SHA_2, true, JAVA).isEmpty());
+        assertTrue(cache.getTree("octo/app", SHA_1, false, JAVA).isEmpty());
+        assertTrue(cache.getTree("octo/app", SHA_1, true, null).isEmpty());
+    }
+
+    @Test
+    void testPutTree_IgnoresBranchNames() {
+        RepositoryTreeCache cache = new RepositoryTreeCache(true, 100, 10, 60);
+
+        cache.putTree("octo/app", "main", true, null, tree(1));
+
+        assertTrue(cache.getTree("octo/app", "main", true, null).isEmpty());
+    }
+
+    @Test
+    void testPutTree_EvictsLeastRecentlyUsedByEntryCount() {
+        RepositoryTreeCache cache = new RepositoryTreeCache(true, 5, 10, 60);
+
+        cache.putTree("octo/one", SHA_1, true, null, tree(3));
+        cache.putTree("octo/two", SHA_1, true, null, tree(2));
+        cache.getTree("octo/one", SHA_1, true, null);
+        cache.putTree("octo/three", SHA_1, true, null, tree(2));
+
+        assertTrue(cache.getTree("octo/one", SHA_1, true, null).isPresent());
+        assertTrue(cache.getTree("octo/two", SHA_1, true, null).isEmpty());
+        assertEquals(5L, cache.getStats().get("treeEntries"));
+    }
+
+    @Test
+    void testPutHead_RequiresEtag() {
+        RepositoryTreeCache cache = new RepositoryTreeCache(true, 100, 10, 60);
+
+        cache.putHead("octo/app@main", SHA_1, null);
+        cache.putHead("octo/app@dev", SHA_2, "\"abc\"");
+
+        assertTrue(cache.getHead("octo/app@main").isEmpty());
+        RepositoryTreeCache.BranchHead head = cache.getHead("octo/app@dev").orElseThrow();
+        assertEquals(SHA_2, head.commitSha());
+        assertEquals("\"abc\"", head.etag());
+    }
+
+    @Test
+    void testGetDefaultBranch_ExpiresAfterTtl() {
+        RepositoryTreeCache cache = new RepositoryTreeCache(true, 100, 10, 60);
+        RepositoryTreeCache expired = new RepositoryTreeCache(true, 100, 10, 0);
+
+        cache.putDefaultBranch("octo/app", "develop");
+        expired.putDefaultBranch("octo/app", "develop");
+
+        assertEquals("develop", cache.getDefaultBranch("octo/app").orElseThrow());
+        assertTrue(cache.getDefaultBranch("octo/other").isEmpty());
+        assertTrue(expired.getDefaultBranch("octo/app").isEmpty());
+    }
+
+    private static CompactRepositoryTree tree(int files) {
+        CompactRepositoryTree.Builder builder = CompactRepositoryTree.builder();
+        for (int i = 0; i < files; i++) {
+            builder.add("src/File" + i + ".java", "file", SHA_1, 1L, null, null);
+        }
+        return builder.build();
+    }
+}
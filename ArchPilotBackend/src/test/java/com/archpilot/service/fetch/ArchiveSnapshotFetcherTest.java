@@ -0,0 +1,118 @@
+package com.archpilot.service.fetch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.archpilot.model.RepositoryTreeData;
+import com.archpilot.service.ClassDiagramGeneratorService.JavaClassInfo;
+import com.sun.net.httpserver.HttpServer;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+class ArchiveSnapshotFetcherTest {
+
+    private HttpServer server;
+    private final AtomicInteger archiveRequests = new AtomicInteger();
+    private volatile boolean archiveAvailable = true;
+    private RawGitHubFileContentFetcher rawFetcher;
+    private ArchiveSnapshotFetcher fetcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/repos/octo/app/zipball/", exchange -> {
+            archiveRequests.incrementAndGet();
+            if (!archiveAvailable) {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+            byte[] archive = archive("src/main/java/A.java", "class A {}", "src/main/java/B.java", "class B {}");
+            exchange.sendResponseHeaders(200, archive.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(archive);
+            }
+        });
+        server.start();
+
+        rawFetcher = mock(RawGitHubFileContentFetcher.class);
+        when(rawFetcher.fetchContent(any(), any())).thenReturn(Mono.just("class Raw {}"));
+        fetcher = new ArchiveSnapshotFetcher(WebClient.create(), rawFetcher, Schedulers.boundedElastic(),
+                "http://localhost:" + server.getAddress().getPort() + "/repos/{owner}/{repo}/zipball/{ref}",
+                "", 1024 * 1024, 16 * 1024 * 1024, 2, 600);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testFetchContent_ReusesBranchSnapshotWithinOneTree() {
+        RepositoryTreeData tree = branchTree();
+
+        assertEquals("class A {}", fetch(tree, "A"));
+        assertEquals("class B {}", fetch(tree, "B"));
+        assertEquals(1, archiveRequests.get());
+
+        // A new tree of the branch may see a moved branch, so it downloads again
+        assertEquals("class A {}", fetch(branchTree(), "A"));
+        assertEquals(2, archiveRequests.get());
+    }
+
+    @Test
+    void testFetchContent_RemembersFailedDownload() {
+        archiveAvailable = false;
+        RepositoryTreeData tree = branchTree();
+
+        assertEquals("class Raw {}", fetch(tree, "A"));
+        assertEquals("class Raw {}", fetch(tree, "B"));
+        assertEquals("class Raw {}", fetch(branchTree(), "A"));
+
+        assertEquals(1, archiveRequests.get());
+        verify(rawFetcher, times(3)).fetchContent(any(), any());
+    }
+
+    private String fetch(RepositoryTreeData tree, String className) {
+        JavaClassInfo javaClass = new JavaClassInfo();
+        javaClass.setClassName(className);
+        javaClass.setFullPath("src/main/java/" + className + ".java");
+        return fetcher.fetchContent(tree, javaClass).block(Duration.ofSeconds(10));
+    }
+
+    private static RepositoryTreeData branchTree() {
+        RepositoryTreeData tree = new RepositoryTreeData();
+        tree.setRepositoryUrl("https://github.com/octo/app");
+        tree.setBranch("main");
+        return tree;
+    }
+
+    private static byte[] archive(String... pathsAndContents) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < pathsAndContents.length; i += 2) {
+                zip.putNextEntry(new ZipEntry("octo-app-9fb0379/" + pathsAndContents[i]));
+                zip.write(pathsAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
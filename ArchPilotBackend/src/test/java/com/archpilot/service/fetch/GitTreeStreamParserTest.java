@@ -0,0 +1,83 @@
+package com.archpilot.service.fetch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.archpilot.model.TreeNode;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+class GitTreeStreamParserTest {
+
+    private static final String RESPONSE = """
+        {
+          "sha": "9fb037999f264ba9a7fc6274d15fa3ae2ab98312",
+          "url": "https://api.github.com/repos/octo/app/git/trees/9fb0379",
+          "tree": [
+            {"path": "README.md", "mode": "100644", "type": "blob", "sha": "a1", "size": 30, "url": "u1"},
+            {"path": "src/main", "mode": "040000", "type": "tree", "sha": "a2", "url": "u2"},
+            {"path": "src/main/App.java", "mode": "100644", "type": "blob", "sha": "a3", "size": 1200, "url": "u3"},
+            {"path": "src/main/Util.java", "mode": "100644", "type": "blob", "sha": "a4", "size": null, "url": "u4"}
+          ],
+          "truncated": true
+        }
+        """;
+
+    @Test
+    void testFinish_KeepsOnlyAcceptedEntries() throws IOException {
+        GitTreeStreamParser parser = new GitTreeStreamParser(new JsonFactory(), path -> path.endsWith(".java"));
+
+        parser.feed(RESPONSE.getBytes(StandardCharsets.UTF_8));
+        List<TreeNode> nodes = parser.finish().toTreeNodes();
+
+        assertEquals(List.of("src/main/App.java", "src/main/Util.java"), nodes.stream().map(TreeNode::getPath).toList());
+        TreeNode app = nodes.get(0);
+        assertEquals("App.java", app.getName());
+        assertEquals("file", app.getType());
+        assertEquals("a3", app.getSha());
+        assertEquals(1200L, app.getSize().longValue());
+        assertEquals("u3", app.getUrl());
+        assertNull(nodes.get(1).getSize());
+        assertEquals(2, parser.getSkippedEntries());
+        assertTrue(parser.isTruncated());
+    }
+
+    @Test
+    void testFinish_WithoutFilterKeepsDirectories() throws IOException {
+        GitTreeStreamParser parser = new GitTreeStreamParser(new JsonFactory(), null);
+
+        parser.feed(RESPONSE.getBytes(StandardCharsets.UTF_8));
+        List<TreeNode> nodes = parser.finish().toTreeNodes();
+
+        assertEquals(4, nodes.size());
+        assertEquals("dir", nodes.get(1).getType());
+        assertEquals("main", nodes.get(1).getName());
+    }
+
+    @Test
+    void testFeed_ChunksMayEndAnywhere() throws IOException {
+        byte[] body = RESPONSE.getBytes(StandardCharsets.UTF_8);
+        GitTreeStreamParser parser = new GitTreeStreamParser(new JsonFactory(), path -> path.endsWith(".java"));
+
+        for (int offset = 0; offset < body.length; offset += 5) {
+            parser.feed(Arrays.copyOfRange(body, offset, Math.min(body.length, offset + 5)));
+        }
+
+        assertEquals(2, parser.finish().size());
+    }
+
+    @Test
+    void testFinish_RejectsIncompleteResponse() throws IOException {
+        GitTreeStreamParser parser = new GitTreeStreamParser(new JsonFactory(), null);
+
+        parser.feed(RESPONSE.substring(0, RESPONSE.indexOf("Util.java")).getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(JsonProcessingException.class, parser::finish);
+    }
+}
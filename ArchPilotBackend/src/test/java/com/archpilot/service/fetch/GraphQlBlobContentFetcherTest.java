@@ -0,0 +1,134 @@
+package com.archpilot.service.fetch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.archpilot.model.RepositoryTreeData;
+import com.archpilot.service.ClassDiagramGeneratorService.JavaClassInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+class GraphQlBlobContentFetcherTest {
+
+    private static final RepositoryTreeData TREE = new RepositoryTreeData(
+        "https://github.com/octo/app", "main", List.of(), "GitHub", "9fb037999f264ba9a7fc6274d15fa3ae2ab98312");
+
+    @Mock
+    private RawGitHubFileContentFetcher rawFetcher;
+
+    private HttpServer server;
+    private final List<String> queries = new CopyOnWriteArrayList<>();
+    private volatile int status = 200;
+    private volatile String response = "";
+
+    @BeforeEach
+    void startStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/graphql", exchange -> {
+            queries.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            byte[] body = response.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopStubServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void testFetchContent_CoalescesConcurrentCallsIntoOneQuery() {
+        response = """
+            {"data": {"repository": {
+              "f0": {"text": "class A {}", "isBinary": false, "isTruncated": false},
+              "f1": {"text": "class B {}", "isBinary": false, "isTruncated": false},
+              "f2": null
+            }}}
+            """;
+        when(rawFetcher.fetchContent(any(), any())).thenReturn(Mono.just("class C {}"));
+        GraphQlBlobContentFetcher fetcher = fetcher("token", 10);
+
+        List<String> contents = fetchAll(fetcher, javaClass("A", "a1"), javaClass("B", null), javaClass("C", "c1"));
+
+        assertEquals(List.of("class A {}", "class B {}", "class C {}"), contents);
+        assertEquals(1, queries.size());
+        assertTrue(queries.get(0).contains("GitObjectID"));
+        // Without a blob SHA the file is looked up by commit and path
+        assertTrue(queries.get(0).contains("9fb037999f264ba9a7fc6274d15fa3ae2ab98312:src/B.java"));
+        verify(rawFetcher, times(1)).fetchContent(any(), any());
+        fetcher.shutdown();
+    }
+
+    @Test
+    void testFetchContent_FallsBackWhenQueryFails() {
+        status = 502;
+        when(rawFetcher.fetchContent(any(), any())).thenReturn(Mono.just("raw"));
+        GraphQlBlobContentFetcher fetcher = fetcher("token", 10);
+
+        List<String> contents = fetchAll(fetcher, javaClass("A", "a1"), javaClass("B", "b1"));
+
+        assertEquals(List.of("raw", "raw"), contents);
+        verify(rawFetcher, times(2)).fetchContent(any(), any());
+        fetcher.shutdown();
+    }
+
+    @Test
+    void testFetchContent_WithoutTokenUsesRawFetcher() {
+        when(rawFetcher.fetchContent(any(), any())).thenReturn(Mono.just("raw"));
+        GraphQlBlobContentFetcher fetcher = fetcher("", 10);
+
+        assertFalse(fetcher.isAvailable());
+        assertEquals("raw", fetcher.fetchContent(TREE, javaClass("A", "a1")).block(Duration.ofSeconds(5)));
+        assertTrue(queries.isEmpty());
+        fetcher.shutdown();
+    }
+
+    private GraphQlBlobContentFetcher fetcher(String token, int maxBatchFiles) {
+        String endpoint = "http://localhost:" + server.getAddress().getPort() + "/graphql";
+        return new GraphQlBlobContentFetcher(WebClient.create(), new ObjectMapper(), rawFetcher,
+                                             new ConnectionPoolMetricsRegistry(), endpoint, token,
+                                             maxBatchFiles, 1024 * 1024, 200, 2);
+    }
+
+    private static List<String> fetchAll(GraphQlBlobContentFetcher fetcher, JavaClassInfo... javaClasses) {
+        return Flux.fromArray(javaClasses)
+                .flatMapSequential(javaClass -> fetcher.fetchContent(TREE, javaClass))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+    }
+
+    private static JavaClassInfo javaClass(String name, String sha) {
+        JavaClassInfo javaClass = new JavaClassInfo();
+        javaClass.setClassName(name);
+        javaClass.setFullPath("src/" + name + ".java");
+        javaClass.setSha(sha);
+        javaClass.setSize(100L);
+        return javaClass;
+    }
+}
@@ -0,0 +1,27 @@
+package com.archpilot.service.fetch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.archpilot.model.RepositoryTreeData;
+
+class RawGitHubFileContentFetcherTest {
+
+    @Test
+    void testTreeRef_PrefersCommitOverBranch() {
+        RepositoryTreeData tree = new RepositoryTreeData();
+        tree.setRepositoryUrl("https://github.com/octo/app");
+        tree.setBranch("main");
+        tree.setCommitSha("9fb0379c2d");
+
+        assertEquals("https://raw.githubusercontent.com/octo/app/9fb0379c2d/src/App.java",
+                     RawGitHubFileContentFetcher.constructRawGitHubUrl(tree.getRepositoryUrl(),
+                             RawGitHubFileContentFetcher.treeRef(tree), "src/App.java"));
+
+        tree.setCommitSha(null);
+        assertEquals("main", RawGitHubFileContentFetcher.treeRef(tree));
+        tree.setBranch(null);
+        assertEquals("master", RawGitHubFileContentFetcher.treeRef(tree));
+    }
+}
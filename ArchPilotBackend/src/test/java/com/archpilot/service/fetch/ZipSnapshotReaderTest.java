@@ -0,0 +1,80 @@
+package com.archpilot.service.fetch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ZipSnapshotReaderTest {
+
+    private static final String ROOT = "octo-app-9fb0379/";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRead_SelectsJavaEntriesWithRepositoryPaths() throws IOException {
+        Path archive = writeArchive(
+            "README.md", "# App",
+            "src/main/java/App.java", "class App {}",
+            "src/main/java/util/Util.java", "class Util {}",
+            "src/test/java/AppTest.java", "class AppTest {}");
+        ZipSnapshotReader reader = new ZipSnapshotReader(1024, 1024 * 1024);
+
+        Map<String, String> contents;
+        try (InputStream in = Files.newInputStream(archive)) {
+            contents = reader.read(in, path -> path.startsWith("src/main/") && path.endsWith(".java"));
+        }
+
+        assertEquals(Set.of("src/main/java/App.java", "src/main/java/util/Util.java"), contents.keySet());
+        assertEquals("class Util {}", contents.get("src/main/java/util/Util.java"));
+        assertFalse(reader.isBudgetExhausted());
+    }
+
+    @Test
+    void testRead_SkipsOversizedEntriesAndStopsAtBudget() throws IOException {
+        Path archive = writeArchive(
+            "Big.java", "x".repeat(200),
+            "A.java", "a".repeat(60),
+            "B.java", "b".repeat(60));
+        ZipSnapshotReader reader = new ZipSnapshotReader(100, 100);
+
+        Map<String, String> contents;
+        try (InputStream in = Files.newInputStream(archive)) {
+            contents = reader.read(in, path -> true);
+        }
+
+        assertEquals(1, reader.getOversizedEntries());
+        // Only the first of the two 60-byte files fits in the 100-byte budget
+        assertEquals(Set.of("A.java"), contents.keySet());
+        assertTrue(reader.isBudgetExhausted());
+    }
+
+    /**
+     * Write a GitHub-style zipball to a local file; arguments are path, content pairs
+     */
+    private Path writeArchive(String... files) throws IOException {
+        Path archive = tempDir.resolve("snapshot.zip");
+        try (OutputStream out = Files.newOutputStream(archive); ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry(ROOT));
+            zip.closeEntry();
+            for (int i = 0; i < files.length; i += 2) {
+                zip.putNextEntry(new ZipEntry(ROOT + files[i]));
+                zip.write(files[i + 1].getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return archive;
+    }
+}
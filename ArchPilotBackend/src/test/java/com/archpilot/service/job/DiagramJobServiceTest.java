@@ -0,0 +1,116 @@
+package com.archpilot.service.job;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.archpilot.dto.ClassDiagramResponse;
+import com.archpilot.model.ApiResponse;
+import com.archpilot.service.ClassDiagramGeneratorService.JavaClassInfo;
+import com.archpilot.service.agent.GeminiClassAnalyzerAgentService.ClassAnalysisResult;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class DiagramJobServiceTest {
+
+    private DiagramJobService diagramJobService;
+
+    @BeforeEach
+    void setUp() {
+        diagramJobService = new DiagramJobService();
+        ReflectionTestUtils.setField(diagramJobService, "retentionMinutes", 60L);
+        ReflectionTestUtils.setField(diagramJobService, "maxJobs", 2);
+        ReflectionTestUtils.setField(diagramJobService, "eventHistory", 50);
+    }
+
+    @Test
+    void testSubmit_ReportsProgressAndCompletes() {
+        Sinks.One<ApiResponse<Object>> result = Sinks.one();
+
+        DiagramJob job = diagramJobService.submit("https://github.com/test/repo", "main", listener -> {
+            listener.onStage("TREE_FETCHED", "Repository tree fetched");
+            listener.onClassesDiscovered(2);
+            listener.onClassFetched(javaClass("UserService"));
+            listener.onClassAnalyzed(javaClass("UserService"), analysis("UserService"), false);
+            listener.onClassAnalyzed(javaClass("UserRepository"), analysis("UserRepository"), true);
+            return result.asMono();
+        });
+
+        assertEquals(DiagramJob.STATUS_RUNNING, job.getStatus());
+        assertEquals(2, job.getTotalClasses());
+        assertEquals(2, job.getFetchedClasses());
+        assertEquals(2, job.getAnalyzedClasses());
+
+        result.tryEmitValue(ApiResponse.success("done", ClassDiagramResponse.success("Class diagram generated successfully", null)));
+
+        assertEquals(DiagramJob.STATUS_COMPLETED, job.getStatus());
+        List<DiagramJobEvent> events = diagramJobService.getEvents(job.getJobId()).collectList().block();
+        assertNotNull(events);
+        assertEquals(DiagramJobEvent.TYPE_STAGE, events.get(0).getType());
+        assertEquals(DiagramJobEvent.TYPE_COMPLETED, events.get(events.size() - 1).getType());
+        assertEquals(1, events.stream().filter(e -> DiagramJobEvent.TYPE_CLASS_FETCHED.equals(e.getType())).count());
+        assertEquals(2, events.stream().filter(e -> DiagramJobEvent.TYPE_CLASS_ANALYZED.equals(e.getType())).count());
+    }
+
+    @Test
+    void testGetEvents_LateSubscriberGetsRecentEventsWithCurrentCounters() {
+        ReflectionTestUtils.setField(diagramJobService, "eventHistory", 3);
+
+        DiagramJob job = diagramJobService.submit("https://github.com/test/repo", "main", listener -> {
+            listener.onClassesDiscovered(10);
+            for (int i = 0; i < 10; i++) {
+                listener.onClassAnalyzed(javaClass("Class" + i), analysis("Class" + i), true);
+            }
+            return Mono.just(ApiResponse.success("done", ClassDiagramResponse.success("Class diagram generated successfully", null)));
+        });
+
+        List<DiagramJobEvent> events = diagramJobService.getEvents(job.getJobId()).collectList().block();
+        assertNotNull(events);
+        assertEquals(3, events.size());
+        assertEquals(DiagramJobEvent.TYPE_COMPLETED, events.get(2).getType());
+        assertEquals(9, events.get(0).getAnalyzedClasses());
+        assertEquals(10, events.get(0).getTotalClasses());
+    }
+
+    @Test
+    void testSubmit_DiagramErrorMarksJobFailed() {
+        DiagramJob job = diagramJobService.submit("https://github.com/test/repo", null, listener ->
+            Mono.just(ApiResponse.<Object>success("failed", ClassDiagramResponse.error("No Java classes found in the repository"))));
+
+        assertEquals(DiagramJob.STATUS_FAILED, job.getStatus());
+    }
+
+    @Test
+    void testSubmit_RejectsWhenTooManyJobsAreRunning() {
+        diagramJobService.submit("https://github.com/test/a", null, listener -> Mono.never());
+        diagramJobService.submit("https://github.com/test/b", null, listener -> Mono.never());
+
+        assertThrows(IllegalStateException.class, () ->
+            diagramJobService.submit("https://github.com/test/c", null, listener -> Mono.never()));
+    }
+
+    @Test
+    void testGetJob_UnknownIdIsEmpty() {
+        assertTrue(diagramJobService.getJob("missing").isEmpty());
+    }
+
+    private JavaClassInfo javaClass(String className) {
+        JavaClassInfo javaClass = new JavaClassInfo();
+        javaClass.setClassName(className);
+        javaClass.setFullPath("src/main/java/com/example/" + className + ".java");
+        javaClass.setPackageName("com.example");
+        return javaClass;
+    }
+
+    private ClassAnalysisResult analysis(String className) {
+        ClassAnalysisResult result = new ClassAnalysisResult();
+        result.setClassName(className);
+        result.setClassType("class");
+        return result;
+    }
+}
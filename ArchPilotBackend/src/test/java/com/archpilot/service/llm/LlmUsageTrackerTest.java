@@ -0,0 +1,103 @@
+package com.archpilot.service.llm;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+class LlmUsageTrackerTest {
+
+    private final LlmUsageTracker tracker = new LlmUsageTracker(10);
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void testRecord_AccumulatesTokensOnCurrentRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/chat/message");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/chat/message");
+        request.setAttribute("userId", "ip:10.0.0.1");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        assertEquals(1200, tracker.record(response(1000L, 200L)));
+        assertEquals(350, tracker.record(response(300L, 50L)));
+
+        assertEquals(1550, LlmUsageTracker.requestTokens(request));
+        assertFalse(LlmUsageTracker.hasUnreportedUsage(request));
+        assertEquals(1550L, counter("endpoints", "/api/chat/message").get("totalTokens"));
+        assertEquals(2L, counter("users", "ip:10.0.0.1").get("calls"));
+    }
+
+    @Test
+    void testWithRequestUsage_AttributesCallsOnWorkerThreadsToTheRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/uml/class-diagram");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/uml/class-diagram");
+        request.setAttribute("userId", "api:key-1");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        Context context = LlmUsageTracker.requestUsageContext();
+        RequestContextHolder.resetRequestAttributes();
+
+        Long tokens = LlmUsageTracker.withRequestUsage(() -> tracker.record(response(800L, 200L)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .contextWrite(context)
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(1000L, tokens);
+        assertEquals(1000, LlmUsageTracker.requestTokens(request));
+        assertEquals(1, LlmUsageTracker.requestCalls(request));
+        assertEquals(1000L, counter("users", "api:key-1").get("totalTokens"));
+        assertNull(counter("endpoints", "background"));
+    }
+
+    @Test
+    void testRecord_OutsideRequestCountsAsBackground() {
+        tracker.record(response(500L, 100L));
+
+        assertEquals(600L, counter("endpoints", "background").get("totalTokens"));
+        assertEquals(100L, counter("users", "system").get("completionTokens"));
+        assertEquals(1L, ((Map<?, ?>) tracker.getStats().get("total")).get("calls"));
+    }
+
+    @Test
+    void testRecord_MissingUsageIsFlagged() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/agent/ask");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        assertEquals(-1, tracker.record(response(null, null)));
+
+        assertTrue(LlmUsageTracker.hasUnreportedUsage(request));
+        assertEquals(1L, counter("endpoints", "/api/agent/ask").get("callsWithoutUsage"));
+        assertEquals(1L, counter("users", "anonymous").get("calls"));
+    }
+
+    private Map<?, ?> counter(String group, String key) {
+        return (Map<?, ?>) ((Map<?, ?>) tracker.getStats().get(group)).get(key);
+    }
+
+    private ChatResponse response(Long promptTokens, Long completionTokens) {
+        Usage usage = mock(Usage.class);
+        when(usage.getPromptTokens()).thenReturn(promptTokens);
+        when(usage.getGenerationTokens()).thenReturn(completionTokens);
+        ChatResponseMetadata metadata = mock(ChatResponseMetadata.class);
+        when(metadata.getUsage()).thenReturn(usage);
+        ChatResponse response = mock(ChatResponse.class);
+        when(response.getMetadata()).thenReturn(metadata);
+        return response;
+    }
+}
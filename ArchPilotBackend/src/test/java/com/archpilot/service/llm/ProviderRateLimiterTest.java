@@ -0,0 +1,235 @@
+package com.archpilot.service.llm;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.archpilot.entity.ProviderBudget;
+import com.archpilot.service.llm.ProviderRateLimiter.Waiter;
+
+class ProviderRateLimiterTest {
+
+    private static final int[] DEFAULT_WEIGHTS = {8, 3, 1};
+
+    private final AtomicLong clock = new AtomicLong();
+    private ProviderRateLimiter limiter;
+
+    @AfterEach
+    void tearDown() {
+        if (limiter != null) {
+            limiter.shutdown();
+        }
+    }
+
+    @Test
+    void testDispatch_SpacesRequestsAtTargetUtilization() {
+        // 60 RPM at 50% utilization: one request every two seconds
+        limiter = limiter(60, 1_000_000, 0, 0.5, 120);
+
+        Waiter first = limiter.enqueue(10, LlmPriority.STANDARD);
+        Waiter second = limiter.enqueue(10, LlmPriority.STANDARD);
+        assertTrue(first.isGranted());
+        assertFalse(second.isGranted());
+
+        advance(1900);
+        assertFalse(second.isGranted());
+
+        advance(100);
+        assertTrue(second.isGranted());
+    }
+
+    @Test
+    void testDispatch_LargeRequestsAreSpacedByTokens() {
+        // TPM is the tighter limit: a 30k token request takes half a minute of the 60k budget
+        limiter = limiter(1000, 60_000, 0, 1.0, 120);
+
+        limiter.enqueue(30_000, LlmPriority.STANDARD);
+        Waiter next = limiter.enqueue(10, LlmPriority.STANDARD);
+
+        advance(29_000);
+        assertFalse(next.isGranted());
+
+        advance(1_000);
+        assertTrue(next.isGranted());
+    }
+
+    @Test
+    void testDispatch_InteractiveTakesNextSlotAheadOfQueuedBatch() {
+        limiter = limiter(60, 1_000_000, 0, 1.0, 120);
+
+        limiter.enqueue(10, LlmPriority.BATCH);
+        Waiter batch = limiter.enqueue(10, LlmPriority.BATCH);
+        Waiter interactive = limiter.enqueue(10, LlmPriority.INTERACTIVE);
+
+        advance(1000);
+        assertTrue(interactive.isGranted());
+        assertFalse(batch.isGranted());
+
+        advance(1000);
+        assertTrue(batch.isGranted());
+    }
+
+    @Test
+    void testDispatch_SharesSlotsByWeightWhileAllQueuesWait() {
+        limiter = limiter(60, 1_000_000, 0, 1.0, 3600);
+        limiter.enqueue(10, LlmPriority.BATCH); // takes the free slot
+
+        Waiter[] interactive = new Waiter[20];
+        Waiter[] batch = new Waiter[20];
+        for (int i = 0; i < 20; i++) {
+            interactive[i] = limiter.enqueue(10, LlmPriority.INTERACTIVE);
+            batch[i] = limiter.enqueue(10, LlmPriority.BATCH);
+        }
+
+        for (int i = 0; i < 9; i++) {
+            advance(1000);
+        }
+
+        // 9 slots at 8:1 - eight interactive calls and one batch call
+        assertTrue(interactive[7].isGranted());
+        assertFalse(interactive[8].isGranted());
+        assertTrue(batch[0].isGranted());
+        assertFalse(batch[1].isGranted());
+    }
+
+    @Test
+    void testDispatch_StarvingCallerIsServedRegardlessOfWeights() {
+        limiter = new ProviderRateLimiter(60, 1_000_000, 0, 1.0, "UTC", 0, new int[] {50, 3, 1}, 5, clock::get);
+        limiter.enqueue(10, LlmPriority.INTERACTIVE);
+        Waiter batch = limiter.enqueue(10, LlmPriority.BATCH);
+
+        // Keep the interactive queue busy so batch would only get 1 in 51 slots by weight
+        for (int i = 0; i < 5; i++) {
+            limiter.enqueue(10, LlmPriority.INTERACTIVE);
+            advance(1000);
+        }
+
+        assertTrue(batch.isGranted());
+    }
+
+    @Test
+    void testEnqueue_RejectsOnceDailyBudgetIsUsed() {
+        limiter = limiter(1000, 1_000_000, 2, 1.0, 120);
+
+        limiter.enqueue(10, LlmPriority.STANDARD);
+        limiter.enqueue(10, LlmPriority.STANDARD);
+
+        LlmQuotaExceededException exception = assertThrows(LlmQuotaExceededException.class,
+                () -> limiter.enqueue(10, LlmPriority.INTERACTIVE));
+        assertTrue(exception.getRetryAfter().compareTo(Duration.ofDays(1)) <= 0);
+    }
+
+    @Test
+    void testExecute_BacksOffAfterThrottledCall() {
+        limiter = limiter(60, 1_000_000, 0, 1.0, 120);
+
+        assertThrows(IllegalStateException.class, () -> limiter.execute("prompt", LlmPriority.BATCH, () -> {
+            throw new IllegalStateException("HTTP 429 - RESOURCE_EXHAUSTED");
+        }));
+        Waiter next = limiter.enqueue(10, LlmPriority.INTERACTIVE);
+
+        advance(29_000);
+        assertFalse(next.isGranted());
+
+        advance(1_000);
+        assertTrue(next.isGranted());
+    }
+
+    @Test
+    void testAcquire_InstancesShareTheDailyBudget() {
+        InMemoryBudgetStore sharedBudget = new InMemoryBudgetStore(2);
+        ProviderRateLimiter first = sharedLimiter(600_000, 4, sharedBudget);
+        ProviderRateLimiter second = sharedLimiter(600_000, 4, sharedBudget);
+        try {
+            first.acquire(10, LlmPriority.STANDARD);
+            second.acquire(10, LlmPriority.STANDARD);
+            first.acquire(10, LlmPriority.STANDARD);
+            second.acquire(10, LlmPriority.STANDARD);
+
+            assertThrows(LlmQuotaExceededException.class, () -> first.acquire(10, LlmPriority.STANDARD));
+        } finally {
+            first.shutdown();
+            second.shutdown();
+        }
+    }
+
+    @Test
+    void testAcquire_LeasesSeveralSlotsPerTransaction() {
+        InMemoryBudgetStore sharedBudget = new InMemoryBudgetStore(10);
+        ProviderRateLimiter shared = sharedLimiter(6_000, 0, sharedBudget);
+        try {
+            for (int i = 0; i < 4; i++) {
+                shared.acquire(10, LlmPriority.STANDARD);
+            }
+
+            assertEquals(1, sharedBudget.leases);
+        } finally {
+            shared.shutdown();
+        }
+    }
+
+    @Test
+    void testExecute_RunsCallOnceGranted() {
+        limiter = new ProviderRateLimiter(60, 1_000_000, 0, 1.0, "UTC", 0, DEFAULT_WEIGHTS, 120);
+
+        assertEquals("answer", limiter.execute("prompt", LlmPriority.INTERACTIVE, () -> "answer"));
+    }
+
+    @Test
+    void testEstimateTokens_IncludesCompletionAllowance() {
+        limiter = new ProviderRateLimiter(10, 250_000, 0, 0.95, "UTC", 1000, DEFAULT_WEIGHTS, 120);
+
+        String prompt = "Analyze the following Java class";
+        assertEquals(TokenEstimator.estimate(prompt) + 1000, limiter.estimateTokens(prompt));
+        assertEquals(1000, limiter.estimateTokens(null));
+    }
+
+    private ProviderRateLimiter limiter(int rpm, int tpm, int rpd, double utilization, long maxWaitSeconds) {
+        return new ProviderRateLimiter(rpm, tpm, rpd, utilization, "UTC", 0, DEFAULT_WEIGHTS, maxWaitSeconds, clock::get);
+    }
+
+    private static ProviderRateLimiter sharedLimiter(int rpm, int rpd, ProviderBudgetStore sharedBudget) {
+        return new ProviderRateLimiter(rpm, 1_000_000_000, rpd, 1.0, "UTC", 0, DEFAULT_WEIGHTS, 120, 30,
+                                       System::nanoTime, sharedBudget);
+    }
+
+    private void advance(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+        limiter.dispatch();
+    }
+
+    /**
+     * Stands in for the provider_budgets table shared by the instances
+     */
+    private static class InMemoryBudgetStore extends ProviderBudgetStore {
+        private ProviderBudget row;
+        private int leases;
+
+        InMemoryBudgetStore(int leaseSlots) {
+            super(null, null, true, leaseSlots);
+        }
+
+        @Override
+        public synchronized Lease lease(long windowMillis, LocalDate day, long requestsPerDay,
+                                        Lease previous, int previousUsed) {
+            leases++;
+            return super.lease(windowMillis, day, requestsPerDay, previous, previousUsed);
+        }
+
+        @Override
+        ProviderBudget lockBudget(LocalDate day) {
+            return row != null ? row : new ProviderBudget(PROVIDER, day);
+        }
+
+        @Override
+        void store(ProviderBudget budget) {
+            row = budget;
+        }
+    }
+}
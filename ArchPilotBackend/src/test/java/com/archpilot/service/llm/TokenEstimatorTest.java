@@ -0,0 +1,72 @@
+package com.archpilot.service.llm;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class TokenEstimatorTest {
+
+    private static final String JAVA_SOURCE = """
+        package com.archpilot.service;
+
+        import java.util.List;
+
+        @Service
+        public class UserService {
+
+            private final UserRepository userRepository;
+
+            public List<User> findActiveUsers(int limit) {
+                return userRepository.findByStatus("ACTIVE", limit);
+            }
+        }
+        """;
+
+    @Test
+    void testEstimate_EmptyAndNull() {
+        assertEquals(0, TokenEstimator.estimate(null));
+        assertEquals(0, TokenEstimator.estimate(""));
+    }
+
+    @Test
+    void testEstimate_JavaSourceInTokenizerRange() {
+        int tokens = TokenEstimator.estimate(JAVA_SOURCE);
+        double charsPerToken = (double) JAVA_SOURCE.length() / tokens;
+
+        // BPE tokenizers land around 3-4.5 characters per token on Java source
+        assertTrue(charsPerToken > 2.5 && charsPerToken < 4.5, "chars per token: " + charsPerToken);
+    }
+
+    @Test
+    void testEstimate_SplitsIdentifiersAndGroupsSymbols() {
+        assertEquals(1, TokenEstimator.estimate("user"));
+        assertEquals(4, TokenEstimator.estimate("userRepositoryImpl"));
+        assertEquals(3, TokenEstimator.estimate("MAX_CONTENT"));
+        assertEquals(3, TokenEstimator.estimate("1234567"));
+        assertEquals(2, TokenEstimator.estimate("<|--"));
+        assertEquals(1, TokenEstimator.estimate("();".substring(0, 2)));
+    }
+
+    @Test
+    void testEstimate_GrowsWithText() {
+        assertTrue(TokenEstimator.estimate(JAVA_SOURCE + JAVA_SOURCE) > TokenEstimator.estimate(JAVA_SOURCE));
+    }
+
+    @Test
+    void testTruncate_KeepsTextWithinBudget() {
+        assertSame(JAVA_SOURCE, TokenEstimator.truncate(JAVA_SOURCE, 10_000, "// cut"));
+    }
+
+    @Test
+    void testTruncate_CutsAtLineBoundaryWithinBudget() {
+        String marker = "\n// ... (truncated)";
+
+        String truncated = TokenEstimator.truncate(JAVA_SOURCE, 30, marker);
+
+        assertTrue(truncated.endsWith(marker));
+        assertTrue(TokenEstimator.estimate(truncated) <= 30);
+        String kept = truncated.substring(0, truncated.length() - marker.length());
+        assertTrue(JAVA_SOURCE.startsWith(kept));
+        assertTrue(kept.endsWith("\n"));
+    }
+}
@@ -0,0 +1,187 @@
+package com.archpilot.service.mirror;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.archpilot.model.BranchInfo;
+import com.archpilot.model.CompactRepositoryTree;
+
+class GitMirrorManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path source;
+    private String sourceUrl;
+
+    @BeforeEach
+    void createSourceRepository() throws Exception {
+        Assumptions.assumeTrue(gitAvailable(), "git is not installed");
+        source = tempDir.resolve("source");
+        Files.createDirectories(source.resolve("src/main/java"));
+        Files.writeString(source.resolve("README.md"), "# App");
+        Files.writeString(source.resolve("src/main/java/App.java"), "class App {}");
+        run(source, "git", "init", "--quiet", "--initial-branch=main");
+        commitAll("Initial commit");
+        run(source, "git", "branch", "feature");
+        sourceUrl = source.toUri().toString();
+    }
+
+    @Test
+    void testSync_MirrorsRepositoryAndReadsTreeBranchesAndBlobs() throws IOException {
+        GitMirrorManager manager = manager(0);
+
+        Path mirror = manager.sync(sourceUrl);
+        String commitSha = manager.resolveCommit(mirror, null);
+        CompactRepositoryTree tree = manager.readTree(mirror, commitSha, true, path -> !path.equals("README.md"));
+        List<BranchInfo> branches = manager.listBranches(mirror, null);
+
+        assertEquals("main", manager.defaultBranch(mirror));
+        assertEquals(List.of("src", "src/main", "src/main/java", "src/main/java/App.java"), paths(tree));
+        int app = tree.size() - 1;
+        assertTrue(tree.isFile(app));
+        assertEquals(12L, tree.fileSize(app).longValue());
+        assertEquals(List.of("feature", "main"), branches.stream().map(BranchInfo::getName).toList());
+        assertEquals("class App {}", manager.readBlob(sourceUrl, tree.sha(app)).orElseThrow());
+        manager.shutdown();
+    }
+
+    @Test
+    void testSync_FetchesNewCommitsIntoExistingMirror() throws Exception {
+        GitMirrorManager manager = manager(0);
+        Path mirror = manager.sync(sourceUrl);
+        String firstCommit = manager.resolveCommit(mirror, "main");
+
+        Files.writeString(source.resolve("src/main/java/Util.java"), "class Util {}");
+        commitAll("Add Util");
+        manager.sync(sourceUrl);
+        String secondCommit = manager.resolveCommit(mirror, "main");
+
+        assertNotEquals(firstCommit, secondCommit);
+        CompactRepositoryTree tree = manager.readTree(mirror, secondCommit, true, path -> path.endsWith(".java"));
+        assertEquals(List.of("src/main/java/App.java", "src/main/java/Util.java"), paths(tree));
+        assertEquals(1L, manager.getStats().get("fetches"));
+        manager.shutdown();
+    }
+
+    @Test
+    void testSync_StopsServingRepositoryThatCannotBeFetchedAnonymously() throws Exception {
+        GitMirrorManager manager = manager(0);
+        Path mirror = manager.sync(sourceUrl);
+        String appSha = appBlobSha(manager, mirror);
+        assertTrue(manager.readBlob(sourceUrl, appSha).isPresent());
+
+        // The source disappears (or turns private): the fetch fails and the mirror is dropped
+        run(tempDir, "rm", "-rf", source.toString());
+        assertThrows(IOException.class, () -> manager.sync(sourceUrl));
+
+        assertFalse(Files.exists(mirror));
+        assertFalse(manager.readBlob(sourceUrl, appSha).isPresent());
+        assertFalse(manager.useMirror(sourceUrl));
+        manager.shutdown();
+    }
+
+    @Test
+    void testUseMirror_SkipsRepositoryThatCannotBeCloned() {
+        GitMirrorManager manager = manager(0);
+        String missingUrl = tempDir.resolve("missing").toUri().toString();
+
+        assertThrows(IOException.class, () -> manager.sync(missingUrl));
+
+        assertFalse(manager.useMirror(missingUrl));
+    }
+
+    @Test
+    void testReadBlob_IgnoresMirrorNotFetchedInThisProcess() throws IOException {
+        GitMirrorManager first = manager(0);
+        Path mirror = first.sync(sourceUrl);
+        String appSha = appBlobSha(first, mirror);
+        first.shutdown();
+
+        // A restarted instance finds the mirror on disk but must confirm public access first
+        GitMirrorManager restarted = manager(0);
+        assertFalse(restarted.readBlob(sourceUrl, appSha).isPresent());
+        restarted.sync(sourceUrl);
+        assertEquals("class App {}", restarted.readBlob(sourceUrl, appSha).orElseThrow());
+        restarted.shutdown();
+    }
+
+    @Test
+    void testUseMirror_AfterMinimumRequests() {
+        GitMirrorManager manager = new GitMirrorManager(true, tempDir.resolve("mirrors").toString(), 2, 60, 60, 60, "git");
+
+        assertFalse(manager.useMirror("https://github.com/octo/app"));
+        assertTrue(manager.useMirror("https://github.com/octo/app"));
+        assertFalse(manager.useMirror("https://github.com/octo/other"));
+        assertEquals(tempDir.resolve("mirrors/github.com_octo_app.git"), manager.mirrorPath("https://github.com/octo/app.git"));
+    }
+
+    @Test
+    void testResolveCommit_RejectsReferenceThatLooksLikeAnOption() throws IOException {
+        GitMirrorManager manager = manager(0);
+        Path mirror = manager.sync(sourceUrl);
+
+        assertThrows(IOException.class, () -> manager.resolveCommit(mirror, "--output=/tmp/out"));
+        manager.shutdown();
+    }
+
+    @Test
+    void testSync_TimesOutHungGitCommand() throws IOException {
+        Path hungGit = tempDir.resolve("hung-git.sh");
+        Files.writeString(hungGit, "#!/bin/sh\nsleep 60\n");
+        assertTrue(hungGit.toFile().setExecutable(true));
+        GitMirrorManager manager = new GitMirrorManager(true, tempDir.resolve("mirrors").toString(), 1, 0, 1, 60, hungGit.toString());
+
+        long start = System.nanoTime();
+        IOException error = assertThrows(IOException.class, () -> manager.sync(sourceUrl));
+
+        assertTrue(error.getMessage().contains("timed out"), error.getMessage());
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 10);
+    }
+
+    private GitMirrorManager manager(long fetchIntervalSeconds) {
+        return new GitMirrorManager(true, tempDir.resolve("mirrors").toString(), 1, fetchIntervalSeconds, 60, 60, "git");
+    }
+
+    private void commitAll(String message) throws Exception {
+        run(source, "git", "add", "-A");
+        run(source, "git", "-c", "user.name=Test", "-c", "user.email=test@example.com",
+            "commit", "--quiet", "-m", message);
+    }
+
+    private static String appBlobSha(GitMirrorManager manager, Path mirror) throws IOException {
+        CompactRepositoryTree tree = manager.readTree(mirror, manager.resolveCommit(mirror, null), true,
+                                                      path -> path.endsWith("App.java"));
+        return tree.sha(0);
+    }
+
+    private static List<String> paths(CompactRepositoryTree tree) {
+        return IntStream.range(0, tree.size()).mapToObj(tree::path).toList();
+    }
+
+    private static boolean gitAvailable() {
+        try {
+            return new ProcessBuilder("git", "--version").start().waitFor() == 0;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static void run(Path directory, String... command) throws Exception {
+        Process process = new ProcessBuilder(command).directory(directory.toFile()).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(process.waitFor(30, TimeUnit.SECONDS) && process.exitValue() == 0, output);
+    }
+}
@@ -0,0 +1,130 @@
+package com.archpilot.service.provider;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.archpilot.model.BranchInfo;
+import com.archpilot.service.cache.RepositoryTreeCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+class GitHubRepositoryProviderTest {
+
+    private static final String REPOSITORY_URL = "https://github.com/octo/app";
+    private static final Pattern PAGE = Pattern.compile("[?&]page=(\\d+)");
+
+    private HttpServer server;
+    private final List<String> requestedPages = new CopyOnWriteArrayList<>();
+    private volatile int branchCount;
+
+    @BeforeEach
+    void startFakeApi() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/repos/octo/app/branches", exchange -> {
+            Matcher matcher = PAGE.matcher(exchange.getRequestURI().getRawQuery());
+            int page = matcher.find() ? Integer.parseInt(matcher.group(1)) : 1;
+            int pages = (branchCount + 99) / 100;
+            String etag = "\"branches-" + branchCount + "-" + page + "\"";
+            requestedPages.add(page + (exchange.getRequestHeaders().containsKey("If-None-Match") ? " conditional" : ""));
+
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+
+            String body = IntStream.range((page - 1) * 100, Math.min(page * 100, branchCount))
+                    .mapToObj(i -> String.format("{\"name\": \"branch-%03d\", \"commit\": {\"sha\": \"%040d\"}, \"protected\": %b}",
+                                                 i, i, i == 0))
+                    .collect(Collectors.joining(",", "[", "]"));
+            if (page < pages) {
+                exchange.getResponseHeaders().add("Link", String.format(
+                    "<%s/repos/octo/app/branches?per_page=100&page=%d>; rel=\"next\", <%s/repos/octo/app/branches?per_page=100&page=%d>; rel=\"last\"",
+                    baseUrl(), page + 1, baseUrl(), pages));
+            }
+            exchange.getResponseHeaders().add("ETag", etag);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopFakeApi() {
+        server.stop(0);
+    }
+
+    @Test
+    void testBranches_FollowsEveryPage() {
+        branchCount = 250;
+
+        List<BranchInfo> branches = provider(pageClient()).branches(REPOSITORY_URL, null)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(250, branches.size());
+        assertEquals("branch-249", branches.get(249).getName());
+        assertTrue(branches.get(0).isProtected());
+        assertEquals(List.of("1", "2", "3"), requestedPages);
+    }
+
+    @Test
+    void testBranches_StopsRequestingPagesAtLimit() {
+        branchCount = 250;
+
+        List<BranchInfo> branches = provider(pageClient()).branches(REPOSITORY_URL, null)
+                .take(120)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(120, branches.size());
+        assertEquals(List.of("1", "2"), requestedPages);
+    }
+
+    @Test
+    void testBranches_RevalidatesRememberedPages() {
+        branchCount = 3;
+        PaginatedApiClient pageClient = pageClient();
+        GitHubRepositoryProvider provider = provider(pageClient);
+
+        List<BranchInfo> first = provider.branches(REPOSITORY_URL, "token").collectList().block(Duration.ofSeconds(10));
+        List<BranchInfo> second = provider.branches(REPOSITORY_URL, "token").collectList().block(Duration.ofSeconds(10));
+
+        assertEquals(List.of("1", "1 conditional"), requestedPages);
+        assertEquals(first.stream().map(BranchInfo::getSha).toList(), second.stream().map(BranchInfo::getSha).toList());
+        assertEquals(1L, pageClient.getStats().get("notModified"));
+    }
+
+    private PaginatedApiClient pageClient() {
+        return new PaginatedApiClient(WebClient.builder(), new ObjectMapper(), 100);
+    }
+
+    private GitHubRepositoryProvider provider(PaginatedApiClient pageClient) {
+        return new GitHubRepositoryProvider(WebClient.builder(), new ObjectMapper(),
+                                            new RepositoryTreeCache(true, 1000, 100, 60), pageClient, 3, baseUrl());
+    }
+
+    private String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+}
@@ -0,0 +1,124 @@
+package com.archpilot.service.provider;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.archpilot.dto.RepositoryTreeResponse;
+import com.archpilot.dto.RepositoryUrlValidator;
+import com.archpilot.dto.RepositoryVerificationResponse;
+import com.archpilot.model.BranchInfo;
+import com.archpilot.model.CompactRepositoryTree;
+import com.archpilot.service.mirror.GitMirrorManager;
+
+import reactor.core.scheduler.Schedulers;
+
+class LocalRepositoryProviderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path repository;
+    private String repositoryUrl;
+    private GitMirrorManager gitMirrorManager;
+    private LocalRepositoryProvider provider;
+
+    @BeforeEach
+    void createRepository() throws Exception {
+        Assumptions.assumeTrue(gitAvailable(), "git is not installed");
+        repository = tempDir.resolve("repos/app");
+        Files.createDirectories(repository.resolve("src/main/java"));
+        Files.writeString(repository.resolve("README.md"), "# App");
+        Files.writeString(repository.resolve("src/main/java/App.java"), "class App {}");
+        run(repository, "git", "init", "--quiet", "--initial-branch=main");
+        run(repository, "git", "add", "-A");
+        run(repository, "git", "-c", "user.name=Test", "-c", "user.email=test@example.com",
+            "commit", "--quiet", "-m", "Initial commit");
+        run(repository, "git", "branch", "feature");
+        repositoryUrl = repository.toUri().toString();
+
+        gitMirrorManager = new GitMirrorManager(false, tempDir.resolve("mirrors").toString(), 1, 0, 60, 60, "git");
+        provider = new LocalRepositoryProvider(gitMirrorManager, Schedulers.immediate(),
+                                               tempDir.resolve("repos").toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (gitMirrorManager != null) {
+            gitMirrorManager.shutdown();
+        }
+    }
+
+    @Test
+    void testTree_ServesCommittedStateAndBlobsOfWorkingCopy() {
+        RepositoryVerificationResponse verification = provider.verify(repositoryUrl, null).block(Duration.ofSeconds(30));
+        List<BranchInfo> branches = provider.branches(repositoryUrl, null).collectList().block(Duration.ofSeconds(30));
+        RepositoryTreeResponse tree = provider.tree(repositoryUrl, null, null, true, path -> path.endsWith(".java"))
+                .block(Duration.ofSeconds(30));
+
+        assertEquals("main", verification.getRepositoryInfo().getDefaultBranch());
+        assertEquals(List.of("feature", "main"), branches.stream().map(BranchInfo::getName).toList());
+        assertEquals("main", tree.getBranch());
+        CompactRepositoryTree compactTree = tree.getCompactTree();
+        assertEquals(List.of("src/main/java/App.java"),
+                     IntStream.range(0, compactTree.size()).mapToObj(compactTree::path).toList());
+        assertEquals("class App {}", gitMirrorManager.readBlob(repositoryUrl, compactTree.sha(0)).orElseThrow());
+    }
+
+    @Test
+    void testSupports_OnlyRepositoriesBelowConfiguredRoots() throws Exception {
+        Path outside = tempDir.resolve("outside");
+        Files.createDirectories(outside);
+        RepositoryUrlValidator validator = new RepositoryUrlValidator(new RepositoryProviderRegistry(List.of(provider)));
+
+        assertTrue(provider.supports(repositoryUrl));
+        assertFalse(provider.supports(outside.toUri().toString()));
+        assertFalse(provider.supports(repositoryUrl + "../../outside"));
+        assertTrue(validator.isValid(repositoryUrl, null));
+        assertFalse(validator.isValid(outside.toUri().toString(), null));
+
+        LocalRepositoryProvider disabled = new LocalRepositoryProvider(gitMirrorManager, Schedulers.immediate(), "");
+        assertFalse(disabled.supports(repositoryUrl));
+    }
+
+    @Test
+    void testSupports_SymbolicLinksCannotLeaveConfiguredRoots() throws Exception {
+        Path outside = tempDir.resolve("outside");
+        Files.createDirectories(outside);
+        Path link = tempDir.resolve("repos/link");
+        try {
+            Files.createSymbolicLink(link, outside);
+        } catch (UnsupportedOperationException | IOException e) {
+            Assumptions.abort("symbolic links are not supported");
+        }
+
+        assertFalse(provider.supports(link.toUri().toString()));
+    }
+
+    private static boolean gitAvailable() {
+        try {
+            return new ProcessBuilder("git", "--version").start().waitFor() == 0;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static void run(Path directory, String... command) throws Exception {
+        Process process = new ProcessBuilder(command).directory(directory.toFile()).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(process.waitFor(30, TimeUnit.SECONDS) && process.exitValue() == 0, output);
+    }
+}
@@ -0,0 +1,98 @@
+package com.archpilot.service.support;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class SingleFlightTest {
+
+    @Test
+    void testExecute_ConcurrentCallersShareOneExecution() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        AtomicInteger executions = new AtomicInteger();
+        Sinks.One<String> result = Sinks.one();
+
+        Mono<String> first = singleFlight.execute("repo@sha", () -> {
+            executions.incrementAndGet();
+            return result.asMono();
+        });
+        Mono<String> second = singleFlight.execute("repo@sha", () -> {
+            executions.incrementAndGet();
+            return Mono.just("unexpected");
+        });
+
+        AtomicReference<String> firstResult = new AtomicReference<>();
+        AtomicReference<String> secondResult = new AtomicReference<>();
+        first.subscribe(firstResult::set);
+        second.subscribe(secondResult::set);
+        assertTrue(singleFlight.isInFlight("repo@sha"));
+
+        result.tryEmitValue("diagram");
+
+        assertEquals("diagram", firstResult.get());
+        assertEquals("diagram", secondResult.get());
+        assertFalse(singleFlight.isInFlight("repo@sha"));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void testExecute_KeyReleasedAfterCompletion() {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger executions = new AtomicInteger();
+
+        Integer firstRun = singleFlight.execute("repo@sha", () -> Mono.fromCallable(executions::incrementAndGet)).block();
+        Integer secondRun = singleFlight.execute("repo@sha", () -> Mono.fromCallable(executions::incrementAndGet)).block();
+
+        assertEquals(1, firstRun);
+        assertEquals(2, secondRun);
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void testExecute_ErrorIsSharedAndReleased() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+        Mono<String> failing = singleFlight.execute("repo@sha", () -> Mono.error(new IllegalStateException("boom")));
+
+        assertThrows(IllegalStateException.class, failing::block);
+        assertFalse(singleFlight.isInFlight("repo@sha"));
+    }
+
+    @Test
+    void testExecute_DifferentKeysRunIndependently() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+        assertEquals("a", singleFlight.execute("repo@a", () -> Mono.just("a")).block());
+        assertEquals("b", singleFlight.execute("repo@b", () -> Mono.just("b")).block());
+    }
+
+    @Test
+    void testExecute_JoiningCallersShareTheContext() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        Sinks.One<String> result = Sinks.one();
+        List<Object> joinedContexts = new CopyOnWriteArrayList<>();
+        AtomicInteger contexts = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            singleFlight.execute("repo@sha", () -> "context-" + contexts.incrementAndGet(),
+                                 context -> result.asMono(),
+                                 (context, flight) -> {
+                                     joinedContexts.add(context);
+                                     return flight;
+                                 })
+                .subscribe();
+        }
+        result.tryEmitValue("diagram");
+
+        assertEquals(List.of("context-1", "context-1"), joinedContexts);
+        assertEquals(1, contexts.get());
+    }
+}